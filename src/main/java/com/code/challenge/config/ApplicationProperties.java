@@ -1,5 +1,8 @@
 package com.code.challenge.config;
 
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 
 /**
@@ -9,4 +12,271 @@ import org.springframework.boot.context.properties.ConfigurationProperties;
  * See {@link tech.jhipster.config.JHipsterProperties} for a good example.
  */
 @ConfigurationProperties(prefix = "application", ignoreUnknownFields = false)
-public class ApplicationProperties {}
+public class ApplicationProperties {
+
+    private final PlanWriteBehind planWriteBehind = new PlanWriteBehind();
+
+    private final Map<String, CacheRefresh> cacheRefresh = new HashMap<>();
+
+    private final Map<String, CacheRegion> cacheRegions = new HashMap<>();
+
+    private final UserCleanup userCleanup = new UserCleanup();
+
+    private final AuthenticationCache authenticationCache = new AuthenticationCache();
+
+    private final AsyncRequests asyncRequests = new AsyncRequests();
+
+    public PlanWriteBehind getPlanWriteBehind() {
+        return planWriteBehind;
+    }
+
+    public Map<String, CacheRefresh> getCacheRefresh() {
+        return cacheRefresh;
+    }
+
+    public Map<String, CacheRegion> getCacheRegions() {
+        return cacheRegions;
+    }
+
+    public UserCleanup getUserCleanup() {
+        return userCleanup;
+    }
+
+    public AuthenticationCache getAuthenticationCache() {
+        return authenticationCache;
+    }
+
+    public AsyncRequests getAsyncRequests() {
+        return asyncRequests;
+    }
+
+    /**
+     * Write-behind of the partial updates of plans, see {@link com.code.challenge.service.PlanWriteBehindService}.
+     */
+    public static class PlanWriteBehind {
+
+        private boolean enabled = false;
+
+        private Duration window = Duration.ofMillis(50);
+
+        private int maxPending = 10_000;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public Duration getWindow() {
+            return window;
+        }
+
+        public void setWindow(Duration window) {
+            this.window = window;
+        }
+
+        public int getMaxPending() {
+            return maxPending;
+        }
+
+        public void setMaxPending(int maxPending) {
+            this.maxPending = maxPending;
+        }
+    }
+
+    /**
+     * Refresh-ahead and stale-if-error of a cache, see {@link RefreshAheadCache}.
+     */
+    public static class CacheRefresh {
+
+        private double refreshThreshold = 0.8;
+
+        private Duration maxStale = Duration.ZERO;
+
+        /**
+         * @return the share of the time to live after which an entry is reloaded in the background.
+         */
+        public double getRefreshThreshold() {
+            return refreshThreshold;
+        }
+
+        public void setRefreshThreshold(double refreshThreshold) {
+            this.refreshThreshold = refreshThreshold;
+        }
+
+        /**
+         * @return how long an entry is served past its time to live when it cannot be reloaded.
+         */
+        public Duration getMaxStale() {
+            return maxStale;
+        }
+
+        public void setMaxStale(Duration maxStale) {
+            this.maxStale = maxStale;
+        }
+    }
+
+    /**
+     * Size and time to live of a cache, overriding the {@code jhipster.cache.ehcache} defaults, see
+     * {@link CacheConfiguration}.
+     */
+    public static class CacheRegion {
+
+        private Long maxEntries;
+
+        private Duration timeToLive;
+
+        /**
+         * @return the maximum number of entries kept on heap, or {@code null} for the default.
+         */
+        public Long getMaxEntries() {
+            return maxEntries;
+        }
+
+        public void setMaxEntries(Long maxEntries) {
+            this.maxEntries = maxEntries;
+        }
+
+        /**
+         * @return how long an entry is kept, or {@code null} for the default.
+         */
+        public Duration getTimeToLive() {
+            return timeToLive;
+        }
+
+        public void setTimeToLive(Duration timeToLive) {
+            this.timeToLive = timeToLive;
+        }
+    }
+
+    /**
+     * Removal of the users not activated in time, see {@link com.code.challenge.service.UserCleanupService}.
+     */
+    public static class UserCleanup {
+
+        private int chunkSize = 500;
+
+        private int maxUsersPerSecond = 0;
+
+        /**
+         * @return the number of users deleted per transaction.
+         */
+        public int getChunkSize() {
+            return chunkSize;
+        }
+
+        public void setChunkSize(int chunkSize) {
+            this.chunkSize = chunkSize;
+        }
+
+        /**
+         * @return the maximum number of users deleted per second, or {@code 0} for no limit.
+         */
+        public int getMaxUsersPerSecond() {
+            return maxUsersPerSecond;
+        }
+
+        public void setMaxUsersPerSecond(int maxUsersPerSecond) {
+            this.maxUsersPerSecond = maxUsersPerSecond;
+        }
+    }
+
+    /**
+     * Caches of the credentials of the users, see {@link com.code.challenge.repository.UserCredentialsRepository}.
+     */
+    public static class AuthenticationCache {
+
+        private long maxEntries = 10000;
+
+        private Duration timeToLive = Duration.ofHours(1);
+
+        private long negativeMaxEntries = 1000;
+
+        private Duration negativeTimeToLive = Duration.ofMinutes(1);
+
+        /**
+         * @return the maximum number of users in each cache.
+         */
+        public long getMaxEntries() {
+            return maxEntries;
+        }
+
+        public void setMaxEntries(long maxEntries) {
+            this.maxEntries = maxEntries;
+        }
+
+        /**
+         * @return how long the credentials of a user are kept.
+         */
+        public Duration getTimeToLive() {
+            return timeToLive;
+        }
+
+        public void setTimeToLive(Duration timeToLive) {
+            this.timeToLive = timeToLive;
+        }
+
+        /**
+         * @return the maximum number of unknown principals in each cache, apart from the users.
+         */
+        public long getNegativeMaxEntries() {
+            return negativeMaxEntries;
+        }
+
+        public void setNegativeMaxEntries(long negativeMaxEntries) {
+            this.negativeMaxEntries = negativeMaxEntries;
+        }
+
+        /**
+         * @return how long an unknown principal is remembered as unknown.
+         */
+        public Duration getNegativeTimeToLive() {
+            return negativeTimeToLive;
+        }
+
+        public void setNegativeTimeToLive(Duration negativeTimeToLive) {
+            this.negativeTimeToLive = negativeTimeToLive;
+        }
+    }
+
+    /**
+     * Pool of the threads writing the asynchronous responses, such as the plan exports, see {@link WebConfigurer}.
+     */
+    public static class AsyncRequests {
+
+        private int coreSize = 2;
+
+        private int maxSize = 10;
+
+        private int queueCapacity = 100;
+
+        public int getCoreSize() {
+            return coreSize;
+        }
+
+        public void setCoreSize(int coreSize) {
+            this.coreSize = coreSize;
+        }
+
+        public int getMaxSize() {
+            return maxSize;
+        }
+
+        public void setMaxSize(int maxSize) {
+            this.maxSize = maxSize;
+        }
+
+        /**
+         * @return the number of responses waiting for a thread, beyond which the requests are rejected.
+         */
+        public int getQueueCapacity() {
+            return queueCapacity;
+        }
+
+        public void setQueueCapacity(int queueCapacity) {
+            this.queueCapacity = queueCapacity;
+        }
+    }
+}
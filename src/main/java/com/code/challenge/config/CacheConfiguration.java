@@ -1,13 +1,31 @@
 package com.code.challenge.config;
 
+import com.code.challenge.repository.UserCredentialsRepository;
+import com.code.challenge.repository.UserRepository;
+import java.time.Clock;
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
 import org.ehcache.config.builders.*;
 import org.ehcache.jsr107.Eh107Configuration;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
 import org.springframework.boot.autoconfigure.cache.JCacheManagerCustomizer;
 import org.springframework.boot.info.BuildProperties;
 import org.springframework.boot.info.GitProperties;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.CachingConfigurerSupport;
 import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.interceptor.CacheOperationInvocationContext;
+import org.springframework.cache.interceptor.CacheResolver;
 import org.springframework.cache.interceptor.KeyGenerator;
 import org.springframework.context.annotation.*;
 import tech.jhipster.config.JHipsterProperties;
@@ -17,38 +35,118 @@ import tech.jhipster.config.cache.PrefixedKeyGenerator;
 @EnableCaching
 public class CacheConfiguration {
 
+    /**
+     * The authorities are reference data, only written by Liquibase: a handful of entries, kept for a day.
+     */
+    private static final long AUTHORITY_MAX_ENTRIES = 100;
+    private static final Duration AUTHORITY_TIME_TO_LIVE = Duration.ofDays(1);
+
     private GitProperties gitProperties;
     private BuildProperties buildProperties;
-    private final javax.cache.configuration.Configuration<Object, Object> jcacheConfiguration;
+    private final javax.cache.configuration.Configuration<Object, Object> authenticationCacheConfiguration;
+    private final javax.cache.configuration.Configuration<Object, Object> unknownPrincipalCacheConfiguration;
+    private final long maxEntries;
+    private final Duration timeToLive;
+    private final Map<String, ApplicationProperties.CacheRefresh> cacheRefresh;
+    private final Map<String, ApplicationProperties.CacheRegion> cacheRegions;
 
-    public CacheConfiguration(JHipsterProperties jHipsterProperties) {
+    public CacheConfiguration(JHipsterProperties jHipsterProperties, ApplicationProperties applicationProperties) {
         JHipsterProperties.Cache.Ehcache ehcache = jHipsterProperties.getCache().getEhcache();
 
-        jcacheConfiguration =
-            Eh107Configuration.fromEhcacheCacheConfiguration(
-                CacheConfigurationBuilder
-                    .newCacheConfigurationBuilder(Object.class, Object.class, ResourcePoolsBuilder.heap(ehcache.getMaxEntries()))
-                    .withExpiry(ExpiryPolicyBuilder.timeToLiveExpiration(Duration.ofSeconds(ehcache.getTimeToLiveSeconds())))
-                    .build()
-            );
+        maxEntries = ehcache.getMaxEntries();
+        timeToLive = Duration.ofSeconds(ehcache.getTimeToLiveSeconds());
+        ApplicationProperties.AuthenticationCache authenticationCache = applicationProperties.getAuthenticationCache();
+        authenticationCacheConfiguration = cacheConfiguration(authenticationCache.getMaxEntries(), authenticationCache.getTimeToLive());
+        unknownPrincipalCacheConfiguration =
+            cacheConfiguration(authenticationCache.getNegativeMaxEntries(), authenticationCache.getNegativeTimeToLive());
+        cacheRefresh = applicationProperties.getCacheRefresh();
+        cacheRegions = applicationProperties.getCacheRegions();
+    }
+
+    private static javax.cache.configuration.Configuration<Object, Object> cacheConfiguration(long maxEntries, Duration timeToLive) {
+        return Eh107Configuration.fromEhcacheCacheConfiguration(
+            CacheConfigurationBuilder
+                .newCacheConfigurationBuilder(Object.class, Object.class, ResourcePoolsBuilder.heap(maxEntries))
+                .withExpiry(ExpiryPolicyBuilder.timeToLiveExpiration(timeToLive))
+                .build()
+        );
+    }
+
+    /**
+     * Use the application cache manager for the Hibernate second level cache, so its regions are the caches created below.
+     */
+    @Bean
+    public HibernatePropertiesCustomizer hibernatePropertiesCustomizer(javax.cache.CacheManager cacheManager) {
+        return hibernateProperties -> hibernateProperties.put(ConfigSettings.CACHE_MANAGER, cacheManager);
     }
 
     @Bean
     public JCacheManagerCustomizer cacheManagerCustomizer() {
         return cm -> {
-            createCache(cm, com.code.challenge.repository.UserRepository.USERS_BY_LOGIN_CACHE);
-            createCache(cm, com.code.challenge.repository.UserRepository.USERS_BY_EMAIL_CACHE);
+            createRefreshedCache(cm, com.code.challenge.repository.UserRepository.USERS_BY_LOGIN_CACHE);
+            createCache(cm, UserCredentialsRepository.USER_CREDENTIALS_BY_LOGIN_CACHE, authenticationCacheConfiguration);
+            createCache(cm, UserCredentialsRepository.USER_CREDENTIALS_BY_EMAIL_CACHE, authenticationCacheConfiguration);
+            createCache(cm, UserCredentialsRepository.UNKNOWN_USER_CREDENTIALS_BY_LOGIN_CACHE, unknownPrincipalCacheConfiguration);
+            createCache(cm, UserCredentialsRepository.UNKNOWN_USER_CREDENTIALS_BY_EMAIL_CACHE, unknownPrincipalCacheConfiguration);
+            createCache(cm, com.code.challenge.domain.User.class.getName());
+            createCache(cm, com.code.challenge.domain.Authority.class.getName(), AUTHORITY_MAX_ENTRIES, AUTHORITY_TIME_TO_LIVE);
+            createCache(cm, com.code.challenge.domain.User.class.getName() + ".authorities");
+            createCache(cm, com.code.challenge.domain.Plan.class.getName());
+            createCache(cm, com.code.challenge.service.ResponseCacheService.PLANS_CACHE);
+            createCache(cm, com.code.challenge.service.ResponseCacheService.PUBLIC_USERS_CACHE);
+            createCache(
+                cm,
+                com.code.challenge.service.ResponseCacheService.AUTHORITIES_CACHE,
+                AUTHORITY_MAX_ENTRIES,
+                AUTHORITY_TIME_TO_LIVE
+            );
             // jhipster-needle-ehcache-add-entry
         };
     }
 
     private void createCache(javax.cache.CacheManager cm, String cacheName) {
+        createCache(cm, cacheName, maxEntries, timeToLive);
+    }
+
+    /**
+     * Create the cache with the given size and time to live, unless {@code application.cache-regions} configures others
+     * for it.
+     */
+    private void createCache(javax.cache.CacheManager cm, String cacheName, long defaultMaxEntries, Duration defaultTimeToLive) {
+        ApplicationProperties.CacheRegion region = cacheRegions.get(cacheName);
+        long regionMaxEntries = region == null || region.getMaxEntries() == null ? defaultMaxEntries : region.getMaxEntries();
+        Duration regionTimeToLive = region == null || region.getTimeToLive() == null ? defaultTimeToLive : region.getTimeToLive();
+        createCache(cm, cacheName, cacheConfiguration(regionMaxEntries, regionTimeToLive));
+    }
+
+    /**
+     * Create a cache refreshed ahead by {@link RefreshAheadCache}: its entries are kept past their time to live for the
+     * maximum staleness, so they can still be served when they cannot be reloaded.
+     */
+    private void createRefreshedCache(javax.cache.CacheManager cm, String cacheName) {
+        ApplicationProperties.CacheRefresh refresh = cacheRefresh.get(cacheName);
+        if (refresh == null) {
+            createCache(cm, cacheName);
+        } else {
+            createCache(cm, cacheName, cacheConfiguration(maxEntries, timeToLive.plus(refresh.getMaxStale())));
+        }
+    }
+
+    /**
+     * Create the cache, with statistics enabled so that its hits and misses are exported by the cache metrics.
+     */
+    private void createCache(
+        javax.cache.CacheManager cm,
+        String cacheName,
+        javax.cache.configuration.Configuration<Object, Object> configuration
+    ) {
         javax.cache.Cache<Object, Object> cache = cm.getCache(cacheName);
         if (cache != null) {
             cache.clear();
         } else {
-            cm.createCache(cacheName, jcacheConfiguration);
+            cm.createCache(cacheName, configuration);
         }
+        cm.enableStatistics(cacheName, true);
     }
 
     @Autowired(required = false)
@@ -65,4 +163,88 @@ public class CacheConfiguration {
     public KeyGenerator keyGenerator() {
         return new PrefixedKeyGenerator(this.gitProperties, this.buildProperties);
     }
+
+    /**
+     * Resolve the caches of the {@code @Cacheable} methods, wrapping the ones configured in {@code application.cache-refresh}
+     * in a {@link RefreshAheadCache} reloading their entries through the cached repository methods.
+     * <p>
+     * This is a separate configurer so that the {@link #keyGenerator()} bean above is not used by the cache abstraction.
+     */
+    @Configuration
+    public static class RefreshAheadCachingConfiguration extends CachingConfigurerSupport {
+
+        private final Duration timeToLive;
+        private final Map<String, ApplicationProperties.CacheRefresh> cacheRefresh;
+        private final ObjectProvider<CacheManager> cacheManager;
+        private final ObjectProvider<UserRepository> userRepository;
+        private final ObjectProvider<Executor> taskExecutor;
+
+        public RefreshAheadCachingConfiguration(
+            JHipsterProperties jHipsterProperties,
+            ApplicationProperties applicationProperties,
+            ObjectProvider<CacheManager> cacheManager,
+            ObjectProvider<UserRepository> userRepository,
+            @Qualifier("taskExecutor") ObjectProvider<Executor> taskExecutor
+        ) {
+            this.timeToLive = Duration.ofSeconds(jHipsterProperties.getCache().getEhcache().getTimeToLiveSeconds());
+            this.cacheRefresh = applicationProperties.getCacheRefresh();
+            this.cacheManager = cacheManager;
+            this.userRepository = userRepository;
+            this.taskExecutor = taskExecutor;
+        }
+
+        @Override
+        public CacheResolver cacheResolver() {
+            Map<String, Function<Object, ?>> loaders = Map.of(
+                UserRepository.USERS_BY_LOGIN_CACHE,
+                login -> userRepository.getObject().findOneWithAuthoritiesByLogin((String) login)
+            );
+            return new RefreshAheadCacheResolver(loaders);
+        }
+
+        /**
+         * Cache resolver decorating the caches refreshed ahead, and returning the other ones as they are.
+         */
+        private class RefreshAheadCacheResolver implements CacheResolver {
+
+            private final Map<String, Function<Object, ?>> loaders;
+
+            private final Map<String, Cache> refreshedCaches = new ConcurrentHashMap<>();
+
+            RefreshAheadCacheResolver(Map<String, Function<Object, ?>> loaders) {
+                this.loaders = loaders;
+            }
+
+            @Override
+            public Collection<? extends Cache> resolveCaches(CacheOperationInvocationContext<?> context) {
+                Collection<String> cacheNames = context.getOperation().getCacheNames();
+                Collection<Cache> result = new ArrayList<>(cacheNames.size());
+                for (String cacheName : cacheNames) {
+                    Cache cache = cacheManager.getObject().getCache(cacheName);
+                    if (cache == null) {
+                        throw new IllegalArgumentException("Cannot find cache named '" + cacheName + "' for " + context.getOperation());
+                    }
+                    result.add(refreshedCaches.computeIfAbsent(cacheName, name -> decorate(cache)));
+                }
+                return result;
+            }
+
+            private Cache decorate(Cache cache) {
+                ApplicationProperties.CacheRefresh refresh = cacheRefresh.get(cache.getName());
+                Function<Object, ?> loader = loaders.get(cache.getName());
+                if (refresh == null || loader == null) {
+                    return cache;
+                }
+                return new RefreshAheadCache(
+                    cache,
+                    loader,
+                    taskExecutor.getObject(),
+                    Clock.systemUTC(),
+                    Duration.ofMillis((long) (timeToLive.toMillis() * refresh.getRefreshThreshold())),
+                    timeToLive,
+                    refresh.getMaxStale()
+                );
+            }
+        }
+    }
 }
@@ -1,16 +1,23 @@
 package com.code.challenge.config;
 
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
 import com.fasterxml.jackson.datatype.hibernate5.Hibernate5Module;
 import com.fasterxml.jackson.datatype.jdk8.Jdk8Module;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
 import org.zalando.problem.ProblemModule;
 import org.zalando.problem.violations.ConstraintViolationProblemModule;
 
 @Configuration
 public class JacksonConfiguration {
 
+    public static final String APPLICATION_SMILE_VALUE = "application/x-jackson-smile";
+
     /**
      * Support for Java date and time API.
      * @return the corresponding Jackson module.
@@ -48,4 +55,29 @@ public class JacksonConfiguration {
     public ConstraintViolationProblemModule constraintViolationProblemModule() {
         return new ConstraintViolationProblemModule();
     }
+
+    /**
+     * Support for the Smile binary format, negotiated with the {@code application/x-jackson-smile} media type.
+     * <p>
+     * It replaces the converter Spring MVC registers by default, whose mapper lacks the modules above; JSON stays the
+     * default format, as its converter comes first.
+     *
+     * @param builder the builder of the application mappers, with the modules and the Jackson properties applied.
+     * @return the Smile message converter.
+     */
+    @Bean
+    public MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2SmileHttpMessageConverter(builder.factory(new SmileFactory()).build());
+    }
+
+    /**
+     * Support for the CBOR binary format, negotiated with the {@code application/cbor} media type.
+     *
+     * @param builder the builder of the application mappers, with the modules and the Jackson properties applied.
+     * @return the CBOR message converter.
+     */
+    @Bean
+    public MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2CborHttpMessageConverter(builder.factory(new CBORFactory()).build());
+    }
 }
@@ -0,0 +1,238 @@
+package com.code.challenge.config;
+
+import java.io.Serializable;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Function;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cache.Cache;
+import org.springframework.cache.support.SimpleValueWrapper;
+
+/**
+ * Cache decorator refreshing its entries ahead of their expiry, and serving them stale when they cannot be refreshed.
+ * <p>
+ * Entries are stored with the time they were loaded. An entry older than the refresh threshold is still served, while it is
+ * reloaded in the background, so hot keys never expire on a request thread. An entry older than the time to live is reloaded
+ * on the request thread: if that fails, for instance because the database is briefly unavailable, the stale entry is served
+ * until it is older than the time to live plus the maximum staleness. The underlying cache must keep its entries that long.
+ * <p>
+ * Reloads go through the cached method itself, with this cache bypassed, so they are stored by the caching interceptor.
+ */
+public class RefreshAheadCache implements Cache {
+
+    private static final ThreadLocal<Boolean> BYPASS = ThreadLocal.withInitial(() -> false);
+
+    private final Logger log = LoggerFactory.getLogger(RefreshAheadCache.class);
+
+    private final Cache delegate;
+
+    private final Function<Object, ?> loader;
+
+    private final Executor executor;
+
+    private final Clock clock;
+
+    private final long refreshAfterMillis;
+
+    private final long timeToLiveMillis;
+
+    private final long maxStaleMillis;
+
+    private final Set<Object> refreshing = ConcurrentHashMap.newKeySet();
+
+    /**
+     * @param delegate the cache storing the entries, for at least {@code timeToLive} plus {@code maxStale}.
+     * @param loader the cached method, called with the key of an entry to reload it.
+     * @param executor the executor of the background reloads.
+     * @param clock the clock dating the entries.
+     * @param refreshAfter the age from which an entry is reloaded in the background.
+     * @param timeToLive the age from which an entry is reloaded on the request thread.
+     * @param maxStale how long an entry can be served past its time to live when it cannot be reloaded.
+     */
+    public RefreshAheadCache(
+        Cache delegate,
+        Function<Object, ?> loader,
+        Executor executor,
+        Clock clock,
+        Duration refreshAfter,
+        Duration timeToLive,
+        Duration maxStale
+    ) {
+        this.delegate = delegate;
+        this.loader = loader;
+        this.executor = executor;
+        this.clock = clock;
+        this.refreshAfterMillis = refreshAfter.toMillis();
+        this.timeToLiveMillis = timeToLive.toMillis();
+        this.maxStaleMillis = maxStale.toMillis();
+    }
+
+    @Override
+    public String getName() {
+        return delegate.getName();
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return delegate.getNativeCache();
+    }
+
+    @Override
+    public ValueWrapper get(Object key) {
+        if (BYPASS.get()) {
+            return null;
+        }
+        Entry entry = getEntry(key);
+        if (entry == null) {
+            return null;
+        }
+        long age = clock.millis() - entry.loadedAt;
+        if (age < refreshAfterMillis) {
+            return new SimpleValueWrapper(entry.value);
+        }
+        if (age < timeToLiveMillis) {
+            refreshAsync(key);
+            return new SimpleValueWrapper(entry.value);
+        }
+        if (age >= timeToLiveMillis + maxStaleMillis) {
+            return null;
+        }
+        try {
+            reload(key);
+        } catch (RuntimeException e) {
+            log.warn("Could not reload the entry {} of cache {}, serving it stale: {}", key, getName(), e.getMessage());
+            return new SimpleValueWrapper(entry.value);
+        }
+        Entry reloaded = getEntry(key);
+        return reloaded == null ? null : new SimpleValueWrapper(reloaded.value);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Class<T> type) {
+        ValueWrapper wrapper = get(key);
+        Object value = wrapper == null ? null : wrapper.get();
+        if (value != null && type != null && !type.isInstance(value)) {
+            throw new IllegalStateException("Cached value is not of required type [" + type.getName() + "]: " + value);
+        }
+        return (T) value;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        ValueWrapper wrapper = get(key);
+        if (wrapper != null) {
+            return (T) wrapper.get();
+        }
+        T value;
+        try {
+            value = valueLoader.call();
+        } catch (Exception e) {
+            throw new ValueRetrievalException(key, valueLoader, e);
+        }
+        put(key, value);
+        return value;
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        delegate.put(key, new Entry(value, clock.millis()));
+    }
+
+    @Override
+    public ValueWrapper putIfAbsent(Object key, Object value) {
+        ValueWrapper existing = delegate.putIfAbsent(key, new Entry(value, clock.millis()));
+        if (existing == null) {
+            return null;
+        }
+        Object stored = existing.get();
+        return stored instanceof Entry ? new SimpleValueWrapper(((Entry) stored).value) : existing;
+    }
+
+    @Override
+    public void evict(Object key) {
+        delegate.evict(key);
+    }
+
+    @Override
+    public boolean evictIfPresent(Object key) {
+        return delegate.evictIfPresent(key);
+    }
+
+    @Override
+    public void clear() {
+        delegate.clear();
+    }
+
+    @Override
+    public boolean invalidate() {
+        return delegate.invalidate();
+    }
+
+    private Entry getEntry(Object key) {
+        ValueWrapper wrapper = delegate.get(key);
+        if (wrapper == null) {
+            return null;
+        }
+        Object stored = wrapper.get();
+        // Stored through the cache manager, not this cache: consider it fresh
+        return stored instanceof Entry ? (Entry) stored : new Entry(stored, clock.millis());
+    }
+
+    private void refreshAsync(Object key) {
+        if (!refreshing.add(key)) {
+            return;
+        }
+        try {
+            executor.execute(
+                () -> {
+                    try {
+                        reload(key);
+                    } catch (RuntimeException e) {
+                        log.warn("Could not refresh the entry {} of cache {}: {}", key, getName(), e.getMessage());
+                    } finally {
+                        refreshing.remove(key);
+                    }
+                }
+            );
+        } catch (RejectedExecutionException e) {
+            refreshing.remove(key);
+            log.debug("Could not schedule the refresh of the entry {} of cache {}: {}", key, getName(), e.getMessage());
+        }
+    }
+
+    private void reload(Object key) {
+        log.debug("Reloading the entry {} of cache {}", key, getName());
+        boolean bypass = BYPASS.get();
+        BYPASS.set(true);
+        try {
+            loader.apply(key);
+        } finally {
+            BYPASS.set(bypass);
+        }
+    }
+
+    /**
+     * A cached value, with the time it was loaded.
+     */
+    static final class Entry implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        private final Object value;
+
+        private final long loadedAt;
+
+        Entry(Object value, long loadedAt) {
+            this.value = value;
+            this.loadedAt = loadedAt;
+        }
+    }
+}
@@ -8,12 +8,19 @@ import javax.persistence.Id;
 import javax.persistence.Table;
 import javax.validation.constraints.NotNull;
 import javax.validation.constraints.Size;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.Immutable;
 
 /**
  * An authority (a security role) used by Spring Security.
+ * <p>
+ * Its only column is its id, so it is never updated, only inserted or deleted: it is immutable, and cached read-only.
  */
 @Entity
 @Table(name = "jhi_authority")
+@Immutable
+@Cache(usage = CacheConcurrencyStrategy.READ_ONLY)
 public class Authority implements Serializable {
 
     private static final long serialVersionUID = 1L;
@@ -1,33 +1,62 @@
 package com.code.challenge.domain;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import java.io.Serializable;
 import javax.persistence.*;
 import javax.validation.constraints.*;
+import javax.validation.groups.Default;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 /**
  * A Plan.
  */
 @Entity
 @Table(name = "plan")
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 public class Plan implements Serializable {
 
     private static final long serialVersionUID = 1L;
 
+    /**
+     * Validation group of a partial update: only the fields it sets are checked, the others being left unchanged.
+     */
+    public interface PartialUpdate {}
+
     @Id
     private Long id;
 
     @NotNull
+    @Pattern(regexp = "(?s).*\\S.*", message = "must not be blank", groups = { Default.class, PartialUpdate.class })
     @Column(name = "plan", nullable = false, unique = true)
     private String plan;
 
     @NotNull
+    @Min(value = 0, groups = { Default.class, PartialUpdate.class })
     @Column(name = "deductible", nullable = false)
     private Integer deductible;
 
     @NotNull
+    @DecimalMin(value = "0", groups = { Default.class, PartialUpdate.class })
     @Column(name = "co_pay", nullable = false)
     private Double coPay;
 
+    /**
+     * Incremented on each update, to detect concurrent updates and to tag the representations of the plan.
+     */
+    @Version
+    @Column(name = "version", nullable = false)
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private Long version;
+
+    /**
+     * The change sequence of the last write of the plan, to sync the plans changed since a given point.
+     */
+    @JsonIgnore
+    @Column(name = "change_seq", nullable = false)
+    private Long changeSeq = 0L;
+
     @OneToOne(optional = false)
     @NotNull
     @MapsId
@@ -87,6 +116,32 @@ public class Plan implements Serializable {
         this.coPay = coPay;
     }
 
+    public Long getVersion() {
+        return this.version;
+    }
+
+    public Plan version(Long version) {
+        this.version = version;
+        return this;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
+    public Long getChangeSeq() {
+        return this.changeSeq;
+    }
+
+    public Plan changeSeq(Long changeSeq) {
+        this.changeSeq = changeSeq;
+        return this;
+    }
+
+    public void setChangeSeq(Long changeSeq) {
+        this.changeSeq = changeSeq;
+    }
+
     public User getUser() {
         return this.user;
     }
@@ -127,6 +182,7 @@ public class Plan implements Serializable {
             ", plan='" + getPlan() + "'" +
             ", deductible=" + getDeductible() +
             ", coPay=" + getCoPay() +
+            ", version=" + getVersion() +
             "}";
     }
 }
@@ -0,0 +1,75 @@
+package com.code.challenge.domain;
+
+import java.io.Serializable;
+import javax.persistence.*;
+
+/**
+ * The trace of a deleted {@link Plan}, kept so that clients syncing the plans learn about the deletion.
+ */
+@Entity
+@Table(name = "plan_tombstone")
+public class PlanTombstone implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    @Id
+    private Long id;
+
+    /**
+     * The change sequence of the deletion.
+     */
+    @Column(name = "change_seq", nullable = false)
+    private Long changeSeq;
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public PlanTombstone id(Long id) {
+        this.id = id;
+        return this;
+    }
+
+    public Long getChangeSeq() {
+        return this.changeSeq;
+    }
+
+    public PlanTombstone changeSeq(Long changeSeq) {
+        this.changeSeq = changeSeq;
+        return this;
+    }
+
+    public void setChangeSeq(Long changeSeq) {
+        this.changeSeq = changeSeq;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof PlanTombstone)) {
+            return false;
+        }
+        return id != null && id.equals(((PlanTombstone) o).id);
+    }
+
+    @Override
+    public int hashCode() {
+        // see https://vladmihalcea.com/how-to-implement-equals-and-hashcode-using-the-jpa-entity-identifier/
+        return getClass().hashCode();
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "PlanTombstone{" +
+            "id=" + getId() +
+            ", changeSeq=" + getChangeSeq() +
+            "}";
+    }
+}
@@ -1,7 +1,17 @@
 package com.code.challenge.repository;
 
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.QueryHints.HINT_READONLY;
+
 import com.code.challenge.domain.Plan;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+import javax.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.*;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 /**
@@ -9,4 +19,88 @@ import org.springframework.stereotype.Repository;
  */
 @SuppressWarnings("unused")
 @Repository
-public interface PlanRepository extends JpaRepository<Plan, Long> {}
+public interface PlanRepository extends JpaRepository<Plan, Long>, JpaSpecificationExecutor<Plan>, PlanUpsertRepository {
+    String EXPORT_FETCH_SIZE = "500";
+
+    /**
+     * Stream all the plans, in id order, fetching rows from the database {@link #EXPORT_FETCH_SIZE} at a time.
+     * <p>
+     * The stream must be consumed and closed inside a transaction.
+     */
+    @QueryHints({ @QueryHint(name = HINT_FETCH_SIZE, value = EXPORT_FETCH_SIZE), @QueryHint(name = HINT_READONLY, value = "true") })
+    @Query("select plan from Plan plan join fetch plan.user order by plan.id asc")
+    Stream<Plan> streamAllByOrderByIdAsc();
+
+    /**
+     * Stream the id, the deductible and the co-pay of all the plans, fetching rows from the database {@link #EXPORT_FETCH_SIZE} at a time.
+     * <p>
+     * The stream must be consumed and closed inside a transaction.
+     */
+    @QueryHints({ @QueryHint(name = HINT_FETCH_SIZE, value = EXPORT_FETCH_SIZE), @QueryHint(name = HINT_READONLY, value = "true") })
+    @Query("select plan.id as id, plan.deductible as deductible, plan.coPay as coPay from Plan plan")
+    Stream<PlanAmounts> streamAllAmounts();
+
+    @Query("select plan.id as id, plan.deductible as deductible, plan.coPay as coPay from Plan plan where plan.id in :ids")
+    List<PlanAmounts> findAllAmountsByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Query("select plan.id from Plan plan where plan.id in :ids")
+    Set<Long> findAllIdsByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Query("select plan.plan from Plan plan where plan.plan in :plans")
+    Set<String> findAllPlansByPlanIn(@Param("plans") Collection<String> plans);
+
+    boolean existsByPlanAndIdNot(String plan, Long id);
+
+    /**
+     * Find the plans written after the given change, in change order.
+     * <p>
+     * Changes are ordered by change sequence, then by id, as the plans written together share their change sequence.
+     *
+     * @param changeSeq the change sequence of the last change already read.
+     * @param id the id of the last change already read.
+     * @param maxChangeSeq the highest change sequence to read.
+     * @param pageable the number of changes to read.
+     * @return the plans, with the id and login of their user.
+     */
+    @Query(
+        "select plan.id as id, plan.plan as plan, plan.deductible as deductible, plan.coPay as coPay, plan.changeSeq as changeSeq, " +
+        "user.login as userLogin from Plan plan join plan.user user " +
+        "where plan.changeSeq >= :changeSeq and (plan.changeSeq > :changeSeq or plan.id > :id) and plan.changeSeq <= :maxChangeSeq " +
+        "order by plan.changeSeq asc, plan.id asc"
+    )
+    List<PlanChange> findAllChangedAfter(
+        @Param("changeSeq") long changeSeq,
+        @Param("id") long id,
+        @Param("maxChangeSeq") long maxChangeSeq,
+        Pageable pageable
+    );
+
+    @Query("select max(plan.changeSeq) from Plan plan")
+    Long findMaxChangeSeq();
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("delete from Plan plan where plan.id in :ids")
+    int deleteAllByIdIn(@Param("ids") Collection<Long> ids);
+
+    /**
+     * The amounts of a plan, without its other columns.
+     */
+    interface PlanAmounts {
+        Long getId();
+
+        Integer getDeductible();
+
+        Double getCoPay();
+    }
+
+    /**
+     * A written plan, with its change sequence and the login of its user.
+     */
+    interface PlanChange extends PlanAmounts {
+        String getPlan();
+
+        Long getChangeSeq();
+
+        String getUserLogin();
+    }
+}
@@ -0,0 +1,40 @@
+package com.code.challenge.repository;
+
+import com.code.challenge.domain.PlanTombstone;
+import java.util.Collection;
+import java.util.List;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.*;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Spring Data SQL repository for the PlanTombstone entity.
+ */
+@SuppressWarnings("unused")
+@Repository
+public interface PlanTombstoneRepository extends JpaRepository<PlanTombstone, Long> {
+    /**
+     * Find the tombstones written after the given change, in change order, see
+     * {@link PlanRepository#findAllChangedAfter(long, long, long, Pageable)}.
+     */
+    @Query(
+        "select tombstone from PlanTombstone tombstone " +
+        "where tombstone.changeSeq >= :changeSeq and (tombstone.changeSeq > :changeSeq or tombstone.id > :id) " +
+        "and tombstone.changeSeq <= :maxChangeSeq " +
+        "order by tombstone.changeSeq asc, tombstone.id asc"
+    )
+    List<PlanTombstone> findAllChangedAfter(
+        @Param("changeSeq") long changeSeq,
+        @Param("id") long id,
+        @Param("maxChangeSeq") long maxChangeSeq,
+        Pageable pageable
+    );
+
+    @Query("select max(tombstone.changeSeq) from PlanTombstone tombstone")
+    Long findMaxChangeSeq();
+
+    @Modifying(flushAutomatically = true)
+    @Query("delete from PlanTombstone tombstone where tombstone.id in :ids")
+    int deleteAllByIdIn(@Param("ids") Collection<Long> ids);
+}
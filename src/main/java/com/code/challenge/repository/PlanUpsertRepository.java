@@ -0,0 +1,55 @@
+package com.code.challenge.repository;
+
+import com.code.challenge.domain.Plan;
+import java.util.Optional;
+
+/**
+ * Native single statement updates of the Plan entity, see {@link PlanRepository}; plans are created through
+ * {@link PlanRepository#save(Object)}.
+ */
+public interface PlanUpsertRepository {
+    /**
+     * Update an existing plan with a single statement, which returns the previous state of the plan.
+     * <p>
+     * The plan is written as is, bypassing the persistence context: managed and cached copies of the plan are evicted.
+     *
+     * @param plan the plan to write, whose id is also the id of its user; its user is not read.
+     * @param expectedVersion the version the plan must have, or {@code null} to update any version.
+     * @return the plan before and after the update, or empty if the plan does not exist.
+     * @throws org.springframework.dao.OptimisticLockingFailureException if an expected version is given, and the plan does not exist
+     * or has another version.
+     */
+    Optional<Upsert> upsert(Plan plan, Long expectedVersion);
+
+    /**
+     * The outcome of an update: detached plans, without their user.
+     */
+    class Upsert {
+
+        private final Plan before;
+
+        private final Plan after;
+
+        public Upsert(Plan before, Plan after) {
+            this.before = before;
+            this.after = after;
+        }
+
+        public Plan getBefore() {
+            return before;
+        }
+
+        public Plan getAfter() {
+            return after;
+        }
+
+        // prettier-ignore
+        @Override
+        public String toString() {
+            return "Upsert{" +
+                "before=" + before +
+                ", after=" + after +
+                "}";
+        }
+    }
+}
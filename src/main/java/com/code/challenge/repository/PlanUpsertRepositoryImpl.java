@@ -0,0 +1,133 @@
+package com.code.challenge.repository;
+
+import com.code.challenge.domain.Plan;
+import java.util.List;
+import java.util.Optional;
+import javax.persistence.EntityManager;
+import org.hibernate.dialect.Dialect;
+import org.hibernate.dialect.H2Dialect;
+import org.hibernate.dialect.PostgreSQL81Dialect;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.query.NativeQuery;
+import org.hibernate.type.DoubleType;
+import org.hibernate.type.IntegerType;
+import org.hibernate.type.LongType;
+import org.hibernate.type.StringType;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Native implementation of {@link PlanUpsertRepository}: {@code UPDATE ... RETURNING} on PostgreSQL, and {@code MERGE} on H2.
+ * <p>
+ * Both statements only write the plan if it exists and, when a version is expected, if the plan has that version.
+ * They return one row with the new version and the previous columns of the plan, or none if nothing was written.
+ */
+public class PlanUpsertRepositoryImpl implements PlanUpsertRepository {
+
+    /**
+     * The previous columns are read with {@code FOR UPDATE}: the row is locked, and read as last committed rather than as in
+     * the snapshot of the statement, so that a concurrent write is waited for and the previous columns are the ones it wrote.
+     */
+    private static final String POSTGRESQL_UPDATE =
+        "UPDATE plan SET plan = :plan, deductible = :deductible, co_pay = :coPay, version = old.version + 1, change_seq = :changeSeq " +
+        "FROM (SELECT id, plan, deductible, co_pay, version FROM plan WHERE id = :id FOR UPDATE) old " +
+        "WHERE plan.id = old.id AND (:anyVersion OR old.version = :expectedVersion) " +
+        "RETURNING plan.id AS id, plan.version AS version, old.plan AS old_plan, old.deductible AS old_deductible, " +
+        "old.co_pay AS old_co_pay, old.version AS old_version";
+
+    /**
+     * H2 has no {@code RETURNING} clause: the previous columns come from the {@code OLD TABLE} of a merge of the existing row,
+     * which locks it; not of an {@code UPDATE}, whose delta table H2 1.4.200 does not run again when the statement is reused.
+     */
+    private static final String H2_UPDATE =
+        "SELECT o.id AS id, o.version + 1 AS version, o.plan AS old_plan, o.deductible AS old_deductible, " +
+        "o.co_pay AS old_co_pay, o.version AS old_version " +
+        "FROM OLD TABLE (" +
+        "MERGE INTO plan (id, plan, deductible, co_pay, version, change_seq) KEY (id) " +
+        "SELECT p.id, :plan, :deductible, :coPay, p.version + 1, :changeSeq FROM plan p " +
+        "WHERE p.id = :id AND (:anyVersion OR p.version = :expectedVersion)" +
+        ") o";
+
+    private final EntityManager entityManager;
+
+    private String updateSql;
+
+    public PlanUpsertRepositoryImpl(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Optional<Upsert> upsert(Plan plan, Long expectedVersion) {
+        Long id = plan.getId();
+        List<Object[]> rows = entityManager
+            .createNativeQuery(getUpdateSql())
+            .setParameter("id", id)
+            .setParameter("plan", plan.getPlan())
+            .setParameter("deductible", plan.getDeductible())
+            .setParameter("coPay", plan.getCoPay())
+            .setParameter("changeSeq", plan.getChangeSeq())
+            .setParameter("anyVersion", expectedVersion == null)
+            .setParameter("expectedVersion", expectedVersion == null ? -1L : expectedVersion)
+            .unwrap(NativeQuery.class)
+            .addSynchronizedEntityClass(Plan.class)
+            .addScalar("id", LongType.INSTANCE)
+            .addScalar("version", LongType.INSTANCE)
+            .addScalar("old_plan", StringType.INSTANCE)
+            .addScalar("old_deductible", IntegerType.INSTANCE)
+            .addScalar("old_co_pay", DoubleType.INSTANCE)
+            .addScalar("old_version", LongType.INSTANCE)
+            .getResultList();
+        if (rows.isEmpty()) {
+            if (expectedVersion != null) {
+                throw new ObjectOptimisticLockingFailureException(Plan.class, id);
+            }
+            return Optional.empty();
+        }
+        Object[] row = rows.get(0);
+        evict(id);
+        Plan before = new Plan().id(id).plan((String) row[2]).deductible((Integer) row[3]).coPay((Double) row[4]).version((Long) row[5]);
+        Plan after = new Plan()
+            .id(id)
+            .plan(plan.getPlan())
+            .deductible(plan.getDeductible())
+            .coPay(plan.getCoPay())
+            .version((Long) row[1])
+            .changeSeq(plan.getChangeSeq());
+        return Optional.of(new Upsert(before, after));
+    }
+
+    /**
+     * Evict the copies of the plan from the persistence context and from the second level cache, now and when the transaction
+     * completes, so that no copy read before the commit outlives it.
+     */
+    private void evict(Long id) {
+        entityManager.detach(entityManager.getReference(Plan.class, id));
+        entityManager.getEntityManagerFactory().getCache().evict(Plan.class, id);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(
+                new TransactionSynchronization() {
+                    @Override
+                    public void afterCompletion(int status) {
+                        entityManager.getEntityManagerFactory().getCache().evict(Plan.class, id);
+                    }
+                }
+            );
+        }
+    }
+
+    private String getUpdateSql() {
+        if (updateSql == null) {
+            Dialect dialect = entityManager.getEntityManagerFactory().unwrap(SessionFactoryImplementor.class).getJdbcServices().getDialect();
+            if (dialect instanceof PostgreSQL81Dialect) {
+                updateSql = POSTGRESQL_UPDATE;
+            } else if (dialect instanceof H2Dialect) {
+                updateSql = H2_UPDATE;
+            } else {
+                throw new IllegalStateException("Plan updates are not supported with " + dialect);
+            }
+        }
+        return updateSql;
+    }
+}
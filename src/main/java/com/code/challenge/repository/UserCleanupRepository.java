@@ -0,0 +1,19 @@
+package com.code.challenge.repository;
+
+import java.util.Collection;
+
+/**
+ * Set-based deletes of users, see {@link UserRepository}.
+ */
+public interface UserCleanupRepository {
+    /**
+     * Delete users and their authorities with one statement each, without loading them.
+     * <p>
+     * Only the users and their authorities are evicted from the second level cache. The users must not have a plan.
+     * The persistence context is flushed before, and cleared after, as with {@code @Modifying}.
+     *
+     * @param ids the ids of the users.
+     * @return the number of deleted users.
+     */
+    int deleteAllWithAuthoritiesByIdIn(Collection<Long> ids);
+}
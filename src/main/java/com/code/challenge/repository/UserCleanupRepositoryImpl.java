@@ -0,0 +1,38 @@
+package com.code.challenge.repository;
+
+import com.code.challenge.domain.User;
+import java.util.Collection;
+import javax.persistence.EntityManager;
+import org.hibernate.query.NativeQuery;
+
+/**
+ * Implementation of {@link UserCleanupRepository}: a native delete of the join table, then a bulk delete of the users.
+ */
+public class UserCleanupRepositoryImpl implements UserCleanupRepository {
+
+    private static final String USER_AUTHORITY_TABLE = "jhi_user_authority";
+
+    private final EntityManager entityManager;
+
+    public UserCleanupRepositoryImpl(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    @Override
+    public int deleteAllWithAuthoritiesByIdIn(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        entityManager.flush();
+        // Without a query space, Hibernate would evict the whole second level cache
+        entityManager
+            .createNativeQuery("DELETE FROM " + USER_AUTHORITY_TABLE + " WHERE user_id IN (:ids)")
+            .setParameter("ids", ids)
+            .unwrap(NativeQuery.class)
+            .addSynchronizedQuerySpace(USER_AUTHORITY_TABLE)
+            .executeUpdate();
+        int deleted = entityManager.createQuery("delete from User user where user.id in :ids").setParameter("ids", ids).executeUpdate();
+        entityManager.clear();
+        return deleted;
+    }
+}
@@ -0,0 +1,54 @@
+package com.code.challenge.repository;
+
+import java.io.Serializable;
+import java.util.Set;
+
+/**
+ * What authenticating a user needs of it: its login, password hash, activation and authority names, without the other
+ * columns of the {@link com.code.challenge.domain.User} entity, see {@link UserCredentialsRepository}.
+ */
+public final class UserCredentials implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final String login;
+
+    private final String password;
+
+    private final boolean activated;
+
+    private final Set<String> authorities;
+
+    public UserCredentials(String login, String password, boolean activated, Set<String> authorities) {
+        this.login = login;
+        this.password = password;
+        this.activated = activated;
+        this.authorities = Set.copyOf(authorities);
+    }
+
+    public String getLogin() {
+        return login;
+    }
+
+    public String getPassword() {
+        return password;
+    }
+
+    public boolean isActivated() {
+        return activated;
+    }
+
+    public Set<String> getAuthorities() {
+        return authorities;
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "UserCredentials{" +
+            "login='" + login + '\'' +
+            ", activated=" + activated +
+            ", authorities=" + authorities +
+            "}";
+    }
+}
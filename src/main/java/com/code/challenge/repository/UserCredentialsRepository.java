@@ -0,0 +1,49 @@
+package com.code.challenge.repository;
+
+import java.util.Optional;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
+
+/**
+ * Lookups of the {@link UserCredentials} of a user, for authentication, see {@link UserRepository}.
+ * <p>
+ * Both are cached, the unknown principals too: an empty result is cached as a {@code null} entry in a cache of its own, smaller
+ * and with a shorter time to live, so that guessing principals does not evict the credentials of the users, see
+ * {@link com.code.challenge.config.CacheConfiguration}.
+ */
+public interface UserCredentialsRepository {
+    String USER_CREDENTIALS_BY_LOGIN_CACHE = "userCredentialsByLogin";
+
+    String USER_CREDENTIALS_BY_EMAIL_CACHE = "userCredentialsByEmail";
+
+    String UNKNOWN_USER_CREDENTIALS_BY_LOGIN_CACHE = "unknownUserCredentialsByLogin";
+
+    String UNKNOWN_USER_CREDENTIALS_BY_EMAIL_CACHE = "unknownUserCredentialsByEmail";
+
+    /**
+     * @param login the login, in lower case.
+     * @return the credentials of the user, or empty if there is no user with that login.
+     */
+    @Caching(
+        cacheable = {
+            @Cacheable(cacheNames = USER_CREDENTIALS_BY_LOGIN_CACHE, unless = "#result == null"),
+            @Cacheable(cacheNames = UNKNOWN_USER_CREDENTIALS_BY_LOGIN_CACHE, unless = "#result != null"),
+        }
+    )
+    Optional<UserCredentials> findCredentialsByLogin(String login);
+
+    /**
+     * Find a user by email, with an equality on the column, which can use its unique index: the emails are stored in lower
+     * case.
+     *
+     * @param email the email, in lower case.
+     * @return the credentials of the user, or empty if there is no user with that email.
+     */
+    @Caching(
+        cacheable = {
+            @Cacheable(cacheNames = USER_CREDENTIALS_BY_EMAIL_CACHE, unless = "#result == null"),
+            @Cacheable(cacheNames = UNKNOWN_USER_CREDENTIALS_BY_EMAIL_CACHE, unless = "#result != null"),
+        }
+    )
+    Optional<UserCredentials> findCredentialsByEmail(String email);
+}
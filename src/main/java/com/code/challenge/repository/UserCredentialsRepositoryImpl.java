@@ -0,0 +1,50 @@
+package com.code.challenge.repository;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import javax.persistence.EntityManager;
+
+/**
+ * Implementation of {@link UserCredentialsRepository}: a single query, reading one row per authority of the user.
+ */
+public class UserCredentialsRepositoryImpl implements UserCredentialsRepository {
+
+    private static final String SELECT_CREDENTIALS =
+        "select user.login, user.password, user.activated, authority.name from User user left join user.authorities authority ";
+
+    private final EntityManager entityManager;
+
+    public UserCredentialsRepositoryImpl(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    @Override
+    public Optional<UserCredentials> findCredentialsByLogin(String login) {
+        return findCredentials("where user.login = :key", login);
+    }
+
+    @Override
+    public Optional<UserCredentials> findCredentialsByEmail(String email) {
+        return findCredentials("where user.email = :key", email);
+    }
+
+    private Optional<UserCredentials> findCredentials(String where, String key) {
+        List<Object[]> rows = entityManager
+            .createQuery(SELECT_CREDENTIALS + where, Object[].class)
+            .setParameter("key", key)
+            .getResultList();
+        if (rows.isEmpty()) {
+            return Optional.empty();
+        }
+        Object[] first = rows.get(0);
+        Set<String> authorities = new HashSet<>();
+        for (Object[] row : rows) {
+            if (row[3] != null) {
+                authorities.add((String) row[3]);
+            }
+        }
+        return Optional.of(new UserCredentials((String) first[0], (String) first[1], (Boolean) first[2], authorities));
+    }
+}
@@ -0,0 +1,17 @@
+package com.code.challenge.repository;
+
+import java.util.Optional;
+
+/**
+ * Estimates of the size of the user table, read from the database statistics, see {@link UserRepository}.
+ */
+public interface UserEstimateRepository {
+    /**
+     * Estimate the number of users without counting them.
+     * <p>
+     * The estimate is the one the database planner uses: it is updated by the statistics collector, not by each write.
+     *
+     * @return the estimated number of users, or empty if the database has no statistics for the user table.
+     */
+    Optional<Long> estimateCount();
+}
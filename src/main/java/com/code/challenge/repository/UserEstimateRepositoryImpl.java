@@ -0,0 +1,62 @@
+package com.code.challenge.repository;
+
+import java.util.List;
+import java.util.Optional;
+import javax.persistence.EntityManager;
+import org.hibernate.dialect.Dialect;
+import org.hibernate.dialect.H2Dialect;
+import org.hibernate.dialect.PostgreSQL81Dialect;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+
+/**
+ * Native implementation of {@link UserEstimateRepository}: {@code pg_class.reltuples} on PostgreSQL, and the row count
+ * estimate of the information schema on H2.
+ */
+public class UserEstimateRepositoryImpl implements UserEstimateRepository {
+
+    /**
+     * {@code reltuples} is negative until the table is first vacuumed or analyzed, or zero before PostgreSQL 14: either way
+     * there is no estimate, while the table has at least the default users.
+     */
+    private static final String POSTGRESQL_ESTIMATE =
+        "SELECT CAST(reltuples AS BIGINT) FROM pg_class WHERE oid = to_regclass('jhi_user') AND reltuples > 0";
+
+    private static final String H2_ESTIMATE =
+        "SELECT ROW_COUNT_ESTIMATE FROM INFORMATION_SCHEMA.TABLES WHERE TABLE_SCHEMA = SCHEMA() AND TABLE_NAME = 'JHI_USER'";
+
+    private final EntityManager entityManager;
+
+    private String estimateSql;
+
+    public UserEstimateRepositoryImpl(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    @Override
+    public Optional<Long> estimateCount() {
+        String sql = getEstimateSql();
+        if (sql == null) {
+            return Optional.empty();
+        }
+        List<?> rows = entityManager.createNativeQuery(sql).getResultList();
+        return rows
+            .stream()
+            .findFirst()
+            .map(estimate -> ((Number) estimate).longValue())
+            .filter(estimate -> estimate >= 0);
+    }
+
+    private String getEstimateSql() {
+        if (estimateSql == null) {
+            Dialect dialect = entityManager.getEntityManagerFactory().unwrap(SessionFactoryImplementor.class).getJdbcServices().getDialect();
+            if (dialect instanceof PostgreSQL81Dialect) {
+                estimateSql = POSTGRESQL_ESTIMATE;
+            } else if (dialect instanceof H2Dialect) {
+                estimateSql = H2_ESTIMATE;
+            } else {
+                estimateSql = "";
+            }
+        }
+        return estimateSql.isEmpty() ? null : estimateSql;
+    }
+}
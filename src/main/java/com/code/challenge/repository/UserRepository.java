@@ -2,31 +2,58 @@ package com.code.challenge.repository;
 
 import com.code.challenge.domain.User;
 import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
+import java.util.Locale;
 import java.util.Optional;
+import java.util.Set;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 /**
  * Spring Data JPA repository for the {@link User} entity.
  */
 @Repository
-public interface UserRepository extends JpaRepository<User, Long> {
+public interface UserRepository
+    extends JpaRepository<User, Long>, UserEstimateRepository, UserCleanupRepository, UserCredentialsRepository {
     String USERS_BY_LOGIN_CACHE = "usersByLogin";
 
-    String USERS_BY_EMAIL_CACHE = "usersByEmail";
-
     Optional<User> findOneByActivationKey(String activationKey);
 
     List<User> findAllByActivatedIsFalseAndActivationKeyIsNotNullAndCreatedDateBefore(Instant dateTime);
 
+    /**
+     * Get the next users not activated in time, in id order; the users with a plan are left out, as it would have to be deleted.
+     */
+    @Query(
+        "select user.id as id, user.login as login, user.email as email from User user " +
+        "where user.activated = false and user.activationKey is not null and user.createdDate < :createdBefore and user.id > :afterId " +
+        "and not exists (select plan.id from Plan plan where plan.id = user.id) " +
+        "order by user.id"
+    )
+    List<UserKeys> findNotActivatedKeys(@Param("createdBefore") Instant createdBefore, @Param("afterId") Long afterId, Pageable pageable);
+
     Optional<User> findOneByResetKey(String resetKey);
 
-    Optional<User> findOneByEmailIgnoreCase(String email);
+    /**
+     * Find a user by email, with an equality on the column, which can use its unique index.
+     *
+     * @param email the email, in lower case.
+     */
+    Optional<User> findOneByEmail(String email);
+
+    /**
+     * Find a user by email, whatever its case: the emails are stored in lower case.
+     */
+    default Optional<User> findOneByLowerCaseEmail(String email) {
+        return findOneByEmail(email == null ? null : email.toLowerCase(Locale.ENGLISH));
+    }
 
     Optional<User> findOneByLogin(String login);
 
@@ -34,9 +61,33 @@ public interface UserRepository extends JpaRepository<User, Long> {
     @Cacheable(cacheNames = USERS_BY_LOGIN_CACHE)
     Optional<User> findOneWithAuthoritiesByLogin(String login);
 
-    @EntityGraph(attributePaths = "authorities")
-    @Cacheable(cacheNames = USERS_BY_EMAIL_CACHE)
-    Optional<User> findOneWithAuthoritiesByEmailIgnoreCase(String email);
-
     Page<User> findAllByIdNotNullAndActivatedIsTrue(Pageable pageable);
+
+    long countByIdNotNullAndActivatedIsTrue();
+
+    @Query("select user.id from User user where user.id in :ids")
+    Set<Long> findAllIdsByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Query("select user.id as userId, authority.name as authorityName from User user join user.authorities authority where user.id in :ids")
+    List<UserAuthorityName> findAllAuthorityNamesByUserIdIn(@Param("ids") Collection<Long> ids);
+
+    /**
+     * The keys of a user, without its other columns.
+     */
+    interface UserKeys {
+        Long getId();
+
+        String getLogin();
+
+        String getEmail();
+    }
+
+    /**
+     * The name of an authority of a user, without the user and the authority entities.
+     */
+    interface UserAuthorityName {
+        Long getUserId();
+
+        String getAuthorityName();
+    }
 }
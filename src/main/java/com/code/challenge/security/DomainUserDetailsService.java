@@ -1,7 +1,9 @@
 package com.code.challenge.security;
 
-import com.code.challenge.domain.User;
+import com.code.challenge.repository.UserCredentials;
+import com.code.challenge.repository.UserCredentialsRepository;
 import com.code.challenge.repository.UserRepository;
+import com.code.challenge.service.SingleFlightService;
 import java.util.*;
 import java.util.stream.Collectors;
 import org.hibernate.validator.internal.constraintvalidators.hv.EmailValidator;
@@ -17,6 +19,9 @@ import org.springframework.transaction.annotation.Transactional;
 
 /**
  * Authenticate a user from the database.
+ * <p>
+ * Only the {@link UserCredentials} of the user are read, through the authentication caches, which also remember the unknown
+ * logins and emails for a while.
  */
 @Component("userDetailsService")
 public class DomainUserDetailsService implements UserDetailsService {
@@ -25,38 +30,58 @@ public class DomainUserDetailsService implements UserDetailsService {
 
     private final UserRepository userRepository;
 
-    public DomainUserDetailsService(UserRepository userRepository) {
+    private final SingleFlightService singleFlightService;
+
+    public DomainUserDetailsService(UserRepository userRepository, SingleFlightService singleFlightService) {
         this.userRepository = userRepository;
+        this.singleFlightService = singleFlightService;
     }
 
     @Override
-    @Transactional
+    @Transactional(readOnly = true)
     public UserDetails loadUserByUsername(final String login) {
         log.debug("Authenticating {}", login);
 
         if (new EmailValidator().isValid(login, null)) {
-            return userRepository
-                .findOneWithAuthoritiesByEmailIgnoreCase(login)
-                .map(user -> createSpringSecurityUser(login, user))
+            // The emails are stored in lower case
+            String lowercaseEmail = login.toLowerCase(Locale.ENGLISH);
+            return singleFlightService
+                .load(
+                    UserCredentialsRepository.USER_CREDENTIALS_BY_EMAIL_CACHE,
+                    lowercaseEmail,
+                    () -> userRepository.findCredentialsByEmail(lowercaseEmail)
+                )
+                .map(credentials -> createSpringSecurityUser(login, credentials))
                 .orElseThrow(() -> new UsernameNotFoundException("User with email " + login + " was not found in the database"));
         }
 
         String lowercaseLogin = login.toLowerCase(Locale.ENGLISH);
-        return userRepository
-            .findOneWithAuthoritiesByLogin(lowercaseLogin)
-            .map(user -> createSpringSecurityUser(lowercaseLogin, user))
+        return singleFlightService
+            .load(
+                UserCredentialsRepository.USER_CREDENTIALS_BY_LOGIN_CACHE,
+                lowercaseLogin,
+                () -> userRepository.findCredentialsByLogin(lowercaseLogin)
+            )
+            .map(credentials -> createSpringSecurityUser(lowercaseLogin, credentials))
             .orElseThrow(() -> new UsernameNotFoundException("User " + lowercaseLogin + " was not found in the database"));
     }
 
-    private org.springframework.security.core.userdetails.User createSpringSecurityUser(String lowercaseLogin, User user) {
-        if (!user.isActivated()) {
+    private org.springframework.security.core.userdetails.User createSpringSecurityUser(
+        String lowercaseLogin,
+        UserCredentials credentials
+    ) {
+        if (!credentials.isActivated()) {
             throw new UserNotActivatedException("User " + lowercaseLogin + " was not activated");
         }
-        List<GrantedAuthority> grantedAuthorities = user
+        List<GrantedAuthority> grantedAuthorities = credentials
             .getAuthorities()
             .stream()
-            .map(authority -> new SimpleGrantedAuthority(authority.getName()))
+            .map(SimpleGrantedAuthority::new)
             .collect(Collectors.toList());
-        return new org.springframework.security.core.userdetails.User(user.getLogin(), user.getPassword(), grantedAuthorities);
+        return new org.springframework.security.core.userdetails.User(
+            credentials.getLogin(),
+            credentials.getPassword(),
+            grantedAuthorities
+        );
     }
 }
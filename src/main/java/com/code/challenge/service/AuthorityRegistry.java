@@ -0,0 +1,136 @@
+package com.code.challenge.service;
+
+import com.code.challenge.domain.Authority;
+import com.code.challenge.repository.AuthorityRepository;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+/**
+ * In-memory registry of the {@link Authority authorities}.
+ * <p>
+ * The {@code jhi_authority} table is only written by the database migrations, so it is read once, on first use, into an
+ * immutable map of shared {@link Authority} instances with interned names, and the user write paths look the authorities
+ * up there rather than in the database. An unknown name reloads the table, at most once per {@link #RELOAD_INTERVAL_MILLIS},
+ * so an authority added while the application runs is picked up; {@link #refresh()} reloads it on demand.
+ * <p>
+ * The shared instances are detached: they can be added to the authorities of a user, not modified.
+ */
+@Service
+public class AuthorityRegistry {
+
+    static final long RELOAD_INTERVAL_MILLIS = TimeUnit.MINUTES.toMillis(1);
+
+    private final Logger log = LoggerFactory.getLogger(AuthorityRegistry.class);
+
+    private final AuthorityRepository authorityRepository;
+
+    private final ResponseCacheService responseCacheService;
+
+    /**
+     * The authorities by name, in name order, or {@code null} until they are loaded.
+     */
+    private volatile Map<String, Authority> authorities;
+
+    private volatile long loadedAt;
+
+    public AuthorityRegistry(AuthorityRepository authorityRepository, ResponseCacheService responseCacheService) {
+        this.authorityRepository = authorityRepository;
+        this.responseCacheService = responseCacheService;
+    }
+
+    /**
+     * Get the names of all the authorities.
+     *
+     * @return the names, in name order.
+     */
+    public List<String> getNames() {
+        return List.copyOf(authorities().keySet());
+    }
+
+    /**
+     * Get an authority by name.
+     *
+     * @param name the name of the authority.
+     * @return the shared instance of the authority, or empty if there is no authority with that name.
+     */
+    public Optional<Authority> find(String name) {
+        if (name == null) {
+            return Optional.empty();
+        }
+        Authority authority = authorities().get(name);
+        if (authority == null && reloadOnMiss()) {
+            authority = authorities().get(name);
+        }
+        return Optional.ofNullable(authority);
+    }
+
+    /**
+     * Get the authorities with the given names, skipping the unknown ones.
+     *
+     * @param names the names of the authorities.
+     * @return the shared instances of the known authorities.
+     */
+    public Set<Authority> findAll(Collection<String> names) {
+        return names.stream().map(this::find).flatMap(Optional::stream).collect(Collectors.toSet());
+    }
+
+    /**
+     * Reload the authorities from the database.
+     */
+    public synchronized void refresh() {
+        Map<String, Authority> previous = authorities;
+        Map<String, Authority> loaded = new LinkedHashMap<>();
+        authorityRepository
+            .findAll()
+            .stream()
+            .map(Authority::getName)
+            .filter(Objects::nonNull)
+            .sorted(Comparator.naturalOrder())
+            .forEach(
+                name -> {
+                    Authority authority = new Authority();
+                    authority.setName(name.intern());
+                    loaded.put(authority.getName(), authority);
+                }
+            );
+        authorities = Collections.unmodifiableMap(loaded);
+        loadedAt = System.currentTimeMillis();
+        log.debug("Loaded {} authorities", loaded.size());
+        if (previous != null && !previous.keySet().equals(loaded.keySet())) {
+            responseCacheService.clear(ResponseCacheService.AUTHORITIES_CACHE);
+        }
+    }
+
+    private Map<String, Authority> authorities() {
+        Map<String, Authority> current = authorities;
+        if (current == null) {
+            synchronized (this) {
+                if (authorities == null) {
+                    refresh();
+                }
+                current = authorities;
+            }
+        }
+        return current;
+    }
+
+    private synchronized boolean reloadOnMiss() {
+        if (System.currentTimeMillis() - loadedAt < RELOAD_INTERVAL_MILLIS) {
+            return false;
+        }
+        refresh();
+        return true;
+    }
+}
@@ -0,0 +1,171 @@
+package com.code.challenge.service;
+
+import com.code.challenge.repository.PlanRepository;
+import com.code.challenge.repository.PlanRepository.PlanAmounts;
+import com.code.challenge.service.calculator.OutOfPocketCalculator;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+/**
+ * Service computing the out-of-pocket cost of batches of claims, see {@link OutOfPocketCalculator}.
+ * <p>
+ * Claims are read {@link #CHUNK_SIZE} lines at a time into primitive arrays. For each chunk, the plans of its members are
+ * fetched with one query per {@link #LOOKUP_SIZE} distinct ids, the costs are computed on the common fork/join pool,
+ * and the lines are written back before the next chunk is read, so memory usage does not depend on the size of the batch.
+ */
+@Service
+public class OutOfPocketService {
+
+    static final int CHUNK_SIZE = 1 << 16;
+
+    static final int LOOKUP_SIZE = 1000;
+
+    static final String RESULT_COLUMN = "out_of_pocket";
+
+    private static final char CSV_SEPARATOR = ';';
+
+    private final Logger log = LoggerFactory.getLogger(OutOfPocketService.class);
+
+    private final PlanRepository planRepository;
+
+    public OutOfPocketService(PlanRepository planRepository) {
+        this.planRepository = planRepository;
+    }
+
+    /**
+     * Compute the out-of-pocket cost of claims given as {@code userId;claimAmount} CSV lines, with an optional header.
+     * <p>
+     * Each line is written back with an {@code out_of_pocket} column appended, holding the cost rounded to the cent;
+     * the column is left empty when the line is invalid or the user has no plan. Blank lines are skipped.
+     *
+     * @param inputStream the claims.
+     * @param outputStream where to write the claims with their out-of-pocket cost.
+     * @throws IOException if the claims cannot be read or written.
+     */
+    public void calculate(InputStream inputStream, OutputStream outputStream) throws IOException {
+        log.debug("Request to compute out-of-pocket costs");
+        BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8));
+        Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+        String[] lines = new String[CHUNK_SIZE];
+        long[] userIds = new long[CHUNK_SIZE];
+        double[] claimAmounts = new double[CHUNK_SIZE];
+        double[] results = new double[CHUNK_SIZE];
+        boolean firstLine = true;
+        long total = 0;
+        int size = 0;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (line.isBlank()) {
+                continue;
+            }
+            if (firstLine && isHeader(line)) {
+                writer.append(line).append(CSV_SEPARATOR).append(RESULT_COLUMN).append('\n');
+                firstLine = false;
+                continue;
+            }
+            firstLine = false;
+            lines[size] = line;
+            parseLine(line, userIds, claimAmounts, size);
+            size++;
+            if (size == CHUNK_SIZE) {
+                calculateChunk(lines, userIds, claimAmounts, results, size, writer);
+                total += size;
+                size = 0;
+            }
+        }
+        if (size > 0) {
+            calculateChunk(lines, userIds, claimAmounts, results, size, writer);
+            total += size;
+        }
+        writer.flush();
+        log.debug("Computed the out-of-pocket cost of {} claims", total);
+    }
+
+    private void calculateChunk(String[] lines, long[] userIds, double[] claimAmounts, double[] results, int size, Writer writer)
+        throws IOException {
+        lookup(userIds, size).calculate(userIds, claimAmounts, results, size, ForkJoinPool.commonPool());
+        for (int i = 0; i < size; i++) {
+            writer.append(lines[i]).append(CSV_SEPARATOR);
+            if (!Double.isNaN(results[i])) {
+                writer.append(Double.toString(Math.round(results[i] * 100) / 100.0));
+            }
+            writer.append('\n');
+            lines[i] = null;
+        }
+        writer.flush();
+    }
+
+    private OutOfPocketCalculator lookup(long[] userIds, int size) {
+        long[] distinctIds = LongStream.of(userIds).limit(size).filter(id -> id >= 0).sorted().distinct().toArray();
+        long[] planIds = new long[distinctIds.length];
+        int[] deductibles = new int[distinctIds.length];
+        double[] coPays = new double[distinctIds.length];
+        int plans = 0;
+        for (int from = 0; from < distinctIds.length; from += LOOKUP_SIZE) {
+            List<Long> slice = Arrays
+                .stream(distinctIds, from, Math.min(from + LOOKUP_SIZE, distinctIds.length))
+                .boxed()
+                .collect(Collectors.toList());
+            List<PlanAmounts> amounts = planRepository
+                .findAllAmountsByIdIn(slice)
+                .stream()
+                .sorted(Comparator.comparing(PlanAmounts::getId))
+                .collect(Collectors.toList());
+            for (PlanAmounts plan : amounts) {
+                planIds[plans] = plan.getId();
+                deductibles[plans] = plan.getDeductible();
+                coPays[plans] = plan.getCoPay();
+                plans++;
+            }
+        }
+        return new OutOfPocketCalculator(
+            Arrays.copyOf(planIds, plans),
+            Arrays.copyOf(deductibles, plans),
+            Arrays.copyOf(coPays, plans)
+        );
+    }
+
+    private static boolean isHeader(String line) {
+        char first = line.trim().charAt(0);
+        return !Character.isDigit(first) && first != '-' && first != '+';
+    }
+
+    /**
+     * Parse a claim into the given arrays; an invalid claim gets a negative user id and a {@link Double#NaN} amount.
+     */
+    private static void parseLine(String line, long[] userIds, double[] claimAmounts, int index) {
+        userIds[index] = -1;
+        claimAmounts[index] = Double.NaN;
+        int separator = line.indexOf(CSV_SEPARATOR);
+        if (separator < 0) {
+            return;
+        }
+        int end = line.indexOf(CSV_SEPARATOR, separator + 1);
+        try {
+            long userId = Long.parseLong(line.substring(0, separator).trim());
+            double claimAmount = Double.parseDouble(line.substring(separator + 1, end < 0 ? line.length() : end).trim());
+            if (userId >= 0 && claimAmount >= 0 && Double.isFinite(claimAmount)) {
+                userIds[index] = userId;
+                claimAmounts[index] = claimAmount;
+            }
+        } catch (NumberFormatException e) {
+            // Left invalid.
+        }
+    }
+}
@@ -0,0 +1,290 @@
+package com.code.challenge.service;
+
+import com.code.challenge.domain.Plan;
+import com.code.challenge.repository.PlanRepository;
+import com.code.challenge.service.dto.PlanAmountsDTO;
+import com.code.challenge.service.dto.PlanHistogramDTO;
+import com.code.challenge.service.event.PlanChangeEvent;
+import com.code.challenge.service.statistics.PlanColumnarSnapshot;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import javax.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Service for analytic queries over the deductibles and co-pays of the plans: range counts, histograms and top-N.
+ * <p>
+ * The queries run against a {@link PlanColumnarSnapshot}, loaded from the database once at startup. The plans changed by
+ * committed {@link PlanChangeEvent}s are collected, and applied together {@link #APPLY_DELAY_MILLIS} later, on a thread of
+ * the service: a new snapshot is built from the current one and swapped in atomically, so queries never query the
+ * database nor see a partially applied change, and the writers never wait for a snapshot to be built.
+ * <p>
+ * All the ranges are inclusive, and a {@code null} bound means no bound.
+ */
+@Service
+public class PlanAnalyticsService {
+
+    static final long APPLY_DELAY_MILLIS = 100;
+
+    /**
+     * The fields the plans can be analysed by.
+     */
+    public enum Field {
+        DEDUCTIBLE("deductible"),
+        CO_PAY("coPay");
+
+        private final String name;
+
+        Field(String name) {
+            this.name = name;
+        }
+
+        public String getName() {
+            return name;
+        }
+    }
+
+    private final Logger log = LoggerFactory.getLogger(PlanAnalyticsService.class);
+
+    private final PlanRepository planRepository;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private volatile PlanColumnarSnapshot snapshot;
+
+    /**
+     * The plans changed since the last snapshot, by id: {@code null} for a deleted plan. Guarded by itself.
+     */
+    private final Map<Long, Plan> pendingChanges = new HashMap<>();
+
+    private boolean applyScheduled;
+
+    private final ScheduledExecutorService applyExecutor = Executors.newSingleThreadScheduledExecutor(
+        runnable -> {
+            Thread thread = new Thread(runnable, "plan-analytics");
+            thread.setDaemon(true);
+            return thread;
+        }
+    );
+
+    public PlanAnalyticsService(PlanRepository planRepository, PlatformTransactionManager transactionManager) {
+        this.planRepository = planRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+    }
+
+    @PreDestroy
+    public void stop() {
+        applyExecutor.shutdownNow();
+    }
+
+    /**
+     * Count the plans in the given ranges.
+     *
+     * @return the number of plans.
+     */
+    public long count(Integer minDeductible, Integer maxDeductible, Double minCoPay, Double maxCoPay) {
+        log.debug("Request to count Plans in deductible [{}, {}] and co-pay [{}, {}]", minDeductible, maxDeductible, minCoPay, maxCoPay);
+        return getSnapshot().count(lower(minDeductible), upper(maxDeductible), lower(minCoPay), upper(maxCoPay));
+    }
+
+    /**
+     * Build the histogram of the plans in the given ranges.
+     *
+     * @param field the field to count the plans by.
+     * @param buckets the number of buckets, evenly spread between the bounds of the range of the field, or between the lowest and
+     * the highest values of the field if the range has no bounds.
+     * @return the histogram.
+     */
+    public PlanHistogramDTO histogram(
+        Field field,
+        int buckets,
+        Integer minDeductible,
+        Integer maxDeductible,
+        Double minCoPay,
+        Double maxCoPay
+    ) {
+        log.debug(
+            "Request to get the histogram of Plans by {} in deductible [{}, {}] and co-pay [{}, {}]",
+            field,
+            minDeductible,
+            maxDeductible,
+            minCoPay,
+            maxCoPay
+        );
+        PlanColumnarSnapshot current = getSnapshot();
+        double min;
+        double max;
+        long[] counts;
+        if (field == Field.DEDUCTIBLE) {
+            min = minDeductible != null ? minDeductible : current.getMinDeductible();
+            max = maxDeductible != null ? maxDeductible : current.getMaxDeductible();
+            counts =
+                current.deductibleHistogram(
+                    lower(minDeductible),
+                    upper(maxDeductible),
+                    lower(minCoPay),
+                    upper(maxCoPay),
+                    min,
+                    max,
+                    buckets
+                );
+        } else {
+            min = minCoPay != null ? minCoPay : current.getMinCoPay();
+            max = maxCoPay != null ? maxCoPay : current.getMaxCoPay();
+            counts =
+                current.coPayHistogram(
+                    lower(minDeductible),
+                    upper(maxDeductible),
+                    lower(minCoPay),
+                    upper(maxCoPay),
+                    min,
+                    max,
+                    buckets
+                );
+        }
+        return new PlanHistogramDTO(field.getName(), min, width(min, max, buckets), counts);
+    }
+
+    /**
+     * Find the plans with the lowest or highest values of a field, in the given ranges.
+     *
+     * @param field the field to order the plans by.
+     * @param limit the maximum number of plans to return.
+     * @param descending {@code true} for the highest values first, {@code false} for the lowest values first.
+     * @return the amounts of the plans; ties are ordered by deductible, then by id.
+     */
+    public List<PlanAmountsDTO> top(
+        Field field,
+        int limit,
+        boolean descending,
+        Integer minDeductible,
+        Integer maxDeductible,
+        Double minCoPay,
+        Double maxCoPay
+    ) {
+        log.debug("Request to get the top {} Plans by {}", limit, field);
+        PlanColumnarSnapshot current = getSnapshot();
+        int[] rows = field == Field.DEDUCTIBLE
+            ? current.topByDeductible(lower(minDeductible), upper(maxDeductible), lower(minCoPay), upper(maxCoPay), limit, descending)
+            : current.topByCoPay(lower(minDeductible), upper(maxDeductible), lower(minCoPay), upper(maxCoPay), limit, descending);
+        List<PlanAmountsDTO> plans = new ArrayList<>(rows.length);
+        for (int row : rows) {
+            plans.add(new PlanAmountsDTO(current.getId(row), current.getDeductible(row), current.getCoPay(row)));
+        }
+        return plans;
+    }
+
+    private PlanColumnarSnapshot getSnapshot() {
+        PlanColumnarSnapshot current = snapshot;
+        if (current == null) {
+            // The database was not ready at startup
+            reload();
+            current = snapshot;
+        }
+        return current == null ? PlanColumnarSnapshot.EMPTY : current;
+    }
+
+    /**
+     * Load the snapshot from the database.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void reload() {
+        log.debug("Request to load the Plan snapshot");
+        PlanColumnarSnapshot.Builder builder = new PlanColumnarSnapshot.Builder();
+        try {
+            transactionTemplate.executeWithoutResult(
+                status -> {
+                    try (Stream<PlanRepository.PlanAmounts> amounts = planRepository.streamAllAmounts()) {
+                        amounts.forEach(plan -> builder.add(plan.getId(), plan.getDeductible(), plan.getCoPay()));
+                    }
+                }
+            );
+        } catch (DataAccessException e) {
+            log.warn("Could not load the Plan snapshot: {}", e.getMessage());
+            return;
+        }
+        snapshot = builder.build();
+    }
+
+    /**
+     * Collect the committed changes of plans, to be applied to the snapshot shortly.
+     *
+     * @param event the changes.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPlanChange(PlanChangeEvent event) {
+        if (snapshot == null) {
+            // Not loaded yet: the changes will be read from the database
+            return;
+        }
+        synchronized (pendingChanges) {
+            for (PlanChangeEvent.Change change : event.getChanges()) {
+                Long id = (change.getBefore() != null ? change.getBefore() : change.getAfter()).getId();
+                pendingChanges.put(id, change.getAfter());
+            }
+            if (!applyScheduled) {
+                applyScheduled = true;
+                applyExecutor.schedule(this::flush, APPLY_DELAY_MILLIS, TimeUnit.MILLISECONDS);
+            }
+        }
+    }
+
+    /**
+     * Apply the collected changes now: build the next snapshot from the current one and the changed plans, then swap it in.
+     */
+    public synchronized void flush() {
+        Map<Long, Plan> changes;
+        synchronized (pendingChanges) {
+            changes = new HashMap<>(pendingChanges);
+            pendingChanges.clear();
+            applyScheduled = false;
+        }
+        PlanColumnarSnapshot current = snapshot;
+        if (changes.isEmpty() || current == null) {
+            return;
+        }
+        log.debug("Applying the changes of {} Plans to the snapshot", changes.size());
+        PlanColumnarSnapshot.Builder builder = current.toBuilder(changes.keySet().stream().mapToLong(Long::longValue).toArray());
+        for (Plan after : changes.values()) {
+            if (after != null) {
+                builder.add(after.getId(), after.getDeductible(), after.getCoPay());
+            }
+        }
+        snapshot = builder.build();
+    }
+
+    private static double width(double min, double max, int buckets) {
+        return max > min ? (max - min) / buckets : 0;
+    }
+
+    private static int lower(Integer bound) {
+        return bound == null ? Integer.MIN_VALUE : bound;
+    }
+
+    private static int upper(Integer bound) {
+        return bound == null ? Integer.MAX_VALUE : bound;
+    }
+
+    private static double lower(Double bound) {
+        return bound == null ? Double.NEGATIVE_INFINITY : bound;
+    }
+
+    private static double upper(Double bound) {
+        return bound == null ? Double.POSITIVE_INFINITY : bound;
+    }
+}
@@ -0,0 +1,117 @@
+package com.code.challenge.service;
+
+import com.code.challenge.domain.Plan;
+import com.code.challenge.service.dto.PlanEventDTO;
+import com.code.challenge.service.event.PlanChangeEvent;
+import com.code.challenge.service.event.PlanEventSubscription;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArraySet;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Service turning the committed {@link PlanChangeEvent}s into a feed of {@link PlanEventDTO}s.
+ * <p>
+ * Events get increasing ids, and the last {@link #HISTORY_SIZE} events are kept in a ring buffer, so a subscriber can resume
+ * after the last event it received. The ids start from the boot time, so an id from before a restart is older than the
+ * history, and the subscriber resyncs instead of missing the changes made in between.
+ */
+@Service
+public class PlanEventService {
+
+    static final int HISTORY_SIZE = 1024;
+
+    static final int BUFFER_SIZE = 256;
+
+    private final Logger log = LoggerFactory.getLogger(PlanEventService.class);
+
+    private final PlanEventDTO[] history = new PlanEventDTO[HISTORY_SIZE];
+
+    private final Set<PlanEventSubscription> subscriptions = new CopyOnWriteArraySet<>();
+
+    private final long firstEventId;
+
+    private long lastEventId;
+
+    public PlanEventService() {
+        this(System.currentTimeMillis() * 1000);
+    }
+
+    PlanEventService(long firstEventId) {
+        this.firstEventId = firstEventId;
+        this.lastEventId = firstEventId - 1;
+    }
+
+    /**
+     * Subscribe to the feed.
+     *
+     * @param lastEventId the id of the last event received by the subscriber, or {@code null} for a new subscriber.
+     * @return the subscription, holding the events after {@code lastEventId}, or flagged for a resync if they are not in the history.
+     */
+    public synchronized PlanEventSubscription subscribe(Long lastEventId) {
+        log.debug("Request to subscribe to Plan events after : {}", lastEventId);
+        PlanEventSubscription subscription = new PlanEventSubscription(BUFFER_SIZE);
+        if (lastEventId != null) {
+            long oldestEventId = Math.max(firstEventId, this.lastEventId - HISTORY_SIZE + 1);
+            if (lastEventId < oldestEventId - 1 || lastEventId > this.lastEventId) {
+                subscription.requestResync();
+            } else {
+                for (long eventId = lastEventId + 1; eventId <= this.lastEventId; eventId++) {
+                    subscription.offer(history[index(eventId)]);
+                }
+            }
+        }
+        subscriptions.add(subscription);
+        return subscription;
+    }
+
+    public void unsubscribe(PlanEventSubscription subscription) {
+        log.debug("Request to unsubscribe from Plan events");
+        subscriptions.remove(subscription);
+    }
+
+    /**
+     * @return the id of the last event published, which is the last event id of a subscriber that is up to date.
+     */
+    public synchronized long getLastEventId() {
+        return lastEventId;
+    }
+
+    /**
+     * Publish the committed changes of plans to the subscribers.
+     *
+     * @param event the changes.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPlanChange(PlanChangeEvent event) {
+        synchronized (this) {
+            List<PlanEventDTO> events = new ArrayList<>(event.getChanges().size());
+            for (PlanChangeEvent.Change change : event.getChanges()) {
+                PlanEventDTO planEvent = toEvent(++lastEventId, change);
+                history[index(lastEventId)] = planEvent;
+                events.add(planEvent);
+            }
+            for (PlanEventSubscription subscription : subscriptions) {
+                events.forEach(subscription::offer);
+            }
+        }
+        subscriptions.forEach(PlanEventSubscription::signal);
+    }
+
+    private static int index(long eventId) {
+        return (int) Math.floorMod(eventId, (long) HISTORY_SIZE);
+    }
+
+    private static PlanEventDTO toEvent(long eventId, PlanChangeEvent.Change change) {
+        Plan after = change.getAfter();
+        if (after == null) {
+            return new PlanEventDTO(eventId, PlanEventDTO.Type.DELETED, change.getBefore().getId(), null, null, null, null);
+        }
+        PlanEventDTO.Type type = change.getBefore() == null ? PlanEventDTO.Type.CREATED : PlanEventDTO.Type.UPDATED;
+        return new PlanEventDTO(eventId, type, after.getId(), after.getPlan(), after.getDeductible(), after.getCoPay(), after.getVersion());
+    }
+}
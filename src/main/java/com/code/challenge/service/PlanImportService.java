@@ -0,0 +1,199 @@
+package com.code.challenge.service;
+
+import com.code.challenge.domain.Plan;
+import com.code.challenge.domain.User;
+import com.code.challenge.service.dto.PlanImportReportDTO;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import javax.persistence.PersistenceException;
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+
+/**
+ * Service for importing plans in bulk.
+ * <p>
+ * Files are read line by line and inserted {@link #CHUNK_SIZE} rows at a time, each chunk in its own transaction,
+ * so a bad row is reported without failing the rest of the file.
+ */
+@Service
+public class PlanImportService {
+
+    static final int CHUNK_SIZE = 500;
+
+    private static final String CSV_SEPARATOR = ";";
+
+    private static final List<String> CSV_COLUMNS = Arrays.asList("id", "plan", "deductible", "co_pay");
+
+    private final Logger log = LoggerFactory.getLogger(PlanImportService.class);
+
+    private final PlanService planService;
+
+    private final ObjectMapper objectMapper;
+
+    private final Validator validator;
+
+    public PlanImportService(PlanService planService, ObjectMapper objectMapper, Validator validator) {
+        this.planService = planService;
+        this.objectMapper = objectMapper;
+        this.validator = validator;
+    }
+
+    /**
+     * Import plans from a CSV file, in the same shape as the Liquibase {@code plan.csv}: a {@code id;plan;deductible;co_pay}
+     * header, where {@code id} is the id of the user owning the plan.
+     *
+     * @param inputStream the CSV file.
+     * @return the import report.
+     * @throws IOException if the file cannot be read.
+     */
+    public PlanImportReportDTO importCsv(InputStream inputStream) throws IOException {
+        log.debug("Request to import Plans from CSV");
+        BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8));
+        PlanImportReportDTO report = new PlanImportReportDTO();
+        String header = reader.readLine();
+        Map<String, Integer> columns = new HashMap<>();
+        if (header != null) {
+            String[] names = header.split(CSV_SEPARATOR, -1);
+            for (int i = 0; i < names.length; i++) {
+                columns.put(names[i].trim().toLowerCase(Locale.ENGLISH), i);
+            }
+        }
+        if (!columns.keySet().containsAll(CSV_COLUMNS)) {
+            report.getErrors().add(new PlanImportReportDTO.RowError(1, "The header must contain the columns " + CSV_COLUMNS));
+            return report;
+        }
+        return importLines(reader, 1, report, line -> parseCsvLine(line, columns));
+    }
+
+    /**
+     * Import plans from a newline-delimited JSON file, one plan per line, in the same shape as the REST API.
+     * The user owning the plan is given either by {@code user.id} or by {@code id}.
+     *
+     * @param inputStream the NDJSON file.
+     * @return the import report.
+     * @throws IOException if the file cannot be read.
+     */
+    public PlanImportReportDTO importNdjson(InputStream inputStream) throws IOException {
+        log.debug("Request to import Plans from NDJSON");
+        BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8));
+        return importLines(reader, 0, new PlanImportReportDTO(), this::parseJsonLine);
+    }
+
+    private PlanImportReportDTO importLines(BufferedReader reader, long firstRow, PlanImportReportDTO report, Function<String, Plan> parser)
+        throws IOException {
+        Map<Long, Plan> chunk = new LinkedHashMap<>();
+        long row = firstRow;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            row++;
+            if (line.isBlank()) {
+                continue;
+            }
+            report.setTotal(report.getTotal() + 1);
+            try {
+                Plan plan = parser.apply(line);
+                Set<ConstraintViolation<Plan>> violations = validator.validate(plan);
+                if (!violations.isEmpty()) {
+                    throw new IllegalArgumentException(
+                        violations
+                            .stream()
+                            .map(violation -> violation.getPropertyPath() + " " + violation.getMessage())
+                            .sorted()
+                            .collect(Collectors.joining(", "))
+                    );
+                }
+                chunk.put(row, plan);
+            } catch (IllegalArgumentException e) {
+                report.getErrors().add(new PlanImportReportDTO.RowError(row, e.getMessage()));
+            }
+            if (chunk.size() == CHUNK_SIZE) {
+                importChunk(chunk, report);
+                chunk = new LinkedHashMap<>();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            importChunk(chunk, report);
+        }
+        report.getErrors().sort(Comparator.comparingLong(PlanImportReportDTO.RowError::getRow));
+        log.debug("Imported Plans: {}", report);
+        return report;
+    }
+
+    private void importChunk(Map<Long, Plan> chunk, PlanImportReportDTO report) {
+        try {
+            List<PlanImportReportDTO.RowError> errors = planService.importChunk(chunk);
+            report.getErrors().addAll(errors);
+            report.setImported(report.getImported() + chunk.size() - errors.size());
+        } catch (DataAccessException | PersistenceException e) {
+            log.warn("Could not import a chunk of Plans", e);
+            chunk.keySet().forEach(row -> report.getErrors().add(new PlanImportReportDTO.RowError(row, "Rejected by the database")));
+        }
+    }
+
+    private Plan parseCsvLine(String line, Map<String, Integer> columns) {
+        String[] values = line.split(CSV_SEPARATOR, -1);
+        Plan plan = new Plan()
+            .plan(csvValue(values, columns, "plan"))
+            .deductible(parseNumber(csvValue(values, columns, "deductible"), "deductible", Integer::valueOf))
+            .coPay(parseNumber(csvValue(values, columns, "co_pay"), "co_pay", Double::valueOf));
+        return plan.user(userReference(parseNumber(csvValue(values, columns, "id"), "id", Long::valueOf)));
+    }
+
+    private Plan parseJsonLine(String line) {
+        Plan plan;
+        try {
+            plan = objectMapper.readValue(line, Plan.class);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Invalid JSON: " + e.getOriginalMessage());
+        }
+        Long userId = plan.getUser() != null && plan.getUser().getId() != null ? plan.getUser().getId() : plan.getId();
+        return plan.user(userReference(userId));
+    }
+
+    private static User userReference(Long userId) {
+        if (userId == null) {
+            throw new IllegalArgumentException("id must not be null");
+        }
+        User user = new User();
+        user.setId(userId);
+        return user;
+    }
+
+    private static String csvValue(String[] values, Map<String, Integer> columns, String column) {
+        int index = columns.get(column);
+        if (index >= values.length || values[index].isBlank()) {
+            return null;
+        }
+        return values[index].trim();
+    }
+
+    private static <T> T parseNumber(String value, String column, Function<String, T> parser) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            return parser.apply(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid number '" + value + "' for " + column);
+        }
+    }
+}
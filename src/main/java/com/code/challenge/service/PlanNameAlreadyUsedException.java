@@ -0,0 +1,10 @@
+package com.code.challenge.service;
+
+public class PlanNameAlreadyUsedException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public PlanNameAlreadyUsedException() {
+        super("Plan name is already in use!");
+    }
+}
@@ -0,0 +1,272 @@
+package com.code.challenge.service;
+
+import com.code.challenge.domain.*; // for static metamodels
+import com.code.challenge.domain.Plan;
+import com.code.challenge.repository.PlanRepository;
+import com.code.challenge.service.criteria.PlanCriteria;
+import com.code.challenge.service.criteria.PrefixStringFilter;
+import com.code.challenge.service.dto.PlanSummaryDTO;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import javax.persistence.EntityManager;
+import javax.persistence.LockModeType;
+import javax.persistence.Tuple;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Join;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import javax.persistence.criteria.Selection;
+import javax.persistence.metamodel.SingularAttribute;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import tech.jhipster.service.QueryService;
+
+/**
+ * Service for executing complex queries for {@link Plan} entities in the database.
+ * The main input is a {@link PlanCriteria} which gets converted to {@link Specification},
+ * in a way that all the filters must apply.
+ */
+@Service
+@Transactional(readOnly = true)
+public class PlanQueryService extends QueryService<Plan> {
+
+    private final Logger log = LoggerFactory.getLogger(PlanQueryService.class);
+
+    private static final char LIKE_ESCAPE = '\\';
+
+    private static final String USER_ID_ALIAS = "userId";
+
+    private static final String USER_LOGIN_ALIAS = "userLogin";
+
+    private final PlanRepository planRepository;
+
+    private final EntityManager entityManager;
+
+    public PlanQueryService(PlanRepository planRepository, EntityManager entityManager) {
+        this.planRepository = planRepository;
+        this.entityManager = entityManager;
+    }
+
+    /**
+     * Return a slice of the summaries of the plans matching the criteria, ordered by id, starting right after the given id.
+     * <p>
+     * This is a keyset query: it seeks to {@code afterId} and reads one row more than needed to know if there is a next slice,
+     * so no count query is run.
+     *
+     * @param criteria The object which holds all the filters, which the entities should match.
+     * @param afterId the id of the last plan of the previous slice, or {@code null} to start from the beginning.
+     * @param size the maximum number of plans to return.
+     * @return the matching plan summaries.
+     */
+    public Slice<PlanSummaryDTO> findByCriteria(PlanCriteria criteria, Long afterId, int size) {
+        log.debug("find by criteria : {}, after : {}, size : {}", criteria, afterId, size);
+        CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<PlanSummaryDTO> query = criteriaBuilder.createQuery(PlanSummaryDTO.class);
+        Root<Plan> root = query.from(Plan.class);
+        Join<Plan, User> user = root.join(Plan_.user);
+        query.select(
+            criteriaBuilder.construct(
+                PlanSummaryDTO.class,
+                root.get(Plan_.id),
+                root.get(Plan_.plan),
+                root.get(Plan_.deductible),
+                root.get(Plan_.coPay),
+                user.get(User_.id),
+                user.get(User_.login)
+            )
+        );
+        return findSlice(query, root, criteria, afterId, size);
+    }
+
+    /**
+     * Return a slice of the plans matching the criteria, like {@link #findByCriteria(PlanCriteria, Long, int)}, with only the
+     * requested fields: only their columns are selected, and the user is only joined when it is requested.
+     *
+     * @param criteria The object which holds all the filters, which the entities should match.
+     * @param afterId the id of the last plan of the previous slice, or {@code null} to start from the beginning.
+     * @param size the maximum number of plans to return.
+     * @param fields the requested fields, among {@code id}, {@code plan}, {@code deductible}, {@code coPay} and {@code user};
+     * the id is always returned.
+     * @return the requested fields of the matching plans, by name.
+     */
+    public Slice<Map<String, Object>> findFieldsByCriteria(PlanCriteria criteria, Long afterId, int size, Collection<String> fields) {
+        log.debug("find fields {} by criteria : {}, after : {}, size : {}", fields, criteria, afterId, size);
+        CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = criteriaBuilder.createTupleQuery();
+        Root<Plan> root = query.from(Plan.class);
+        List<Selection<?>> selections = new ArrayList<>();
+        selections.add(root.get(Plan_.id).alias(Plan_.ID));
+        for (String field : fields) {
+            switch (field) {
+                case Plan_.ID:
+                    break;
+                case Plan_.PLAN:
+                    selections.add(root.get(Plan_.plan).alias(field));
+                    break;
+                case Plan_.DEDUCTIBLE:
+                    selections.add(root.get(Plan_.deductible).alias(field));
+                    break;
+                case Plan_.CO_PAY:
+                    selections.add(root.get(Plan_.coPay).alias(field));
+                    break;
+                case Plan_.USER:
+                    Join<Plan, User> user = root.join(Plan_.user);
+                    selections.add(user.get(User_.id).alias(USER_ID_ALIAS));
+                    selections.add(user.get(User_.login).alias(USER_LOGIN_ALIAS));
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown Plan field: " + field);
+            }
+        }
+        query.multiselect(selections);
+        Slice<Tuple> slice = findSlice(query, root, criteria, afterId, size);
+        return slice.map(
+            tuple -> {
+                Map<String, Object> plan = new LinkedHashMap<>();
+                plan.put(Plan_.ID, tuple.get(Plan_.ID));
+                for (String field : fields) {
+                    if (Plan_.USER.equals(field)) {
+                        Map<String, Object> user = new LinkedHashMap<>();
+                        user.put(User_.ID, tuple.get(USER_ID_ALIAS));
+                        user.put(User_.LOGIN, tuple.get(USER_LOGIN_ALIAS));
+                        plan.put(field, user);
+                    } else if (!Plan_.ID.equals(field)) {
+                        plan.put(field, tuple.get(field));
+                    }
+                }
+                return plan;
+            }
+        );
+    }
+
+    /**
+     * Run a keyset query for plans: filter by the criteria, seek to {@code afterId}, and read one row more than needed to know
+     * if there is a next slice.
+     */
+    private <T> Slice<T> findSlice(CriteriaQuery<T> query, Root<Plan> root, PlanCriteria criteria, Long afterId, int size) {
+        CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        Specification<Plan> specification = createSpecification(criteria);
+        if (afterId != null) {
+            specification = specification.and((plan, q, cb) -> cb.greaterThan(plan.get(Plan_.id), afterId));
+        }
+        Predicate predicate = specification.toPredicate(root, query, criteriaBuilder);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        query.orderBy(criteriaBuilder.asc(root.get(Plan_.id)));
+        List<T> content = entityManager.createQuery(query).setMaxResults(size + 1).getResultList();
+        boolean hasNext = content.size() > size;
+        if (hasNext) {
+            content = content.subList(0, size);
+        }
+        return new SliceImpl<>(content, PageRequest.of(0, size), hasNext);
+    }
+
+    /**
+     * Return the number of matching entities in the database.
+     * @param criteria The object which holds all the filters, which the entities should match.
+     * @return the number of matching entities.
+     */
+    public long countByCriteria(PlanCriteria criteria) {
+        log.debug("count by criteria : {}", criteria);
+        return planRepository.count(createSpecification(criteria));
+    }
+
+    /**
+     * Return the plans matching the criteria, in id order, locking the matching rows until the end of the current transaction.
+     * <p>
+     * Only the plan columns are read, into detached copies: neither the plans nor their users are loaded as entities.
+     *
+     * @param criteria The object which holds all the filters, which the entities should match.
+     * @param maxPlans the maximum number of plans which may match.
+     * @return detached copies of the matching entities, without their user.
+     * @throws TooManyPlansException if more plans match; at most one more is read and locked.
+     */
+    @Transactional
+    public List<Plan> findAllByCriteriaForUpdate(PlanCriteria criteria, int maxPlans) {
+        log.debug("find for update by criteria : {}", criteria);
+        CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = criteriaBuilder.createTupleQuery();
+        Root<Plan> root = query.from(Plan.class);
+        query
+            .multiselect(
+                root.get(Plan_.id),
+                root.get(Plan_.plan),
+                root.get(Plan_.deductible),
+                root.get(Plan_.coPay),
+                root.get(Plan_.version)
+            )
+            .orderBy(criteriaBuilder.asc(root.get(Plan_.id)));
+        Predicate predicate = createSpecification(criteria).toPredicate(root, query, criteriaBuilder);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        List<Tuple> tuples = entityManager
+            .createQuery(query)
+            .setLockMode(LockModeType.PESSIMISTIC_WRITE)
+            .setMaxResults(maxPlans + 1)
+            .getResultList();
+        if (tuples.size() > maxPlans) {
+            throw new TooManyPlansException(maxPlans);
+        }
+        return tuples
+            .stream()
+            .map(
+                tuple ->
+                    new Plan()
+                        .id(tuple.get(0, Long.class))
+                        .plan(tuple.get(1, String.class))
+                        .deductible(tuple.get(2, Integer.class))
+                        .coPay(tuple.get(3, Double.class))
+                        .version(tuple.get(4, Long.class))
+            )
+            .collect(Collectors.toList());
+    }
+
+    /**
+     * Function to convert {@link PlanCriteria} to a {@link Specification}
+     * @param criteria The object which holds all the filters, which the entities should match.
+     * @return the matching {@link Specification} of the entity.
+     */
+    protected Specification<Plan> createSpecification(PlanCriteria criteria) {
+        Specification<Plan> specification = Specification.where(null);
+        if (criteria != null) {
+            if (criteria.getId() != null) {
+                specification = specification.and(buildRangeSpecification(criteria.getId(), Plan_.id));
+            }
+            if (criteria.getPlan() != null) {
+                specification = specification.and(buildStringSpecification(criteria.getPlan(), Plan_.plan));
+                if (criteria.getPlan().getStartsWith() != null) {
+                    specification = specification.and(buildPrefixSpecification(criteria.getPlan(), Plan_.plan));
+                }
+            }
+            if (criteria.getDeductible() != null) {
+                specification = specification.and(buildRangeSpecification(criteria.getDeductible(), Plan_.deductible));
+            }
+            if (criteria.getCoPay() != null) {
+                specification = specification.and(buildRangeSpecification(criteria.getCoPay(), Plan_.coPay));
+            }
+        }
+        return specification;
+    }
+
+    /**
+     * Build a case sensitive {@code like 'prefix%'} specification, with the wildcards of the prefix escaped,
+     * so that the database can use an index range scan.
+     */
+    protected Specification<Plan> buildPrefixSpecification(PrefixStringFilter filter, SingularAttribute<? super Plan, String> field) {
+        String pattern = filter.getStartsWith().replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_") + "%";
+        return (root, query, builder) -> builder.like(root.get(field), pattern, LIKE_ESCAPE);
+    }
+}
@@ -1,12 +1,36 @@
 package com.code.challenge.service;
 
 import com.code.challenge.domain.Plan;
+import com.code.challenge.domain.Plan_;
+import com.code.challenge.domain.User;
 import com.code.challenge.repository.PlanRepository;
+import com.code.challenge.repository.PlanUpsertRepository;
 import com.code.challenge.repository.UserRepository;
+import com.code.challenge.service.criteria.PlanCriteria;
+import com.code.challenge.service.dto.PlanImportReportDTO;
+import com.code.challenge.service.event.PlanChangeEvent;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import javax.persistence.EntityManager;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaUpdate;
+import javax.persistence.criteria.Root;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -17,52 +41,185 @@ import org.springframework.transaction.annotation.Transactional;
 @Transactional
 public class PlanService {
 
+    /**
+     * The maximum number of plans updated or deleted by a bulk operation, so that it locks a bounded number of rows.
+     */
+    public static final int MAX_BULK_PLANS = 1000;
+
+    private static final int BULK_CHUNK_SIZE = 1000;
+
+    private static final String PLAN_LOOKUP = "plansById";
+
     private final Logger log = LoggerFactory.getLogger(PlanService.class);
 
     private final PlanRepository planRepository;
 
     private final UserRepository userRepository;
 
-    public PlanService(PlanRepository planRepository, UserRepository userRepository) {
+    private final PlanQueryService planQueryService;
+
+    private final EntityManager entityManager;
+
+    private final PlanSyncService planSyncService;
+
+    private final SingleFlightService singleFlightService;
+
+    private final ApplicationEventPublisher applicationEventPublisher;
+
+    public PlanService(
+        PlanRepository planRepository,
+        UserRepository userRepository,
+        PlanQueryService planQueryService,
+        PlanSyncService planSyncService,
+        SingleFlightService singleFlightService,
+        EntityManager entityManager,
+        ApplicationEventPublisher applicationEventPublisher
+    ) {
         this.planRepository = planRepository;
         this.userRepository = userRepository;
+        this.planQueryService = planQueryService;
+        this.planSyncService = planSyncService;
+        this.singleFlightService = singleFlightService;
+        this.entityManager = entityManager;
+        this.applicationEventPublisher = applicationEventPublisher;
     }
 
     /**
      * Save a plan.
+     * <p>
+     * An existing plan is read once, and updated in place: its state before the update is taken from it. An existing plan
+     * without a version is saved over the current version.
      *
      * @param plan the entity to save.
      * @return the persisted entity.
+     * @throws OptimisticLockingFailureException if the plan exists with another version than the one given.
      */
     public Plan save(Plan plan) {
         log.debug("Request to save Plan : {}", plan);
+        Optional<Plan> existing = plan.getId() == null ? Optional.empty() : planRepository.findById(plan.getId());
+        if (existing.isPresent()) {
+            Plan current = existing.get();
+            checkVersion(current, plan.getVersion());
+            Plan before = PlanChangeEvent.snapshot(current);
+            current.plan(plan.getPlan()).deductible(plan.getDeductible()).coPay(plan.getCoPay());
+            current.setChangeSeq(planSyncService.nextChangeSeq());
+            applicationEventPublisher.publishEvent(PlanChangeEvent.of(before, current));
+            return current;
+        }
         Long userId = plan.getUser().getId();
         userRepository.findById(userId).ifPresent(plan::user);
-        return planRepository.save(plan);
+        plan.setChangeSeq(planSyncService.nextChangeSeq());
+        Plan result = planRepository.save(plan);
+        applicationEventPublisher.publishEvent(PlanChangeEvent.of(null, result));
+        return result;
+    }
+
+    /**
+     * Update an existing plan with a single native statement, if it still has the expected version.
+     * <p>
+     * The statement returns the previous state of the plan, so it is not read beforehand; the user of the plan is read from
+     * the second level cache.
+     *
+     * @param plan the entity to update.
+     * @param expectedVersion the version the plan must have, or {@code null} to update any version.
+     * @return the plan before and after the update, or empty if the plan does not exist.
+     * @throws OptimisticLockingFailureException if an expected version is given, and the plan does not exist or has another version.
+     */
+    public Optional<PlanUpsertRepository.Upsert> upsert(Plan plan, Long expectedVersion) {
+        log.debug("Request to update Plan : {} at version {}", plan, expectedVersion);
+        plan.setChangeSeq(planSyncService.nextChangeSeq());
+        Optional<PlanUpsertRepository.Upsert> upsert = planRepository.upsert(plan, expectedVersion);
+        upsert.ifPresent(
+            result -> {
+                userRepository.findById(plan.getId()).ifPresent(result.getAfter()::user);
+                applicationEventPublisher.publishEvent(PlanChangeEvent.of(result.getBefore(), result.getAfter()));
+            }
+        );
+        return upsert;
     }
 
     /**
-     * Partially update a plan.
+     * Insert a chunk of new plans, skipping the ones that cannot be inserted.
+     * <p>
+     * Users, existing plans and plan names are checked with one query each for the whole chunk,
+     * and the inserts are sent in JDBC batches.
+     *
+     * @param plans the plans to insert, by row number; the user of each plan only needs its id.
+     * @return the rows which were not inserted, and why.
+     */
+    public List<PlanImportReportDTO.RowError> importChunk(Map<Long, Plan> plans) {
+        log.debug("Request to import a chunk of {} Plans", plans.size());
+        Set<Long> userIds = plans.values().stream().map(plan -> plan.getUser().getId()).collect(Collectors.toSet());
+        Set<String> names = plans.values().stream().map(Plan::getPlan).collect(Collectors.toSet());
+        Set<Long> existingUserIds = userRepository.findAllIdsByIdIn(userIds);
+        Set<Long> takenIds = new HashSet<>(planRepository.findAllIdsByIdIn(userIds));
+        Set<String> takenNames = new HashSet<>(planRepository.findAllPlansByPlanIn(names));
+
+        long changeSeq = planSyncService.nextChangeSeq();
+        List<PlanImportReportDTO.RowError> errors = new ArrayList<>();
+        List<Plan> imported = new ArrayList<>();
+        plans.forEach(
+            (row, plan) -> {
+                Long userId = plan.getUser().getId();
+                if (!existingUserIds.contains(userId)) {
+                    errors.add(new PlanImportReportDTO.RowError(row, "User " + userId + " does not exist"));
+                } else if (takenIds.contains(userId)) {
+                    errors.add(new PlanImportReportDTO.RowError(row, "User " + userId + " already has a plan"));
+                } else if (takenNames.contains(plan.getPlan())) {
+                    errors.add(new PlanImportReportDTO.RowError(row, "Plan " + plan.getPlan() + " already exists"));
+                } else {
+                    takenIds.add(userId);
+                    takenNames.add(plan.getPlan());
+                    plan.setId(null);
+                    plan.setUser(entityManager.getReference(User.class, userId));
+                    plan.setChangeSeq(changeSeq);
+                    entityManager.persist(plan);
+                    imported.add(plan);
+                }
+            }
+        );
+        // Through the repository, so that a constraint violation is translated into a DataAccessException
+        planRepository.flush();
+        entityManager.clear();
+        applicationEventPublisher.publishEvent(
+            new PlanChangeEvent(imported.stream().map(plan -> new PlanChangeEvent.Change(null, plan)).collect(Collectors.toList()))
+        );
+        return errors;
+    }
+
+    /**
+     * @param name the name of a plan.
+     * @param id the id of the plan to leave out.
+     * @return {@code true} if another plan than the given one has the name.
+     */
+    @Transactional(readOnly = true)
+    public boolean isNameUsedByAnotherPlan(String name, Long id) {
+        return planRepository.existsByPlanAndIdNot(name, id);
+    }
+
+    /**
+     * Partially update a plan, if it still has the expected version.
      *
      * @param plan the entity to update partially.
-     * @return the persisted entity.
+     * @param expectedVersion the version the plan must have, or {@code null} to update any version.
+     * @return the persisted entity, or empty if the plan does not exist.
+     * @throws OptimisticLockingFailureException if the plan has another version, or is updated concurrently.
      */
-    public Optional<Plan> partialUpdate(Plan plan) {
-        log.debug("Request to partially update Plan : {}", plan);
+    public Optional<Plan> partialUpdate(Plan plan, Long expectedVersion) {
+        log.debug("Request to partially update Plan : {} at version {}", plan, expectedVersion);
 
         return planRepository
             .findById(plan.getId())
             .map(
                 existingPlan -> {
-                    if (plan.getPlan() != null) {
-                        existingPlan.setPlan(plan.getPlan());
-                    }
-                    if (plan.getDeductible() != null) {
-                        existingPlan.setDeductible(plan.getDeductible());
-                    }
-                    if (plan.getCoPay() != null) {
-                        existingPlan.setCoPay(plan.getCoPay());
+                    checkVersion(existingPlan, expectedVersion);
+                    Plan before = PlanChangeEvent.snapshot(existingPlan);
+                    applyPatch(existingPlan, plan);
+                    if (!sameAttributes(before, existingPlan)) {
+                        existingPlan.setChangeSeq(planSyncService.nextChangeSeq());
                     }
+                    planRepository.flush();
+                    applicationEventPublisher.publishEvent(PlanChangeEvent.of(before, existingPlan));
 
                     return existingPlan;
                 }
@@ -71,18 +228,175 @@ public class PlanService {
     }
 
     /**
-     * Get all the plans.
+     * Partially update many plans in one transaction, each with its own patch.
+     * <p>
+     * The plans are read with one query, and their updates are sent in JDBC batches.
      *
-     * @return the list of entities.
+     * @param patches the fields to update, by plan; null fields are left unchanged.
+     * @return the updated plans; the patches of plans which do not exist are skipped.
+     */
+    public List<Plan> partialUpdateAll(Collection<Plan> patches) {
+        log.debug("Request to partially update {} Plans", patches.size());
+        Map<Long, Plan> patchesById = patches.stream().collect(Collectors.toMap(Plan::getId, Function.identity(), (first, last) -> last));
+        List<Plan> plans = planRepository.findAllById(patchesById.keySet());
+        List<Plan> befores = new ArrayList<>();
+        List<Plan> updated = new ArrayList<>();
+        Long changeSeq = null;
+        for (Plan existingPlan : plans) {
+            Plan before = PlanChangeEvent.snapshot(existingPlan);
+            applyPatch(existingPlan, patchesById.get(existingPlan.getId()));
+            if (!sameAttributes(before, existingPlan)) {
+                if (changeSeq == null) {
+                    changeSeq = planSyncService.nextChangeSeq();
+                }
+                existingPlan.setChangeSeq(changeSeq);
+                befores.add(before);
+                updated.add(existingPlan);
+            }
+        }
+        planRepository.flush();
+        List<PlanChangeEvent.Change> changes = new ArrayList<>(updated.size());
+        for (int i = 0; i < updated.size(); i++) {
+            changes.add(new PlanChangeEvent.Change(befores.get(i), updated.get(i)));
+        }
+        applicationEventPublisher.publishEvent(new PlanChangeEvent(changes));
+        return plans;
+    }
+
+    private static void applyPatch(Plan plan, Plan patch) {
+        if (patch.getPlan() != null) {
+            plan.setPlan(patch.getPlan());
+        }
+        if (patch.getDeductible() != null) {
+            plan.setDeductible(patch.getDeductible());
+        }
+        if (patch.getCoPay() != null) {
+            plan.setCoPay(patch.getCoPay());
+        }
+    }
+
+    private static boolean sameAttributes(Plan plan, Plan other) {
+        return (
+            Objects.equals(plan.getPlan(), other.getPlan()) &&
+            Objects.equals(plan.getDeductible(), other.getDeductible()) &&
+            Objects.equals(plan.getCoPay(), other.getCoPay())
+        );
+    }
+
+    private static void checkVersion(Plan plan, Long expectedVersion) {
+        if (expectedVersion != null && !expectedVersion.equals(plan.getVersion())) {
+            throw new ObjectOptimisticLockingFailureException(Plan.class, plan.getId());
+        }
+    }
+
+    /**
+     * Partially update all the plans matching the criteria, with set-based updates.
+     * <p>
+     * Only the deductible and the co-pay can be updated in bulk; null fields of the patch are left unchanged.
+     *
+     * @param criteria the criteria the plans to update must match.
+     * @param patch the fields to update.
+     * @return the ids of the updated plans.
+     * @throws TooManyPlansException if more than {@link #MAX_BULK_PLANS} plans match the criteria.
+     */
+    public List<Long> bulkPartialUpdate(PlanCriteria criteria, Plan patch) {
+        log.debug("Request to partially update Plans matching {} : {}", criteria, patch);
+        List<Plan> plans = planQueryService.findAllByCriteriaForUpdate(criteria, MAX_BULK_PLANS);
+        List<Long> ids = plans.stream().map(Plan::getId).collect(Collectors.toList());
+        long changeSeq = planSyncService.nextChangeSeq();
+        entityManager.flush();
+        for (List<Long> chunk : chunks(ids)) {
+            CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+            CriteriaUpdate<Plan> update = criteriaBuilder.createCriteriaUpdate(Plan.class);
+            Root<Plan> root = update.from(Plan.class);
+            if (patch.getDeductible() != null) {
+                update.set(root.get(Plan_.deductible), patch.getDeductible());
+            }
+            if (patch.getCoPay() != null) {
+                update.set(root.get(Plan_.coPay), patch.getCoPay());
+            }
+            update.set(root.get(Plan_.version), criteriaBuilder.sum(root.get(Plan_.version), 1L));
+            update.set(root.get(Plan_.changeSeq), changeSeq);
+            update.where(root.get(Plan_.id).in(chunk));
+            entityManager.createQuery(update).executeUpdate();
+        }
+        entityManager.clear();
+        applicationEventPublisher.publishEvent(
+            new PlanChangeEvent(
+                plans
+                    .stream()
+                    .map(
+                        plan ->
+                            new PlanChangeEvent.Change(
+                                plan,
+                                PlanChangeEvent
+                                    .snapshot(plan)
+                                    .deductible(patch.getDeductible() != null ? patch.getDeductible() : plan.getDeductible())
+                                    .coPay(patch.getCoPay() != null ? patch.getCoPay() : plan.getCoPay())
+                                    .version(plan.getVersion() + 1)
+                            )
+                    )
+                    .collect(Collectors.toList())
+            )
+        );
+        return ids;
+    }
+
+    /**
+     * Delete all the plans matching the criteria, with set-based deletes.
+     *
+     * @param criteria the criteria the plans to delete must match.
+     * @return the ids of the deleted plans.
+     * @throws TooManyPlansException if more than {@link #MAX_BULK_PLANS} plans match the criteria.
+     */
+    public List<Long> bulkDelete(PlanCriteria criteria) {
+        log.debug("Request to delete Plans matching {}", criteria);
+        List<Plan> plans = planQueryService.findAllByCriteriaForUpdate(criteria, MAX_BULK_PLANS);
+        List<Long> ids = plans.stream().map(Plan::getId).collect(Collectors.toList());
+        long changeSeq = planSyncService.nextChangeSeq();
+        for (List<Long> chunk : chunks(ids)) {
+            planRepository.deleteAllByIdIn(chunk);
+            planSyncService.recordDeletions(chunk, changeSeq);
+        }
+        applicationEventPublisher.publishEvent(
+            new PlanChangeEvent(plans.stream().map(plan -> new PlanChangeEvent.Change(plan, null)).collect(Collectors.toList()))
+        );
+        return ids;
+    }
+
+    private static List<List<Long>> chunks(List<Long> ids) {
+        List<List<Long>> chunks = new ArrayList<>();
+        for (int i = 0; i < ids.size(); i += BULK_CHUNK_SIZE) {
+            chunks.add(ids.subList(i, Math.min(i + BULK_CHUNK_SIZE, ids.size())));
+        }
+        return chunks;
+    }
+
+    /**
+     * Hand every plan, in id order, to the given consumer without holding the whole table in memory.
+     * <p>
+     * Each plan is detached from the persistence context once consumed, so it can be garbage collected.
+     *
+     * @param consumer the consumer of the plans.
      */
     @Transactional(readOnly = true)
-    public List<Plan> findAll() {
-        log.debug("Request to get all Plans");
-        return planRepository.findAll();
+    public void exportAll(Consumer<Plan> consumer) {
+        log.debug("Request to export all Plans");
+        try (Stream<Plan> plans = planRepository.streamAllByOrderByIdAsc()) {
+            plans.forEach(
+                plan -> {
+                    consumer.accept(plan);
+                    entityManager.detach(plan);
+                    entityManager.detach(plan.getUser());
+                }
+            );
+        }
     }
 
     /**
      * Get one plan by id.
+     * <p>
+     * Concurrent reads of the same plan share one query, each caller but the loading one getting a detached copy of the plan.
      *
      * @param id the id of the entity.
      * @return the entity.
@@ -90,7 +404,19 @@ public class PlanService {
     @Transactional(readOnly = true)
     public Optional<Plan> findOne(Long id) {
         log.debug("Request to get Plan : {}", id);
-        return planRepository.findById(id);
+        return singleFlightService.load(
+            PLAN_LOOKUP,
+            id,
+            () -> planRepository.findById(id),
+            plan -> plan.map(PlanService::detachedCopy)
+        );
+    }
+
+    /**
+     * @return a copy of the plan and of its user, which shares no state with the persistence context of the plan.
+     */
+    private static Plan detachedCopy(Plan plan) {
+        return PlanChangeEvent.snapshot(plan).changeSeq(plan.getChangeSeq()).user(UserService.detachedCopy(plan.getUser()));
     }
 
     /**
@@ -100,6 +426,11 @@ public class PlanService {
      */
     public void delete(Long id) {
         log.debug("Request to delete Plan : {}", id);
-        planRepository.deleteById(id);
+        Plan plan = planRepository
+            .findById(id)
+            .orElseThrow(() -> new EmptyResultDataAccessException(String.format("No %s entity with id %s exists!", Plan.class, id), 1));
+        planRepository.delete(plan);
+        planSyncService.recordDeletions(List.of(id), planSyncService.nextChangeSeq());
+        applicationEventPublisher.publishEvent(PlanChangeEvent.of(plan, null));
     }
 }
@@ -0,0 +1,137 @@
+package com.code.challenge.service;
+
+import com.code.challenge.domain.Plan;
+import com.code.challenge.repository.PlanRepository;
+import com.code.challenge.service.dto.PlanStatisticsDTO;
+import com.code.challenge.service.event.PlanChangeEvent;
+import com.code.challenge.service.statistics.RunningStatistics;
+import java.util.stream.Stream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Service keeping the statistics of the deductibles and co-pays of all the plans in memory.
+ * <p>
+ * The statistics are computed from the database once at startup, then updated in place from the {@link PlanChangeEvent}s
+ * of committed transactions, so reading them never queries the database.
+ */
+@Service
+public class PlanStatisticsService {
+
+    /**
+     * The relative accuracy of the percentiles.
+     */
+    static final double RELATIVE_ACCURACY = 0.01;
+
+    private final Logger log = LoggerFactory.getLogger(PlanStatisticsService.class);
+
+    private final PlanRepository planRepository;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private RunningStatistics deductibles = new RunningStatistics(RELATIVE_ACCURACY);
+
+    private RunningStatistics coPays = new RunningStatistics(RELATIVE_ACCURACY);
+
+    private volatile PlanStatisticsDTO statistics;
+
+    public PlanStatisticsService(PlanRepository planRepository, PlatformTransactionManager transactionManager) {
+        this.planRepository = planRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+    }
+
+    /**
+     * Get the statistics of all the plans.
+     *
+     * @return the statistics, as of the last committed change.
+     */
+    public PlanStatisticsDTO getStatistics() {
+        PlanStatisticsDTO current = statistics;
+        if (current == null) {
+            // The database was not ready at startup
+            reload();
+            current = statistics;
+        }
+        return current;
+    }
+
+    /**
+     * Compute the statistics from the database.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void reload() {
+        log.debug("Request to compute the Plan statistics");
+        RunningStatistics newDeductibles = new RunningStatistics(RELATIVE_ACCURACY);
+        RunningStatistics newCoPays = new RunningStatistics(RELATIVE_ACCURACY);
+        try {
+            transactionTemplate.executeWithoutResult(
+                status -> {
+                    try (Stream<PlanRepository.PlanAmounts> amounts = planRepository.streamAllAmounts()) {
+                        amounts.forEach(
+                            plan -> {
+                                newDeductibles.add(plan.getDeductible());
+                                newCoPays.add(plan.getCoPay());
+                            }
+                        );
+                    }
+                }
+            );
+        } catch (DataAccessException e) {
+            log.warn("Could not compute the Plan statistics: {}", e.getMessage());
+            return;
+        }
+        deductibles = newDeductibles;
+        coPays = newCoPays;
+        publish();
+    }
+
+    /**
+     * Apply the committed changes of plans to the statistics.
+     *
+     * @param event the changes.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onPlanChange(PlanChangeEvent event) {
+        if (statistics == null) {
+            // Not computed yet: the changes will be read from the database
+            return;
+        }
+        for (PlanChangeEvent.Change change : event.getChanges()) {
+            Plan before = change.getBefore();
+            if (before != null) {
+                deductibles.remove(before.getDeductible());
+                coPays.remove(before.getCoPay());
+            }
+            Plan after = change.getAfter();
+            if (after != null) {
+                deductibles.add(after.getDeductible());
+                coPays.add(after.getCoPay());
+            }
+        }
+        publish();
+    }
+
+    private void publish() {
+        statistics = new PlanStatisticsDTO(deductibles.getCount(), toFieldStatistics(deductibles), toFieldStatistics(coPays));
+    }
+
+    private static PlanStatisticsDTO.FieldStatistics toFieldStatistics(RunningStatistics values) {
+        PlanStatisticsDTO.FieldStatistics fieldStatistics = new PlanStatisticsDTO.FieldStatistics();
+        fieldStatistics.setMin(values.getMin());
+        fieldStatistics.setMax(values.getMax());
+        fieldStatistics.setMean(values.getMean());
+        fieldStatistics.setP50(values.getQuantile(0.5));
+        fieldStatistics.setP90(values.getQuantile(0.9));
+        fieldStatistics.setP95(values.getQuantile(0.95));
+        fieldStatistics.setP99(values.getQuantile(0.99));
+        return fieldStatistics;
+    }
+}
@@ -0,0 +1,198 @@
+package com.code.challenge.service;
+
+import com.code.challenge.domain.PlanTombstone;
+import com.code.challenge.repository.PlanRepository;
+import com.code.challenge.repository.PlanTombstoneRepository;
+import com.code.challenge.service.dto.PlanChangesDTO;
+import com.code.challenge.service.dto.PlanSummaryDTO;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import javax.persistence.EntityManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Service tracking the changes of the plans, so that clients can sync only the plans changed since their last sync.
+ * <p>
+ * Every write of plans takes the next change sequence, stored in the {@code change_seq} column of the plans it writes, or of
+ * the tombstones of the plans it deletes. Syncs read both tables from an index on {@code (change_seq, id)}, so their cost
+ * depends on the number of changes, not on the number of plans.
+ * <p>
+ * The change sequences are counted in memory from the last one in the database, so taking one costs no round trip. Like the
+ * other in-memory services, this assumes that all the writes go through this instance. Transactions do not commit in the
+ * order of their change sequences: a sync only reads up to the change sequence before the oldest one still in flight, so a
+ * change committed later can never land behind the token of a client.
+ */
+@Service
+@Transactional
+public class PlanSyncService {
+
+    private final Logger log = LoggerFactory.getLogger(PlanSyncService.class);
+
+    private final PlanRepository planRepository;
+
+    private final PlanTombstoneRepository planTombstoneRepository;
+
+    private final EntityManager entityManager;
+
+    private final TreeSet<Long> inFlight = new TreeSet<>();
+
+    private long lastChangeSeq = -1;
+
+    public PlanSyncService(PlanRepository planRepository, PlanTombstoneRepository planTombstoneRepository, EntityManager entityManager) {
+        this.planRepository = planRepository;
+        this.planTombstoneRepository = planTombstoneRepository;
+        this.entityManager = entityManager;
+    }
+
+    /**
+     * Load the last change sequence from the database.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void loadLastChangeSeq() {
+        if (lastChangeSeq < 0) {
+            Long plans = planRepository.findMaxChangeSeq();
+            Long tombstones = planTombstoneRepository.findMaxChangeSeq();
+            lastChangeSeq = Math.max(plans == null ? 0 : plans, tombstones == null ? 0 : tombstones);
+            log.debug("Last Plan change sequence : {}", lastChangeSeq);
+        }
+    }
+
+    /**
+     * Take the change sequence of a write; it is in flight until the current transaction completes.
+     *
+     * @return the change sequence.
+     */
+    public synchronized long nextChangeSeq() {
+        loadLastChangeSeq();
+        long changeSeq = ++lastChangeSeq;
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            inFlight.add(changeSeq);
+            TransactionSynchronizationManager.registerSynchronization(
+                new TransactionSynchronization() {
+                    @Override
+                    public void afterCompletion(int status) {
+                        complete(changeSeq);
+                    }
+                }
+            );
+        }
+        return changeSeq;
+    }
+
+    private synchronized void complete(long changeSeq) {
+        inFlight.remove(changeSeq);
+    }
+
+    /**
+     * Write the tombstones of deleted plans.
+     *
+     * @param ids the ids of the deleted plans.
+     * @param changeSeq the change sequence of the deletion.
+     */
+    public void recordDeletions(Collection<Long> ids, long changeSeq) {
+        log.debug("Request to record the deletion of {} Plans", ids.size());
+        if (ids.isEmpty()) {
+            return;
+        }
+        planTombstoneRepository.deleteAllByIdIn(ids);
+        for (Long id : ids) {
+            entityManager.persist(new PlanTombstone().id(id).changeSeq(changeSeq));
+        }
+        entityManager.flush();
+    }
+
+    /**
+     * Get the plans changed after the given change.
+     * <p>
+     * A plan changed several times is only returned once, as of its last change. The deletions are only returned when
+     * resuming a sync, as a first sync has no plans to delete.
+     *
+     * @param afterChangeSeq the change sequence of the last change already read, or {@code null} for a first sync.
+     * @param afterId the id of the last change already read.
+     * @param size the maximum number of changes to return.
+     * @return the changes.
+     */
+    @Transactional(readOnly = true)
+    public PlanChangesDTO findChanges(Long afterChangeSeq, long afterId, int size) {
+        log.debug("Request to get the Plans changed after : {}/{}", afterChangeSeq, afterId);
+        long changeSeq = afterChangeSeq == null ? Long.MIN_VALUE : afterChangeSeq;
+        long maxChangeSeq = getStableChangeSeq();
+        PageRequest limit = PageRequest.of(0, size + 1);
+        List<Change> changes = new ArrayList<>();
+        planRepository.findAllChangedAfter(changeSeq, afterId, maxChangeSeq, limit).forEach(plan -> changes.add(new Change(plan)));
+        if (afterChangeSeq != null) {
+            planTombstoneRepository
+                .findAllChangedAfter(changeSeq, afterId, maxChangeSeq, limit)
+                .forEach(tombstone -> changes.add(new Change(tombstone)));
+        }
+        changes.sort(Comparator.comparingLong((Change change) -> change.changeSeq).thenComparingLong(change -> change.id));
+
+        PlanChangesDTO result = new PlanChangesDTO();
+        result.setHasMore(changes.size() > size);
+        List<Change> page = changes.subList(0, Math.min(size, changes.size()));
+        // A plan can be deleted, then created again: keep its last change
+        Map<Long, Change> lastChanges = new LinkedHashMap<>();
+        page.forEach(change -> lastChanges.put(change.id, change));
+        for (Change change : lastChanges.values()) {
+            if (change.plan == null) {
+                result.getDeletedIds().add(change.id);
+            } else {
+                result.getPlans().add(change.plan);
+            }
+        }
+        if (page.isEmpty()) {
+            result.setLastChangeSeq(afterChangeSeq == null ? Long.MIN_VALUE : afterChangeSeq);
+            result.setLastId(afterId);
+        } else {
+            Change last = page.get(page.size() - 1);
+            result.setLastChangeSeq(last.changeSeq);
+            result.setLastId(last.id);
+        }
+        return result;
+    }
+
+    /**
+     * @return the highest change sequence below which all the transactions have completed.
+     */
+    private synchronized long getStableChangeSeq() {
+        loadLastChangeSeq();
+        return inFlight.isEmpty() ? lastChangeSeq : inFlight.first() - 1;
+    }
+
+    /**
+     * A plan or a tombstone, in change order.
+     */
+    private static class Change {
+
+        private final long changeSeq;
+
+        private final long id;
+
+        private final PlanSummaryDTO plan;
+
+        Change(PlanRepository.PlanChange plan) {
+            this.changeSeq = plan.getChangeSeq();
+            this.id = plan.getId();
+            this.plan = new PlanSummaryDTO(plan.getId(), plan.getPlan(), plan.getDeductible(), plan.getCoPay(), plan.getId(), plan.getUserLogin());
+        }
+
+        Change(PlanTombstone tombstone) {
+            this.changeSeq = tombstone.getChangeSeq();
+            this.id = tombstone.getId();
+            this.plan = null;
+        }
+    }
+}
@@ -0,0 +1,356 @@
+package com.code.challenge.service;
+
+import com.code.challenge.config.ApplicationProperties;
+import com.code.challenge.domain.Plan;
+import com.code.challenge.service.event.PlanChangeEvent;
+import com.code.challenge.service.event.PlanWriteBehindFailureEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.stream.Stream;
+import javax.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Service;
+
+/**
+ * Service writing the partial updates of plans behind: patches are queued in memory, merged field by field per plan,
+ * and written every {@link ApplicationProperties.PlanWriteBehind#getWindow() window} in one transaction, with JDBC batches.
+ * <p>
+ * A burst of patches of the same plan thus costs one update. The queue is guarded by striped locks, so patches of different
+ * plans rarely contend. Until a patch is written, {@link #overlay(Plan)} applies it to the plans read from the database; only
+ * the reads of one plan by id use it, so the lists, the export and the change feed show a patch once it is written.
+ * <p>
+ * A patch is checked before it is queued: its plan must exist, and its name must not be used by another plan. A patch which
+ * still cannot be written is kept with the {@link #getDeadLetters() dead letters}, counted, and published as a
+ * {@link PlanWriteBehindFailureEvent}.
+ * <p>
+ * The queue is only held in memory: the patches of the last window are lost if the application stops abruptly.
+ */
+@Service
+public class PlanWriteBehindService {
+
+    static final int STRIPES = 64;
+
+    static final int BATCH_SIZE = 500;
+
+    private final Logger log = LoggerFactory.getLogger(PlanWriteBehindService.class);
+
+    private final PlanService planService;
+
+    private final ApplicationProperties.PlanWriteBehind properties;
+
+    private final TaskScheduler taskScheduler;
+
+    private final Object[] stripes = new Object[STRIPES];
+
+    /**
+     * The merged patches waiting for the next flush.
+     */
+    private final Map<Long, Pending> pending = new ConcurrentHashMap<>();
+
+    /**
+     * The merged patches being written, still visible to reads until they are committed.
+     */
+    private final Map<Long, Pending> flushing = new ConcurrentHashMap<>();
+
+    /**
+     * The last patches which could not be written, oldest first, at most {@link ApplicationProperties.PlanWriteBehind#getMaxPending()}.
+     * Guarded by itself.
+     */
+    private final LinkedHashMap<Long, PlanWriteBehindFailureEvent> deadLetters = new LinkedHashMap<>();
+
+    private final ApplicationEventPublisher applicationEventPublisher;
+
+    private final Counter queuedPatches;
+
+    private final Counter failedPlans;
+
+    private final Counter writtenPlans;
+
+    private final Timer flushLatency;
+
+    private ScheduledFuture<?> scheduledFlush;
+
+    public PlanWriteBehindService(
+        PlanService planService,
+        ApplicationProperties applicationProperties,
+        TaskScheduler taskScheduler,
+        MeterRegistry meterRegistry,
+        ApplicationEventPublisher applicationEventPublisher
+    ) {
+        this.planService = planService;
+        this.properties = applicationProperties.getPlanWriteBehind();
+        this.taskScheduler = taskScheduler;
+        this.applicationEventPublisher = applicationEventPublisher;
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Object();
+        }
+        this.queuedPatches = Counter.builder("plan.write.behind.patches").description("Plan patches queued").register(meterRegistry);
+        this.writtenPlans = Counter.builder("plan.write.behind.writes").description("Plans written by the flushes").register(meterRegistry);
+        this.failedPlans = Counter.builder("plan.write.behind.failures").description("Plan patches which could not be written").register(meterRegistry);
+        this.flushLatency = Timer.builder("plan.write.behind.flush").description("Duration of the flushes of plan patches").register(meterRegistry);
+        Gauge.builder("plan.write.behind.queue.depth", pending, Map::size).description("Plans with queued patches").register(meterRegistry);
+        Gauge
+            .builder("plan.write.behind.dead.letters", this, service -> service.getDeadLetters().size())
+            .description("Plan patches kept after they could not be written")
+            .register(meterRegistry);
+        Gauge
+            .builder("plan.write.behind.coalescing.ratio", this, PlanWriteBehindService::getCoalescingRatio)
+            .description("Plan patches queued per plan written")
+            .register(meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return properties.isEnabled();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void start() {
+        if (properties.isEnabled() && scheduledFlush == null) {
+            log.info("Writing Plan patches behind, every {}", properties.getWindow());
+            scheduledFlush = taskScheduler.scheduleWithFixedDelay(this::flush, properties.getWindow());
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        synchronized (this) {
+            if (scheduledFlush != null) {
+                scheduledFlush.cancel(false);
+                scheduledFlush = null;
+            }
+        }
+        flush();
+    }
+
+    /**
+     * Queue a partial update of a plan, or write it right away if the queue is full.
+     * <p>
+     * The patch must have been validated with the {@link Plan.PartialUpdate} group.
+     *
+     * @param patch the plan to update partially; null fields are left unchanged.
+     * @return the plan as it will be once the patch is written, or empty if the plan does not exist.
+     * @throws PlanNameAlreadyUsedException if the name of the patch is used by another plan, or by a queued patch of another plan.
+     */
+    public Optional<Plan> partialUpdate(Plan patch) {
+        log.debug("Request to queue a partial update of Plan : {}", patch);
+        Optional<Plan> plan = planService.findOne(patch.getId());
+        if (plan.isEmpty()) {
+            return plan;
+        }
+        String name = patch.getPlan();
+        if (name != null && !name.equals(overlay(plan.get()).getPlan()) && isNameUsedByAnotherPlan(name, patch.getId())) {
+            throw new PlanNameAlreadyUsedException();
+        }
+        if (!enqueue(patch)) {
+            return planService.partialUpdate(patch, null);
+        }
+        return plan.map(this::overlay);
+    }
+
+    /**
+     * Queue a partial update of a plan, merged with the patches already queued for it.
+     *
+     * @param patch the plan to update partially; null fields are left unchanged.
+     * @return {@code false} if the queue is full, so the patch was not queued.
+     */
+    public boolean enqueue(Plan patch) {
+        Long id = patch.getId();
+        synchronized (stripe(id)) {
+            Pending current = pending.get(id);
+            if (current == null) {
+                if (pending.size() >= properties.getMaxPending()) {
+                    return false;
+                }
+                pending.put(id, new Pending(patch));
+            } else {
+                current.merge(patch);
+            }
+        }
+        queuedPatches.increment();
+        return true;
+    }
+
+    /**
+     * Apply the patches not written yet to a plan.
+     *
+     * @param plan the plan as read from the database.
+     * @return a copy of the plan with the queued patches applied, or the plan itself if it has none.
+     */
+    public Plan overlay(Plan plan) {
+        Long id = plan.getId();
+        synchronized (stripe(id)) {
+            Pending inFlight = flushing.get(id);
+            Pending queued = pending.get(id);
+            if (inFlight == null && queued == null) {
+                return plan;
+            }
+            Plan result = PlanChangeEvent.snapshot(plan).user(plan.getUser());
+            if (inFlight != null) {
+                inFlight.applyTo(result);
+            }
+            if (queued != null) {
+                queued.applyTo(result);
+            }
+            return result;
+        }
+    }
+
+    /**
+     * @return the last patches which could not be written, oldest first.
+     */
+    public List<PlanWriteBehindFailureEvent> getDeadLetters() {
+        synchronized (deadLetters) {
+            return new ArrayList<>(deadLetters.values());
+        }
+    }
+
+    private boolean isNameUsedByAnotherPlan(String name, Long id) {
+        boolean queued = Stream
+            .concat(flushing.values().stream(), pending.values().stream())
+            .anyMatch(other -> name.equals(other.patch.getPlan()) && !id.equals(other.patch.getId()));
+        return queued || planService.isNameUsedByAnotherPlan(name, id);
+    }
+
+    /**
+     * @param id the id of a plan.
+     * @return {@code true} if the plan has patches not written yet.
+     */
+    public boolean hasPending(Long id) {
+        return pending.containsKey(id) || flushing.containsKey(id);
+    }
+
+    /**
+     * Write all the queued patches.
+     */
+    public synchronized void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+        List<Plan> patches = new ArrayList<>(pending.size());
+        for (Long id : pending.keySet()) {
+            synchronized (stripe(id)) {
+                Pending patch = pending.remove(id);
+                if (patch != null) {
+                    flushing.put(id, patch);
+                    patches.add(patch.patch);
+                }
+            }
+        }
+        flushLatency.record(() -> write(patches));
+    }
+
+    /**
+     * Write the queued patches of a plan, before it is written directly.
+     *
+     * @param id the id of the plan.
+     */
+    public void flush(Long id) {
+        if (!hasPending(id)) {
+            return;
+        }
+        synchronized (this) {
+            Pending patch;
+            synchronized (stripe(id)) {
+                patch = pending.remove(id);
+                if (patch == null) {
+                    return;
+                }
+                flushing.put(id, patch);
+            }
+            flushLatency.record(() -> write(List.of(patch.patch)));
+        }
+    }
+
+    private void write(List<Plan> patches) {
+        for (int from = 0; from < patches.size(); from += BATCH_SIZE) {
+            List<Plan> batch = patches.subList(from, Math.min(from + BATCH_SIZE, patches.size()));
+            try {
+                planService.partialUpdateAll(batch);
+                writtenPlans.increment(batch.size());
+            } catch (RuntimeException e) {
+                log.warn("Could not write a batch of {} Plan patches, writing them one by one: {}", batch.size(), e.getMessage());
+                batch.forEach(this::writeOne);
+            } finally {
+                batch.forEach(patch -> flushing.remove(patch.getId()));
+            }
+        }
+    }
+
+    private void writeOne(Plan patch) {
+        try {
+            planService.partialUpdate(patch, null);
+            writtenPlans.increment();
+        } catch (RuntimeException e) {
+            log.error("Could not write the patch of Plan {}, it is kept with the dead letters: {}", patch.getId(), e.getMessage());
+            deadLetter(new PlanWriteBehindFailureEvent(patch, e.getMessage()));
+        }
+    }
+
+    private void deadLetter(PlanWriteBehindFailureEvent failure) {
+        synchronized (deadLetters) {
+            deadLetters.remove(failure.getPatch().getId());
+            deadLetters.put(failure.getPatch().getId(), failure);
+            if (deadLetters.size() > properties.getMaxPending()) {
+                deadLetters.remove(deadLetters.keySet().iterator().next());
+            }
+        }
+        failedPlans.increment();
+        applicationEventPublisher.publishEvent(failure);
+    }
+
+    private double getCoalescingRatio() {
+        double written = writtenPlans.count();
+        return written == 0 ? Double.NaN : queuedPatches.count() / written;
+    }
+
+    private Object stripe(Long id) {
+        return stripes[Math.floorMod(id.hashCode(), STRIPES)];
+    }
+
+    /**
+     * The patches queued for a plan, merged field by field.
+     */
+    private static class Pending {
+
+        private final Plan patch;
+
+        Pending(Plan patch) {
+            this.patch = new Plan().id(patch.getId());
+            merge(patch);
+        }
+
+        void merge(Plan other) {
+            applyTo(patch, other);
+        }
+
+        void applyTo(Plan plan) {
+            applyTo(plan, patch);
+        }
+
+        private static void applyTo(Plan plan, Plan patch) {
+            if (patch.getPlan() != null) {
+                plan.setPlan(patch.getPlan());
+            }
+            if (patch.getDeductible() != null) {
+                plan.setDeductible(patch.getDeductible());
+            }
+            if (patch.getCoPay() != null) {
+                plan.setCoPay(patch.getCoPay());
+            }
+        }
+    }
+}
@@ -0,0 +1,297 @@
+package com.code.challenge.service;
+
+import com.code.challenge.domain.Plan;
+import com.code.challenge.service.event.PlanChangeEvent;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.Serializable;
+import java.io.UncheckedIOException;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPOutputStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Service caching the serialized JSON bodies of hot read endpoints, so hits are sent without calling Jackson again.
+ * <p>
+ * Bodies of at least {@link #GZIP_THRESHOLD} bytes are also kept gzip-compressed. Entries are evicted when the data they
+ * were built from is written, both right away and once the transaction completes. Every eviction bumps the generation of
+ * its cache, and a body is only stored if the generation did not change while it was built, so a read racing with a write
+ * cannot store a stale body. Nothing is stored from inside a transaction, which may still be rolled back.
+ */
+@Service
+public class ResponseCacheService {
+
+    public static final String PLANS_CACHE = "responses.plans";
+
+    public static final String PUBLIC_USERS_CACHE = "responses.publicUsers";
+
+    public static final String AUTHORITIES_CACHE = "responses.authorities";
+
+    static final int GZIP_THRESHOLD = 1024;
+
+    private final Logger log = LoggerFactory.getLogger(ResponseCacheService.class);
+
+    private final CacheManager cacheManager;
+
+    private final ObjectMapper objectMapper;
+
+    private final MeterRegistry meterRegistry;
+
+    private final Map<String, CacheMetrics> metrics = new ConcurrentHashMap<>();
+
+    public ResponseCacheService(CacheManager cacheManager, ObjectMapper objectMapper, MeterRegistry meterRegistry) {
+        this.cacheManager = cacheManager;
+        this.objectMapper = objectMapper;
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Get a cached response.
+     *
+     * @param cacheName the cache of the endpoint.
+     * @param key the arguments of the endpoint.
+     * @return the response, or empty if it is not cached.
+     */
+    public Optional<CachedResponse> get(String cacheName, Object key) {
+        CachedResponse response = getCache(cacheName).get(key, CachedResponse.class);
+        CacheMetrics cacheMetrics = getMetrics(cacheName);
+        if (response == null) {
+            cacheMetrics.misses.increment();
+            return Optional.empty();
+        }
+        cacheMetrics.hits.increment();
+        cacheMetrics.bytesSaved.increment(response.getBody().length);
+        return Optional.of(response);
+    }
+
+    /**
+     * @return the generation of the cache, to read before building a response to {@link #put} in it.
+     */
+    public long getGeneration(String cacheName) {
+        return getMetrics(cacheName).generation.get();
+    }
+
+    /**
+     * Serialize a response, and cache it if the cache was not evicted since the given generation.
+     *
+     * @param cacheName the cache of the endpoint.
+     * @param key the arguments of the endpoint.
+     * @param generation the generation of the cache before the response was built.
+     * @param value the body to serialize.
+     * @param headers the headers of the response, other than its content type.
+     * @return the serialized response.
+     */
+    public CachedResponse put(String cacheName, Object key, long generation, Object value, Map<String, String> headers) {
+        CachedResponse response = serialize(value, headers);
+        if (!TransactionSynchronizationManager.isActualTransactionActive() && getGeneration(cacheName) == generation) {
+            getCache(cacheName).put(key, response);
+            if (getGeneration(cacheName) != generation) {
+                // Evicted meanwhile
+                getCache(cacheName).evict(key);
+            }
+        }
+        return response;
+    }
+
+    /**
+     * Serialize a response without caching it.
+     *
+     * @param value the body to serialize.
+     * @param headers the headers of the response, other than its content type.
+     * @return the serialized response.
+     */
+    public CachedResponse serialize(Object value, Map<String, String> headers) {
+        try {
+            return new CachedResponse(objectMapper.writeValueAsBytes(value), headers);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Evict a response, now and when the current transaction completes.
+     *
+     * @param cacheName the cache of the endpoint.
+     * @param key the arguments of the endpoint.
+     */
+    public void evict(String cacheName, Object key) {
+        afterCompletion(() -> doEvict(cacheName, key));
+        doEvict(cacheName, key);
+    }
+
+    /**
+     * Evict all the responses of an endpoint, now and when the current transaction completes.
+     *
+     * @param cacheName the cache of the endpoint.
+     */
+    public void clear(String cacheName) {
+        afterCompletion(() -> doClear(cacheName));
+        doClear(cacheName);
+    }
+
+    /**
+     * Evict the responses of the changed plans as soon as they are written.
+     */
+    @EventListener
+    public void onPlanChange(PlanChangeEvent event) {
+        evictPlans(event);
+    }
+
+    /**
+     * Evict the responses of the changed plans again once they are committed, in case they were read in between.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void afterPlanChange(PlanChangeEvent event) {
+        evictPlans(event);
+    }
+
+    private void evictPlans(PlanChangeEvent event) {
+        for (PlanChangeEvent.Change change : event.getChanges()) {
+            Plan plan = change.getAfter() != null ? change.getAfter() : change.getBefore();
+            doEvict(PLANS_CACHE, plan.getId());
+        }
+    }
+
+    private void doEvict(String cacheName, Object key) {
+        log.debug("Evicting the cached response of {} : {}", cacheName, key);
+        getMetrics(cacheName).generation.incrementAndGet();
+        getCache(cacheName).evict(key);
+    }
+
+    private void doClear(String cacheName) {
+        log.debug("Evicting all the cached responses of {}", cacheName);
+        getMetrics(cacheName).generation.incrementAndGet();
+        getCache(cacheName).clear();
+    }
+
+    private static void afterCompletion(Runnable eviction) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(
+                new TransactionSynchronization() {
+                    @Override
+                    public void afterCompletion(int status) {
+                        eviction.run();
+                    }
+                }
+            );
+        }
+    }
+
+    private Cache getCache(String cacheName) {
+        return Objects.requireNonNull(cacheManager.getCache(cacheName));
+    }
+
+    private CacheMetrics getMetrics(String cacheName) {
+        return metrics.computeIfAbsent(cacheName, name -> new CacheMetrics(name, meterRegistry));
+    }
+
+    /**
+     * The metrics of a cache, and its generation.
+     */
+    private static class CacheMetrics {
+
+        private final AtomicLong generation = new AtomicLong();
+
+        private final Counter hits;
+
+        private final Counter misses;
+
+        private final Counter bytesSaved;
+
+        CacheMetrics(String cacheName, MeterRegistry meterRegistry) {
+            hits = Counter.builder("response.cache.requests").tag("cache", cacheName).tag("result", "hit").register(meterRegistry);
+            misses = Counter.builder("response.cache.requests").tag("cache", cacheName).tag("result", "miss").register(meterRegistry);
+            bytesSaved =
+                Counter
+                    .builder("response.cache.bytes.saved")
+                    .description("Bytes sent from the cache instead of being serialized")
+                    .baseUnit("bytes")
+                    .tag("cache", cacheName)
+                    .register(meterRegistry);
+            Gauge
+                .builder("response.cache.hit.ratio", this, CacheMetrics::getHitRatio)
+                .description("Share of the requests served from the cache")
+                .tag("cache", cacheName)
+                .register(meterRegistry);
+        }
+
+        private double getHitRatio() {
+            double requests = hits.count() + misses.count();
+            return requests == 0 ? Double.NaN : hits.count() / requests;
+        }
+    }
+
+    /**
+     * A serialized JSON body, with its gzip-compressed form if it is large enough, and the headers of the response.
+     */
+    public static class CachedResponse implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        private final byte[] body;
+
+        private final byte[] gzippedBody;
+
+        private final Map<String, String> headers;
+
+        CachedResponse(byte[] body, Map<String, String> headers) {
+            this.body = body;
+            this.gzippedBody = body.length >= GZIP_THRESHOLD ? gzip(body) : null;
+            this.headers = Collections.unmodifiableMap(new LinkedHashMap<>(headers));
+        }
+
+        private static byte[] gzip(byte[] body) {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(body.length / 4);
+            try (GZIPOutputStream gzip = new GZIPOutputStream(bytes)) {
+                gzip.write(body);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return bytes.toByteArray();
+        }
+
+        public byte[] getBody() {
+            return body;
+        }
+
+        /**
+         * @return the gzip-compressed body, or {@code null} if the body is too small to be worth compressing.
+         */
+        public byte[] getGzippedBody() {
+            return gzippedBody;
+        }
+
+        public Map<String, String> getHeaders() {
+            return headers;
+        }
+
+        // prettier-ignore
+        @Override
+        public String toString() {
+            return "CachedResponse{" +
+                "body=" + body.length +
+                ", gzippedBody=" + (gzippedBody == null ? null : gzippedBody.length) +
+                ", headers=" + headers +
+                "}";
+        }
+    }
+}
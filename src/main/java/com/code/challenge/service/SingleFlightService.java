@@ -0,0 +1,147 @@
+package com.code.challenge.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Service coalescing concurrent identical reads: while a value is being loaded, the other callers asking for the same key
+ * wait for that load and share its result, instead of each loading it again.
+ * <p>
+ * This matters right after a popular entry is evicted from a cache, when a burst of requests would otherwise all miss it and
+ * hit the database at once. Nothing is kept once the load completes: caching is left to the callers.
+ * <p>
+ * Only reads outside of a transaction, or in a read-only one, are coalesced: a read in a read-write transaction may see its
+ * own uncommitted writes, which must not be shared with other callers.
+ * <p>
+ * A value which is not immutable, such as a managed entity, is shared as a copy: the loading caller makes a detached copy of
+ * it, within its own transaction, and each waiting caller gets its own copy of that one.
+ */
+@Service
+public class SingleFlightService {
+
+    private final Logger log = LoggerFactory.getLogger(SingleFlightService.class);
+
+    private final MeterRegistry meterRegistry;
+
+    private final Map<List<Object>, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+
+    private final Map<String, FlightMetrics> metrics = new ConcurrentHashMap<>();
+
+    public SingleFlightService(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Load an immutable value, or wait for the load of the same key already in flight.
+     *
+     * @param name the name of the lookup, tagging its metrics.
+     * @param key the key of the value.
+     * @param loader the load of the value; it must not load the same key again.
+     * @param <T> the type of the value.
+     * @return the value, shared with the concurrent callers asking for the same key.
+     */
+    public <T> T load(String name, Object key, Supplier<T> loader) {
+        return load(name, key, loader, UnaryOperator.identity());
+    }
+
+    /**
+     * Load a value, or wait for the load of the same key already in flight.
+     *
+     * @param name the name of the lookup, tagging its metrics.
+     * @param key the key of the value.
+     * @param loader the load of the value; it must not load the same key again.
+     * @param copier the detached copy of a value, given to the concurrent callers.
+     * @param <T> the type of the value.
+     * @return the value loaded by the caller, or a copy of the value loaded by a concurrent caller asking for the same key.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T load(String name, Object key, Supplier<T> loader, UnaryOperator<T> copier) {
+        if (isReadWriteTransactionActive()) {
+            return loader.get();
+        }
+        FlightMetrics flightMetrics = getMetrics(name);
+        List<Object> flightKey = List.of(name, key);
+        CompletableFuture<Object> flight = new CompletableFuture<>();
+        CompletableFuture<Object> current = inFlight.putIfAbsent(flightKey, flight);
+        if (current != null) {
+            log.debug("Waiting for the {} load of : {}", name, key);
+            flightMetrics.coalesced.increment();
+            return copier.apply((T) flightMetrics.wait.record(() -> join(current)));
+        }
+        flightMetrics.loads.increment();
+        try {
+            T value = loader.get();
+            flight.complete(copier.apply(value));
+            return value;
+        } catch (RuntimeException | Error e) {
+            flight.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(flightKey, flight);
+        }
+    }
+
+    private static boolean isReadWriteTransactionActive() {
+        return (
+            TransactionSynchronizationManager.isActualTransactionActive() && !TransactionSynchronizationManager.isCurrentTransactionReadOnly()
+        );
+    }
+
+    private static Object join(CompletableFuture<Object> flight) {
+        try {
+            return flight.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    private FlightMetrics getMetrics(String name) {
+        return metrics.computeIfAbsent(name, n -> new FlightMetrics(n, meterRegistry));
+    }
+
+    /**
+     * The metrics of a lookup.
+     */
+    private static class FlightMetrics {
+
+        private final Counter loads;
+
+        private final Counter coalesced;
+
+        private final Timer wait;
+
+        FlightMetrics(String name, MeterRegistry meterRegistry) {
+            loads = Counter.builder("single.flight.loads").description("Loads run").tag("name", name).register(meterRegistry);
+            coalesced =
+                Counter
+                    .builder("single.flight.coalesced")
+                    .description("Reads served by the load of a concurrent read")
+                    .tag("name", name)
+                    .register(meterRegistry);
+            wait =
+                Timer
+                    .builder("single.flight.wait")
+                    .description("Time spent waiting for the load of a concurrent read")
+                    .tag("name", name)
+                    .register(meterRegistry);
+        }
+    }
+}
@@ -0,0 +1,10 @@
+package com.code.challenge.service;
+
+public class TooManyPlansException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public TooManyPlansException(int maxPlans) {
+        super("More than " + maxPlans + " plans match the criteria!");
+    }
+}
@@ -0,0 +1,222 @@
+package com.code.challenge.service;
+
+import com.code.challenge.config.ApplicationProperties;
+import com.code.challenge.repository.UserRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import javax.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Service deleting the users not activated within 3 days of their registration.
+ * <p>
+ * The users are deleted by chunks, each in its own short transaction: the ids of a chunk are read by keyset, in id order,
+ * then the chunk is deleted with two set-based statements, and its cache entries are evicted once it is committed.
+ * A committed chunk stays deleted, so a run that stops, on shutdown or on an error, loses no work: the next run scans again
+ * from the start, where only the users left remain. The users with a plan are kept.
+ * <p>
+ * The runs, paced to their throughput limit, are on a thread of their own rather than on the shared task scheduler, so they
+ * do not hold up the other scheduled tasks.
+ */
+@Service
+public class UserCleanupService {
+
+    static final int RETENTION_DAYS = 3;
+
+    private final Logger log = LoggerFactory.getLogger(UserCleanupService.class);
+
+    private final UserRepository userRepository;
+
+    private final CacheManager cacheManager;
+
+    private final ResponseCacheService responseCacheService;
+
+    private final ApplicationProperties.UserCleanup properties;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final Counter deletedUsers;
+
+    private final Timer chunkDuration;
+
+    private final ExecutorService cleanupExecutor = Executors.newSingleThreadExecutor(
+        runnable -> {
+            Thread thread = new Thread(runnable, "user-cleanup");
+            thread.setDaemon(true);
+            return thread;
+        }
+    );
+
+    /**
+     * Held by a run, so that two runs do not delete the same users; not the monitor of the service, so that the scheduler does
+     * not wait for a run to finish.
+     */
+    private final Object runLock = new Object();
+
+    private Future<?> scheduledRun;
+
+    private volatile boolean stopping;
+
+    public UserCleanupService(
+        UserRepository userRepository,
+        CacheManager cacheManager,
+        ResponseCacheService responseCacheService,
+        ApplicationProperties applicationProperties,
+        PlatformTransactionManager transactionManager,
+        MeterRegistry meterRegistry
+    ) {
+        this.userRepository = userRepository;
+        this.cacheManager = cacheManager;
+        this.responseCacheService = responseCacheService;
+        this.properties = applicationProperties.getUserCleanup();
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.deletedUsers = Counter.builder("user.cleanup.deleted").description("Not activated users deleted").register(meterRegistry);
+        this.chunkDuration =
+            Timer
+                .builder("user.cleanup.chunk")
+                .description("Duration of the chunks of user deletes")
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void stop() {
+        stopping = true;
+        cleanupExecutor.shutdownNow();
+    }
+
+    /**
+     * Start the deletion of the not activated users on the cleanup thread, unless the previous run is not finished yet.
+     * <p>
+     * This is scheduled to get fired everyday, at 01:00 (am).
+     */
+    @Scheduled(cron = "0 0 1 * * ?")
+    public synchronized void scheduleRemoval() {
+        if (scheduledRun != null && !scheduledRun.isDone()) {
+            log.warn("The previous deletion of not activated users is not finished yet");
+            return;
+        }
+        scheduledRun = cleanupExecutor.submit(this::runRemoval);
+    }
+
+    private void runRemoval() {
+        try {
+            removeNotActivatedUsers();
+        } catch (RuntimeException e) {
+            log.error("Could not delete the not activated users", e);
+        }
+    }
+
+    /**
+     * Not activated users should be automatically deleted after 3 days.
+     *
+     * @return the number of deleted users.
+     */
+    public long removeNotActivatedUsers() {
+        synchronized (runLock) {
+            return removeNotActivatedUsers(Instant.now().minus(RETENTION_DAYS, ChronoUnit.DAYS));
+        }
+    }
+
+    private long removeNotActivatedUsers(Instant createdBefore) {
+        int chunkSize = Math.max(1, properties.getChunkSize());
+        long afterId = 0;
+        long started = System.nanoTime();
+        long deleted = 0;
+        while (!stopping) {
+            long chunkAfterId = afterId;
+            List<UserRepository.UserKeys> chunk = chunkDuration.record(() -> deleteChunk(createdBefore, chunkAfterId, chunkSize));
+            if (chunk.isEmpty()) {
+                break;
+            }
+            evictCaches(chunk);
+            deleted += chunk.size();
+            deletedUsers.increment(chunk.size());
+            afterId = chunk.get(chunk.size() - 1).getId();
+            if (chunk.size() < chunkSize) {
+                break;
+            }
+            if (!pace(started, deleted)) {
+                break;
+            }
+        }
+        log.info("Deleted {} not activated users", deleted);
+        return deleted;
+    }
+
+    private List<UserRepository.UserKeys> deleteChunk(Instant createdBefore, long afterId, int chunkSize) {
+        return transactionTemplate.execute(
+            status -> {
+                List<UserRepository.UserKeys> chunk = userRepository.findNotActivatedKeys(
+                    createdBefore,
+                    afterId,
+                    PageRequest.of(0, chunkSize)
+                );
+                if (!chunk.isEmpty()) {
+                    log.debug("Deleting {} not activated users, from id {}", chunk.size(), chunk.get(0).getId());
+                    userRepository.deleteAllWithAuthoritiesByIdIn(
+                        chunk.stream().map(UserRepository.UserKeys::getId).collect(Collectors.toList())
+                    );
+                }
+                return chunk;
+            }
+        );
+    }
+
+    /**
+     * Evict the deleted users from the caches, once per chunk rather than once per user for the shared caches.
+     */
+    private void evictCaches(List<UserRepository.UserKeys> chunk) {
+        Cache usersByLogin = Objects.requireNonNull(cacheManager.getCache(UserRepository.USERS_BY_LOGIN_CACHE));
+        Cache credentialsByLogin = Objects.requireNonNull(cacheManager.getCache(UserRepository.USER_CREDENTIALS_BY_LOGIN_CACHE));
+        Cache credentialsByEmail = Objects.requireNonNull(cacheManager.getCache(UserRepository.USER_CREDENTIALS_BY_EMAIL_CACHE));
+        for (UserRepository.UserKeys user : chunk) {
+            usersByLogin.evict(user.getLogin());
+            credentialsByLogin.evict(user.getLogin());
+            if (user.getEmail() != null) {
+                credentialsByEmail.evict(user.getEmail());
+            }
+        }
+        responseCacheService.clear(ResponseCacheService.PUBLIC_USERS_CACHE);
+    }
+
+    /**
+     * Wait until the users deleted so far are within the throughput limit.
+     *
+     * @return {@code false} if the run was interrupted.
+     */
+    private boolean pace(long started, long deleted) {
+        int maxUsersPerSecond = properties.getMaxUsersPerSecond();
+        if (maxUsersPerSecond <= 0) {
+            return true;
+        }
+        long aheadNanos = TimeUnit.SECONDS.toNanos(deleted) / maxUsersPerSecond - (System.nanoTime() - started);
+        if (aheadNanos <= 0) {
+            return true;
+        }
+        try {
+            TimeUnit.NANOSECONDS.sleep(aheadNanos);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
@@ -3,22 +3,35 @@ package com.code.challenge.service;
 import com.code.challenge.config.Constants;
 import com.code.challenge.domain.Authority;
 import com.code.challenge.domain.User;
-import com.code.challenge.repository.AuthorityRepository;
+import com.code.challenge.domain.User_;
 import com.code.challenge.repository.UserRepository;
 import com.code.challenge.security.AuthoritiesConstants;
 import com.code.challenge.security.SecurityUtils;
 import com.code.challenge.service.dto.AdminUserDTO;
 import com.code.challenge.service.dto.UserDTO;
 import java.time.Instant;
-import java.time.temporal.ChronoUnit;
 import java.util.*;
 import java.util.stream.Collectors;
+import javax.persistence.EntityManager;
+import javax.persistence.Tuple;
+import javax.persistence.TypedQuery;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Path;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import javax.persistence.criteria.Selection;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.cache.CacheManager;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
-import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import org.springframework.data.support.PageableExecutionUtils;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -37,20 +50,32 @@ public class UserService {
 
     private final PasswordEncoder passwordEncoder;
 
-    private final AuthorityRepository authorityRepository;
+    private final AuthorityRegistry authorityRegistry;
 
     private final CacheManager cacheManager;
 
+    private final ResponseCacheService responseCacheService;
+
+    private final SingleFlightService singleFlightService;
+
+    private final EntityManager entityManager;
+
     public UserService(
         UserRepository userRepository,
         PasswordEncoder passwordEncoder,
-        AuthorityRepository authorityRepository,
-        CacheManager cacheManager
+        AuthorityRegistry authorityRegistry,
+        CacheManager cacheManager,
+        ResponseCacheService responseCacheService,
+        SingleFlightService singleFlightService,
+        EntityManager entityManager
     ) {
         this.userRepository = userRepository;
         this.passwordEncoder = passwordEncoder;
-        this.authorityRepository = authorityRepository;
+        this.authorityRegistry = authorityRegistry;
         this.cacheManager = cacheManager;
+        this.responseCacheService = responseCacheService;
+        this.singleFlightService = singleFlightService;
+        this.entityManager = entityManager;
     }
 
     public Optional<User> activateRegistration(String key) {
@@ -87,7 +112,7 @@ public class UserService {
 
     public Optional<User> requestPasswordReset(String mail) {
         return userRepository
-            .findOneByEmailIgnoreCase(mail)
+            .findOneByLowerCaseEmail(mail)
             .filter(User::isActivated)
             .map(
                 user -> {
@@ -111,7 +136,7 @@ public class UserService {
                 }
             );
         userRepository
-            .findOneByEmailIgnoreCase(userDTO.getEmail())
+            .findOneByLowerCaseEmail(userDTO.getEmail())
             .ifPresent(
                 existingUser -> {
                     boolean removed = removeNonActivatedUser(existingUser);
@@ -137,7 +162,7 @@ public class UserService {
         // new user gets registration key
         newUser.setActivationKey(RandomUtil.generateActivationKey());
         Set<Authority> authorities = new HashSet<>();
-        authorityRepository.findById(AuthoritiesConstants.USER).ifPresent(authorities::add);
+        authorityRegistry.find(AuthoritiesConstants.USER).ifPresent(authorities::add);
         newUser.setAuthorities(authorities);
         userRepository.save(newUser);
         this.clearUserCaches(newUser);
@@ -175,14 +200,7 @@ public class UserService {
         user.setResetDate(Instant.now());
         user.setActivated(true);
         if (userDTO.getAuthorities() != null) {
-            Set<Authority> authorities = userDTO
-                .getAuthorities()
-                .stream()
-                .map(authorityRepository::findById)
-                .filter(Optional::isPresent)
-                .map(Optional::get)
-                .collect(Collectors.toSet());
-            user.setAuthorities(authorities);
+            user.setAuthorities(authorityRegistry.findAll(userDTO.getAuthorities()));
         }
         userRepository.save(user);
         this.clearUserCaches(user);
@@ -215,13 +233,7 @@ public class UserService {
                     user.setLangKey(userDTO.getLangKey());
                     Set<Authority> managedAuthorities = user.getAuthorities();
                     managedAuthorities.clear();
-                    userDTO
-                        .getAuthorities()
-                        .stream()
-                        .map(authorityRepository::findById)
-                        .filter(Optional::isPresent)
-                        .map(Optional::get)
-                        .forEach(managedAuthorities::add);
+                    managedAuthorities.addAll(authorityRegistry.findAll(userDTO.getAuthorities()));
                     this.clearUserCaches(user);
                     log.debug("Changed Information for User: {}", user);
                     return user;
@@ -257,6 +269,8 @@ public class UserService {
             .flatMap(userRepository::findOneByLogin)
             .ifPresent(
                 user -> {
+                    // Before the email changes, so that the user cannot authenticate with the previous one
+                    this.clearUserCaches(user);
                     user.setFirstName(firstName);
                     user.setLastName(lastName);
                     if (email != null) {
@@ -289,9 +303,30 @@ public class UserService {
             );
     }
 
+    /**
+     * Get a page of users with the names of their authorities, which are all read with a single statement: the page takes two
+     * statements, plus the count of the users when it is not the last page.
+     *
+     * @param pageable the pagination information.
+     * @return the users.
+     */
     @Transactional(readOnly = true)
     public Page<AdminUserDTO> getAllManagedUsers(Pageable pageable) {
-        return userRepository.findAll(pageable).map(AdminUserDTO::new);
+        Page<User> users = userRepository.findAll(pageable);
+        Map<Long, Set<String>> authorities = findAuthorityNames(users.getContent());
+        return users.map(user -> new AdminUserDTO(user, authorities.getOrDefault(user.getId(), Collections.emptySet())));
+    }
+
+    /**
+     * Get a page of users with only the requested fields: only their columns are selected.
+     *
+     * @param pageable the pagination information.
+     * @param fields the requested attributes of the users, except their authorities; the id is always returned.
+     * @return the requested fields of the users, by name.
+     */
+    @Transactional(readOnly = true)
+    public Page<Map<String, Object>> getAllManagedUsers(Pageable pageable, Collection<String> fields) {
+        return findAllFields(pageable, fields, false);
     }
 
     @Transactional(readOnly = true)
@@ -299,47 +334,286 @@ public class UserService {
         return userRepository.findAllByIdNotNullAndActivatedIsTrue(pageable).map(UserDTO::new);
     }
 
+    /**
+     * Get a page of the activated users with only the requested fields: only their columns are selected.
+     *
+     * @param pageable the pagination information.
+     * @param fields the requested public attributes of the users; the id is always returned.
+     * @return the requested fields of the users, by name.
+     */
+    @Transactional(readOnly = true)
+    public Page<Map<String, Object>> getAllPublicUsers(Pageable pageable, Collection<String> fields) {
+        return findAllFields(pageable, fields, true);
+    }
+
+    /**
+     * Get a slice of users, ordered by a unique key, starting right after the given key.
+     * <p>
+     * This is a keyset query: it seeks to {@code after} and reads one row more than needed to know if there is a next slice,
+     * so no count query is run, and the users before {@code after} are not scanned.
+     *
+     * @param order the order of the users, by {@code id} or by {@code login}.
+     * @param after the id or the login of the last user of the previous slice, or {@code null} to start from the beginning.
+     * @param size the maximum number of users to return.
+     * @return the users.
+     */
+    @Transactional(readOnly = true)
+    public Slice<AdminUserDTO> getAllManagedUsers(Sort.Order order, Comparable<?> after, int size) {
+        Slice<User> users = findUsers(order, after, size, false);
+        Map<Long, Set<String>> authorities = findAuthorityNames(users.getContent());
+        return users.map(user -> new AdminUserDTO(user, authorities.getOrDefault(user.getId(), Collections.emptySet())));
+    }
+
+    /**
+     * Get a slice of users with only the requested fields, like {@link #getAllManagedUsers(Sort.Order, Comparable, int)}.
+     *
+     * @param order the order of the users, by {@code id} or by {@code login}.
+     * @param after the id or the login of the last user of the previous slice, or {@code null} to start from the beginning.
+     * @param size the maximum number of users to return.
+     * @param fields the requested attributes of the users, except their authorities; the id and the sort key are always returned.
+     * @return the requested fields of the users, by name.
+     */
+    @Transactional(readOnly = true)
+    public Slice<Map<String, Object>> getAllManagedUsers(Sort.Order order, Comparable<?> after, int size, Collection<String> fields) {
+        return findFields(order, after, size, fields, false);
+    }
+
+    /**
+     * Get a slice of the activated users, like {@link #getAllManagedUsers(Sort.Order, Comparable, int)}.
+     *
+     * @param order the order of the users, by {@code id} or by {@code login}.
+     * @param after the id or the login of the last user of the previous slice, or {@code null} to start from the beginning.
+     * @param size the maximum number of users to return.
+     * @return the users.
+     */
+    @Transactional(readOnly = true)
+    public Slice<UserDTO> getAllPublicUsers(Sort.Order order, Comparable<?> after, int size) {
+        return findUsers(order, after, size, true).map(UserDTO::new);
+    }
+
+    /**
+     * Get a slice of the activated users with only the requested fields, like {@link #getAllManagedUsers(Sort.Order, Comparable, int)}.
+     *
+     * @param order the order of the users, by {@code id} or by {@code login}.
+     * @param after the id or the login of the last user of the previous slice, or {@code null} to start from the beginning.
+     * @param size the maximum number of users to return.
+     * @param fields the requested public attributes of the users; the id and the sort key are always returned.
+     * @return the requested fields of the users, by name.
+     */
+    @Transactional(readOnly = true)
+    public Slice<Map<String, Object>> getAllPublicUsers(Sort.Order order, Comparable<?> after, int size, Collection<String> fields) {
+        return findFields(order, after, size, fields, true);
+    }
+
+    /**
+     * Estimate the number of users from the database statistics, which is much cheaper than counting them.
+     *
+     * @return the estimated number of users, activated or not, or empty if the database has no estimate.
+     */
+    @Transactional(readOnly = true)
+    public Optional<Long> estimateUserCount() {
+        return userRepository.estimateCount();
+    }
+
+    /**
+     * Read the authority names of users with one statement, rather than with the batched selects of their lazy authorities.
+     */
+    private Map<Long, Set<String>> findAuthorityNames(List<User> users) {
+        if (users.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        return userRepository
+            .findAllAuthorityNamesByUserIdIn(users.stream().map(User::getId).collect(Collectors.toList()))
+            .stream()
+            .collect(
+                Collectors.groupingBy(
+                    UserRepository.UserAuthorityName::getUserId,
+                    Collectors.mapping(UserRepository.UserAuthorityName::getAuthorityName, Collectors.toSet())
+                )
+            );
+    }
+
+    private Page<Map<String, Object>> findAllFields(Pageable pageable, Collection<String> fields, boolean activatedOnly) {
+        CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = criteriaBuilder.createTupleQuery();
+        Root<User> root = query.from(User.class);
+        List<String> selected = selectFields(query, root, fields);
+        if (activatedOnly) {
+            query.where(criteriaBuilder.isNotNull(root.get(User_.id)), criteriaBuilder.isTrue(root.get(User_.activated)));
+        }
+        query.orderBy(QueryUtils.toOrders(pageable.getSort(), root, criteriaBuilder));
+        TypedQuery<Tuple> typedQuery = entityManager.createQuery(query);
+        if (pageable.isPaged()) {
+            typedQuery.setFirstResult((int) pageable.getOffset()).setMaxResults(pageable.getPageSize());
+        }
+        List<Map<String, Object>> content = typedQuery
+            .getResultStream()
+            .map(tuple -> toFields(tuple, selected))
+            .collect(Collectors.toList());
+        return PageableExecutionUtils.getPage(
+            content,
+            pageable,
+            () -> activatedOnly ? userRepository.countByIdNotNullAndActivatedIsTrue() : userRepository.count()
+        );
+    }
+
+    private Slice<User> findUsers(Sort.Order order, Comparable<?> after, int size, boolean activatedOnly) {
+        CriteriaQuery<User> query = entityManager.getCriteriaBuilder().createQuery(User.class);
+        Root<User> root = query.from(User.class);
+        query.select(root);
+        return findSlice(query, root, order, after, size, activatedOnly);
+    }
+
+    private Slice<Map<String, Object>> findFields(
+        Sort.Order order,
+        Comparable<?> after,
+        int size,
+        Collection<String> fields,
+        boolean activatedOnly
+    ) {
+        CriteriaQuery<Tuple> query = entityManager.getCriteriaBuilder().createTupleQuery();
+        Root<User> root = query.from(User.class);
+        List<String> requested = new ArrayList<>(fields);
+        requested.add(order.getProperty());
+        List<String> selected = selectFields(query, root, requested);
+        return findSlice(query, root, order, after, size, activatedOnly).map(tuple -> toFields(tuple, selected));
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> Slice<T> findSlice(
+        CriteriaQuery<T> query,
+        Root<User> root,
+        Sort.Order order,
+        Comparable<?> after,
+        int size,
+        boolean activatedOnly
+    ) {
+        if (!User_.ID.equals(order.getProperty()) && !User_.LOGIN.equals(order.getProperty())) {
+            throw new IllegalArgumentException("Users can only be paged by id or by login with a cursor, not by " + order.getProperty());
+        }
+        CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        Path<Comparable<Object>> key = root.get(order.getProperty());
+        List<Predicate> predicates = new ArrayList<>();
+        if (activatedOnly) {
+            predicates.add(criteriaBuilder.isTrue(root.get(User_.activated)));
+        }
+        if (after != null) {
+            Comparable<Object> afterKey = (Comparable<Object>) after;
+            predicates.add(order.isAscending() ? criteriaBuilder.greaterThan(key, afterKey) : criteriaBuilder.lessThan(key, afterKey));
+        }
+        query.where(predicates.toArray(new Predicate[0]));
+        query.orderBy(order.isAscending() ? criteriaBuilder.asc(key) : criteriaBuilder.desc(key));
+        List<T> content = entityManager.createQuery(query).setMaxResults(size + 1).getResultList();
+        boolean hasNext = content.size() > size;
+        if (hasNext) {
+            content = content.subList(0, size);
+        }
+        return new SliceImpl<>(content, PageRequest.of(0, size), hasNext);
+    }
+
+    /**
+     * Select the id, then the other requested fields.
+     */
+    private static List<String> selectFields(CriteriaQuery<Tuple> query, Root<User> root, Collection<String> fields) {
+        List<String> selected = new ArrayList<>();
+        selected.add(User_.ID);
+        fields.stream().filter(field -> !selected.contains(field)).forEach(selected::add);
+        query.multiselect(selected.stream().<Selection<?>>map(field -> root.get(field).alias(field)).collect(Collectors.toList()));
+        return selected;
+    }
+
+    private static Map<String, Object> toFields(Tuple tuple, List<String> selected) {
+        Map<String, Object> user = new LinkedHashMap<>();
+        selected.forEach(field -> user.put(field, tuple.get(field)));
+        return user;
+    }
+
     @Transactional(readOnly = true)
     public Optional<User> getUserWithAuthoritiesByLogin(String login) {
-        return userRepository.findOneWithAuthoritiesByLogin(login);
+        return findOneWithAuthoritiesByLogin(login);
     }
 
     @Transactional(readOnly = true)
     public Optional<User> getUserWithAuthorities() {
-        return SecurityUtils.getCurrentUserLogin().flatMap(userRepository::findOneWithAuthoritiesByLogin);
+        return SecurityUtils.getCurrentUserLogin().flatMap(this::findOneWithAuthoritiesByLogin);
     }
 
     /**
-     * Not activated users should be automatically deleted after 3 days.
-     * <p>
-     * This is scheduled to get fired everyday, at 01:00 (am).
+     * Concurrent misses of the users cache share one query, each caller but the loading one getting a detached copy of the user.
      */
-    @Scheduled(cron = "0 0 1 * * ?")
-    public void removeNotActivatedUsers() {
-        userRepository
-            .findAllByActivatedIsFalseAndActivationKeyIsNotNullAndCreatedDateBefore(Instant.now().minus(3, ChronoUnit.DAYS))
-            .forEach(
-                user -> {
-                    log.debug("Deleting not activated user {}", user.getLogin());
-                    userRepository.delete(user);
-                    this.clearUserCaches(user);
-                }
-            );
+    private Optional<User> findOneWithAuthoritiesByLogin(String login) {
+        return singleFlightService.load(
+            UserRepository.USERS_BY_LOGIN_CACHE,
+            login,
+            () -> userRepository.findOneWithAuthoritiesByLogin(login),
+            user -> user.map(UserService::detachedCopyWithAuthorities)
+        );
+    }
+
+    private static User detachedCopyWithAuthorities(User user) {
+        User copy = detachedCopy(user);
+        copy.setAuthorities(
+            user
+                .getAuthorities()
+                .stream()
+                .map(
+                    authority -> {
+                        Authority authorityCopy = new Authority();
+                        authorityCopy.setName(authority.getName());
+                        return authorityCopy;
+                    }
+                )
+                .collect(Collectors.toSet())
+        );
+        return copy;
+    }
+
+    /**
+     * @return a copy of the columns of the user, without its lazy authorities, which shares no state with the persistence
+     * context of the user.
+     */
+    static User detachedCopy(User user) {
+        User copy = new User();
+        copy.setId(user.getId());
+        copy.setLogin(user.getLogin());
+        copy.setPassword(user.getPassword());
+        copy.setFirstName(user.getFirstName());
+        copy.setLastName(user.getLastName());
+        copy.setEmail(user.getEmail());
+        copy.setActivated(user.isActivated());
+        copy.setLangKey(user.getLangKey());
+        copy.setImageUrl(user.getImageUrl());
+        copy.setActivationKey(user.getActivationKey());
+        copy.setResetKey(user.getResetKey());
+        copy.setResetDate(user.getResetDate());
+        copy.setCreatedBy(user.getCreatedBy());
+        copy.setCreatedDate(user.getCreatedDate());
+        copy.setLastModifiedBy(user.getLastModifiedBy());
+        copy.setLastModifiedDate(user.getLastModifiedDate());
+        return copy;
     }
 
     /**
      * Gets a list of all the authorities.
      * @return a list of all the authorities.
      */
-    @Transactional(readOnly = true)
     public List<String> getAuthorities() {
-        return authorityRepository.findAll().stream().map(Authority::getName).collect(Collectors.toList());
+        return authorityRegistry.getNames();
     }
 
     private void clearUserCaches(User user) {
         Objects.requireNonNull(cacheManager.getCache(UserRepository.USERS_BY_LOGIN_CACHE)).evict(user.getLogin());
+        Objects.requireNonNull(cacheManager.getCache(UserRepository.USER_CREDENTIALS_BY_LOGIN_CACHE)).evict(user.getLogin());
+        // Also drops a negative entry left by an authentication attempt before the user was registered
+        Objects.requireNonNull(cacheManager.getCache(UserRepository.UNKNOWN_USER_CREDENTIALS_BY_LOGIN_CACHE)).evict(user.getLogin());
         if (user.getEmail() != null) {
-            Objects.requireNonNull(cacheManager.getCache(UserRepository.USERS_BY_EMAIL_CACHE)).evict(user.getEmail());
+            Objects.requireNonNull(cacheManager.getCache(UserRepository.USER_CREDENTIALS_BY_EMAIL_CACHE)).evict(user.getEmail());
+            Objects.requireNonNull(cacheManager.getCache(UserRepository.UNKNOWN_USER_CREDENTIALS_BY_EMAIL_CACHE)).evict(user.getEmail());
+        }
+        responseCacheService.clear(ResponseCacheService.PUBLIC_USERS_CACHE);
+        if (user.getId() != null) {
+            // The plan of a user shares its id, and embeds the user
+            responseCacheService.evict(ResponseCacheService.PLANS_CACHE, user.getId());
         }
     }
 }
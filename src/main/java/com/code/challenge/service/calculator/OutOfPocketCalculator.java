@@ -0,0 +1,117 @@
+package com.code.challenge.service.calculator;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Computes the out-of-pocket cost of claims, from the plans of the members who made them.
+ * <p>
+ * For one claim, the member pays the claim up to the deductible of the plan, then the co-pay of the plan, capped to the rest
+ * of the claim. Each claim is computed on its own: deductibles are not accumulated across the claims of a member.
+ * <p>
+ * The plans are held in primitive arrays sorted by id, and the claims are read from and written to primitive arrays, so a
+ * calculation allocates no object per claim. Large batches are split into fork/join tasks.
+ */
+public final class OutOfPocketCalculator {
+
+    /**
+     * Batches of fewer claims than this are computed in the calling thread.
+     */
+    static final int PARALLEL_THRESHOLD = 1 << 13;
+
+    private final long[] planIds;
+
+    private final int[] deductibles;
+
+    private final double[] coPays;
+
+    /**
+     * @param planIds the ids of the plans, which are also the ids of the members, sorted and without duplicates.
+     * @param deductibles the deductibles of the plans, in the same order.
+     * @param coPays the co-pays of the plans, in the same order.
+     */
+    public OutOfPocketCalculator(long[] planIds, int[] deductibles, double[] coPays) {
+        if (planIds.length != deductibles.length || planIds.length != coPays.length) {
+            throw new IllegalArgumentException("All the plan columns must have the same length");
+        }
+        this.planIds = planIds;
+        this.deductibles = deductibles;
+        this.coPays = coPays;
+    }
+
+    /**
+     * @return the out-of-pocket cost of a claim.
+     */
+    public static double outOfPocket(double claimAmount, int deductible, double coPay) {
+        if (claimAmount <= deductible) {
+            return claimAmount;
+        }
+        return deductible + Math.min(coPay, claimAmount - deductible);
+    }
+
+    /**
+     * Compute the out-of-pocket cost of each claim, in the calling thread.
+     *
+     * @param userIds the ids of the members who made the claims.
+     * @param claimAmounts the amounts of the claims, in the same order.
+     * @param results the out-of-pocket costs, in the same order: {@link Double#NaN} when the member has no plan or the amount is not a number.
+     * @param from the index of the first claim, inclusive.
+     * @param to the index of the last claim, exclusive.
+     */
+    public void calculate(long[] userIds, double[] claimAmounts, double[] results, int from, int to) {
+        for (int i = from; i < to; i++) {
+            int plan = Arrays.binarySearch(planIds, userIds[i]);
+            results[i] = plan < 0 ? Double.NaN : outOfPocket(claimAmounts[i], deductibles[plan], coPays[plan]);
+        }
+    }
+
+    /**
+     * Compute the out-of-pocket cost of each claim, splitting the work across the given pool.
+     *
+     * @see #calculate(long[], double[], double[], int, int)
+     */
+    public void calculate(long[] userIds, double[] claimAmounts, double[] results, int size, ForkJoinPool pool) {
+        if (size < PARALLEL_THRESHOLD) {
+            calculate(userIds, claimAmounts, results, 0, size);
+        } else {
+            pool.invoke(new CalculationTask(userIds, claimAmounts, results, 0, size));
+        }
+    }
+
+    private final class CalculationTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final long[] userIds;
+
+        private final double[] claimAmounts;
+
+        private final double[] results;
+
+        private final int from;
+
+        private final int to;
+
+        CalculationTask(long[] userIds, double[] claimAmounts, double[] results, int from, int to) {
+            this.userIds = userIds;
+            this.claimAmounts = claimAmounts;
+            this.results = results;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= PARALLEL_THRESHOLD) {
+                calculate(userIds, claimAmounts, results, from, to);
+            } else {
+                int middle = (from + to) >>> 1;
+                invokeAll(
+                    new CalculationTask(userIds, claimAmounts, results, from, middle),
+                    new CalculationTask(userIds, claimAmounts, results, middle, to)
+                );
+            }
+        }
+    }
+}
@@ -0,0 +1,4 @@
+/**
+ * Calculation engines over plan amounts.
+ */
+package com.code.challenge.service.calculator;
@@ -0,0 +1,145 @@
+package com.code.challenge.service.criteria;
+
+import java.io.Serializable;
+import java.util.Objects;
+import tech.jhipster.service.Criteria;
+import tech.jhipster.service.filter.DoubleFilter;
+import tech.jhipster.service.filter.Filter;
+import tech.jhipster.service.filter.IntegerFilter;
+import tech.jhipster.service.filter.LongFilter;
+
+/**
+ * Criteria class for the {@link com.code.challenge.domain.Plan} entity. This class is used
+ * in {@link com.code.challenge.web.rest.PlanResource} to receive all the possible filtering options from
+ * the Http request.
+ * For example the following could be a valid request:
+ * {@code /plans?id.greaterThan=5&plan.startsWith=GOLD&coPay.specified=false}
+ * As Spring is unable to properly convert the types, unless specific {@link Filter} class are used, we need to use
+ * fix type specific filters.
+ */
+public class PlanCriteria implements Serializable, Criteria {
+
+    private static final long serialVersionUID = 1L;
+
+    private LongFilter id;
+
+    private PrefixStringFilter plan;
+
+    private IntegerFilter deductible;
+
+    private DoubleFilter coPay;
+
+    public PlanCriteria() {}
+
+    public PlanCriteria(PlanCriteria other) {
+        this.id = other.id == null ? null : other.id.copy();
+        this.plan = other.plan == null ? null : other.plan.copy();
+        this.deductible = other.deductible == null ? null : other.deductible.copy();
+        this.coPay = other.coPay == null ? null : other.coPay.copy();
+    }
+
+    @Override
+    public PlanCriteria copy() {
+        return new PlanCriteria(this);
+    }
+
+    public LongFilter getId() {
+        return id;
+    }
+
+    public LongFilter id() {
+        if (id == null) {
+            id = new LongFilter();
+        }
+        return id;
+    }
+
+    public void setId(LongFilter id) {
+        this.id = id;
+    }
+
+    public PrefixStringFilter getPlan() {
+        return plan;
+    }
+
+    public PrefixStringFilter plan() {
+        if (plan == null) {
+            plan = new PrefixStringFilter();
+        }
+        return plan;
+    }
+
+    public void setPlan(PrefixStringFilter plan) {
+        this.plan = plan;
+    }
+
+    public IntegerFilter getDeductible() {
+        return deductible;
+    }
+
+    public IntegerFilter deductible() {
+        if (deductible == null) {
+            deductible = new IntegerFilter();
+        }
+        return deductible;
+    }
+
+    public void setDeductible(IntegerFilter deductible) {
+        this.deductible = deductible;
+    }
+
+    public DoubleFilter getCoPay() {
+        return coPay;
+    }
+
+    public DoubleFilter coPay() {
+        if (coPay == null) {
+            coPay = new DoubleFilter();
+        }
+        return coPay;
+    }
+
+    public void setCoPay(DoubleFilter coPay) {
+        this.coPay = coPay;
+    }
+
+    /**
+     * @return {@code true} if no filter is set, i.e. these criteria match every plan.
+     */
+    public boolean isEmpty() {
+        return id == null && plan == null && deductible == null && coPay == null;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        final PlanCriteria that = (PlanCriteria) o;
+        return (
+            Objects.equals(id, that.id) &&
+            Objects.equals(plan, that.plan) &&
+            Objects.equals(deductible, that.deductible) &&
+            Objects.equals(coPay, that.coPay)
+        );
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(id, plan, deductible, coPay);
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "PlanCriteria{" +
+            (id != null ? "id=" + id + ", " : "") +
+            (plan != null ? "plan=" + plan + ", " : "") +
+            (deductible != null ? "deductible=" + deductible + ", " : "") +
+            (coPay != null ? "coPay=" + coPay + ", " : "") +
+            "}";
+    }
+}
@@ -0,0 +1,63 @@
+package com.code.challenge.service.criteria;
+
+import java.util.Objects;
+import tech.jhipster.service.filter.StringFilter;
+
+/**
+ * A {@link StringFilter} which can also match the values starting with a given prefix, for example
+ * {@code plan.startsWith=GOLD}.
+ * <p>
+ * Unlike {@code contains}, the match is case sensitive, so it can be answered by a range scan of an index on the column.
+ */
+public class PrefixStringFilter extends StringFilter {
+
+    private static final long serialVersionUID = 1L;
+
+    private String startsWith;
+
+    public PrefixStringFilter() {}
+
+    public PrefixStringFilter(PrefixStringFilter filter) {
+        super(filter);
+        this.startsWith = filter.startsWith;
+    }
+
+    @Override
+    public PrefixStringFilter copy() {
+        return new PrefixStringFilter(this);
+    }
+
+    public String getStartsWith() {
+        return startsWith;
+    }
+
+    public PrefixStringFilter setStartsWith(String startsWith) {
+        this.startsWith = startsWith;
+        return this;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        if (!super.equals(o)) {
+            return false;
+        }
+        PrefixStringFilter that = (PrefixStringFilter) o;
+        return Objects.equals(startsWith, that.startsWith);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(super.hashCode(), startsWith);
+    }
+
+    @Override
+    public String toString() {
+        return super.toString() + (startsWith != null ? " [startsWith=" + startsWith + "]" : "");
+    }
+}
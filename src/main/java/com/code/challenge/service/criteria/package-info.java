@@ -0,0 +1,4 @@
+/**
+ * Criteria classes used by the query services to filter entities.
+ */
+package com.code.challenge.service.criteria;
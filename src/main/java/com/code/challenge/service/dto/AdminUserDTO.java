@@ -53,6 +53,16 @@ public class AdminUserDTO {
     }
 
     public AdminUserDTO(User user) {
+        this(user, user.getAuthorities().stream().map(Authority::getName).collect(Collectors.toSet()));
+    }
+
+    /**
+     * Build the DTO of a user with the given authorities, without reading the authorities of the user.
+     *
+     * @param user the user.
+     * @param authorities the names of the authorities of the user.
+     */
+    public AdminUserDTO(User user, Set<String> authorities) {
         this.id = user.getId();
         this.login = user.getLogin();
         this.firstName = user.getFirstName();
@@ -65,7 +75,7 @@ public class AdminUserDTO {
         this.createdDate = user.getCreatedDate();
         this.lastModifiedBy = user.getLastModifiedBy();
         this.lastModifiedDate = user.getLastModifiedDate();
-        this.authorities = user.getAuthorities().stream().map(Authority::getName).collect(Collectors.toSet());
+        this.authorities = authorities;
     }
 
     public Long getId() {
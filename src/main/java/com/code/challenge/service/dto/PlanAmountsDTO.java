@@ -0,0 +1,57 @@
+package com.code.challenge.service.dto;
+
+/**
+ * A DTO representing the amounts of a plan: its deductible and its co-pay.
+ */
+public class PlanAmountsDTO {
+
+    private Long id;
+
+    private Integer deductible;
+
+    private Double coPay;
+
+    public PlanAmountsDTO() {
+        // Empty constructor needed for Jackson.
+    }
+
+    public PlanAmountsDTO(Long id, Integer deductible, Double coPay) {
+        this.id = id;
+        this.deductible = deductible;
+        this.coPay = coPay;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Integer getDeductible() {
+        return deductible;
+    }
+
+    public void setDeductible(Integer deductible) {
+        this.deductible = deductible;
+    }
+
+    public Double getCoPay() {
+        return coPay;
+    }
+
+    public void setCoPay(Double coPay) {
+        this.coPay = coPay;
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "PlanAmountsDTO{" +
+            "id=" + id +
+            ", deductible=" + deductible +
+            ", coPay=" + coPay +
+            "}";
+    }
+}
@@ -0,0 +1,94 @@
+package com.code.challenge.service.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A DTO representing the plans changed since a sync token: the plans written and the ids of the plans deleted,
+ * with the token to send for the next sync.
+ */
+public class PlanChangesDTO {
+
+    private List<PlanSummaryDTO> plans = new ArrayList<>();
+
+    private List<Long> deletedIds = new ArrayList<>();
+
+    private String nextToken;
+
+    private boolean hasMore;
+
+    @JsonIgnore
+    private long lastChangeSeq;
+
+    @JsonIgnore
+    private long lastId;
+
+    public List<PlanSummaryDTO> getPlans() {
+        return plans;
+    }
+
+    public void setPlans(List<PlanSummaryDTO> plans) {
+        this.plans = plans;
+    }
+
+    public List<Long> getDeletedIds() {
+        return deletedIds;
+    }
+
+    public void setDeletedIds(List<Long> deletedIds) {
+        this.deletedIds = deletedIds;
+    }
+
+    public String getNextToken() {
+        return nextToken;
+    }
+
+    public void setNextToken(String nextToken) {
+        this.nextToken = nextToken;
+    }
+
+    /**
+     * @return {@code true} if more changes are already available, so the client should sync again right away.
+     */
+    public boolean isHasMore() {
+        return hasMore;
+    }
+
+    public void setHasMore(boolean hasMore) {
+        this.hasMore = hasMore;
+    }
+
+    /**
+     * @return the change sequence of the last change read, which the next token must encode.
+     */
+    public long getLastChangeSeq() {
+        return lastChangeSeq;
+    }
+
+    public void setLastChangeSeq(long lastChangeSeq) {
+        this.lastChangeSeq = lastChangeSeq;
+    }
+
+    /**
+     * @return the id of the last change read, which the next token must encode.
+     */
+    public long getLastId() {
+        return lastId;
+    }
+
+    public void setLastId(long lastId) {
+        this.lastId = lastId;
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "PlanChangesDTO{" +
+            "plans=" + plans.size() +
+            ", deletedIds=" + deletedIds.size() +
+            ", nextToken='" + nextToken + "'" +
+            ", hasMore=" + hasMore +
+            "}";
+    }
+}
@@ -0,0 +1,123 @@
+package com.code.challenge.service.dto;
+
+/**
+ * A DTO representing a committed change of a plan, as pushed to the subscribers of the plan change feed.
+ * <p>
+ * The attributes are the ones of the plan after the change; only the id is set for a deletion.
+ */
+public class PlanEventDTO {
+
+    public enum Type {
+        CREATED("created"),
+        UPDATED("updated"),
+        DELETED("deleted");
+
+        private final String name;
+
+        Type(String name) {
+            this.name = name;
+        }
+
+        public String getName() {
+            return name;
+        }
+    }
+
+    private long eventId;
+
+    private Type type;
+
+    private Long id;
+
+    private String plan;
+
+    private Integer deductible;
+
+    private Double coPay;
+
+    private Long version;
+
+    public PlanEventDTO() {
+        // Empty constructor needed for Jackson.
+    }
+
+    public PlanEventDTO(long eventId, Type type, Long id, String plan, Integer deductible, Double coPay, Long version) {
+        this.eventId = eventId;
+        this.type = type;
+        this.id = id;
+        this.plan = plan;
+        this.deductible = deductible;
+        this.coPay = coPay;
+        this.version = version;
+    }
+
+    public long getEventId() {
+        return eventId;
+    }
+
+    public void setEventId(long eventId) {
+        this.eventId = eventId;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public void setType(Type type) {
+        this.type = type;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getPlan() {
+        return plan;
+    }
+
+    public void setPlan(String plan) {
+        this.plan = plan;
+    }
+
+    public Integer getDeductible() {
+        return deductible;
+    }
+
+    public void setDeductible(Integer deductible) {
+        this.deductible = deductible;
+    }
+
+    public Double getCoPay() {
+        return coPay;
+    }
+
+    public void setCoPay(Double coPay) {
+        this.coPay = coPay;
+    }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "PlanEventDTO{" +
+            "eventId=" + eventId +
+            ", type=" + type +
+            ", id=" + id +
+            ", plan='" + plan + "'" +
+            ", deductible=" + deductible +
+            ", coPay=" + coPay +
+            ", version=" + version +
+            "}";
+    }
+}
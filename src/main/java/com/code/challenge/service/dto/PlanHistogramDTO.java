@@ -0,0 +1,72 @@
+package com.code.challenge.service.dto;
+
+import java.util.Arrays;
+
+/**
+ * A DTO representing a histogram of the plans by deductible or by co-pay: bucket {@code i} counts the values in
+ * {@code [min + i * width, min + (i + 1) * width[}, the last bucket including its upper bound.
+ */
+public class PlanHistogramDTO {
+
+    private String field;
+
+    private double min;
+
+    private double width;
+
+    private long[] counts;
+
+    public PlanHistogramDTO() {
+        // Empty constructor needed for Jackson.
+    }
+
+    public PlanHistogramDTO(String field, double min, double width, long[] counts) {
+        this.field = field;
+        this.min = min;
+        this.width = width;
+        this.counts = counts;
+    }
+
+    public String getField() {
+        return field;
+    }
+
+    public void setField(String field) {
+        this.field = field;
+    }
+
+    public double getMin() {
+        return min;
+    }
+
+    public void setMin(double min) {
+        this.min = min;
+    }
+
+    public double getWidth() {
+        return width;
+    }
+
+    public void setWidth(double width) {
+        this.width = width;
+    }
+
+    public long[] getCounts() {
+        return counts;
+    }
+
+    public void setCounts(long[] counts) {
+        this.counts = counts;
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "PlanHistogramDTO{" +
+            "field='" + field + "'" +
+            ", min=" + min +
+            ", width=" + width +
+            ", counts=" + Arrays.toString(counts) +
+            "}";
+    }
+}
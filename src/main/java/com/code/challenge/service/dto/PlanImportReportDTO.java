@@ -0,0 +1,94 @@
+package com.code.challenge.service.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A DTO representing the outcome of a bulk plan import: how many rows were read and imported, and why the others were rejected.
+ */
+public class PlanImportReportDTO {
+
+    private long total;
+
+    private long imported;
+
+    private List<RowError> errors = new ArrayList<>();
+
+    public long getTotal() {
+        return total;
+    }
+
+    public void setTotal(long total) {
+        this.total = total;
+    }
+
+    public long getImported() {
+        return imported;
+    }
+
+    public void setImported(long imported) {
+        this.imported = imported;
+    }
+
+    public List<RowError> getErrors() {
+        return errors;
+    }
+
+    public void setErrors(List<RowError> errors) {
+        this.errors = errors;
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "PlanImportReportDTO{" +
+            "total=" + total +
+            ", imported=" + imported +
+            ", errors=" + errors.size() +
+            "}";
+    }
+
+    /**
+     * A rejected row: its 1-based line number in the uploaded file, and the reason.
+     */
+    public static class RowError {
+
+        private long row;
+
+        private String message;
+
+        public RowError() {
+            // Empty constructor needed for Jackson.
+        }
+
+        public RowError(long row, String message) {
+            this.row = row;
+            this.message = message;
+        }
+
+        public long getRow() {
+            return row;
+        }
+
+        public void setRow(long row) {
+            this.row = row;
+        }
+
+        public String getMessage() {
+            return message;
+        }
+
+        public void setMessage(String message) {
+            this.message = message;
+        }
+
+        // prettier-ignore
+        @Override
+        public String toString() {
+            return "RowError{" +
+                "row=" + row +
+                ", message='" + message + "'" +
+                "}";
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package com.code.challenge.service.dto;
+
+/**
+ * A DTO representing the statistics of the deductibles and co-pays of all the plans.
+ */
+public class PlanStatisticsDTO {
+
+    private long count;
+
+    private FieldStatistics deductible;
+
+    private FieldStatistics coPay;
+
+    public PlanStatisticsDTO() {
+        // Empty constructor needed for Jackson.
+    }
+
+    public PlanStatisticsDTO(long count, FieldStatistics deductible, FieldStatistics coPay) {
+        this.count = count;
+        this.deductible = deductible;
+        this.coPay = coPay;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public void setCount(long count) {
+        this.count = count;
+    }
+
+    public FieldStatistics getDeductible() {
+        return deductible;
+    }
+
+    public void setDeductible(FieldStatistics deductible) {
+        this.deductible = deductible;
+    }
+
+    public FieldStatistics getCoPay() {
+        return coPay;
+    }
+
+    public void setCoPay(FieldStatistics coPay) {
+        this.coPay = coPay;
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "PlanStatisticsDTO{" +
+            "count=" + count +
+            ", deductible=" + deductible +
+            ", coPay=" + coPay +
+            "}";
+    }
+
+    /**
+     * The statistics of one field; all the values are {@code null} when there are no plans.
+     */
+    public static class FieldStatistics {
+
+        private Double min;
+
+        private Double max;
+
+        private Double mean;
+
+        private Double p50;
+
+        private Double p90;
+
+        private Double p95;
+
+        private Double p99;
+
+        public Double getMin() {
+            return min;
+        }
+
+        public void setMin(Double min) {
+            this.min = min;
+        }
+
+        public Double getMax() {
+            return max;
+        }
+
+        public void setMax(Double max) {
+            this.max = max;
+        }
+
+        public Double getMean() {
+            return mean;
+        }
+
+        public void setMean(Double mean) {
+            this.mean = mean;
+        }
+
+        public Double getP50() {
+            return p50;
+        }
+
+        public void setP50(Double p50) {
+            this.p50 = p50;
+        }
+
+        public Double getP90() {
+            return p90;
+        }
+
+        public void setP90(Double p90) {
+            this.p90 = p90;
+        }
+
+        public Double getP95() {
+            return p95;
+        }
+
+        public void setP95(Double p95) {
+            this.p95 = p95;
+        }
+
+        public Double getP99() {
+            return p99;
+        }
+
+        public void setP99(Double p99) {
+            this.p99 = p99;
+        }
+
+        // prettier-ignore
+        @Override
+        public String toString() {
+            return "FieldStatistics{" +
+                "min=" + min +
+                ", max=" + max +
+                ", mean=" + mean +
+                ", p50=" + p50 +
+                ", p90=" + p90 +
+                ", p95=" + p95 +
+                ", p99=" + p99 +
+                "}";
+        }
+    }
+}
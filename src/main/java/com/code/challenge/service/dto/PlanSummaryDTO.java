@@ -0,0 +1,104 @@
+package com.code.challenge.service.dto;
+
+import java.io.Serializable;
+import java.util.Objects;
+
+/**
+ * A DTO representing a plan in a list: its own attributes, and only the id and login of its user.
+ * <p>
+ * It is built directly by the query, so no {@link com.code.challenge.domain.User} entity is loaded.
+ */
+public class PlanSummaryDTO implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private Long id;
+
+    private String plan;
+
+    private Integer deductible;
+
+    private Double coPay;
+
+    private UserDTO user;
+
+    public PlanSummaryDTO() {
+        // Empty constructor needed for Jackson.
+    }
+
+    public PlanSummaryDTO(Long id, String plan, Integer deductible, Double coPay, Long userId, String userLogin) {
+        this.id = id;
+        this.plan = plan;
+        this.deductible = deductible;
+        this.coPay = coPay;
+        this.user = new UserDTO(userId, userLogin);
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getPlan() {
+        return plan;
+    }
+
+    public void setPlan(String plan) {
+        this.plan = plan;
+    }
+
+    public Integer getDeductible() {
+        return deductible;
+    }
+
+    public void setDeductible(Integer deductible) {
+        this.deductible = deductible;
+    }
+
+    public Double getCoPay() {
+        return coPay;
+    }
+
+    public void setCoPay(Double coPay) {
+        this.coPay = coPay;
+    }
+
+    public UserDTO getUser() {
+        return user;
+    }
+
+    public void setUser(UserDTO user) {
+        this.user = user;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof PlanSummaryDTO)) {
+            return false;
+        }
+        return id != null && id.equals(((PlanSummaryDTO) o).id);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hashCode(id);
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "PlanSummaryDTO{" +
+            "id=" + getId() +
+            ", plan='" + getPlan() + "'" +
+            ", deductible=" + getDeductible() +
+            ", coPay=" + getCoPay() +
+            ", user=" + getUser() +
+            "}";
+    }
+}
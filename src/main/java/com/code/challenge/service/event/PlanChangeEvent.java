@@ -0,0 +1,86 @@
+package com.code.challenge.service.event;
+
+import com.code.challenge.domain.Plan;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Published by {@link com.code.challenge.service.PlanService} when plans are created, updated or deleted.
+ * <p>
+ * Listeners should use {@link org.springframework.transaction.event.TransactionalEventListener}, so that they only see
+ * committed changes.
+ */
+public class PlanChangeEvent {
+
+    private final List<Change> changes;
+
+    public PlanChangeEvent(List<Change> changes) {
+        this.changes = Collections.unmodifiableList(changes);
+    }
+
+    public static PlanChangeEvent of(Plan before, Plan after) {
+        return new PlanChangeEvent(Collections.singletonList(new Change(before, after)));
+    }
+
+    /**
+     * @return a detached copy of the attributes of the plan, without its user, or {@code null} if the plan is {@code null}.
+     */
+    public static Plan snapshot(Plan plan) {
+        if (plan == null) {
+            return null;
+        }
+        return new Plan()
+            .id(plan.getId())
+            .plan(plan.getPlan())
+            .deductible(plan.getDeductible())
+            .coPay(plan.getCoPay())
+            .version(plan.getVersion());
+    }
+
+    public List<Change> getChanges() {
+        return changes;
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "PlanChangeEvent{" +
+            "changes=" + changes.size() +
+            "}";
+    }
+
+    /**
+     * The state of one plan before and after the change: {@code before} is {@code null} for a creation,
+     * and {@code after} is {@code null} for a deletion.
+     * <p>
+     * Both are detached copies holding the plan attributes only, not the user.
+     */
+    public static class Change {
+
+        private final Plan before;
+
+        private final Plan after;
+
+        public Change(Plan before, Plan after) {
+            this.before = snapshot(before);
+            this.after = snapshot(after);
+        }
+
+        public Plan getBefore() {
+            return before;
+        }
+
+        public Plan getAfter() {
+            return after;
+        }
+
+        // prettier-ignore
+        @Override
+        public String toString() {
+            return "Change{" +
+                "before=" + before +
+                ", after=" + after +
+                "}";
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.code.challenge.service.event;
+
+import com.code.challenge.service.dto.PlanEventDTO;
+import java.util.ArrayDeque;
+import java.util.Collection;
+
+/**
+ * A subscriber to the plan change feed, holding the events not delivered yet in a bounded buffer.
+ * <p>
+ * When the buffer is full, its oldest event is dropped and the subscriber is flagged for a resync: it missed changes,
+ * so it must reload the plans before applying the next events.
+ */
+public class PlanEventSubscription {
+
+    private final int capacity;
+
+    private final ArrayDeque<PlanEventDTO> buffer;
+
+    private boolean resync;
+
+    private volatile Runnable listener = () -> {};
+
+    public PlanEventSubscription(int capacity) {
+        this.capacity = capacity;
+        this.buffer = new ArrayDeque<>(capacity);
+    }
+
+    /**
+     * Set the callback run when events are added to the buffer; it runs on the publishing thread, so it must not block.
+     *
+     * @param listener the callback.
+     */
+    public void setListener(Runnable listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Add an event to the buffer, dropping the oldest one if the buffer is full.
+     *
+     * @param event the event.
+     */
+    public synchronized void offer(PlanEventDTO event) {
+        if (buffer.size() == capacity) {
+            buffer.pollFirst();
+            resync = true;
+        }
+        buffer.addLast(event);
+    }
+
+    /**
+     * Flag the subscriber for a resync, and drop the events it has not received yet.
+     */
+    public synchronized void requestResync() {
+        buffer.clear();
+        resync = true;
+    }
+
+    /**
+     * Move the buffered events, oldest first, to the given collection.
+     *
+     * @param events where to add the events.
+     * @return {@code true} if the subscriber missed events since the last call, and must resync.
+     */
+    public synchronized boolean drainTo(Collection<PlanEventDTO> events) {
+        events.addAll(buffer);
+        buffer.clear();
+        boolean missed = resync;
+        resync = false;
+        return missed;
+    }
+
+    /**
+     * Notify the listener that events are available.
+     */
+    public void signal() {
+        listener.run();
+    }
+}
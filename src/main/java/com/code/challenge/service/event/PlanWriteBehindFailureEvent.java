@@ -0,0 +1,39 @@
+package com.code.challenge.service.event;
+
+import com.code.challenge.domain.Plan;
+
+/**
+ * Published by {@link com.code.challenge.service.PlanWriteBehindService} when a queued patch of a plan cannot be written:
+ * the patch was accepted, but is not applied, and is kept with the dead letters of the service.
+ */
+public class PlanWriteBehindFailureEvent {
+
+    private final Plan patch;
+
+    private final String reason;
+
+    public PlanWriteBehindFailureEvent(Plan patch, String reason) {
+        this.patch = patch;
+        this.reason = reason;
+    }
+
+    /**
+     * @return the patch, whose null fields are left unchanged.
+     */
+    public Plan getPatch() {
+        return patch;
+    }
+
+    public String getReason() {
+        return reason;
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "PlanWriteBehindFailureEvent{" +
+            "patch=" + patch +
+            ", reason='" + reason + '\'' +
+            "}";
+    }
+}
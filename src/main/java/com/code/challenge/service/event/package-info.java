@@ -0,0 +1,4 @@
+/**
+ * Application events published by the services.
+ */
+package com.code.challenge.service.event;
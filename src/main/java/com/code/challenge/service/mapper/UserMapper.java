@@ -2,6 +2,7 @@ package com.code.challenge.service.mapper;
 
 import com.code.challenge.domain.Authority;
 import com.code.challenge.domain.User;
+import com.code.challenge.service.AuthorityRegistry;
 import com.code.challenge.service.dto.AdminUserDTO;
 import com.code.challenge.service.dto.UserDTO;
 import java.util.*;
@@ -20,6 +21,12 @@ import org.springframework.stereotype.Service;
 @Service
 public class UserMapper {
 
+    private final AuthorityRegistry authorityRegistry;
+
+    public UserMapper(AuthorityRegistry authorityRegistry) {
+        this.authorityRegistry = authorityRegistry;
+    }
+
     public List<UserDTO> usersToUserDTOs(List<User> users) {
         return users.stream().filter(Objects::nonNull).map(this::userToUserDTO).collect(Collectors.toList());
     }
@@ -67,11 +74,16 @@ public class UserMapper {
                 authoritiesAsString
                     .stream()
                     .map(
-                        string -> {
-                            Authority auth = new Authority();
-                            auth.setName(string);
-                            return auth;
-                        }
+                        string ->
+                            authorityRegistry
+                                .find(string)
+                                .orElseGet(
+                                    () -> {
+                                        Authority auth = new Authority();
+                                        auth.setName(string);
+                                        return auth;
+                                    }
+                                )
                     )
                     .collect(Collectors.toSet());
         }
@@ -0,0 +1,425 @@
+package com.code.challenge.service.statistics;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/**
+ * An immutable, column oriented copy of the amounts of the plans, for analytic queries.
+ * <p>
+ * The columns are primitive arrays sorted by deductible, then by id; a secondary index orders the rows by co-pay.
+ * A range of deductibles or co-pays is therefore found by binary search, and the queries scan contiguous arrays without
+ * allocating an object per row. Large scans are split across the cores of the common fork-join pool.
+ * <p>
+ * Instances are never modified: a {@link Builder} creates the next snapshot, which can be swapped in atomically.
+ */
+public final class PlanColumnarSnapshot {
+
+    /**
+     * Scans of fewer rows than this run in the calling thread.
+     */
+    static final int PARALLEL_THRESHOLD = 1 << 14;
+
+    public static final PlanColumnarSnapshot EMPTY = new Builder().build();
+
+    private final long[] ids;
+
+    private final int[] deductibles;
+
+    private final double[] coPays;
+
+    /**
+     * The rows, ordered by co-pay.
+     */
+    private final int[] coPayIndex;
+
+    /**
+     * The co-pays, ordered: {@code sortedCoPays[i] == coPays[coPayIndex[i]]}.
+     */
+    private final double[] sortedCoPays;
+
+    private PlanColumnarSnapshot(long[] ids, int[] deductibles, double[] coPays) {
+        this.ids = ids;
+        this.deductibles = deductibles;
+        this.coPays = coPays;
+        this.coPayIndex = identity(ids.length);
+        sortIndex(coPayIndex, (left, right) -> Double.compare(coPays[left], coPays[right]));
+        this.sortedCoPays = new double[ids.length];
+        for (int i = 0; i < coPayIndex.length; i++) {
+            sortedCoPays[i] = coPays[coPayIndex[i]];
+        }
+    }
+
+    public int size() {
+        return ids.length;
+    }
+
+    /**
+     * @return a builder holding the rows of this snapshot, except the ones with the given ids.
+     */
+    public Builder toBuilder(long[] excludedIds) {
+        long[] excluded = excludedIds.clone();
+        Arrays.sort(excluded);
+        Builder builder = new Builder(ids.length);
+        for (int i = 0; i < ids.length; i++) {
+            if (Arrays.binarySearch(excluded, ids[i]) < 0) {
+                builder.add(ids[i], deductibles[i], coPays[i]);
+            }
+        }
+        return builder;
+    }
+
+    /**
+     * Count the plans whose deductible and co-pay are in the given inclusive ranges.
+     */
+    public long count(int minDeductible, int maxDeductible, double minCoPay, double maxCoPay) {
+        int from = lowerBound(deductibles, minDeductible);
+        int to = upperBound(deductibles, maxDeductible);
+        if (to - from < PARALLEL_THRESHOLD) {
+            long count = 0;
+            for (int i = from; i < to; i++) {
+                if (coPays[i] >= minCoPay && coPays[i] <= maxCoPay) {
+                    count++;
+                }
+            }
+            return count;
+        }
+        return IntStream.range(from, to).parallel().filter(i -> coPays[i] >= minCoPay && coPays[i] <= maxCoPay).count();
+    }
+
+    /**
+     * Count the plans whose deductible and co-pay are in the given inclusive ranges, by deductible.
+     *
+     * @param min the lower bound of the first bucket.
+     * @param max the upper bound of the last bucket.
+     * @param buckets the number of buckets, of equal widths; the deductibles out of {@code [min, max]} are not counted.
+     */
+    public long[] deductibleHistogram(
+        int minDeductible,
+        int maxDeductible,
+        double minCoPay,
+        double maxCoPay,
+        double min,
+        double max,
+        int buckets
+    ) {
+        int from = lowerBound(deductibles, minDeductible);
+        int to = upperBound(deductibles, maxDeductible);
+        return histogram(
+            from,
+            to,
+            (i, counts) -> {
+                if (coPays[i] >= minCoPay && coPays[i] <= maxCoPay) {
+                    increment(counts, deductibles[i], min, max);
+                }
+            },
+            buckets
+        );
+    }
+
+    /**
+     * Count the plans whose deductible and co-pay are in the given inclusive ranges, by co-pay.
+     *
+     * @param min the lower bound of the first bucket.
+     * @param max the upper bound of the last bucket.
+     * @param buckets the number of buckets, of equal widths; the co-pays out of {@code [min, max]} are not counted.
+     */
+    public long[] coPayHistogram(int minDeductible, int maxDeductible, double minCoPay, double maxCoPay, double min, double max, int buckets) {
+        int from = lowerBound(sortedCoPays, minCoPay);
+        int to = upperBound(sortedCoPays, maxCoPay);
+        return histogram(
+            from,
+            to,
+            (i, counts) -> {
+                int deductible = deductibles[coPayIndex[i]];
+                if (deductible >= minDeductible && deductible <= maxDeductible) {
+                    increment(counts, sortedCoPays[i], min, max);
+                }
+            },
+            buckets
+        );
+    }
+
+    /**
+     * Find the rows with the lowest or highest deductibles, among the plans whose deductible and co-pay are in the given inclusive ranges.
+     *
+     * @return the positions of the rows, to read with {@link #getId(int)}, {@link #getDeductible(int)} and {@link #getCoPay(int)}.
+     */
+    public int[] topByDeductible(int minDeductible, int maxDeductible, double minCoPay, double maxCoPay, int limit, boolean descending) {
+        int from = lowerBound(deductibles, minDeductible);
+        int to = upperBound(deductibles, maxDeductible);
+        int[] rows = new int[Math.min(limit, to - from)];
+        int found = 0;
+        for (int n = 0; n < to - from && found < rows.length; n++) {
+            int i = descending ? to - 1 - n : from + n;
+            if (coPays[i] >= minCoPay && coPays[i] <= maxCoPay) {
+                rows[found++] = i;
+            }
+        }
+        return Arrays.copyOf(rows, found);
+    }
+
+    /**
+     * Find the rows with the lowest or highest co-pays, among the plans whose deductible and co-pay are in the given inclusive ranges.
+     *
+     * @return the positions of the rows, to read with {@link #getId(int)}, {@link #getDeductible(int)} and {@link #getCoPay(int)}.
+     */
+    public int[] topByCoPay(int minDeductible, int maxDeductible, double minCoPay, double maxCoPay, int limit, boolean descending) {
+        int from = lowerBound(sortedCoPays, minCoPay);
+        int to = upperBound(sortedCoPays, maxCoPay);
+        int[] rows = new int[Math.min(limit, to - from)];
+        int found = 0;
+        for (int n = 0; n < to - from && found < rows.length; n++) {
+            int i = coPayIndex[descending ? to - 1 - n : from + n];
+            if (deductibles[i] >= minDeductible && deductibles[i] <= maxDeductible) {
+                rows[found++] = i;
+            }
+        }
+        return Arrays.copyOf(rows, found);
+    }
+
+    public long getId(int row) {
+        return ids[row];
+    }
+
+    public int getDeductible(int row) {
+        return deductibles[row];
+    }
+
+    public double getCoPay(int row) {
+        return coPays[row];
+    }
+
+    /**
+     * @return the lowest deductible, or {@code 0} if the snapshot is empty.
+     */
+    public int getMinDeductible() {
+        return ids.length == 0 ? 0 : deductibles[0];
+    }
+
+    /**
+     * @return the highest deductible, or {@code 0} if the snapshot is empty.
+     */
+    public int getMaxDeductible() {
+        return ids.length == 0 ? 0 : deductibles[ids.length - 1];
+    }
+
+    /**
+     * @return the lowest co-pay, or {@code 0} if the snapshot is empty.
+     */
+    public double getMinCoPay() {
+        return ids.length == 0 ? 0 : sortedCoPays[0];
+    }
+
+    /**
+     * @return the highest co-pay, or {@code 0} if the snapshot is empty.
+     */
+    public double getMaxCoPay() {
+        return ids.length == 0 ? 0 : sortedCoPays[ids.length - 1];
+    }
+
+    @FunctionalInterface
+    private interface RowCounter {
+        void count(int row, long[] counts);
+    }
+
+    /**
+     * Each thread counts a chunk of rows into its own array, so only one array per chunk is allocated.
+     */
+    private static long[] histogram(int from, int to, RowCounter counter, int buckets) {
+        if (to - from < PARALLEL_THRESHOLD) {
+            long[] counts = new long[buckets];
+            for (int i = from; i < to; i++) {
+                counter.count(i, counts);
+            }
+            return counts;
+        }
+        int chunks = (to - from + PARALLEL_THRESHOLD - 1) / PARALLEL_THRESHOLD;
+        return IntStream
+            .range(0, chunks)
+            .parallel()
+            .mapToObj(
+                chunk -> {
+                    long[] counts = new long[buckets];
+                    int end = Math.min(to, from + (chunk + 1) * PARALLEL_THRESHOLD);
+                    for (int i = from + chunk * PARALLEL_THRESHOLD; i < end; i++) {
+                        counter.count(i, counts);
+                    }
+                    return counts;
+                }
+            )
+            .reduce(
+                (left, right) -> {
+                    for (int i = 0; i < buckets; i++) {
+                        left[i] += right[i];
+                    }
+                    return left;
+                }
+            )
+            .orElseGet(() -> new long[buckets]);
+    }
+
+    private static void increment(long[] counts, double value, double min, double max) {
+        if (value < min || value > max) {
+            return;
+        }
+        // The upper bound of the last bucket is inclusive
+        int bucket = max > min ? (int) ((value - min) / (max - min) * counts.length) : 0;
+        counts[Math.min(bucket, counts.length - 1)]++;
+    }
+
+    private static int lowerBound(int[] values, int key) {
+        int low = 0;
+        int high = values.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (values[middle] < key) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private static int upperBound(int[] values, int key) {
+        int low = 0;
+        int high = values.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (values[middle] <= key) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private static int lowerBound(double[] values, double key) {
+        int low = 0;
+        int high = values.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (values[middle] < key) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private static int upperBound(double[] values, double key) {
+        int low = 0;
+        int high = values.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (values[middle] <= key) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    @FunctionalInterface
+    private interface RowComparator {
+        int compare(int left, int right);
+    }
+
+    private static int[] identity(int size) {
+        int[] index = new int[size];
+        for (int i = 0; i < size; i++) {
+            index[i] = i;
+        }
+        return index;
+    }
+
+    /**
+     * Stable bottom-up merge sort of row positions, without boxing them.
+     */
+    private static void sortIndex(int[] index, RowComparator comparator) {
+        int[] buffer = new int[index.length];
+        for (int width = 1; width < index.length; width *= 2) {
+            for (int low = 0; low < index.length - width; low += 2 * width) {
+                int middle = low + width;
+                int high = Math.min(low + 2 * width, index.length);
+                int left = low;
+                int right = middle;
+                int out = low;
+                while (left < middle && right < high) {
+                    buffer[out++] = comparator.compare(index[right], index[left]) < 0 ? index[right++] : index[left++];
+                }
+                while (left < middle) {
+                    buffer[out++] = index[left++];
+                }
+                while (right < high) {
+                    buffer[out++] = index[right++];
+                }
+                System.arraycopy(buffer, low, index, low, high - low);
+            }
+        }
+    }
+
+    /**
+     * Collects rows in any order, and builds a sorted snapshot.
+     */
+    public static final class Builder {
+
+        private long[] ids;
+
+        private int[] deductibles;
+
+        private double[] coPays;
+
+        private int size;
+
+        public Builder() {
+            this(16);
+        }
+
+        public Builder(int capacity) {
+            ids = new long[Math.max(capacity, 16)];
+            deductibles = new int[ids.length];
+            coPays = new double[ids.length];
+        }
+
+        public Builder add(long id, int deductible, double coPay) {
+            if (size == ids.length) {
+                int capacity = size * 2;
+                ids = Arrays.copyOf(ids, capacity);
+                deductibles = Arrays.copyOf(deductibles, capacity);
+                coPays = Arrays.copyOf(coPays, capacity);
+            }
+            ids[size] = id;
+            deductibles[size] = deductible;
+            coPays[size] = coPay;
+            size++;
+            return this;
+        }
+
+        /**
+         * Sort the rows by deductible then id, and build the snapshot.
+         */
+        public PlanColumnarSnapshot build() {
+            int[] order = identity(size);
+            sortIndex(
+                order,
+                (left, right) ->
+                    deductibles[left] != deductibles[right]
+                        ? Integer.compare(deductibles[left], deductibles[right])
+                        : Long.compare(ids[left], ids[right])
+            );
+            long[] newIds = new long[size];
+            int[] newDeductibles = new int[size];
+            double[] newCoPays = new double[size];
+            for (int i = 0; i < size; i++) {
+                newIds[i] = ids[order[i]];
+                newDeductibles[i] = deductibles[order[i]];
+                newCoPays[i] = coPays[order[i]];
+            }
+            return new PlanColumnarSnapshot(newIds, newDeductibles, newCoPays);
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package com.code.challenge.service.statistics;
+
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * A streaming quantile sketch with a relative error guarantee, in the manner of DDSketch.
+ * <p>
+ * Values are counted in logarithmic buckets: every returned quantile is within {@code relativeAccuracy} of an actual value of
+ * the distribution. The memory used depends on the range of the values, not on their number, and since buckets only hold counts,
+ * values can be removed as well as added.
+ * <p>
+ * This class is not thread-safe.
+ */
+public class QuantileSketch {
+
+    /**
+     * Values smaller than this, in absolute value, are counted as zero.
+     */
+    private static final double MIN_INDEXABLE_VALUE = 1e-9;
+
+    private final double gamma;
+
+    private final double logGamma;
+
+    private final NavigableMap<Integer, Long> positiveBuckets = new TreeMap<>();
+
+    private final NavigableMap<Integer, Long> negativeBuckets = new TreeMap<>();
+
+    private long zeroCount;
+
+    private long count;
+
+    public QuantileSketch(double relativeAccuracy) {
+        if (relativeAccuracy <= 0 || relativeAccuracy >= 1) {
+            throw new IllegalArgumentException("The relative accuracy must be between 0 and 1");
+        }
+        this.gamma = (1 + relativeAccuracy) / (1 - relativeAccuracy);
+        this.logGamma = Math.log(gamma);
+    }
+
+    public void add(double value) {
+        update(value, 1);
+    }
+
+    /**
+     * Remove a value previously added; removing a value which was never added leads to wrong quantiles.
+     */
+    public void remove(double value) {
+        update(value, -1);
+    }
+
+    private void update(double value, long delta) {
+        if (Math.abs(value) < MIN_INDEXABLE_VALUE) {
+            zeroCount += delta;
+        } else if (value > 0) {
+            positiveBuckets.merge(index(value), delta, QuantileSketch::sum);
+        } else {
+            negativeBuckets.merge(index(-value), delta, QuantileSketch::sum);
+        }
+        count += delta;
+    }
+
+    private static Long sum(Long count, Long delta) {
+        long sum = count + delta;
+        return sum == 0 ? null : sum;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * @param quantile the quantile, between 0 and 1.
+     * @return the estimated value at the given quantile, or {@code null} if the sketch is empty.
+     */
+    public Double getQuantile(double quantile) {
+        if (quantile < 0 || quantile > 1) {
+            throw new IllegalArgumentException("The quantile must be between 0 and 1");
+        }
+        if (count <= 0) {
+            return null;
+        }
+        long rank = (long) (quantile * (count - 1));
+        long seen = 0;
+        for (Map.Entry<Integer, Long> bucket : negativeBuckets.descendingMap().entrySet()) {
+            seen += bucket.getValue();
+            if (seen > rank) {
+                return -value(bucket.getKey());
+            }
+        }
+        seen += zeroCount;
+        if (seen > rank) {
+            return 0D;
+        }
+        for (Map.Entry<Integer, Long> bucket : positiveBuckets.entrySet()) {
+            seen += bucket.getValue();
+            if (seen > rank) {
+                return value(bucket.getKey());
+            }
+        }
+        return positiveBuckets.isEmpty() ? 0D : value(positiveBuckets.lastKey());
+    }
+
+    private int index(double value) {
+        return (int) Math.ceil(Math.log(value) / logGamma);
+    }
+
+    /**
+     * The value of a bucket is the one with the same relative distance to both of its bounds.
+     */
+    private double value(int index) {
+        return 2 * Math.pow(gamma, index) / (gamma + 1);
+    }
+}
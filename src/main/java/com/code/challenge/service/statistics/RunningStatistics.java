@@ -0,0 +1,86 @@
+package com.code.challenge.service.statistics;
+
+/**
+ * The count, sum, minimum, maximum and quantiles of a series of values, updated as values are added and removed.
+ * <p>
+ * The minimum and the maximum are exact while values are only added. When the current minimum or maximum is removed,
+ * the next one is estimated from the {@link QuantileSketch}, with the same relative accuracy.
+ * <p>
+ * This class is not thread-safe.
+ */
+public class RunningStatistics {
+
+    private final QuantileSketch sketch;
+
+    private long count;
+
+    private double sum;
+
+    private double min = Double.NaN;
+
+    private double max = Double.NaN;
+
+    public RunningStatistics(double relativeAccuracy) {
+        this.sketch = new QuantileSketch(relativeAccuracy);
+    }
+
+    public void add(double value) {
+        sketch.add(value);
+        count++;
+        sum += value;
+        if (count == 1) {
+            min = value;
+            max = value;
+        } else {
+            min = Math.min(min, value);
+            max = Math.max(max, value);
+        }
+    }
+
+    /**
+     * Remove a value previously added.
+     */
+    public void remove(double value) {
+        sketch.remove(value);
+        count--;
+        sum -= value;
+        if (count <= 0) {
+            count = 0;
+            sum = 0;
+            min = Double.NaN;
+            max = Double.NaN;
+            return;
+        }
+        if (value <= min) {
+            min = Math.min(sketch.getQuantile(0), max);
+        }
+        if (value >= max) {
+            max = Math.max(sketch.getQuantile(1), min);
+        }
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public Double getMin() {
+        return count == 0 ? null : min;
+    }
+
+    public Double getMax() {
+        return count == 0 ? null : max;
+    }
+
+    public Double getMean() {
+        return count == 0 ? null : sum / count;
+    }
+
+    /**
+     * @param quantile the quantile, between 0 and 1.
+     * @return the estimated value at the given quantile, within the minimum and the maximum, or {@code null} if there are no values.
+     */
+    public Double getQuantile(double quantile) {
+        Double value = sketch.getQuantile(quantile);
+        return value == null ? null : Math.max(min, Math.min(max, value));
+    }
+}
@@ -0,0 +1,4 @@
+/**
+ * In-memory aggregates maintained incrementally by the services.
+ */
+package com.code.challenge.service.statistics;
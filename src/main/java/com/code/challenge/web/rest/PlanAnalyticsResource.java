@@ -0,0 +1,131 @@
+package com.code.challenge.web.rest;
+
+import com.code.challenge.service.PlanAnalyticsService;
+import com.code.challenge.service.dto.PlanAmountsDTO;
+import com.code.challenge.service.dto.PlanHistogramDTO;
+import com.code.challenge.web.rest.errors.BadRequestAlertException;
+import java.util.Arrays;
+import java.util.List;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+/**
+ * REST controller for analytic queries over the amounts of the {@link com.code.challenge.domain.Plan}s.
+ * <p>
+ * Every query can be restricted with the inclusive {@code minDeductible}, {@code maxDeductible}, {@code minCoPay} and
+ * {@code maxCoPay} bounds. The queries are answered from memory, without querying the database.
+ */
+@RestController
+@RequestMapping("/api/plans/analytics")
+public class PlanAnalyticsResource {
+
+    private final Logger log = LoggerFactory.getLogger(PlanAnalyticsResource.class);
+
+    private static final String ENTITY_NAME = "plan";
+
+    private static final int MAX_BUCKETS = 1000;
+
+    private static final int MAX_LIMIT = 100;
+
+    private final PlanAnalyticsService planAnalyticsService;
+
+    public PlanAnalyticsResource(PlanAnalyticsService planAnalyticsService) {
+        this.planAnalyticsService = planAnalyticsService;
+    }
+
+    /**
+     * {@code GET  /plans/analytics/count} : count the plans in the given ranges.
+     *
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the count in body.
+     */
+    @GetMapping("/count")
+    public ResponseEntity<Long> countPlans(
+        @RequestParam(required = false) Integer minDeductible,
+        @RequestParam(required = false) Integer maxDeductible,
+        @RequestParam(required = false) Double minCoPay,
+        @RequestParam(required = false) Double maxCoPay
+    ) {
+        log.debug("REST request to count Plans in ranges");
+        return ResponseEntity.ok().body(planAnalyticsService.count(minDeductible, maxDeductible, minCoPay, maxCoPay));
+    }
+
+    /**
+     * {@code GET  /plans/analytics/histogram} : get the histogram of the plans in the given ranges.
+     *
+     * @param field {@code deductible} or {@code coPay}: the field to count the plans by.
+     * @param buckets the number of buckets, capped to {@link #MAX_BUCKETS}.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the histogram in body,
+     * or with status {@code 400 (Bad Request)} if the field is not supported.
+     */
+    @GetMapping("/histogram")
+    public ResponseEntity<PlanHistogramDTO> getPlanHistogram(
+        @RequestParam String field,
+        @RequestParam(defaultValue = "10") int buckets,
+        @RequestParam(required = false) Integer minDeductible,
+        @RequestParam(required = false) Integer maxDeductible,
+        @RequestParam(required = false) Double minCoPay,
+        @RequestParam(required = false) Double maxCoPay
+    ) {
+        log.debug("REST request to get the histogram of Plans by {}", field);
+        return ResponseEntity
+            .ok()
+            .body(
+                planAnalyticsService.histogram(
+                    parseField(field),
+                    Math.max(1, Math.min(buckets, MAX_BUCKETS)),
+                    minDeductible,
+                    maxDeductible,
+                    minCoPay,
+                    maxCoPay
+                )
+            );
+    }
+
+    /**
+     * {@code GET  /plans/analytics/top} : get the plans with the highest, or lowest, values of a field in the given ranges.
+     *
+     * @param field {@code deductible} or {@code coPay}: the field to order the plans by.
+     * @param limit the number of plans, capped to {@link #MAX_LIMIT}.
+     * @param order {@code desc} (the default) for the highest values first, or {@code asc} for the lowest values first.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the amounts of the plans in body,
+     * or with status {@code 400 (Bad Request)} if the field or the order is not supported.
+     */
+    @GetMapping("/top")
+    public ResponseEntity<List<PlanAmountsDTO>> getTopPlans(
+        @RequestParam String field,
+        @RequestParam(defaultValue = "10") int limit,
+        @RequestParam(defaultValue = "desc") String order,
+        @RequestParam(required = false) Integer minDeductible,
+        @RequestParam(required = false) Integer maxDeductible,
+        @RequestParam(required = false) Double minCoPay,
+        @RequestParam(required = false) Double maxCoPay
+    ) {
+        log.debug("REST request to get the top {} Plans by {}", limit, field);
+        if (!"asc".equals(order) && !"desc".equals(order)) {
+            throw new BadRequestAlertException("Invalid order", ENTITY_NAME, "orderinvalid");
+        }
+        return ResponseEntity
+            .ok()
+            .body(
+                planAnalyticsService.top(
+                    parseField(field),
+                    Math.max(1, Math.min(limit, MAX_LIMIT)),
+                    "desc".equals(order),
+                    minDeductible,
+                    maxDeductible,
+                    minCoPay,
+                    maxCoPay
+                )
+            );
+    }
+
+    private static PlanAnalyticsService.Field parseField(String field) {
+        return Arrays
+            .stream(PlanAnalyticsService.Field.values())
+            .filter(value -> value.getName().equals(field))
+            .findFirst()
+            .orElseThrow(() -> new BadRequestAlertException("Invalid field", ENTITY_NAME, "fieldinvalid"));
+    }
+}
@@ -0,0 +1,220 @@
+package com.code.challenge.web.rest;
+
+import com.code.challenge.service.PlanEventService;
+import com.code.challenge.service.dto.PlanEventDTO;
+import com.code.challenge.service.event.PlanEventSubscription;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import javax.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+/**
+ * REST controller streaming the committed changes of {@link com.code.challenge.domain.Plan}s as server-sent events.
+ * <p>
+ * Each event is named after its {@link PlanEventDTO.Type}, and its id can be sent back in the {@code Last-Event-ID} header
+ * to resume the stream. A {@value #RESYNC_EVENT} event tells the client that it missed changes, because it fell behind
+ * or resumed from an event that is no longer kept, so it must reload the plans. A comment is sent every
+ * {@link #HEARTBEAT_INTERVAL} milliseconds, so idle connections are not closed by proxies.
+ * <p>
+ * The events are sent by a pool of {@link #SENDER_THREADS} threads of its own, with a bounded queue, so slow clients never hold
+ * up the shared task executor nor the scheduler. A client whose send takes more than {@link #SEND_TIMEOUT} milliseconds is
+ * disconnected; when the queue is full, the buffered events of the client are dropped and it is told to resync.
+ */
+@RestController
+@RequestMapping("/api")
+public class PlanEventResource {
+
+    static final String RESYNC_EVENT = "resync";
+
+    static final long HEARTBEAT_INTERVAL = 15_000;
+
+    private static final String LAST_EVENT_ID = "Last-Event-ID";
+
+    static final int SENDER_THREADS = 4;
+
+    static final int SENDER_QUEUE_CAPACITY = 1000;
+
+    static final long SEND_TIMEOUT = 10_000;
+
+    private static final long EMITTER_TIMEOUT = Duration.ofMinutes(30).toMillis();
+
+    private final Logger log = LoggerFactory.getLogger(PlanEventResource.class);
+
+    private final Map<PlanEventSubscription, Subscriber> subscribers = new ConcurrentHashMap<>();
+
+    private final PlanEventService planEventService;
+
+    private final ThreadPoolExecutor senderExecutor = new ThreadPoolExecutor(
+        SENDER_THREADS,
+        SENDER_THREADS,
+        0,
+        TimeUnit.MILLISECONDS,
+        new ArrayBlockingQueue<>(SENDER_QUEUE_CAPACITY),
+        new CustomizableThreadFactory("plan-events-")
+    );
+
+    public PlanEventResource(PlanEventService planEventService) {
+        this.planEventService = planEventService;
+    }
+
+    @PreDestroy
+    public void stop() {
+        senderExecutor.shutdownNow();
+    }
+
+    /**
+     * {@code GET  /plans/events} : stream the changes of the plans.
+     *
+     * @param lastEventId the id of the last event received, to resume the stream after it.
+     * @return the stream of events; it starts with a {@value #RESYNC_EVENT} event if the changes since {@code lastEventId}
+     * are not known.
+     */
+    @GetMapping(value = "/plans/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamPlanEvents(@RequestHeader(value = LAST_EVENT_ID, required = false) String lastEventId) {
+        log.debug("REST request to stream Plan events after : {}", lastEventId);
+        SseEmitter emitter = new SseEmitter(EMITTER_TIMEOUT);
+        PlanEventSubscription subscription = planEventService.subscribe(parseEventId(lastEventId));
+        Subscriber subscriber = new Subscriber(subscription, emitter);
+        subscribers.put(subscription, subscriber);
+        emitter.onCompletion(subscriber::close);
+        emitter.onTimeout(subscriber::close);
+        emitter.onError(e -> subscriber.close());
+        subscription.setListener(subscriber::schedule);
+        subscriber.schedule();
+        return emitter;
+    }
+
+    /**
+     * Send a heartbeat to all the subscribers, and disconnect the ones stuck in a send.
+     */
+    @Scheduled(fixedDelay = HEARTBEAT_INTERVAL)
+    public void sendHeartbeats() {
+        subscribers.values().forEach(Subscriber::heartbeat);
+    }
+
+    /**
+     * @return the event id, or a negative id if it is not a number, so the subscriber resyncs.
+     */
+    private static Long parseEventId(String lastEventId) {
+        if (lastEventId == null || lastEventId.isBlank()) {
+            return null;
+        }
+        try {
+            return Long.parseLong(lastEventId.trim());
+        } catch (NumberFormatException e) {
+            return -1L;
+        }
+    }
+
+    /**
+     * Sends the events of a subscription to its emitter, on the sender executor.
+     * <p>
+     * At most one drain is scheduled at a time, and drains send events under the lock of the subscriber, so events are sent
+     * in order and a slow client only holds up its own drains. Heartbeats are sent by the drains too.
+     */
+    private class Subscriber {
+
+        private final PlanEventSubscription subscription;
+
+        private final SseEmitter emitter;
+
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+
+        private final AtomicBoolean heartbeatDue = new AtomicBoolean();
+
+        /**
+         * When the send in progress started, or {@code 0} if none is.
+         */
+        private volatile long sendStartedAt;
+
+        private volatile boolean closed;
+
+        Subscriber(PlanEventSubscription subscription, SseEmitter emitter) {
+            this.subscription = subscription;
+            this.emitter = emitter;
+        }
+
+        void schedule() {
+            if (!closed && scheduled.compareAndSet(false, true)) {
+                try {
+                    senderExecutor.execute(this::drain);
+                } catch (RejectedExecutionException e) {
+                    log.debug("Too many Plan events to send, asking a subscriber to resync");
+                    scheduled.set(false);
+                    subscription.requestResync();
+                }
+            }
+        }
+
+        void heartbeat() {
+            long startedAt = sendStartedAt;
+            if (startedAt != 0 && System.currentTimeMillis() - startedAt > SEND_TIMEOUT) {
+                fail(new IOException("Timed out sending Plan events"));
+                return;
+            }
+            heartbeatDue.set(true);
+            schedule();
+        }
+
+        synchronized void drain() {
+            scheduled.set(false);
+            List<PlanEventDTO> events = new ArrayList<>();
+            boolean resync = subscription.drainTo(events);
+            boolean heartbeat = heartbeatDue.getAndSet(false);
+            try {
+                if (resync) {
+                    send(SseEmitter.event().name(RESYNC_EVENT).data(RESYNC_EVENT));
+                }
+                for (PlanEventDTO event : events) {
+                    send(
+                        SseEmitter.event().id(String.valueOf(event.getEventId())).name(event.getType().getName()).data(event, MediaType.APPLICATION_JSON)
+                    );
+                }
+                if (heartbeat && !resync && events.isEmpty()) {
+                    send(SseEmitter.event().comment(""));
+                }
+            } catch (IOException | IllegalStateException e) {
+                fail(e);
+            }
+        }
+
+        private void send(SseEmitter.SseEventBuilder event) throws IOException {
+            if (closed) {
+                throw new IllegalStateException("The Plan event stream is closed");
+            }
+            sendStartedAt = System.currentTimeMillis();
+            try {
+                emitter.send(event);
+            } finally {
+                sendStartedAt = 0;
+            }
+        }
+
+        void close() {
+            closed = true;
+            subscribers.remove(subscription);
+            planEventService.unsubscribe(subscription);
+        }
+
+        private void fail(Exception e) {
+            log.debug("Could not send Plan events: {}", e.getMessage());
+            close();
+            emitter.completeWithError(e);
+        }
+    }
+}
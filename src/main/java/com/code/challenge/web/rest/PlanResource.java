@@ -1,23 +1,59 @@
 package com.code.challenge.web.rest;
 
+import com.code.challenge.config.JacksonConfiguration;
 import com.code.challenge.domain.Plan;
-import com.code.challenge.repository.PlanRepository;
+import com.code.challenge.service.OutOfPocketService;
+import com.code.challenge.service.PlanImportService;
+import com.code.challenge.service.PlanQueryService;
 import com.code.challenge.service.PlanService;
+import com.code.challenge.service.PlanStatisticsService;
+import com.code.challenge.service.PlanSyncService;
+import com.code.challenge.service.PlanWriteBehindService;
+import com.code.challenge.service.ResponseCacheService;
+import com.code.challenge.service.ResponseCacheService.CachedResponse;
+import com.code.challenge.service.criteria.PlanCriteria;
+import com.code.challenge.service.dto.PlanChangesDTO;
+import com.code.challenge.service.dto.PlanImportReportDTO;
+import com.code.challenge.service.dto.PlanStatisticsDTO;
+import com.code.challenge.service.dto.PlanSummaryDTO;
 import com.code.challenge.web.rest.errors.BadRequestAlertException;
+import com.code.challenge.web.rest.errors.PreconditionFailedAlertException;
+import com.code.challenge.web.rest.util.CursorPaginationUtil;
+import com.code.challenge.web.rest.util.ETagUtil;
+import com.code.challenge.web.rest.util.ResponseCacheUtil;
+import com.code.challenge.web.rest.util.SparseFieldsUtil;
+import com.code.challenge.web.rest.vm.PlanBulkVM;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.function.Function;
 import javax.validation.Valid;
 import javax.validation.constraints.NotNull;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Slice;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.util.StreamUtils;
+import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 import tech.jhipster.web.util.HeaderUtil;
-import tech.jhipster.web.util.ResponseUtil;
 
 /**
  * REST controller for managing {@link com.code.challenge.domain.Plan}.
@@ -30,16 +66,63 @@ public class PlanResource {
 
     private static final String ENTITY_NAME = "plan";
 
+    private static final int MAX_PAGE_SIZE = 100;
+
+    private static final int MAX_CHANGES_SIZE = 1000;
+
+    private static final String SYNC_TOKEN_SEPARATOR = ":";
+
+    private static final List<String> ALLOWED_FIELDS = List.of("id", "plan", "deductible", "coPay", "user");
+
+    private static final String EXPORT_FORMAT_NDJSON = "ndjson";
+
+    private static final String EXPORT_FORMAT_JSON = "json";
+
+    private static final MediaType APPLICATION_NDJSON = MediaType.parseMediaType("application/x-ndjson");
+
+    private static final MediaType TEXT_CSV = MediaType.parseMediaType("text/csv");
+
     @Value("${jhipster.clientApp.name}")
     private String applicationName;
 
     private final PlanService planService;
 
-    private final PlanRepository planRepository;
+    private final PlanQueryService planQueryService;
+
+    private final PlanImportService planImportService;
+
+    private final PlanStatisticsService planStatisticsService;
+
+    private final OutOfPocketService outOfPocketService;
+
+    private final PlanSyncService planSyncService;
+
+    private final PlanWriteBehindService planWriteBehindService;
+
+    private final ResponseCacheService responseCacheService;
 
-    public PlanResource(PlanService planService, PlanRepository planRepository) {
+    private final ObjectMapper objectMapper;
+
+    public PlanResource(
+        PlanService planService,
+        PlanQueryService planQueryService,
+        PlanImportService planImportService,
+        PlanStatisticsService planStatisticsService,
+        OutOfPocketService outOfPocketService,
+        PlanSyncService planSyncService,
+        PlanWriteBehindService planWriteBehindService,
+        ResponseCacheService responseCacheService,
+        ObjectMapper objectMapper
+    ) {
         this.planService = planService;
-        this.planRepository = planRepository;
+        this.planQueryService = planQueryService;
+        this.planImportService = planImportService;
+        this.planStatisticsService = planStatisticsService;
+        this.outOfPocketService = outOfPocketService;
+        this.planSyncService = planSyncService;
+        this.planWriteBehindService = planWriteBehindService;
+        this.responseCacheService = responseCacheService;
+        this.objectMapper = objectMapper;
     }
 
     /**
@@ -66,18 +149,29 @@ public class PlanResource {
     }
 
     /**
-     * {@code PUT  /plans/:id} : Updates an existing plan.
+     * {@code PUT  /plans/:id} : Updates an existing plan, or creates the plan of a user who has none if {@code If-None-Match: *} is given.
+     * <p>
+     * An existing plan is written with a single update statement, without being read beforehand.
      *
      * @param id the id of the plan to save.
+     * @param ifMatch the optional ETag the plan must still have.
+     * @param ifNoneMatch {@code *} to create the plan, which must not exist yet.
      * @param plan the plan to update.
      * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the updated plan,
-     * or with status {@code 400 (Bad Request)} if the plan is not valid,
+     * or with status {@code 201 (Created)} and with body the new plan,
+     * or with status {@code 400 (Bad Request)} if the plan is not valid, or if it does not exist and {@code If-None-Match: *} is not given,
+     * or with status {@code 412 (Precondition Failed)} if the plan does not have the ETag given by {@code If-Match},
+     * or if it already exists and {@code If-None-Match: *} is given,
      * or with status {@code 500 (Internal Server Error)} if the plan couldn't be updated.
      * @throws URISyntaxException if the Location URI syntax is incorrect.
      */
     @PutMapping("/plans/{id}")
-    public ResponseEntity<Plan> updatePlan(@PathVariable(value = "id", required = false) final Long id, @Valid @RequestBody Plan plan)
-        throws URISyntaxException {
+    public ResponseEntity<Plan> updatePlan(
+        @PathVariable(value = "id", required = false) final Long id,
+        @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+        @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+        @Valid @RequestBody Plan plan
+    ) throws URISyntaxException {
         log.debug("REST request to update Plan : {}, {}", id, plan);
         if (plan.getId() == null) {
             throw new BadRequestAlertException("Invalid id", ENTITY_NAME, "idnull");
@@ -85,33 +179,69 @@ public class PlanResource {
         if (!Objects.equals(id, plan.getId())) {
             throw new BadRequestAlertException("Invalid ID", ENTITY_NAME, "idinvalid");
         }
-
-        if (!planRepository.existsById(id)) {
-            throw new BadRequestAlertException("Entity not found", ENTITY_NAME, "idnotfound");
+        if (ifNoneMatch != null && ETagUtil.ANY.equals(ifNoneMatch.trim())) {
+            return createPlanOfUser(plan);
         }
 
-        Plan result = planService.save(plan);
+        planWriteBehindService.flush(id);
+        Plan result = checkPrecondition(ifMatch, expectedVersion -> planService.upsert(plan, expectedVersion))
+            .orElseThrow(() -> new BadRequestAlertException("Entity not found", ENTITY_NAME, "idnotfound"))
+            .getAfter();
         return ResponseEntity
             .ok()
             .headers(HeaderUtil.createEntityUpdateAlert(applicationName, false, ENTITY_NAME, plan.getId().toString()))
+            .eTag(ETagUtil.fromVersion(result.getVersion()))
+            .body(result);
+    }
+
+    /**
+     * Create the plan of a user who has none, the plan having the id of the user.
+     */
+    private ResponseEntity<Plan> createPlanOfUser(Plan plan) throws URISyntaxException {
+        if (Objects.isNull(plan.getUser()) || !Objects.equals(plan.getUser().getId(), plan.getId())) {
+            throw new BadRequestAlertException("Invalid association value provided", ENTITY_NAME, "null");
+        }
+        if (planService.findOne(plan.getId()).isPresent()) {
+            throw new PreconditionFailedAlertException("The plan already exists", ENTITY_NAME, "idexists");
+        }
+        plan.setVersion(null);
+        Plan result;
+        try {
+            result = planService.save(plan);
+        } catch (DataIntegrityViolationException e) {
+            // Created concurrently
+            throw new PreconditionFailedAlertException("The plan already exists", ENTITY_NAME, "idexists");
+        }
+        return ResponseEntity
+            .created(new URI("/api/plans/" + result.getId()))
+            .headers(HeaderUtil.createEntityCreationAlert(applicationName, false, ENTITY_NAME, result.getId().toString()))
+            .eTag(ETagUtil.fromVersion(result.getVersion()))
             .body(result);
     }
 
     /**
      * {@code PATCH  /plans/:id} : Partial updates given fields of an existing plan, field will ignore if it is null
+     * <p>
+     * When the write-behind is enabled, a patch without {@code If-Match} is checked, queued and merged with the other patches of
+     * the plan, then written within the configured window. Until then, {@code GET /plans/:id} shows the patched plan, while the
+     * lists, the export and the change feed show the plan as written.
      *
      * @param id the id of the plan to save.
+     * @param ifMatch the optional ETag the plan must still have.
      * @param plan the plan to update.
      * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the updated plan,
+     * or with status {@code 202 (Accepted)} and with body the plan as it will be once the patch is written,
      * or with status {@code 400 (Bad Request)} if the plan is not valid,
      * or with status {@code 404 (Not Found)} if the plan is not found,
+     * or with status {@code 412 (Precondition Failed)} if the plan does not have the ETag given by {@code If-Match},
      * or with status {@code 500 (Internal Server Error)} if the plan couldn't be updated.
      * @throws URISyntaxException if the Location URI syntax is incorrect.
      */
     @PatchMapping(value = "/plans/{id}", consumes = "application/merge-patch+json")
     public ResponseEntity<Plan> partialUpdatePlan(
         @PathVariable(value = "id", required = false) final Long id,
-        @NotNull @RequestBody Plan plan
+        @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+        @NotNull @Validated(Plan.PartialUpdate.class) @RequestBody Plan plan
     ) throws URISyntaxException {
         log.debug("REST request to partial update Plan partially : {}, {}", id, plan);
         if (plan.getId() == null) {
@@ -121,40 +251,388 @@ public class PlanResource {
             throw new BadRequestAlertException("Invalid ID", ENTITY_NAME, "idinvalid");
         }
 
-        if (!planRepository.existsById(id)) {
-            throw new BadRequestAlertException("Entity not found", ENTITY_NAME, "idnotfound");
+        if (ifMatch == null && planWriteBehindService.isEnabled()) {
+            Plan queued = planWriteBehindService
+                .partialUpdate(plan)
+                .orElseThrow(() -> new BadRequestAlertException("Entity not found", ENTITY_NAME, "idnotfound"));
+            return ResponseEntity
+                .accepted()
+                .headers(HeaderUtil.createEntityUpdateAlert(applicationName, false, ENTITY_NAME, plan.getId().toString()))
+                .body(queued);
         }
+        planWriteBehindService.flush(id);
+        Plan result = checkPrecondition(ifMatch, expectedVersion -> planService.partialUpdate(plan, expectedVersion))
+            .orElseThrow(() -> new BadRequestAlertException("Entity not found", ENTITY_NAME, "idnotfound"));
+        return ResponseEntity
+            .ok()
+            .headers(HeaderUtil.createEntityUpdateAlert(applicationName, false, ENTITY_NAME, plan.getId().toString()))
+            .eTag(ETagUtil.fromVersion(result.getVersion()))
+            .body(result);
+    }
 
-        Optional<Plan> result = planService.partialUpdate(plan);
+    /**
+     * Run an update with the version required by the {@code If-Match} header, if any.
+     * <p>
+     * The version is checked by the write itself, with optimistic locking, rather than by reading the plan beforehand.
+     */
+    private <T> T checkPrecondition(String ifMatch, Function<Long, T> update) {
+        if (ifMatch == null || ETagUtil.ANY.equals(ifMatch.trim())) {
+            return update.apply(null);
+        }
+        Long expectedVersion = ETagUtil
+            .toVersion(ifMatch)
+            .orElseThrow(() -> new PreconditionFailedAlertException("Invalid ETag", ENTITY_NAME, "etaginvalid"));
+        try {
+            return update.apply(expectedVersion);
+        } catch (OptimisticLockingFailureException e) {
+            throw new PreconditionFailedAlertException("The plan has been modified", ENTITY_NAME, "etagmismatch");
+        }
+    }
+
+    /**
+     * {@code PATCH  /plans/bulk} : Partial updates the deductible and/or the co-pay of many plans at once, null fields being left unchanged.
+     * <p>
+     * The plans are given by their ids and/or by criteria, and are updated in a single transaction.
+     *
+     * @param bulk the plans to update, and the fields to update.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the ids of the updated plans,
+     * or with status {@code 400 (Bad Request)} if no plans or no fields are given, if the plan name is given, or if more than
+     * {@link PlanBulkVM#MAX_IDS} plans match.
+     */
+    @PatchMapping(
+        value = "/plans/bulk",
+        consumes = { MediaType.APPLICATION_JSON_VALUE, JacksonConfiguration.APPLICATION_SMILE_VALUE, MediaType.APPLICATION_CBOR_VALUE }
+    )
+    public ResponseEntity<List<Long>> bulkPartialUpdatePlans(@Valid @RequestBody PlanBulkVM bulk) {
+        log.debug("REST request to partially update Plans in bulk : {}", bulk);
+        PlanCriteria criteria = bulkCriteria(bulk);
+        Plan patch = bulk.getPatch();
+        if (patch == null || (patch.getDeductible() == null && patch.getCoPay() == null)) {
+            throw new BadRequestAlertException("Nothing to update", ENTITY_NAME, "patchempty");
+        }
+        if (patch.getPlan() != null) {
+            throw new BadRequestAlertException("The plan name is unique and cannot be updated in bulk", ENTITY_NAME, "planbulkupdate");
+        }
+        planWriteBehindService.flush();
+        List<Long> ids = planService.bulkPartialUpdate(criteria, patch);
+        return ResponseEntity
+            .ok()
+            .headers(HeaderUtil.createAlert(applicationName, ids.size() + " plans updated", String.valueOf(ids.size())))
+            .body(ids);
+    }
+
+    /**
+     * {@code DELETE  /plans/bulk} : delete many plans at once.
+     * <p>
+     * The plans are given by their ids and/or by criteria, and are deleted in a single transaction.
+     *
+     * @param bulk the plans to delete.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the ids of the deleted plans,
+     * or with status {@code 400 (Bad Request)} if no plans are given, or if more than {@link PlanBulkVM#MAX_IDS} plans match.
+     */
+    @DeleteMapping(
+        value = "/plans/bulk",
+        consumes = { MediaType.APPLICATION_JSON_VALUE, JacksonConfiguration.APPLICATION_SMILE_VALUE, MediaType.APPLICATION_CBOR_VALUE }
+    )
+    public ResponseEntity<List<Long>> bulkDeletePlans(@Valid @RequestBody PlanBulkVM bulk) {
+        log.debug("REST request to delete Plans in bulk : {}", bulk);
+        planWriteBehindService.flush();
+        List<Long> ids = planService.bulkDelete(bulkCriteria(bulk));
+        return ResponseEntity
+            .ok()
+            .headers(HeaderUtil.createAlert(applicationName, ids.size() + " plans deleted", String.valueOf(ids.size())))
+            .body(ids);
+    }
 
-        return ResponseUtil.wrapOrNotFound(
-            result,
-            HeaderUtil.createEntityUpdateAlert(applicationName, false, ENTITY_NAME, plan.getId().toString())
-        );
+    private PlanCriteria bulkCriteria(PlanBulkVM bulk) {
+        PlanCriteria criteria = bulk.getCriteria() == null ? new PlanCriteria() : bulk.getCriteria().copy();
+        if (bulk.getIds() != null) {
+            if (bulk.getIds().isEmpty()) {
+                throw new BadRequestAlertException("Invalid ids", ENTITY_NAME, "idsempty");
+            }
+            if (criteria.getId() != null && criteria.getId().getIn() != null) {
+                throw new BadRequestAlertException("The ids are given twice, in ids and in criteria", ENTITY_NAME, "idsconflict");
+            }
+            criteria.id().setIn(bulk.getIds());
+        }
+        if (criteria.isEmpty()) {
+            throw new BadRequestAlertException("Either ids or criteria are required", ENTITY_NAME, "criteriaempty");
+        }
+        return criteria;
     }
 
     /**
-     * {@code GET  /plans} : get all the plans.
+     * {@code GET  /plans} : get a page of the plans matching the criteria, ordered by id.
+     * <p>
+     * The link to the next page, if any, is sent in the {@code Link} header and carries an opaque {@code cursor}.
+     * With {@code fields}, only the requested fields among {@link #ALLOWED_FIELDS} are selected and returned, plus the id.
      *
-     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of plans in body.
+     * @param criteria the criteria which the requested plans should match.
+     * @param cursor the cursor of the page to retrieve, or {@code null} for the first page.
+     * @param size the number of plans per page, capped to {@link #MAX_PAGE_SIZE}.
+     * @param fields the fields to return, separated by commas, or {@code null} for all of them.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the list of plan summaries in body,
+     * or with status {@code 400 (Bad Request)} if the cursor or the fields are not valid.
      */
     @GetMapping("/plans")
-    public List<Plan> getAllPlans() {
-        log.debug("REST request to get all Plans");
-        return planService.findAll();
+    public ResponseEntity<List<?>> getAllPlans(
+        PlanCriteria criteria,
+        @RequestParam(value = CursorPaginationUtil.CURSOR_PARAMETER, required = false) String cursor,
+        @RequestParam(value = "size", defaultValue = "20") int size,
+        @RequestParam(value = SparseFieldsUtil.FIELDS_PARAMETER, required = false) String fields
+    ) {
+        log.debug("REST request to get a page of Plans by criteria: {}, after cursor : {}", criteria, cursor);
+        Long afterId = null;
+        if (cursor != null) {
+            afterId =
+                CursorPaginationUtil
+                    .decodeIdCursor(cursor)
+                    .orElseThrow(() -> new BadRequestAlertException("Invalid cursor", ENTITY_NAME, "cursorinvalid"));
+        }
+        Optional<List<String>> requestedFields = SparseFieldsUtil.parseFields(fields);
+        if (!SparseFieldsUtil.onlyContainsAllowedFields(requestedFields, ALLOWED_FIELDS)) {
+            throw new BadRequestAlertException("Invalid fields", ENTITY_NAME, "fieldsinvalid");
+        }
+        int sliceSize = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        List<?> content;
+        String nextCursor = null;
+        if (requestedFields.isPresent()) {
+            Slice<Map<String, Object>> slice = planQueryService.findFieldsByCriteria(criteria, afterId, sliceSize, requestedFields.get());
+            content = slice.getContent();
+            if (slice.hasNext()) {
+                nextCursor = CursorPaginationUtil.encodeCursor((Long) slice.getContent().get(slice.getNumberOfElements() - 1).get("id"));
+            }
+        } else {
+            Slice<PlanSummaryDTO> slice = planQueryService.findByCriteria(criteria, afterId, sliceSize);
+            content = slice.getContent();
+            if (slice.hasNext()) {
+                nextCursor = CursorPaginationUtil.encodeCursor(slice.getContent().get(slice.getNumberOfElements() - 1).getId());
+            }
+        }
+        HttpHeaders headers = CursorPaginationUtil.generateCursorHttpHeaders(ServletUriComponentsBuilder.fromCurrentRequest(), nextCursor);
+        return ResponseEntity.ok().headers(headers).body(content);
+    }
+
+    /**
+     * {@code GET  /plans/count} : count all the plans matching the criteria.
+     *
+     * @param criteria the criteria which the requested plans should match.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the count in body.
+     */
+    @GetMapping("/plans/count")
+    public ResponseEntity<Long> countPlans(PlanCriteria criteria) {
+        log.debug("REST request to count Plans by criteria: {}", criteria);
+        return ResponseEntity.ok().body(planQueryService.countByCriteria(criteria));
+    }
+
+    /**
+     * {@code GET  /plans/stats} : get the statistics of the deductibles and co-pays of all the plans.
+     * <p>
+     * The statistics are kept up to date in memory: this does not query the database.
+     *
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the statistics in body.
+     */
+    @GetMapping("/plans/stats")
+    public ResponseEntity<PlanStatisticsDTO> getPlanStatistics() {
+        log.debug("REST request to get the statistics of Plans");
+        return ResponseEntity.ok().body(planStatisticsService.getStatistics());
+    }
+
+    /**
+     * {@code GET  /plans/changes} : get the plans changed since the last sync.
+     * <p>
+     * Without a token, all the plans are returned. The response carries the token of the next sync, and tells whether more
+     * changes are already available.
+     *
+     * @param since the token returned by the last sync, or {@code null} for a first sync.
+     * @param size the maximum number of changes to return, capped to {@link #MAX_CHANGES_SIZE}.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the changes in body,
+     * or with status {@code 400 (Bad Request)} if the token is not valid.
+     */
+    @GetMapping("/plans/changes")
+    public ResponseEntity<PlanChangesDTO> getPlanChanges(
+        @RequestParam(value = "since", required = false) String since,
+        @RequestParam(value = "size", defaultValue = "500") int size
+    ) {
+        log.debug("REST request to get the Plans changed since : {}", since);
+        Long afterChangeSeq = null;
+        long afterId = 0;
+        if (since != null) {
+            String[] key = CursorPaginationUtil
+                .decodeCursor(since)
+                .map(token -> token.split(SYNC_TOKEN_SEPARATOR, -1))
+                .filter(token -> token.length == 2)
+                .orElseThrow(() -> new BadRequestAlertException("Invalid sync token", ENTITY_NAME, "tokeninvalid"));
+            try {
+                afterChangeSeq = Long.valueOf(key[0]);
+                afterId = Long.parseLong(key[1]);
+            } catch (NumberFormatException e) {
+                throw new BadRequestAlertException("Invalid sync token", ENTITY_NAME, "tokeninvalid");
+            }
+        }
+        PlanChangesDTO changes = planSyncService.findChanges(afterChangeSeq, afterId, Math.max(1, Math.min(size, MAX_CHANGES_SIZE)));
+        changes.setNextToken(CursorPaginationUtil.encodeCursor(changes.getLastChangeSeq() + SYNC_TOKEN_SEPARATOR + changes.getLastId()));
+        return ResponseEntity.ok().body(changes);
+    }
+
+    /**
+     * {@code GET  /plans/export} : stream all the plans, ordered by id.
+     * <p>
+     * Plans are written to the response as they are read from the database, so memory usage does not depend
+     * on the size of the table.
+     *
+     * @param format {@code ndjson} (the default) for one JSON document per line, or {@code json} for a single JSON array.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the plans in body,
+     * or with status {@code 400 (Bad Request)} if the format is not supported.
+     */
+    @GetMapping("/plans/export")
+    public ResponseEntity<StreamingResponseBody> exportPlans(@RequestParam(value = "format", defaultValue = "ndjson") String format) {
+        log.debug("REST request to export all Plans as {}", format);
+        if (!EXPORT_FORMAT_NDJSON.equals(format) && !EXPORT_FORMAT_JSON.equals(format)) {
+            throw new BadRequestAlertException("Invalid export format", ENTITY_NAME, "formatinvalid");
+        }
+        boolean jsonArray = EXPORT_FORMAT_JSON.equals(format);
+        StreamingResponseBody body = outputStream -> {
+            try (JsonGenerator generator = objectMapper.getFactory().createGenerator(StreamUtils.nonClosing(outputStream))) {
+                if (jsonArray) {
+                    generator.writeStartArray();
+                }
+                planService.exportAll(
+                    plan -> {
+                        try {
+                            generator.writeObject(plan);
+                            if (!jsonArray) {
+                                generator.writeRaw('\n');
+                            }
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                    }
+                );
+                if (jsonArray) {
+                    generator.writeEndArray();
+                }
+            }
+        };
+        return ResponseEntity.ok().contentType(jsonArray ? MediaType.APPLICATION_JSON : APPLICATION_NDJSON).body(body);
+    }
+
+    /**
+     * {@code POST  /plans/import} : Create plans in bulk from a CSV file.
+     * <p>
+     * The file has the same shape as the sample data: a {@code id;plan;deductible;co_pay} header, where {@code id} is the id of the user.
+     *
+     * @param body the CSV file.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the import report, listing the rejected rows.
+     * @throws IOException if the file cannot be read.
+     */
+    @PostMapping(value = "/plans/import", consumes = "text/csv")
+    public ResponseEntity<PlanImportReportDTO> importPlansFromCsv(InputStream body) throws IOException {
+        log.debug("REST request to import Plans from CSV");
+        return importResponse(planImportService.importCsv(body));
+    }
+
+    /**
+     * {@code POST  /plans/import} : Create plans in bulk from a newline-delimited JSON file, one plan per line.
+     *
+     * @param body the NDJSON file.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the import report, listing the rejected rows.
+     * @throws IOException if the file cannot be read.
+     */
+    @PostMapping(value = "/plans/import", consumes = "application/x-ndjson")
+    public ResponseEntity<PlanImportReportDTO> importPlansFromNdjson(InputStream body) throws IOException {
+        log.debug("REST request to import Plans from NDJSON");
+        return importResponse(planImportService.importNdjson(body));
+    }
+
+    /**
+     * {@code POST  /plans/out-of-pocket} : compute the out-of-pocket cost of a batch of claims.
+     * <p>
+     * The body holds one {@code userId;claimAmount} claim per line, with an optional header. The claims are written back as they
+     * are computed, each with an {@code out_of_pocket} column appended, which is empty when the claim is invalid or the user has no plan.
+     * Like the exports, the claims are computed on the bounded pool of the asynchronous responses, and cut off after
+     * {@code spring.mvc.async.request-timeout}.
+     *
+     * @param body the claims.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and the claims with their out-of-pocket cost in body.
+     */
+    @PostMapping(value = "/plans/out-of-pocket", consumes = "text/csv", produces = "text/csv")
+    public ResponseEntity<StreamingResponseBody> calculateOutOfPocket(InputStream body) {
+        log.debug("REST request to compute out-of-pocket costs");
+        StreamingResponseBody result = outputStream -> outOfPocketService.calculate(body, StreamUtils.nonClosing(outputStream));
+        return ResponseEntity.ok().contentType(TEXT_CSV).body(result);
+    }
+
+    private ResponseEntity<PlanImportReportDTO> importResponse(PlanImportReportDTO report) {
+        String imported = String.valueOf(report.getImported());
+        return ResponseEntity
+            .ok()
+            .headers(HeaderUtil.createAlert(applicationName, imported + " plans imported", imported))
+            .body(report);
     }
 
     /**
      * {@code GET  /plans/:id} : get the "id" plan.
+     * <p>
+     * The plan is tagged with its version: when the {@code If-None-Match} header has the current tag, the plan is not serialized,
+     * nor cached when it was not already.
+     * The serialized plan is cached until the plan or its user is written, and sent gzip-compressed to the clients accepting it.
+     * The patches queued by the write-behind are applied to the plan, which is then neither tagged nor cached until they are written.
+     * The clients preferring a binary format, Smile or CBOR, are sent the plan serialized by its message converter instead,
+     * tagged with its version and format.
      *
      * @param id the id of the plan to retrieve.
-     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the plan, or with status {@code 404 (Not Found)}.
+     * @param accept the media types accepted by the client.
+     * @param acceptEncoding the content codings accepted by the client.
+     * @param ifNoneMatch the entity tags of the representations the client already has.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the plan,
+     * or with status {@code 304 (Not Modified)} if the plan has the ETag given by {@code If-None-Match},
+     * or with status {@code 404 (Not Found)}.
      */
     @GetMapping("/plans/{id}")
-    public ResponseEntity<Plan> getPlan(@PathVariable Long id) {
+    public ResponseEntity<?> getPlan(
+        @PathVariable Long id,
+        @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+        @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+        @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch
+    ) {
         log.debug("REST request to get Plan : {}", id);
-        Optional<Plan> plan = planService.findOne(id);
-        return ResponseUtil.wrapOrNotFound(plan);
+        if (!ResponseCacheUtil.prefersJson(accept)) {
+            // The cached bodies are JSON
+            Plan stored = planService.findOne(id).orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
+            Plan result = planWriteBehindService.overlay(stored);
+            ResponseEntity.BodyBuilder response = ResponseEntity.ok().header(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+            MediaType mediaType = ResponseCacheUtil.binaryMediaType(accept);
+            if (mediaType != null) {
+                response.contentType(mediaType);
+            }
+            if (result == stored) {
+                String eTag = ETagUtil.fromVersion(result.getVersion());
+                response.eTag(mediaType == null ? eTag : ETagUtil.withFormat(eTag, mediaType));
+            }
+            return response.body(result);
+        }
+        if (!planWriteBehindService.hasPending(id)) {
+            Optional<CachedResponse> cached = responseCacheService.get(ResponseCacheService.PLANS_CACHE, id);
+            if (cached.isPresent()) {
+                return ResponseCacheUtil.okNegotiated(cached.get(), acceptEncoding);
+            }
+        }
+        long generation = responseCacheService.getGeneration(ResponseCacheService.PLANS_CACHE);
+        Plan stored = planService.findOne(id).orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
+        Plan result = planWriteBehindService.overlay(stored);
+        if (result != stored) {
+            // With queued patches, the plan does not match its stored version yet
+            return ResponseCacheUtil.okNegotiated(responseCacheService.serialize(result, Map.of()), acceptEncoding);
+        }
+        String eTag = ETagUtil.fromVersion(result.getVersion());
+        Optional<ResponseEntity<byte[]>> notModified = ResponseCacheUtil.notModifiedNegotiated(eTag, ifNoneMatch);
+        if (notModified.isPresent()) {
+            return notModified.get();
+        }
+        Map<String, String> headers = Map.of(HttpHeaders.ETAG, eTag);
+        CachedResponse response = responseCacheService.put(ResponseCacheService.PLANS_CACHE, id, generation, result, headers);
+        return ResponseCacheUtil.okNegotiated(response, acceptEncoding);
     }
 
     /**
@@ -166,6 +644,7 @@ public class PlanResource {
     @DeleteMapping("/plans/{id}")
     public ResponseEntity<Void> deletePlan(@PathVariable Long id) {
         log.debug("REST request to delete Plan : {}", id);
+        planWriteBehindService.flush(id);
         planService.delete(id);
         return ResponseEntity
             .noContent()
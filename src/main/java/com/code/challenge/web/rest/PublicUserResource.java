@@ -1,13 +1,20 @@
 package com.code.challenge.web.rest;
 
+import com.code.challenge.service.ResponseCacheService;
+import com.code.challenge.service.ResponseCacheService.CachedResponse;
 import com.code.challenge.service.UserService;
 import com.code.challenge.service.dto.UserDTO;
+import com.code.challenge.web.rest.util.CursorPaginationUtil;
+import com.code.challenge.web.rest.util.ResponseCacheUtil;
+import com.code.challenge.web.rest.util.SparseFieldsUtil;
+import com.code.challenge.web.rest.util.UserCursorUtil;
 import java.util.*;
 import java.util.Collections;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
@@ -24,30 +31,105 @@ public class PublicUserResource {
         Arrays.asList("id", "login", "firstName", "lastName", "email", "activated", "langKey")
     );
 
+    private static final List<String> ALLOWED_FIELDS = Collections.unmodifiableList(Arrays.asList("id", "login"));
+
     private final Logger log = LoggerFactory.getLogger(PublicUserResource.class);
 
     private final UserService userService;
 
-    public PublicUserResource(UserService userService) {
+    private final ResponseCacheService responseCacheService;
+
+    public PublicUserResource(UserService userService, ResponseCacheService responseCacheService) {
         this.userService = userService;
+        this.responseCacheService = responseCacheService;
     }
 
     /**
      * {@code GET /users} : get all users with only the public informations - calling this are allowed for anyone.
+     * <p>
+     * The serialized pages are cached by request URL until a user is written.
+     * With {@code fields}, only the requested fields among {@link #ALLOWED_FIELDS} are selected and returned, plus the id.
+     * <p>
+     * With a {@code cursor}, empty for the first page, the users are paged by keyset, sorted by {@code id} or by {@code login}:
+     * no count is run, the link to the next page is sent in the {@code Link} header, and the first page has the estimated
+     * number of users, activated or not, in the {@code X-Total-Count-Estimate} header, when the database has one.
      *
      * @param pageable the pagination information.
+     * @param cursor the cursor of the page to retrieve, or {@code null} for offset pagination.
+     * @param fields the fields to return, separated by commas, or {@code null} for all of them.
+     * @param acceptEncoding the content codings accepted by the client.
      * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body all users.
      */
     @GetMapping("/users")
-    public ResponseEntity<List<UserDTO>> getAllPublicUsers(Pageable pageable) {
+    public ResponseEntity<byte[]> getAllPublicUsers(
+        Pageable pageable,
+        @RequestParam(value = CursorPaginationUtil.CURSOR_PARAMETER, required = false) String cursor,
+        @RequestParam(value = SparseFieldsUtil.FIELDS_PARAMETER, required = false) String fields,
+        @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding
+    ) {
         log.debug("REST request to get all public User names");
-        if (!onlyContainsAllowedProperties(pageable)) {
+        Optional<List<String>> requestedFields = SparseFieldsUtil.parseFields(fields);
+        if (!onlyContainsAllowedProperties(pageable) || !SparseFieldsUtil.onlyContainsAllowedFields(requestedFields, ALLOWED_FIELDS)) {
             return ResponseEntity.badRequest().build();
         }
+        Optional<Sort.Order> order = Optional.empty();
+        Comparable<?> after = null;
+        if (cursor != null) {
+            order = UserCursorUtil.seekOrder(pageable);
+            if (order.isEmpty()) {
+                return ResponseEntity.badRequest().build();
+            }
+            if (!cursor.isEmpty()) {
+                Optional<Comparable<?>> key = UserCursorUtil.decodeCursor(order.get(), cursor);
+                if (key.isEmpty()) {
+                    return ResponseEntity.badRequest().build();
+                }
+                after = key.get();
+            }
+        }
 
-        final Page<UserDTO> page = userService.getAllPublicUsers(pageable);
-        HttpHeaders headers = PaginationUtil.generatePaginationHttpHeaders(ServletUriComponentsBuilder.fromCurrentRequest(), page);
-        return new ResponseEntity<>(page.getContent(), headers, HttpStatus.OK);
+        ServletUriComponentsBuilder uriBuilder = ServletUriComponentsBuilder.fromCurrentRequest();
+        String key = uriBuilder.toUriString();
+        Optional<CachedResponse> cached = responseCacheService.get(ResponseCacheService.PUBLIC_USERS_CACHE, key);
+        if (cached.isPresent()) {
+            return ResponseCacheUtil.ok(cached.get(), acceptEncoding);
+        }
+        long generation = responseCacheService.getGeneration(ResponseCacheService.PUBLIC_USERS_CACHE);
+        List<?> content;
+        HttpHeaders headers;
+        if (order.isPresent()) {
+            String nextCursor;
+            if (requestedFields.isPresent()) {
+                Slice<Map<String, Object>> slice = userService.getAllPublicUsers(
+                    order.get(),
+                    after,
+                    pageable.getPageSize(),
+                    requestedFields.get()
+                );
+                content = slice.getContent();
+                nextCursor = UserCursorUtil.nextFieldsCursor(order.get(), slice);
+            } else {
+                Slice<UserDTO> slice = userService.getAllPublicUsers(order.get(), after, pageable.getPageSize());
+                content = slice.getContent();
+                nextCursor = UserCursorUtil.nextCursor(order.get(), slice, UserDTO::getId, UserDTO::getLogin);
+            }
+            Optional<Long> totalCountEstimate = after == null ? userService.estimateUserCount() : Optional.empty();
+            headers = CursorPaginationUtil.generateCursorHttpHeaders(uriBuilder, nextCursor, totalCountEstimate);
+        } else {
+            final Page<?> page = requestedFields.isPresent()
+                ? userService.getAllPublicUsers(pageable, requestedFields.get())
+                : userService.getAllPublicUsers(pageable);
+            content = page.getContent();
+            headers = PaginationUtil.generatePaginationHttpHeaders(uriBuilder, page);
+        }
+        CachedResponse response = responseCacheService.put(
+            ResponseCacheService.PUBLIC_USERS_CACHE,
+            key,
+            generation,
+            content,
+            headers.toSingleValueMap()
+        );
+        return ResponseCacheUtil.ok(response, acceptEncoding);
     }
 
     private boolean onlyContainsAllowedProperties(Pageable pageable) {
@@ -56,10 +138,21 @@ public class PublicUserResource {
 
     /**
      * Gets a list of all roles.
+     * @param acceptEncoding the content codings accepted by the client.
      * @return a string list of all roles.
      */
     @GetMapping("/authorities")
-    public List<String> getAuthorities() {
-        return userService.getAuthorities();
+    public ResponseEntity<byte[]> getAuthorities(
+        @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding
+    ) {
+        String key = ResponseCacheService.AUTHORITIES_CACHE;
+        Optional<CachedResponse> cached = responseCacheService.get(ResponseCacheService.AUTHORITIES_CACHE, key);
+        if (cached.isPresent()) {
+            return ResponseCacheUtil.ok(cached.get(), acceptEncoding);
+        }
+        long generation = responseCacheService.getGeneration(ResponseCacheService.AUTHORITIES_CACHE);
+        List<String> authorities = userService.getAuthorities();
+        CachedResponse response = responseCacheService.put(ResponseCacheService.AUTHORITIES_CACHE, key, generation, authorities, Map.of());
+        return ResponseCacheUtil.ok(response, acceptEncoding);
     }
 }
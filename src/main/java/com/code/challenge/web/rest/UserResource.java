@@ -10,6 +10,9 @@ import com.code.challenge.service.dto.AdminUserDTO;
 import com.code.challenge.web.rest.errors.BadRequestAlertException;
 import com.code.challenge.web.rest.errors.EmailAlreadyUsedException;
 import com.code.challenge.web.rest.errors.LoginAlreadyUsedException;
+import com.code.challenge.web.rest.util.CursorPaginationUtil;
+import com.code.challenge.web.rest.util.SparseFieldsUtil;
+import com.code.challenge.web.rest.util.UserCursorUtil;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.util.*;
@@ -21,6 +24,7 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
@@ -64,6 +68,23 @@ public class UserResource {
         Arrays.asList("id", "login", "firstName", "lastName", "email", "activated", "langKey")
     );
 
+    private static final List<String> ALLOWED_FIELDS = Collections.unmodifiableList(
+        Arrays.asList(
+            "id",
+            "login",
+            "firstName",
+            "lastName",
+            "email",
+            "imageUrl",
+            "activated",
+            "langKey",
+            "createdBy",
+            "createdDate",
+            "lastModifiedBy",
+            "lastModifiedDate"
+        )
+    );
+
     private final Logger log = LoggerFactory.getLogger(UserResource.class);
 
     @Value("${jhipster.clientApp.name}")
@@ -103,7 +124,7 @@ public class UserResource {
             // Lowercase the user login before comparing with database
         } else if (userRepository.findOneByLogin(userDTO.getLogin().toLowerCase()).isPresent()) {
             throw new LoginAlreadyUsedException();
-        } else if (userRepository.findOneByEmailIgnoreCase(userDTO.getEmail()).isPresent()) {
+        } else if (userRepository.findOneByLowerCaseEmail(userDTO.getEmail()).isPresent()) {
             throw new EmailAlreadyUsedException();
         } else {
             User newUser = userService.createUser(userDTO);
@@ -129,7 +150,7 @@ public class UserResource {
     @PreAuthorize("hasAuthority(\"" + AuthoritiesConstants.ADMIN + "\")")
     public ResponseEntity<AdminUserDTO> updateUser(@Valid @RequestBody AdminUserDTO userDTO) {
         log.debug("REST request to update User : {}", userDTO);
-        Optional<User> existingUser = userRepository.findOneByEmailIgnoreCase(userDTO.getEmail());
+        Optional<User> existingUser = userRepository.findOneByLowerCaseEmail(userDTO.getEmail());
         if (existingUser.isPresent() && (!existingUser.get().getId().equals(userDTO.getId()))) {
             throw new EmailAlreadyUsedException();
         }
@@ -147,23 +168,75 @@ public class UserResource {
 
     /**
      * {@code GET /admin/users} : get all users with all the details - calling this are only allowed for the administrators.
+     * <p>
+     * With {@code fields}, only the requested fields among {@link #ALLOWED_FIELDS} are selected and returned, plus the id.
+     * <p>
+     * With a {@code cursor}, empty for the first page, the users are paged by keyset, sorted by {@code id} or by {@code login}:
+     * no count is run, the link to the next page is sent in the {@code Link} header, and the first page has the estimated
+     * number of users in the {@code X-Total-Count-Estimate} header, when the database has one.
      *
      * @param pageable the pagination information.
+     * @param cursor the cursor of the page to retrieve, or {@code null} for offset pagination.
+     * @param fields the fields to return, separated by commas, or {@code null} for all of them.
      * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body all users.
      */
     @GetMapping("/users")
     @PreAuthorize("hasAuthority(\"" + AuthoritiesConstants.ADMIN + "\")")
-    public ResponseEntity<List<AdminUserDTO>> getAllUsers(Pageable pageable) {
+    public ResponseEntity<List<?>> getAllUsers(
+        Pageable pageable,
+        @RequestParam(value = CursorPaginationUtil.CURSOR_PARAMETER, required = false) String cursor,
+        @RequestParam(value = SparseFieldsUtil.FIELDS_PARAMETER, required = false) String fields
+    ) {
         log.debug("REST request to get all User for an admin");
-        if (!onlyContainsAllowedProperties(pageable)) {
+        Optional<List<String>> requestedFields = SparseFieldsUtil.parseFields(fields);
+        if (!onlyContainsAllowedProperties(pageable) || !SparseFieldsUtil.onlyContainsAllowedFields(requestedFields, ALLOWED_FIELDS)) {
             return ResponseEntity.badRequest().build();
         }
+        if (cursor != null) {
+            return getAllUsersAfter(pageable, cursor, requestedFields);
+        }
 
-        final Page<AdminUserDTO> page = userService.getAllManagedUsers(pageable);
+        final Page<?> page = requestedFields.isPresent()
+            ? userService.getAllManagedUsers(pageable, requestedFields.get())
+            : userService.getAllManagedUsers(pageable);
         HttpHeaders headers = PaginationUtil.generatePaginationHttpHeaders(ServletUriComponentsBuilder.fromCurrentRequest(), page);
         return new ResponseEntity<>(page.getContent(), headers, HttpStatus.OK);
     }
 
+    private ResponseEntity<List<?>> getAllUsersAfter(Pageable pageable, String cursor, Optional<List<String>> fields) {
+        Optional<Sort.Order> order = UserCursorUtil.seekOrder(pageable);
+        if (order.isEmpty()) {
+            return ResponseEntity.badRequest().build();
+        }
+        Comparable<?> after = null;
+        if (!cursor.isEmpty()) {
+            Optional<Comparable<?>> key = UserCursorUtil.decodeCursor(order.get(), cursor);
+            if (key.isEmpty()) {
+                return ResponseEntity.badRequest().build();
+            }
+            after = key.get();
+        }
+
+        List<?> content;
+        String nextCursor;
+        if (fields.isPresent()) {
+            Slice<Map<String, Object>> slice = userService.getAllManagedUsers(order.get(), after, pageable.getPageSize(), fields.get());
+            content = slice.getContent();
+            nextCursor = UserCursorUtil.nextFieldsCursor(order.get(), slice);
+        } else {
+            Slice<AdminUserDTO> slice = userService.getAllManagedUsers(order.get(), after, pageable.getPageSize());
+            content = slice.getContent();
+            nextCursor = UserCursorUtil.nextCursor(order.get(), slice, AdminUserDTO::getId, AdminUserDTO::getLogin);
+        }
+        Optional<Long> totalCountEstimate = after == null ? userService.estimateUserCount() : Optional.empty();
+        HttpHeaders headers = CursorPaginationUtil.generateCursorHttpHeaders(
+            ServletUriComponentsBuilder.fromCurrentRequest(),
+            nextCursor,
+            totalCountEstimate
+        );
+        return ResponseEntity.ok().headers(headers).body(content);
+    }
+
     private boolean onlyContainsAllowedProperties(Pageable pageable) {
         return pageable.getSort().stream().map(Sort.Order::getProperty).allMatch(ALLOWED_ORDERED_PROPERTIES::contains);
     }
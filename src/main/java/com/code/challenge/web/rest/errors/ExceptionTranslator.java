@@ -142,6 +142,19 @@ public class ExceptionTranslator implements ProblemHandling, SecurityAdviceTrait
         );
     }
 
+    @ExceptionHandler
+    public ResponseEntity<Problem> handlePlanNameAlreadyUsedException(
+        com.code.challenge.service.PlanNameAlreadyUsedException ex,
+        NativeWebRequest request
+    ) {
+        return handleBadRequestAlertException(new BadRequestAlertException(ex.getMessage(), "plan", "planexists"), request);
+    }
+
+    @ExceptionHandler
+    public ResponseEntity<Problem> handleTooManyPlansException(com.code.challenge.service.TooManyPlansException ex, NativeWebRequest request) {
+        return handleBadRequestAlertException(new BadRequestAlertException(ex.getMessage(), "plan", "toomanyplans"), request);
+    }
+
     @ExceptionHandler
     public ResponseEntity<Problem> handleInvalidPasswordException(
         com.code.challenge.service.InvalidPasswordException ex,
@@ -159,6 +172,15 @@ public class ExceptionTranslator implements ProblemHandling, SecurityAdviceTrait
         );
     }
 
+    @ExceptionHandler
+    public ResponseEntity<Problem> handlePreconditionFailedAlertException(PreconditionFailedAlertException ex, NativeWebRequest request) {
+        return create(
+            ex,
+            request,
+            HeaderUtil.createFailureAlert(applicationName, false, ex.getEntityName(), ex.getErrorKey(), ex.getMessage())
+        );
+    }
+
     @ExceptionHandler
     public ResponseEntity<Problem> handleConcurrencyFailure(ConcurrencyFailureException ex, NativeWebRequest request) {
         Problem problem = Problem.builder().withStatus(Status.CONFLICT).with(MESSAGE_KEY, ErrorConstants.ERR_CONCURRENCY_FAILURE).build();
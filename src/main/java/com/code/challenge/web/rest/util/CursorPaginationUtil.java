@@ -0,0 +1,114 @@
+package com.code.challenge.web.rest.util;
+
+import java.nio.charset.StandardCharsets;
+import java.text.MessageFormat;
+import java.util.Base64;
+import java.util.Optional;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.util.UriComponentsBuilder;
+
+/**
+ * Utility class for handling keyset (cursor) pagination.
+ * <p>
+ * Cursors are opaque to the client: they are the URL-safe Base64 encoding of the last key of the previous page,
+ * and the next page is advertised through a {@code Link} header with {@code rel="next"}, following the
+ * <a href="https://tools.ietf.org/html/rfc5988">RFC 5988 (Link header)</a>.
+ */
+public final class CursorPaginationUtil {
+
+    public static final String CURSOR_PARAMETER = "cursor";
+
+    public static final String TOTAL_COUNT_ESTIMATE_HEADER = "X-Total-Count-Estimate";
+
+    private static final String HEADER_LINK_FORMAT = "<{0}>; rel=\"{1}\"";
+
+    private CursorPaginationUtil() {}
+
+    /**
+     * Encode a key into an opaque cursor.
+     *
+     * @param key the last key of the current page.
+     * @return the cursor.
+     */
+    public static String encodeCursor(String key) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(key.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Encode an id into an opaque cursor.
+     *
+     * @param id the last id of the current page.
+     * @return the cursor.
+     */
+    public static String encodeCursor(Long id) {
+        return encodeCursor(id.toString());
+    }
+
+    /**
+     * Decode a cursor previously built by {@link #encodeCursor(String)}.
+     *
+     * @param cursor the cursor sent by the client.
+     * @return the decoded key, or empty if the cursor is not valid.
+     */
+    public static Optional<String> decodeCursor(String cursor) {
+        try {
+            return Optional.of(new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8));
+        } catch (IllegalArgumentException e) {
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Decode a cursor previously built by {@link #encodeCursor(Long)}.
+     *
+     * @param cursor the cursor sent by the client.
+     * @return the decoded id, or empty if the cursor is not valid.
+     */
+    public static Optional<Long> decodeIdCursor(String cursor) {
+        return decodeCursor(cursor)
+            .flatMap(
+                key -> {
+                    try {
+                        return Optional.of(Long.valueOf(key));
+                    } catch (NumberFormatException e) {
+                        return Optional.empty();
+                    }
+                }
+            );
+    }
+
+    /**
+     * Generate the {@code Link} header pointing to the next page, if there is one.
+     *
+     * @param uriBuilder the current request URI.
+     * @param nextCursor the cursor of the next page, or {@code null} if this is the last page.
+     * @return the {@link HttpHeaders}.
+     */
+    public static HttpHeaders generateCursorHttpHeaders(UriComponentsBuilder uriBuilder, String nextCursor) {
+        HttpHeaders headers = new HttpHeaders();
+        if (nextCursor != null) {
+            String link = uriBuilder.replaceQueryParam(CURSOR_PARAMETER, nextCursor).toUriString();
+            headers.add(HttpHeaders.LINK, MessageFormat.format(HEADER_LINK_FORMAT, link, "next"));
+        }
+        return headers;
+    }
+
+    /**
+     * Generate the {@code Link} header pointing to the next page, if there is one, and the {@code X-Total-Count-Estimate}
+     * header, if an estimate is given.
+     *
+     * @param uriBuilder the current request URI.
+     * @param nextCursor the cursor of the next page, or {@code null} if this is the last page.
+     * @param totalCountEstimate the estimated number of elements, over all the pages.
+     * @return the {@link HttpHeaders}.
+     */
+    public static HttpHeaders generateCursorHttpHeaders(
+        UriComponentsBuilder uriBuilder,
+        String nextCursor,
+        Optional<Long> totalCountEstimate
+    ) {
+        HttpHeaders headers = generateCursorHttpHeaders(uriBuilder, nextCursor);
+        totalCountEstimate.ifPresent(estimate -> headers.add(TOTAL_COUNT_ESTIMATE_HEADER, Long.toString(estimate)));
+        return headers;
+    }
+}
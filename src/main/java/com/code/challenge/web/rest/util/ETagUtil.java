@@ -0,0 +1,80 @@
+package com.code.challenge.web.rest.util;
+
+import java.util.Optional;
+import org.springframework.http.MediaType;
+
+/**
+ * Utility class for handling entity tags built from entity versions.
+ * <p>
+ * The tags are strong validators, following the
+ * <a href="https://tools.ietf.org/html/rfc7232#section-2.3">RFC 7232 (ETag header)</a>: the version changes on every update
+ * of the entity, so two representations with the same tag are byte for byte the same.
+ */
+public final class ETagUtil {
+
+    /**
+     * The {@code If-Match} and {@code If-None-Match} value matching any current representation.
+     */
+    public static final String ANY = "*";
+
+    private static final char CODING_SEPARATOR = '-';
+
+    private ETagUtil() {}
+
+    /**
+     * Build the entity tag of a version.
+     *
+     * @param version the version of the entity.
+     * @return the quoted entity tag.
+     */
+    public static String fromVersion(Long version) {
+        return "\"" + version + "\"";
+    }
+
+    /**
+     * Build the entity tag of a representation sent with a content coding.
+     *
+     * @param eTag the quoted entity tag of the representation without content coding.
+     * @param coding the content coding, such as {@code gzip}.
+     * @return the quoted entity tag, with the coding as a suffix.
+     */
+    public static String withCoding(String eTag, String coding) {
+        return withSuffix(eTag, coding);
+    }
+
+    /**
+     * Build the entity tag of a representation in another format than JSON.
+     *
+     * @param eTag the quoted entity tag of the JSON representation.
+     * @param mediaType the media type of the format, such as {@code application/cbor}.
+     * @return the quoted entity tag, with the subtype of the media type as a suffix.
+     */
+    public static String withFormat(String eTag, MediaType mediaType) {
+        return withSuffix(eTag, mediaType.getSubtype());
+    }
+
+    private static String withSuffix(String eTag, String suffix) {
+        return eTag.substring(0, eTag.length() - 1) + CODING_SEPARATOR + suffix + "\"";
+    }
+
+    /**
+     * Parse an entity tag previously built by {@link #fromVersion(Long)}, possibly {@link #withCoding(String, String) with a coding}
+     * or {@link #withFormat(String, MediaType) a format}.
+     *
+     * @param eTag the entity tag sent by the client.
+     * @return the version, or empty if the tag is not a strong version tag.
+     */
+    public static Optional<Long> toVersion(String eTag) {
+        String tag = eTag.trim();
+        if (tag.length() < 3 || tag.charAt(0) != '"' || tag.charAt(tag.length() - 1) != '"') {
+            return Optional.empty();
+        }
+        String value = tag.substring(1, tag.length() - 1);
+        int separator = value.indexOf(CODING_SEPARATOR);
+        try {
+            return Optional.of(Long.valueOf(separator < 0 ? value : value.substring(0, separator)));
+        } catch (NumberFormatException e) {
+            return Optional.empty();
+        }
+    }
+}
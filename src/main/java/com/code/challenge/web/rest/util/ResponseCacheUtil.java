@@ -0,0 +1,162 @@
+package com.code.challenge.web.rest.util;
+
+import com.code.challenge.config.JacksonConfiguration;
+import com.code.challenge.service.ResponseCacheService.CachedResponse;
+import java.util.List;
+import java.util.Optional;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+
+/**
+ * Utility class for sending the JSON bodies serialized by {@link com.code.challenge.service.ResponseCacheService}.
+ * <p>
+ * The bytes are written as they are, without going through Jackson. When the client accepts gzip and the body was
+ * compressed, the compressed bytes are sent, so the server does not compress them again; their entity tag is the one of
+ * the JSON body with a {@code -gzip} suffix, as the two representations are not byte for byte the same. The same goes for
+ * the Smile and CBOR representations of a negotiated resource, see {@link #binaryMediaType(String)}.
+ */
+public final class ResponseCacheUtil {
+
+    private static final String GZIP = "gzip";
+
+    private static final List<MediaType> BINARY_MEDIA_TYPES = List.of(
+        MediaType.valueOf(JacksonConfiguration.APPLICATION_SMILE_VALUE),
+        MediaType.APPLICATION_CBOR
+    );
+
+    private ResponseCacheUtil() {}
+
+    /**
+     * Build the response of a serialized body.
+     *
+     * @param response the serialized body and its headers.
+     * @param acceptEncoding the {@code Accept-Encoding} header of the request, or {@code null}.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the serialized JSON.
+     */
+    public static ResponseEntity<byte[]> ok(CachedResponse response, String acceptEncoding) {
+        return ok(response, acceptEncoding, new HttpHeaders());
+    }
+
+    /**
+     * Build the response of a serialized body, for a resource also sent in the formats negotiated with the {@code Accept}
+     * header of the request.
+     *
+     * @param response the serialized body and its headers.
+     * @param acceptEncoding the {@code Accept-Encoding} header of the request, or {@code null}.
+     * @return the {@link ResponseEntity} with status {@code 200 (OK)} and with body the serialized JSON.
+     */
+    public static ResponseEntity<byte[]> okNegotiated(CachedResponse response, String acceptEncoding) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.add(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+        return ok(response, acceptEncoding, headers);
+    }
+
+    /**
+     * Build the {@code 304 (Not Modified)} response of a negotiated resource when the client already has its JSON body, or
+     * its gzip-compressed body, so that the resource need not be serialized to be compared.
+     *
+     * @param eTag the quoted entity tag of the JSON body.
+     * @param ifNoneMatch the {@code If-None-Match} header of the request, or {@code null}.
+     * @return the {@link ResponseEntity} with status {@code 304 (Not Modified)} and the tag of the client, or empty if the
+     * client does not have the body.
+     */
+    public static Optional<ResponseEntity<byte[]>> notModifiedNegotiated(String eTag, String ifNoneMatch) {
+        if (ifNoneMatch == null) {
+            return Optional.empty();
+        }
+        String gzipETag = ETagUtil.withCoding(eTag, GZIP);
+        for (String tag : ifNoneMatch.split(",")) {
+            // Weak comparison, as for any If-None-Match
+            String candidate = tag.trim().startsWith("W/") ? tag.trim().substring(2) : tag.trim();
+            if (candidate.equals(eTag) || candidate.equals(gzipETag) || ETagUtil.ANY.equals(candidate)) {
+                HttpHeaders headers = new HttpHeaders();
+                headers.add(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+                if (candidate.equals(gzipETag)) {
+                    headers.add(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+                }
+                headers.setETag(ETagUtil.ANY.equals(candidate) ? eTag : candidate);
+                ResponseEntity<byte[]> response = ResponseEntity.status(HttpStatus.NOT_MODIFIED).headers(headers).build();
+                return Optional.of(response);
+            }
+        }
+        return Optional.empty();
+    }
+
+    private static ResponseEntity<byte[]> ok(CachedResponse response, String acceptEncoding, HttpHeaders headers) {
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        response.getHeaders().forEach(headers::set);
+        byte[] body = response.getBody();
+        if (response.getGzippedBody() != null) {
+            headers.add(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+            if (acceptsGzip(acceptEncoding)) {
+                headers.set(HttpHeaders.CONTENT_ENCODING, GZIP);
+                if (headers.getETag() != null) {
+                    headers.setETag(ETagUtil.withCoding(headers.getETag(), GZIP));
+                }
+                body = response.getGzippedBody();
+            }
+        }
+        headers.setContentLength(body.length);
+        return ResponseEntity.ok().headers(headers).body(body);
+    }
+
+    /**
+     * Check whether JSON is the preferred format of a client, so that it can be sent a serialized body.
+     *
+     * @param accept the {@code Accept} header of the request, or {@code null}.
+     * @return {@code true} if the preferred media type of the client is compatible with JSON, or if it has none.
+     */
+    public static boolean prefersJson(String accept) {
+        if (accept == null || accept.isBlank()) {
+            return true;
+        }
+        List<MediaType> mediaTypes;
+        try {
+            mediaTypes = MediaType.parseMediaTypes(accept);
+        } catch (InvalidMediaTypeException e) {
+            return true;
+        }
+        MediaType.sortBySpecificityAndQuality(mediaTypes);
+        return mediaTypes.isEmpty() || mediaTypes.get(0).isCompatibleWith(MediaType.APPLICATION_JSON);
+    }
+
+    /**
+     * Find the binary format preferred by a client which does not {@link #prefersJson(String) prefer JSON}.
+     *
+     * @param accept the {@code Accept} header of the request, or {@code null}.
+     * @return the Smile or CBOR media type, whichever the client prefers, or {@code null} if it accepts neither.
+     */
+    public static MediaType binaryMediaType(String accept) {
+        List<MediaType> mediaTypes;
+        try {
+            mediaTypes = MediaType.parseMediaTypes(accept);
+        } catch (InvalidMediaTypeException e) {
+            return null;
+        }
+        MediaType.sortBySpecificityAndQuality(mediaTypes);
+        for (MediaType mediaType : mediaTypes) {
+            for (MediaType binary : BINARY_MEDIA_TYPES) {
+                if (mediaType.isCompatibleWith(binary) && mediaType.getQualityValue() > 0) {
+                    return binary;
+                }
+            }
+        }
+        return null;
+    }
+
+    private static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.trim().split(";");
+            if (GZIP.equalsIgnoreCase(parts[0].trim())) {
+                return parts.length == 1 || !parts[1].trim().replace(" ", "").matches("q=0(\\.0*)?");
+            }
+        }
+        return false;
+    }
+}
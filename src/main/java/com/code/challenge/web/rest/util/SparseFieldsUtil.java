@@ -0,0 +1,44 @@
+package com.code.challenge.web.rest.util;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+/**
+ * Utility class for handling sparse fieldsets: the {@code fields} request parameter lists the fields a client needs,
+ * separated by commas, and only those are read from the database and written to the response.
+ */
+public final class SparseFieldsUtil {
+
+    public static final String FIELDS_PARAMETER = "fields";
+
+    private SparseFieldsUtil() {}
+
+    /**
+     * Parse the {@code fields} request parameter.
+     *
+     * @param fields the parameter sent by the client, or {@code null}.
+     * @return the distinct requested fields, in request order, or empty if all the fields are requested.
+     */
+    public static Optional<List<String>> parseFields(String fields) {
+        if (fields == null || fields.isBlank()) {
+            return Optional.empty();
+        }
+        return Optional.of(
+            Arrays.stream(fields.split(",")).map(String::trim).filter(field -> !field.isEmpty()).distinct().collect(Collectors.toList())
+        );
+    }
+
+    /**
+     * Check that the requested fields are all allowed.
+     *
+     * @param fields the parsed {@code fields} request parameter.
+     * @param allowedFields the fields a client can request.
+     * @return {@code true} if all the fields are requested, or if the requested fields are all allowed.
+     */
+    public static boolean onlyContainsAllowedFields(Optional<List<String>> fields, Collection<String> allowedFields) {
+        return fields.map(requested -> !requested.isEmpty() && requested.stream().allMatch(allowedFields::contains)).orElse(true);
+    }
+}
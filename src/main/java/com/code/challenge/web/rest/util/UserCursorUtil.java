@@ -0,0 +1,86 @@
+package com.code.challenge.web.rest.util;
+
+import com.code.challenge.domain.User_;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+
+/**
+ * Utility class for the keyset (cursor) pagination of the user listings, see {@link CursorPaginationUtil}.
+ * <p>
+ * The users are sorted by a single unique and non null key, their {@code id} or their {@code login}, so the last key of a
+ * page is enough to seek to the next one. The cursor of the first page is empty.
+ */
+public final class UserCursorUtil {
+
+    public static final List<String> SEEK_PROPERTIES = List.of(User_.ID, User_.LOGIN);
+
+    private UserCursorUtil() {}
+
+    /**
+     * Get the order of a keyset page.
+     *
+     * @param pageable the pagination information, whose page number is ignored.
+     * @return the order by {@code id} or by {@code login}, by {@code id} if none is requested, or empty if the requested sort
+     * cannot be used to seek.
+     */
+    public static Optional<Sort.Order> seekOrder(Pageable pageable) {
+        List<Sort.Order> orders = pageable.getSort().toList();
+        if (orders.isEmpty()) {
+            return Optional.of(Sort.Order.asc(User_.ID));
+        }
+        if (orders.size() > 1 || !SEEK_PROPERTIES.contains(orders.get(0).getProperty())) {
+            return Optional.empty();
+        }
+        return Optional.of(orders.get(0));
+    }
+
+    /**
+     * Decode a non empty cursor into the key of the last user of the previous page.
+     *
+     * @param order the order of the page.
+     * @param cursor the cursor sent by the client.
+     * @return the id or the login of the last user, or empty if the cursor is not valid.
+     */
+    public static Optional<Comparable<?>> decodeCursor(Sort.Order order, String cursor) {
+        if (User_.ID.equals(order.getProperty())) {
+            return CursorPaginationUtil.decodeIdCursor(cursor).map(Function.identity());
+        }
+        return CursorPaginationUtil.decodeCursor(cursor).map(Function.identity());
+    }
+
+    /**
+     * Get the cursor of the page following a slice of users.
+     *
+     * @param order the order of the slice.
+     * @param slice the slice of users.
+     * @param id the id of a user.
+     * @param login the login of a user.
+     * @param <T> the type of the users.
+     * @return the cursor of the next page, or {@code null} if this is the last page.
+     */
+    public static <T> String nextCursor(Sort.Order order, Slice<T> slice, Function<T, Long> id, Function<T, String> login) {
+        if (!slice.hasNext()) {
+            return null;
+        }
+        T last = slice.getContent().get(slice.getNumberOfElements() - 1);
+        return User_.ID.equals(order.getProperty())
+            ? CursorPaginationUtil.encodeCursor(id.apply(last))
+            : CursorPaginationUtil.encodeCursor(login.apply(last));
+    }
+
+    /**
+     * Get the cursor of the page following a slice of users with only the requested fields, which include the sort key.
+     *
+     * @param order the order of the slice.
+     * @param slice the slice of the requested fields of the users, by name.
+     * @return the cursor of the next page, or {@code null} if this is the last page.
+     */
+    public static String nextFieldsCursor(Sort.Order order, Slice<Map<String, Object>> slice) {
+        return nextCursor(order, slice, user -> (Long) user.get(User_.ID), user -> (String) user.get(User_.LOGIN));
+    }
+}
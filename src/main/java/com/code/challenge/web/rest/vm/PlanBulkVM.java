@@ -0,0 +1,66 @@
+package com.code.challenge.web.rest.vm;
+
+import com.code.challenge.domain.Plan;
+import com.code.challenge.service.PlanService;
+import com.code.challenge.service.criteria.PlanCriteria;
+import java.util.List;
+import javax.validation.Valid;
+import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Size;
+import javax.validation.groups.ConvertGroup;
+import javax.validation.groups.Default;
+
+/**
+ * View Model object for a bulk operation on plans: the plans to act on, given by their ids and/or by criteria,
+ * and for an update the fields to change.
+ */
+public class PlanBulkVM {
+
+    public static final int MAX_IDS = PlanService.MAX_BULK_PLANS;
+
+    @Size(min = 1, max = MAX_IDS)
+    private List<@NotNull Long> ids;
+
+    private PlanCriteria criteria;
+
+    /**
+     * The fields to change, validated as a partial update: its null fields are left unchanged.
+     */
+    @Valid
+    @ConvertGroup(from = Default.class, to = Plan.PartialUpdate.class)
+    private Plan patch;
+
+    public List<Long> getIds() {
+        return ids;
+    }
+
+    public void setIds(List<Long> ids) {
+        this.ids = ids;
+    }
+
+    public PlanCriteria getCriteria() {
+        return criteria;
+    }
+
+    public void setCriteria(PlanCriteria criteria) {
+        this.criteria = criteria;
+    }
+
+    public Plan getPatch() {
+        return patch;
+    }
+
+    public void setPatch(Plan patch) {
+        this.patch = patch;
+    }
+
+    // prettier-ignore
+    @Override
+    public String toString() {
+        return "PlanBulkVM{" +
+            "ids=" + (ids != null ? ids.size() + " ids" : null) +
+            ", criteria=" + criteria +
+            ", patch=" + patch +
+            "}";
+    }
+}
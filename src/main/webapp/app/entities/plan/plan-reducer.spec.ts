@@ -31,6 +31,7 @@ describe('Entities reducer tests', () => {
     loading: false,
     errorMessage: null,
     entities: [] as ReadonlyArray<IPlan>,
+    nextCursor: null as string,
     entity: defaultValue,
     updating: false,
     updateSuccess: false,
@@ -141,6 +142,28 @@ describe('Entities reducer tests', () => {
       });
     });
 
+    it('should append the next page and keep its cursor', () => {
+      const payload = {
+        data: [{ 2: 'fake2' }],
+        headers: { link: '<http://localhost/api/plans?size=1&cursor=Mg>; rel="next"' },
+      };
+      expect(
+        reducer(
+          { ...initialState, entities: [{ 1: 'fake1' }] },
+          {
+            type: SUCCESS(ACTION_TYPES.FETCH_PLAN_LIST),
+            payload,
+            meta: { append: true },
+          }
+        )
+      ).toEqual({
+        ...initialState,
+        loading: false,
+        entities: [{ 1: 'fake1' }, { 2: 'fake2' }],
+        nextCursor: 'Mg',
+      });
+    });
+
     it('should fetch a single entity', () => {
       const payload = { data: { 1: 'fake1' } };
       expect(
@@ -201,10 +224,12 @@ describe('Entities reducer tests', () => {
       const expectedActions = [
         {
           type: REQUEST(ACTION_TYPES.FETCH_PLAN_LIST),
+          meta: { append: false },
         },
         {
           type: SUCCESS(ACTION_TYPES.FETCH_PLAN_LIST),
           payload: resolvedObject,
+          meta: { append: false },
         },
       ];
       await store.dispatch(getEntities()).then(() => expect(store.getActions()).toEqual(expectedActions));
@@ -234,10 +259,12 @@ describe('Entities reducer tests', () => {
         },
         {
           type: REQUEST(ACTION_TYPES.FETCH_PLAN_LIST),
+          meta: { append: false },
         },
         {
           type: SUCCESS(ACTION_TYPES.FETCH_PLAN_LIST),
           payload: resolvedObject,
+          meta: { append: false },
         },
       ];
       await store.dispatch(createEntity({ id: 456 })).then(() => expect(store.getActions()).toEqual(expectedActions));
@@ -280,10 +307,12 @@ describe('Entities reducer tests', () => {
         },
         {
           type: REQUEST(ACTION_TYPES.FETCH_PLAN_LIST),
+          meta: { append: false },
         },
         {
           type: SUCCESS(ACTION_TYPES.FETCH_PLAN_LIST),
           payload: resolvedObject,
+          meta: { append: false },
         },
       ];
       await store.dispatch(deleteEntity(42666)).then(() => expect(store.getActions()).toEqual(expectedActions));
@@ -1,9 +1,10 @@
 import axios from 'axios';
-import { ICrudGetAction, ICrudGetAllAction, ICrudPutAction, ICrudDeleteAction } from 'react-jhipster';
+import { ICrudGetAction, ICrudPutAction, ICrudDeleteAction, IPayload } from 'react-jhipster';
 
 import { cleanEntity } from 'app/shared/util/entity-utils';
 import { REQUEST, SUCCESS, FAILURE } from 'app/shared/reducers/action-type.util';
 
+import { ITEMS_PER_PAGE } from 'app/shared/util/pagination.constants';
 import { IPlan, defaultValue } from 'app/shared/model/plan.model';
 
 export const ACTION_TYPES = {
@@ -20,6 +21,7 @@ const initialState = {
   loading: false,
   errorMessage: null,
   entities: [] as ReadonlyArray<IPlan>,
+  nextCursor: null as string,
   entity: defaultValue,
   updating: false,
   updateSuccess: false,
@@ -66,7 +68,8 @@ export default (state: PlanState = initialState, action): PlanState => {
       return {
         ...state,
         loading: false,
-        entities: action.payload.data,
+        entities: action.meta && action.meta.append ? [...state.entities, ...action.payload.data] : action.payload.data,
+        nextCursor: parseNextCursor(action.payload.headers),
       };
     case SUCCESS(ACTION_TYPES.FETCH_PLAN):
       return {
@@ -101,11 +104,25 @@ export default (state: PlanState = initialState, action): PlanState => {
 
 const apiUrl = 'api/plans';
 
+/**
+ * Extracts the cursor of the next page from the Link header, or null if this is the last page.
+ */
+const parseNextCursor = (headers): string => {
+  const next = headers && headers.link ? headers.link.split(',').find(link => link.includes('rel="next"')) : undefined;
+  const match = next ? /[?&]cursor=([^&>]+)/.exec(next) : null;
+  return match ? decodeURIComponent(match[1]) : null;
+};
+
 // Actions
 
-export const getEntities: ICrudGetAllAction<IPlan> = (page, size, sort) => ({
+/**
+ * Fetches a page of plans. Without a cursor, the first page replaces the current list;
+ * with the cursor of the next page, the page is appended to it.
+ */
+export const getEntities = (cursor?: string, size = ITEMS_PER_PAGE): IPayload<IPlan> => ({
   type: ACTION_TYPES.FETCH_PLAN_LIST,
-  payload: axios.get<IPlan>(`${apiUrl}?cacheBuster=${new Date().getTime()}`),
+  payload: axios.get<IPlan>(`${apiUrl}?size=${size}${cursor ? `&cursor=${cursor}` : ''}&cacheBuster=${new Date().getTime()}`),
+  meta: { append: !!cursor },
 });
 
 export const getEntity: ICrudGetAction<IPlan> = id => {
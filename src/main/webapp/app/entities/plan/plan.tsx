@@ -4,6 +4,7 @@ import { Link, RouteComponentProps } from 'react-router-dom';
 import { Button, Col, Row, Table } from 'reactstrap';
 import { Translate } from 'react-jhipster';
 import { FontAwesomeIcon } from '@fortawesome/react-fontawesome';
+import InfiniteScroll from 'react-infinite-scroller';
 
 import { IRootState } from 'app/shared/reducers';
 import { getEntities } from './plan.reducer';
@@ -21,6 +22,12 @@ export const Plan = (props: IPlanProps) => {
     props.getEntities();
   };
 
+  const handleLoadMore = () => {
+    if (props.nextCursor && !props.loading) {
+      props.getEntities(props.nextCursor);
+    }
+  };
+
   const { planList, match, loading } = props;
   return (
     <div>
@@ -37,50 +44,59 @@ export const Plan = (props: IPlanProps) => {
         </div>
       </h2>
       <div className="table-responsive">
-        {planList && planList.length > 0 ? (
-          <Table responsive>
-            <thead>
-              <tr>
-                <th>ID</th>
-                <th>Plan</th>
-                <th>Deductible</th>
-                <th>Co Pay</th>
-                <th>User</th>
-                <th />
-              </tr>
-            </thead>
-            <tbody>
-              {planList.map((plan, i) => (
-                <tr key={`entity-${i}`} data-cy="entityTable">
-                  <td>
-                    <Button tag={Link} to={`${match.url}/${plan.id}`} color="link" size="sm">
-                      {plan.id}
-                    </Button>
-                  </td>
-                  <td>{plan.plan}</td>
-                  <td>{plan.deductible}</td>
-                  <td>{plan.coPay}</td>
-                  <td>{plan.user ? plan.user.login : ''}</td>
-                  <td className="text-right">
-                    <div className="btn-group flex-btn-group-container">
-                      <Button tag={Link} to={`${match.url}/${plan.id}`} color="info" size="sm" data-cy="entityDetailsButton">
-                        <FontAwesomeIcon icon="eye" /> <span className="d-none d-md-inline">View</span>
-                      </Button>
-                      <Button tag={Link} to={`${match.url}/${plan.id}/edit`} color="primary" size="sm" data-cy="entityEditButton">
-                        <FontAwesomeIcon icon="pencil-alt" /> <span className="d-none d-md-inline">Edit</span>
-                      </Button>
-                      <Button tag={Link} to={`${match.url}/${plan.id}/delete`} color="danger" size="sm" data-cy="entityDeleteButton">
-                        <FontAwesomeIcon icon="trash" /> <span className="d-none d-md-inline">Delete</span>
-                      </Button>
-                    </div>
-                  </td>
+        <InfiniteScroll
+          pageStart={0}
+          loadMore={handleLoadMore}
+          hasMore={!!props.nextCursor}
+          loader={<div className="loader">Loading ...</div>}
+          threshold={0}
+          initialLoad={false}
+        >
+          {planList && planList.length > 0 ? (
+            <Table responsive>
+              <thead>
+                <tr>
+                  <th>ID</th>
+                  <th>Plan</th>
+                  <th>Deductible</th>
+                  <th>Co Pay</th>
+                  <th>User</th>
+                  <th />
                 </tr>
-              ))}
-            </tbody>
-          </Table>
-        ) : (
-          !loading && <div className="alert alert-warning">No Plans found</div>
-        )}
+              </thead>
+              <tbody>
+                {planList.map((plan, i) => (
+                  <tr key={`entity-${i}`} data-cy="entityTable">
+                    <td>
+                      <Button tag={Link} to={`${match.url}/${plan.id}`} color="link" size="sm">
+                        {plan.id}
+                      </Button>
+                    </td>
+                    <td>{plan.plan}</td>
+                    <td>{plan.deductible}</td>
+                    <td>{plan.coPay}</td>
+                    <td>{plan.user ? plan.user.login : ''}</td>
+                    <td className="text-right">
+                      <div className="btn-group flex-btn-group-container">
+                        <Button tag={Link} to={`${match.url}/${plan.id}`} color="info" size="sm" data-cy="entityDetailsButton">
+                          <FontAwesomeIcon icon="eye" /> <span className="d-none d-md-inline">View</span>
+                        </Button>
+                        <Button tag={Link} to={`${match.url}/${plan.id}/edit`} color="primary" size="sm" data-cy="entityEditButton">
+                          <FontAwesomeIcon icon="pencil-alt" /> <span className="d-none d-md-inline">Edit</span>
+                        </Button>
+                        <Button tag={Link} to={`${match.url}/${plan.id}/delete`} color="danger" size="sm" data-cy="entityDeleteButton">
+                          <FontAwesomeIcon icon="trash" /> <span className="d-none d-md-inline">Delete</span>
+                        </Button>
+                      </div>
+                    </td>
+                  </tr>
+                ))}
+              </tbody>
+            </Table>
+          ) : (
+            !loading && <div className="alert alert-warning">No Plans found</div>
+          )}
+        </InfiniteScroll>
       </div>
     </div>
   );
@@ -89,6 +105,7 @@ export const Plan = (props: IPlanProps) => {
 const mapStateToProps = ({ plan }: IRootState) => ({
   planList: plan.entities,
   loading: plan.loading,
+  nextCursor: plan.nextCursor,
 });
 
 const mapDispatchToProps = {
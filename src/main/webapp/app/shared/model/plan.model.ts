@@ -5,6 +5,7 @@ export interface IPlan {
   plan?: string;
   deductible?: number;
   coPay?: number;
+  version?: number;
   user?: IUser;
 }
 
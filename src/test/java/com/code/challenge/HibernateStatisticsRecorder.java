@@ -0,0 +1,109 @@
+package com.code.challenge;
+
+import java.util.HashMap;
+import java.util.Map;
+import javax.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+
+/**
+ * Records what Hibernate does while a test runs: the statement, query, load and second level cache counts since it was
+ * started, or last {@link #reset()}.
+ * <p>
+ * The statistics are global to the session factory, so they are not cleared: the counts are the differences with a snapshot
+ * taken at the start. They are enabled while at least one recorder is open, and left as they were found once the last one is
+ * closed. Use it with try-with-resources:
+ * <pre>
+ * try (HibernateStatisticsRecorder recorder = HibernateStatisticsRecorder.start(entityManagerFactory)) {
+ *     ...
+ *     assertThat(recorder.getPrepareStatementCount()).isEqualTo(1);
+ * }
+ * </pre>
+ */
+public final class HibernateStatisticsRecorder implements AutoCloseable {
+
+    private static final Object LOCK = new Object();
+
+    private static int openRecorders;
+
+    private static boolean enabledBefore;
+
+    private final Statistics statistics;
+
+    private long prepareStatementCount;
+
+    private long queryExecutionCount;
+
+    private final Map<String, Long> entityLoadCounts = new HashMap<>();
+
+    private final Map<String, Long> regionHitCounts = new HashMap<>();
+
+    private HibernateStatisticsRecorder(Statistics statistics) {
+        this.statistics = statistics;
+    }
+
+    public static HibernateStatisticsRecorder start(EntityManagerFactory entityManagerFactory) {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        synchronized (LOCK) {
+            if (openRecorders++ == 0) {
+                enabledBefore = statistics.isStatisticsEnabled();
+                statistics.setStatisticsEnabled(true);
+            }
+        }
+        HibernateStatisticsRecorder recorder = new HibernateStatisticsRecorder(statistics);
+        recorder.reset();
+        return recorder;
+    }
+
+    /**
+     * Count from now on.
+     */
+    public void reset() {
+        prepareStatementCount = statistics.getPrepareStatementCount();
+        queryExecutionCount = statistics.getQueryExecutionCount();
+        for (String entityName : statistics.getEntityNames()) {
+            entityLoadCounts.put(entityName, statistics.getEntityStatistics(entityName).getLoadCount());
+        }
+        for (String regionName : statistics.getSecondLevelCacheRegionNames()) {
+            regionHitCounts.put(regionName, regionHitCount(regionName));
+        }
+    }
+
+    public long getPrepareStatementCount() {
+        return statistics.getPrepareStatementCount() - prepareStatementCount;
+    }
+
+    public long getQueryExecutionCount() {
+        return statistics.getQueryExecutionCount() - queryExecutionCount;
+    }
+
+    /**
+     * @return the number of entities of the class loaded from the database.
+     */
+    public long getEntityLoadCount(Class<?> entityClass) {
+        String entityName = entityClass.getName();
+        return statistics.getEntityStatistics(entityName).getLoadCount() - entityLoadCounts.getOrDefault(entityName, 0L);
+    }
+
+    /**
+     * @return the number of entries found in the second level cache region.
+     */
+    public long getSecondLevelCacheHitCount(String regionName) {
+        return regionHitCount(regionName) - regionHitCounts.getOrDefault(regionName, 0L);
+    }
+
+    private long regionHitCount(String regionName) {
+        CacheRegionStatistics region = statistics.getDomainDataRegionStatistics(regionName);
+        return region == null ? 0 : region.getHitCount();
+    }
+
+    @Override
+    public void close() {
+        synchronized (LOCK) {
+            if (--openRecorders == 0) {
+                statistics.setStatisticsEnabled(enabledBefore);
+            }
+        }
+    }
+}
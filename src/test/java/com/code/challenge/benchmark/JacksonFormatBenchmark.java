@@ -0,0 +1,171 @@
+package com.code.challenge.benchmark;
+
+import com.code.challenge.domain.Plan;
+import com.code.challenge.domain.User;
+import com.code.challenge.security.AuthoritiesConstants;
+import com.code.challenge.service.dto.AdminUserDTO;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.datatype.hibernate5.Hibernate5Module;
+import com.fasterxml.jackson.datatype.jdk8.Jdk8Module;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import java.io.IOException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+/**
+ * Encoding and decoding time of a page of plans, or of users as the administrators list them, in JSON, Smile and CBOR.
+ * <p>
+ * The mappers have the modules of {@link com.code.challenge.config.JacksonConfiguration}. The size of the payloads is
+ * printed by {@link #main} before the benchmarks run.
+ * <p>
+ * Run it with its {@link #main} method, on the test classpath; it is not part of the test suite.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(1)
+public class JacksonFormatBenchmark {
+
+    static final int PAGE_SIZE = 20;
+
+    @Param({ "json", "smile", "cbor" })
+    String format;
+
+    @Param({ "plans", "users" })
+    String payload;
+
+    private ObjectMapper mapper;
+
+    private Object page;
+
+    private TypeReference<?> pageType;
+
+    private byte[] encoded;
+
+    @Setup
+    public void setUp() throws IOException {
+        mapper = mapper(format);
+        if ("plans".equals(payload)) {
+            page = plans();
+            pageType = new TypeReference<List<Plan>>() {};
+        } else {
+            page = users();
+            pageType = new TypeReference<List<AdminUserDTO>>() {};
+        }
+        encoded = mapper.writeValueAsBytes(page);
+    }
+
+    @Benchmark
+    public byte[] encode() throws IOException {
+        return mapper.writeValueAsBytes(page);
+    }
+
+    @Benchmark
+    public Object decode() throws IOException {
+        return mapper.readValue(encoded, pageType);
+    }
+
+    private static ObjectMapper mapper(String format) {
+        JsonFactory factory;
+        switch (format) {
+            case "smile":
+                factory = new SmileFactory();
+                break;
+            case "cbor":
+                factory = new CBORFactory();
+                break;
+            default:
+                factory = new JsonFactory();
+        }
+        return Jackson2ObjectMapperBuilder
+            .json()
+            .factory(factory)
+            .modules(new JavaTimeModule(), new Jdk8Module(), new Hibernate5Module())
+            .build();
+    }
+
+    private static List<Plan> plans() {
+        Random random = new Random(42);
+        List<Plan> plans = new ArrayList<>();
+        for (int i = 1; i <= PAGE_SIZE; i++) {
+            User user = new User();
+            user.setId((long) i);
+            user.setLogin("user" + i);
+            plans.add(
+                new Plan()
+                    .id((long) i)
+                    .plan("Plan " + i)
+                    .deductible(random.nextInt(50) * 100)
+                    .coPay(random.nextInt(1000) / 10D)
+                    .version(1L)
+                    .user(user)
+            );
+        }
+        return plans;
+    }
+
+    private static List<AdminUserDTO> users() {
+        Instant now = Instant.parse("2026-10-18T10:00:00Z");
+        List<AdminUserDTO> users = new ArrayList<>();
+        for (int i = 1; i <= PAGE_SIZE; i++) {
+            AdminUserDTO user = new AdminUserDTO();
+            user.setId((long) i);
+            user.setLogin("user" + i);
+            user.setFirstName("John");
+            user.setLastName("Doe");
+            user.setEmail("user" + i + "@localhost");
+            user.setImageUrl("http://placehold.it/50x50");
+            user.setActivated(true);
+            user.setLangKey("en");
+            user.setCreatedBy("system");
+            user.setCreatedDate(now);
+            user.setLastModifiedBy("system");
+            user.setLastModifiedDate(now);
+            user.setAuthorities(Set.of(AuthoritiesConstants.USER));
+            users.add(user);
+        }
+        return users;
+    }
+
+    public static void main(String[] args) throws IOException, RunnerException {
+        for (String format : List.of("json", "smile", "cbor")) {
+            ObjectMapper mapper = mapper(format);
+            System.out.printf(
+                "%-5s: %d plans in %d bytes, %d users in %d bytes%n",
+                format,
+                PAGE_SIZE,
+                mapper.writeValueAsBytes(plans()).length,
+                PAGE_SIZE,
+                mapper.writeValueAsBytes(users()).length
+            );
+        }
+        new Runner(new OptionsBuilder().include(JacksonFormatBenchmark.class.getSimpleName()).build()).run();
+    }
+}
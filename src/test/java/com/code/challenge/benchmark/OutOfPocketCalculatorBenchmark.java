@@ -0,0 +1,91 @@
+package com.code.challenge.benchmark;
+
+import com.code.challenge.service.calculator.OutOfPocketCalculator;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Throughput of the {@link OutOfPocketCalculator}, in claims per second.
+ * <p>
+ * {@link #sequential} runs on a single thread, so its score is the throughput per core; {@link #parallel} splits the batch
+ * across the common fork/join pool, as the REST endpoint does.
+ * <p>
+ * Run it with its {@link #main} method, on the test classpath; it is not part of the test suite.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@OperationsPerInvocation(OutOfPocketCalculatorBenchmark.BATCH_SIZE)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(1)
+public class OutOfPocketCalculatorBenchmark {
+
+    static final int BATCH_SIZE = 1 << 16;
+
+    @Param({ "1000", "1000000" })
+    int plans;
+
+    private OutOfPocketCalculator calculator;
+
+    private long[] userIds;
+
+    private double[] claimAmounts;
+
+    private double[] results;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        long[] planIds = new long[plans];
+        int[] deductibles = new int[plans];
+        double[] coPays = new double[plans];
+        for (int i = 0; i < plans; i++) {
+            planIds[i] = i + 1;
+            deductibles[i] = random.nextInt(50) * 100;
+            coPays[i] = random.nextInt(1000) / 10D;
+        }
+        calculator = new OutOfPocketCalculator(planIds, deductibles, coPays);
+        userIds = new long[BATCH_SIZE];
+        claimAmounts = new double[BATCH_SIZE];
+        results = new double[BATCH_SIZE];
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            userIds[i] = random.nextInt(plans) + 1;
+            claimAmounts[i] = random.nextInt(1_000_000) / 100D;
+        }
+    }
+
+    @Benchmark
+    public double[] sequential() {
+        calculator.calculate(userIds, claimAmounts, results, 0, BATCH_SIZE);
+        return results;
+    }
+
+    @Benchmark
+    public double[] parallel() {
+        calculator.calculate(userIds, claimAmounts, results, BATCH_SIZE, ForkJoinPool.commonPool());
+        return results;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(OutOfPocketCalculatorBenchmark.class.getSimpleName()).build()).run();
+    }
+}
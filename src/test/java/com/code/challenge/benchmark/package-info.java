@@ -0,0 +1,4 @@
+/**
+ * JMH microbenchmarks, run from the test classpath with the {@code main} method of each benchmark.
+ */
+package com.code.challenge.benchmark;
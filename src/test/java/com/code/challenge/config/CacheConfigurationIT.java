@@ -0,0 +1,144 @@
+package com.code.challenge.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.code.challenge.HibernateStatisticsRecorder;
+import com.code.challenge.IntegrationTest;
+import com.code.challenge.domain.Authority;
+import com.code.challenge.domain.Plan;
+import com.code.challenge.domain.User;
+import com.code.challenge.repository.PlanRepository;
+import com.code.challenge.repository.UserCredentialsRepository;
+import com.code.challenge.repository.UserRepository;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import javax.cache.CacheManager;
+import javax.persistence.EntityManagerFactory;
+import org.apache.commons.lang3.RandomStringUtils;
+import org.ehcache.config.CacheRuntimeConfiguration;
+import org.ehcache.config.ResourceType;
+import org.ehcache.config.SizedResourcePool;
+import org.ehcache.jsr107.Eh107Configuration;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import tech.jhipster.config.JHipsterProperties;
+
+/**
+ * Integration tests for the caches and second level cache regions configured by {@link CacheConfiguration}.
+ */
+@IntegrationTest
+class CacheConfigurationIT {
+
+    private static final String PLAN_REGION = Plan.class.getName();
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private JHipsterProperties jHipsterProperties;
+
+    @Autowired
+    private ApplicationProperties applicationProperties;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private PlanRepository planRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    public void setTransactionManager(PlatformTransactionManager transactionManager) {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @Test
+    void regionsUseTheirConfiguredSizeAndTimeToLive() {
+        // Configured in application.cache-regions
+        assertThat(heapSize(PLAN_REGION)).isEqualTo(500);
+        assertThat(timeToLive(PLAN_REGION)).isEqualTo(Duration.ofMinutes(30));
+        // Defaults of the region
+        assertThat(heapSize(Authority.class.getName())).isEqualTo(100);
+        assertThat(timeToLive(Authority.class.getName())).isEqualTo(Duration.ofDays(1));
+        // application.authentication-cache
+        assertThat(heapSize(UserCredentialsRepository.UNKNOWN_USER_CREDENTIALS_BY_LOGIN_CACHE))
+            .isEqualTo(applicationProperties.getAuthenticationCache().getNegativeMaxEntries());
+        assertThat(timeToLive(UserCredentialsRepository.UNKNOWN_USER_CREDENTIALS_BY_LOGIN_CACHE))
+            .isEqualTo(applicationProperties.getAuthenticationCache().getNegativeTimeToLive());
+        assertThat(heapSize(UserCredentialsRepository.USER_CREDENTIALS_BY_LOGIN_CACHE))
+            .isEqualTo(applicationProperties.getAuthenticationCache().getMaxEntries());
+        // jhipster.cache.ehcache defaults
+        assertThat(heapSize(User.class.getName())).isEqualTo(jHipsterProperties.getCache().getEhcache().getMaxEntries());
+        assertThat(timeToLive(User.class.getName()))
+            .isEqualTo(Duration.ofSeconds(jHipsterProperties.getCache().getEhcache().getTimeToLiveSeconds()));
+    }
+
+    @Test
+    void repeatedFindByIdHitsTheSecondLevelCache() {
+        // Committed, as an entry put in the cache is only readable by the transactions started after the put
+        Plan plan = transactionTemplate.execute(
+            status -> {
+                User user = new User();
+                user.setLogin("cache-" + RandomStringUtils.randomAlphanumeric(8).toLowerCase());
+                user.setPassword(RandomStringUtils.random(60));
+                user.setActivated(true);
+                user.setEmail(user.getLogin() + "@localhost");
+                user.setLangKey("en");
+                userRepository.saveAndFlush(user);
+                return planRepository.saveAndFlush(new Plan().plan("Bronze").deductible(1000).coPay(10D).user(user));
+            }
+        );
+        double cacheHits = cacheHits(PLAN_REGION);
+
+        try (HibernateStatisticsRecorder recorder = HibernateStatisticsRecorder.start(entityManagerFactory)) {
+            // Each in its own transaction
+            planRepository.findById(plan.getId()).get();
+            planRepository.findById(plan.getId()).get();
+            planRepository.findById(plan.getId()).get();
+
+            assertThat(recorder.getEntityLoadCount(Plan.class)).isLessThanOrEqualTo(1);
+            assertThat(recorder.getSecondLevelCacheHitCount(PLAN_REGION)).isGreaterThanOrEqualTo(2);
+        } finally {
+            transactionTemplate.executeWithoutResult(
+                status -> {
+                    planRepository.deleteById(plan.getId());
+                    userRepository.deleteById(plan.getId());
+                }
+            );
+        }
+        assertThat(cacheHits(PLAN_REGION)).isGreaterThanOrEqualTo(cacheHits + 2);
+    }
+
+    private long heapSize(String cacheName) {
+        SizedResourcePool heap = configuration(cacheName).getResourcePools().getPoolForResource(ResourceType.Core.HEAP);
+        return heap.getSize();
+    }
+
+    private Duration timeToLive(String cacheName) {
+        return configuration(cacheName).getExpiryPolicy().getExpiryForCreation("key", "value");
+    }
+
+    @SuppressWarnings("unchecked")
+    private CacheRuntimeConfiguration<Object, Object> configuration(String cacheName) {
+        Eh107Configuration<Object, Object> configuration = cacheManager.getCache(cacheName).getConfiguration(Eh107Configuration.class);
+        return configuration.unwrap(CacheRuntimeConfiguration.class);
+    }
+
+    /**
+     * @return the hits exported by the cache metrics.
+     */
+    private double cacheHits(String cacheName) {
+        FunctionCounter hits = meterRegistry.get("cache.gets").tag("cache", cacheName).tag("result", "hit").functionCounter();
+        return hits.count();
+    }
+}
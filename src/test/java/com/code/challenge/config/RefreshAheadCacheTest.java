@@ -0,0 +1,162 @@
+package com.code.challenge.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.Cache;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+
+/**
+ * Test class for the {@link RefreshAheadCache}.
+ */
+class RefreshAheadCacheTest {
+
+    private static final Duration TIME_TO_LIVE = Duration.ofMinutes(10);
+
+    private MutableClock clock;
+
+    private List<Runnable> tasks;
+
+    private AtomicInteger loads;
+
+    private boolean databaseAvailable;
+
+    private RefreshAheadCache cache;
+
+    @BeforeEach
+    public void setUp() {
+        clock = new MutableClock();
+        tasks = new ArrayList<>();
+        loads = new AtomicInteger();
+        databaseAvailable = true;
+        cache =
+            new RefreshAheadCache(
+                new ConcurrentMapCache("test"),
+                this::cachedLoad,
+                tasks::add,
+                clock,
+                Duration.ofMinutes(8),
+                TIME_TO_LIVE,
+                Duration.ofMinutes(5)
+            );
+    }
+
+    /**
+     * What the caching interceptor does around a cached method.
+     */
+    private Object cachedLoad(Object key) {
+        Cache.ValueWrapper cached = cache.get(key);
+        if (cached != null) {
+            return cached.get();
+        }
+        if (!databaseAvailable) {
+            throw new IllegalStateException("Database unavailable");
+        }
+        Object value = key + "-" + loads.incrementAndGet();
+        cache.put(key, value);
+        return value;
+    }
+
+    @Test
+    void freshEntryIsServed() {
+        assertThat(cachedLoad("key")).isEqualTo("key-1");
+        clock.advance(Duration.ofMinutes(7));
+
+        assertThat(cachedLoad("key")).isEqualTo("key-1");
+        assertThat(tasks).isEmpty();
+    }
+
+    @Test
+    void entryCloseToExpiryIsRefreshedInTheBackground() {
+        cachedLoad("key");
+        clock.advance(Duration.ofMinutes(9));
+
+        assertThat(cachedLoad("key")).isEqualTo("key-1");
+        assertThat(cachedLoad("key")).isEqualTo("key-1");
+        // One refresh per key at a time
+        assertThat(tasks).hasSize(1);
+
+        tasks.remove(0).run();
+
+        assertThat(loads.get()).isEqualTo(2);
+        assertThat(cachedLoad("key")).isEqualTo("key-2");
+        clock.advance(Duration.ofMinutes(7));
+        assertThat(cachedLoad("key")).isEqualTo("key-2");
+        assertThat(tasks).isEmpty();
+    }
+
+    @Test
+    void expiredEntryIsReloadedOnTheRequestThread() {
+        cachedLoad("key");
+        clock.advance(Duration.ofMinutes(11));
+
+        assertThat(cachedLoad("key")).isEqualTo("key-2");
+        assertThat(tasks).isEmpty();
+    }
+
+    @Test
+    void expiredEntryIsServedStaleWhenItCannotBeReloaded() {
+        cachedLoad("key");
+        clock.advance(Duration.ofMinutes(11));
+        databaseAvailable = false;
+
+        assertThat(cachedLoad("key")).isEqualTo("key-1");
+
+        clock.advance(Duration.ofMinutes(5));
+        assertThat(cache.get("key")).isNull();
+    }
+
+    @Test
+    void failedRefreshKeepsTheEntry() {
+        cachedLoad("key");
+        clock.advance(Duration.ofMinutes(9));
+        databaseAvailable = false;
+        cachedLoad("key");
+
+        tasks.remove(0).run();
+
+        assertThat(cachedLoad("key")).isEqualTo("key-1");
+        // The refresh can be tried again
+        assertThat(tasks).hasSize(1);
+    }
+
+    @Test
+    void nullValueIsCached() {
+        cache.put("missing", null);
+
+        assertThat(cache.get("missing")).isNotNull();
+        assertThat(cache.get("missing").get()).isNull();
+    }
+
+    private static class MutableClock extends Clock {
+
+        private Instant instant = Instant.parse("2026-10-18T10:00:00Z");
+
+        void advance(Duration duration) {
+            instant = instant.plus(duration);
+        }
+
+        @Override
+        public ZoneOffset getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(java.time.ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return instant;
+        }
+    }
+}
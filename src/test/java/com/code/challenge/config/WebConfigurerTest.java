@@ -20,6 +20,7 @@ import org.springframework.boot.web.embedded.undertow.UndertowServletWebServerFa
 import org.springframework.http.HttpHeaders;
 import org.springframework.mock.env.MockEnvironment;
 import org.springframework.mock.web.MockServletContext;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 import tech.jhipster.config.JHipsterConstants;
@@ -47,7 +48,7 @@ class WebConfigurerTest {
         env = new MockEnvironment();
         props = new JHipsterProperties();
 
-        webConfigurer = new WebConfigurer(env, props);
+        webConfigurer = new WebConfigurer(env, props, new ApplicationProperties());
     }
 
     @Test
@@ -66,6 +67,17 @@ class WebConfigurerTest {
         verify(servletContext).addServlet(eq("H2Console"), any(WebServlet.class));
     }
 
+    @Test
+    void shouldWriteAsyncResponsesOnABoundedPool() {
+        ApplicationProperties applicationProperties = new ApplicationProperties();
+        applicationProperties.getAsyncRequests().setMaxSize(3);
+
+        ThreadPoolTaskExecutor executor = new WebConfigurer(env, props, applicationProperties).mvcAsyncExecutor();
+
+        assertThat(executor.getCorePoolSize()).isEqualTo(2);
+        assertThat(executor.getMaxPoolSize()).isEqualTo(3);
+    }
+
     @Test
     void shouldCustomizeServletContainer() {
         env.setActiveProfiles(JHipsterConstants.SPRING_PROFILE_PRODUCTION);
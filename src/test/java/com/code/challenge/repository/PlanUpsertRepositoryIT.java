@@ -0,0 +1,153 @@
+package com.code.challenge.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.code.challenge.HibernateStatisticsRecorder;
+import com.code.challenge.IntegrationTest;
+import com.code.challenge.domain.Plan;
+import com.code.challenge.domain.User;
+import com.code.challenge.service.PlanService;
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import org.apache.commons.lang3.RandomStringUtils;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.test.context.transaction.TestTransaction;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Integration tests for {@link PlanUpsertRepository}.
+ */
+@IntegrationTest
+@Transactional
+class PlanUpsertRepositoryIT {
+
+    @Autowired
+    private PlanRepository planRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PlanService planService;
+
+    @Autowired
+    private EntityManager em;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private User user;
+
+    @BeforeEach
+    public void init() {
+        user = new User();
+        user.setLogin("upsert-" + RandomStringUtils.randomAlphanumeric(8).toLowerCase());
+        user.setPassword(RandomStringUtils.random(60));
+        user.setActivated(true);
+        user.setEmail(user.getLogin() + "@localhost");
+        user.setLangKey("en");
+    }
+
+    @Test
+    void updateDoesNotInsertThePlanOfAUserWithoutPlan() {
+        userRepository.saveAndFlush(user);
+
+        assertThat(planRepository.upsert(newPlan(user.getId(), "Bronze", 1000, 10D), null)).isEmpty();
+        assertThat(planRepository.findById(user.getId())).isEmpty();
+    }
+
+    @Test
+    void upsertUpdatesAnExistingPlan() {
+        userRepository.saveAndFlush(user);
+        Plan plan = planRepository.saveAndFlush(newPlan(null, "Bronze", 1000, 10D).user(user));
+
+        PlanUpsertRepository.Upsert upsert = planRepository.upsert(newPlan(plan.getId(), "Silver", 2000, 20D), null).get();
+
+        assertThat(upsert.getBefore().getPlan()).isEqualTo("Bronze");
+        assertThat(upsert.getBefore().getDeductible()).isEqualTo(1000);
+        assertThat(upsert.getBefore().getCoPay()).isEqualTo(10D);
+        assertThat(upsert.getAfter().getVersion()).isEqualTo(upsert.getBefore().getVersion() + 1);
+        // The stale managed copy has been evicted
+        Plan testPlan = planRepository.findById(plan.getId()).get();
+        assertThat(testPlan).isNotSameAs(plan);
+        assertThat(testPlan.getPlan()).isEqualTo("Silver");
+        assertThat(testPlan.getDeductible()).isEqualTo(2000);
+        assertThat(testPlan.getCoPay()).isEqualTo(20D);
+    }
+
+    @Test
+    void upsertChecksTheExpectedVersion() {
+        userRepository.saveAndFlush(user);
+        Plan plan = planRepository.saveAndFlush(newPlan(null, "Bronze", 1000, 10D).user(user));
+        Long version = plan.getVersion();
+
+        assertThatThrownBy(() -> planRepository.upsert(newPlan(plan.getId(), "Silver", 2000, 20D), version + 1))
+            .isInstanceOf(OptimisticLockingFailureException.class);
+        assertThat(planRepository.findById(plan.getId()).get().getPlan()).isEqualTo("Bronze");
+
+        assertThat(planRepository.upsert(newPlan(plan.getId(), "Silver", 2000, 20D), version).get().getAfter().getVersion())
+            .isEqualTo(version + 1);
+        assertThat(planRepository.findById(plan.getId()).get().getPlan()).isEqualTo("Silver");
+    }
+
+    @Test
+    void upsertRequiresAnExistingPlan() {
+        assertThat(planRepository.upsert(newPlan(Long.MAX_VALUE, "Bronze", 1000, 10D), null)).isEmpty();
+        assertThatThrownBy(() -> planRepository.upsert(newPlan(Long.MAX_VALUE, "Bronze", 1000, 10D), 0L))
+            .isInstanceOf(OptimisticLockingFailureException.class);
+    }
+
+    @Test
+    void upsertTakesOneRoundTrip() {
+        userRepository.saveAndFlush(user);
+        Plan plan = planRepository.saveAndFlush(newPlan(null, "Bronze", 1000, 10D).user(user));
+        // Commit, so that the user is in the second level cache
+        TestTransaction.flagForCommit();
+        TestTransaction.end();
+
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        try (HibernateStatisticsRecorder recorder = HibernateStatisticsRecorder.start(entityManagerFactory)) {
+            // The former PUT: check that the plan exists, then read it and merge it
+            entityManagerFactory.getCache().evict(Plan.class);
+            recorder.reset();
+            transactionTemplate.executeWithoutResult(
+                status -> {
+                    assertThat(planRepository.existsById(plan.getId())).isTrue();
+                    planService.save(newPlan(plan.getId(), "Silver", 2000, 20D).user(user));
+                }
+            );
+            long saveStatements = recorder.getPrepareStatementCount();
+
+            entityManagerFactory.getCache().evict(Plan.class);
+            recorder.reset();
+            Plan upserted = transactionTemplate
+                .execute(status -> planService.upsert(newPlan(plan.getId(), "Gold", 3000, 30D), null))
+                .map(PlanUpsertRepository.Upsert::getAfter)
+                .get();
+            long upsertStatements = recorder.getPrepareStatementCount();
+
+            assertThat(saveStatements).isEqualTo(3);
+            assertThat(upsertStatements).isEqualTo(1);
+            assertThat(upserted.getUser().getLogin()).isEqualTo(user.getLogin());
+            Plan testPlan = planRepository.findById(plan.getId()).get();
+            assertThat(testPlan.getPlan()).isEqualTo("Gold");
+            assertThat(testPlan.getVersion()).isEqualTo(plan.getVersion() + 2);
+        } finally {
+            planRepository.deleteById(plan.getId());
+            userRepository.deleteById(user.getId());
+        }
+    }
+
+    private static Plan newPlan(Long id, String name, Integer deductible, Double coPay) {
+        return new Plan().id(id).plan(name).deductible(deductible).coPay(coPay);
+    }
+}
@@ -0,0 +1,164 @@
+package com.code.challenge.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.code.challenge.IntegrationTest;
+import com.code.challenge.domain.Plan;
+import com.code.challenge.domain.User;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.apache.commons.lang3.RandomStringUtils;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIf;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.DockerClientFactory;
+
+/**
+ * Integration tests for the PostgreSQL statement of {@link PlanUpsertRepository}, run against a PostgreSQL container
+ * when Docker is available.
+ */
+@IntegrationTest
+@ActiveProfiles("testcontainers")
+@EnabledIf("isDockerAvailable")
+class PlanUpsertRepositoryPostgreSQLIT {
+
+    @Autowired
+    private PlanRepository planRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private TransactionTemplate transactionTemplate;
+
+    private ExecutorService executor;
+
+    private Plan plan;
+
+    static boolean isDockerAvailable() {
+        return DockerClientFactory.instance().isDockerAvailable();
+    }
+
+    @Autowired
+    public void setTransactionManager(PlatformTransactionManager transactionManager) {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @BeforeEach
+    public void init() {
+        executor = Executors.newFixedThreadPool(2);
+        plan =
+            transactionTemplate.execute(
+                status -> {
+                    User user = new User();
+                    user.setLogin("upsert-" + RandomStringUtils.randomAlphanumeric(8).toLowerCase());
+                    user.setPassword(RandomStringUtils.random(60));
+                    user.setActivated(true);
+                    user.setEmail(user.getLogin() + "@localhost");
+                    user.setLangKey("en");
+                    userRepository.saveAndFlush(user);
+                    return planRepository.saveAndFlush(newPlan(null, "Bronze", 1000, 10D).user(user));
+                }
+            );
+    }
+
+    @AfterEach
+    public void cleanUp() {
+        executor.shutdownNow();
+        transactionTemplate.executeWithoutResult(
+            status -> {
+                planRepository.deleteById(plan.getId());
+                userRepository.deleteById(plan.getUser().getId());
+            }
+        );
+    }
+
+    @Test
+    void upsertUpdatesAnExistingPlan() {
+        PlanUpsertRepository.Upsert upsert = transactionTemplate.execute(
+            status -> planRepository.upsert(newPlan(plan.getId(), "Silver", 2000, 20D), null).get()
+        );
+
+        assertThat(upsert.getBefore().getPlan()).isEqualTo("Bronze");
+        assertThat(upsert.getBefore().getDeductible()).isEqualTo(1000);
+        assertThat(upsert.getBefore().getCoPay()).isEqualTo(10D);
+        assertThat(upsert.getBefore().getVersion()).isEqualTo(plan.getVersion());
+        assertThat(upsert.getAfter().getVersion()).isEqualTo(plan.getVersion() + 1);
+        assertThat(planRepository.findById(plan.getId()).get().getPlan()).isEqualTo("Silver");
+    }
+
+    @Test
+    void upsertChecksTheExpectedVersion() {
+        Long version = plan.getVersion();
+
+        assertThatThrownBy(
+                () -> transactionTemplate.execute(status -> planRepository.upsert(newPlan(plan.getId(), "Silver", 2000, 20D), version + 1))
+            )
+            .isInstanceOf(OptimisticLockingFailureException.class);
+        Optional<PlanUpsertRepository.Upsert> missing = transactionTemplate.execute(
+            status -> planRepository.upsert(newPlan(Long.MAX_VALUE, "Silver", 2000, 20D), null)
+        );
+        assertThat(missing).isEmpty();
+
+        PlanUpsertRepository.Upsert upsert = transactionTemplate.execute(
+            status -> planRepository.upsert(newPlan(plan.getId(), "Silver", 2000, 20D), version).get()
+        );
+        assertThat(upsert.getAfter().getVersion()).isEqualTo(version + 1);
+    }
+
+    @Test
+    void concurrentUpdateReturnsThePlanWrittenByTheOther() throws Exception {
+        CountDownLatch firstWritten = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Future<PlanUpsertRepository.Upsert> first = executor.submit(
+            () ->
+                transactionTemplate.execute(
+                    status -> {
+                        PlanUpsertRepository.Upsert upsert = planRepository.upsert(newPlan(plan.getId(), "Silver", 2000, 20D), null).get();
+                        firstWritten.countDown();
+                        await(release);
+                        return upsert;
+                    }
+                )
+        );
+        assertThat(firstWritten.await(5, TimeUnit.SECONDS)).isTrue();
+        Future<PlanUpsertRepository.Upsert> second = executor.submit(
+            () -> transactionTemplate.execute(status -> planRepository.upsert(newPlan(plan.getId(), "Gold", 3000, 30D), null).get())
+        );
+        // The second update waits for the row locked by the first
+        Thread.sleep(200);
+        assertThat(second.isDone()).isFalse();
+        release.countDown();
+
+        PlanUpsertRepository.Upsert firstUpsert = first.get(5, TimeUnit.SECONDS);
+        PlanUpsertRepository.Upsert secondUpsert = second.get(5, TimeUnit.SECONDS);
+        // Not the plan as it was when the second statement started
+        assertThat(secondUpsert.getBefore().getPlan()).isEqualTo("Silver");
+        assertThat(secondUpsert.getBefore().getDeductible()).isEqualTo(2000);
+        assertThat(secondUpsert.getBefore().getVersion()).isEqualTo(firstUpsert.getAfter().getVersion());
+        assertThat(secondUpsert.getAfter().getVersion()).isEqualTo(plan.getVersion() + 2);
+        assertThat(planRepository.findById(plan.getId()).get().getPlan()).isEqualTo("Gold");
+    }
+
+    private static Plan newPlan(Long id, String name, Integer deductible, Double coPay) {
+        return new Plan().id(id).plan(name).deductible(deductible).coPay(coPay);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -3,16 +3,23 @@ package com.code.challenge.security;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
 
+import com.code.challenge.HibernateStatisticsRecorder;
 import com.code.challenge.IntegrationTest;
 import com.code.challenge.domain.User;
+import com.code.challenge.repository.UserCredentialsRepository;
 import com.code.challenge.repository.UserRepository;
+import com.code.challenge.service.UserService;
+import com.code.challenge.service.dto.AdminUserDTO;
 import java.util.Locale;
+import javax.persistence.EntityManagerFactory;
 import org.apache.commons.lang3.RandomStringUtils;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.CacheManager;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.transaction.annotation.Transactional;
 
 /**
@@ -35,8 +42,22 @@ class DomainUserDetailsServiceIT {
     @Autowired
     private UserDetailsService domainUserDetailsService;
 
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
     @BeforeEach
     public void init() {
+        cacheManager.getCache(UserCredentialsRepository.USER_CREDENTIALS_BY_LOGIN_CACHE).clear();
+        cacheManager.getCache(UserCredentialsRepository.USER_CREDENTIALS_BY_EMAIL_CACHE).clear();
+        cacheManager.getCache(UserCredentialsRepository.UNKNOWN_USER_CREDENTIALS_BY_LOGIN_CACHE).clear();
+        cacheManager.getCache(UserCredentialsRepository.UNKNOWN_USER_CREDENTIALS_BY_EMAIL_CACHE).clear();
+
         User userOne = new User();
         userOne.setLogin(USER_ONE_LOGIN);
         userOne.setPassword(RandomStringUtils.random(60));
@@ -108,4 +129,53 @@ class DomainUserDetailsServiceIT {
         assertThatExceptionOfType(UserNotActivatedException.class)
             .isThrownBy(() -> domainUserDetailsService.loadUserByUsername(USER_THREE_LOGIN));
     }
+
+    @Test
+    void assertThatUnknownPrincipalsAreCached() {
+        try (HibernateStatisticsRecorder recorder = HibernateStatisticsRecorder.start(entityManagerFactory)) {
+            for (int i = 0; i < 3; i++) {
+                assertThatExceptionOfType(UsernameNotFoundException.class)
+                    .isThrownBy(() -> domainUserDetailsService.loadUserByUsername("unknown-user"));
+                assertThatExceptionOfType(UsernameNotFoundException.class)
+                    .isThrownBy(() -> domainUserDetailsService.loadUserByUsername("unknown-user@localhost"));
+            }
+
+            assertThat(recorder.getQueryExecutionCount()).isEqualTo(2);
+        }
+        // Apart from the users, so that unknown principals do not evict them
+        assertThat(cacheManager.getCache(UserCredentialsRepository.UNKNOWN_USER_CREDENTIALS_BY_LOGIN_CACHE).get("unknown-user"))
+            .isNotNull()
+            .extracting(wrapper -> wrapper.get())
+            .isNull();
+        assertThat(cacheManager.getCache(UserCredentialsRepository.USER_CREDENTIALS_BY_LOGIN_CACHE).get("unknown-user")).isNull();
+        assertThat(cacheManager.getCache(UserCredentialsRepository.UNKNOWN_USER_CREDENTIALS_BY_EMAIL_CACHE).get("unknown-user@localhost"))
+            .isNotNull();
+    }
+
+    @Test
+    void assertThatKnownPrincipalsAreCached() {
+        domainUserDetailsService.loadUserByUsername(USER_ONE_LOGIN);
+        try (HibernateStatisticsRecorder recorder = HibernateStatisticsRecorder.start(entityManagerFactory)) {
+            UserDetails userDetails = domainUserDetailsService.loadUserByUsername(USER_ONE_LOGIN);
+
+            assertThat(userDetails.getUsername()).isEqualTo(USER_ONE_LOGIN);
+            assertThat(recorder.getPrepareStatementCount()).isZero();
+        }
+    }
+
+    @Test
+    void assertThatCreatedUserIsNoLongerUnknown() {
+        assertThatExceptionOfType(UsernameNotFoundException.class)
+            .isThrownBy(() -> domainUserDetailsService.loadUserByUsername("test-user-four"));
+        assertThatExceptionOfType(UsernameNotFoundException.class)
+            .isThrownBy(() -> domainUserDetailsService.loadUserByUsername("test-user-four@localhost"));
+        AdminUserDTO userDTO = new AdminUserDTO();
+        userDTO.setLogin("test-user-four");
+        userDTO.setEmail("test-user-four@localhost");
+        userService.createUser(userDTO);
+
+        assertThat(domainUserDetailsService.loadUserByUsername("test-user-four").getUsername()).isEqualTo("test-user-four");
+        assertThat(domainUserDetailsService.loadUserByUsername("Test-User-Four@localhost").getUsername()).isEqualTo("test-user-four");
+    }
+
 }
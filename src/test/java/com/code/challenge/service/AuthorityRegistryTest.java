@@ -0,0 +1,90 @@
+package com.code.challenge.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.code.challenge.domain.Authority;
+import com.code.challenge.repository.AuthorityRepository;
+import com.code.challenge.security.AuthoritiesConstants;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test class for the {@link AuthorityRegistry}.
+ */
+class AuthorityRegistryTest {
+
+    private AuthorityRepository authorityRepository;
+
+    private ResponseCacheService responseCacheService;
+
+    private AuthorityRegistry authorityRegistry;
+
+    @BeforeEach
+    public void setUp() {
+        authorityRepository = mock(AuthorityRepository.class);
+        responseCacheService = mock(ResponseCacheService.class);
+        when(authorityRepository.findAll()).thenReturn(authorities(AuthoritiesConstants.USER, AuthoritiesConstants.ADMIN));
+        authorityRegistry = new AuthorityRegistry(authorityRepository, responseCacheService);
+    }
+
+    @Test
+    void authoritiesAreLoadedOnceOnFirstUse() {
+        assertThat(authorityRegistry.getNames()).containsExactly(AuthoritiesConstants.ADMIN, AuthoritiesConstants.USER);
+        assertThat(authorityRegistry.find(AuthoritiesConstants.USER).map(Authority::getName)).contains(AuthoritiesConstants.USER);
+        assertThat(authorityRegistry.findAll(Set.of(AuthoritiesConstants.USER, AuthoritiesConstants.ADMIN))).hasSize(2);
+
+        verify(authorityRepository, times(1)).findAll();
+    }
+
+    @Test
+    void sameInstanceIsSharedWithInternedName() {
+        Authority user = authorityRegistry.find(new String(AuthoritiesConstants.USER)).get();
+
+        assertThat(authorityRegistry.find(AuthoritiesConstants.USER).get()).isSameAs(user);
+        assertThat(user.getName()).isSameAs(AuthoritiesConstants.USER);
+    }
+
+    @Test
+    void unknownAuthorityIsSkippedWithoutReloadingRightAfterALoad() {
+        assertThat(authorityRegistry.find("ROLE_UNKNOWN")).isEmpty();
+        assertThat(authorityRegistry.find(null)).isEmpty();
+        assertThat(authorityRegistry.findAll(Set.of(AuthoritiesConstants.USER, "ROLE_UNKNOWN")))
+            .extracting(Authority::getName)
+            .containsExactly(AuthoritiesConstants.USER);
+
+        verify(authorityRepository, times(1)).findAll();
+    }
+
+    @Test
+    void refreshPicksUpChangesAndClearsTheCachedResponses() {
+        authorityRegistry.getNames();
+        authorityRegistry.refresh();
+        verify(responseCacheService, never()).clear(ResponseCacheService.AUTHORITIES_CACHE);
+
+        when(authorityRepository.findAll())
+            .thenReturn(authorities(AuthoritiesConstants.USER, AuthoritiesConstants.ADMIN, "ROLE_AUDITOR"));
+        authorityRegistry.refresh();
+
+        assertThat(authorityRegistry.find("ROLE_AUDITOR")).isPresent();
+        verify(responseCacheService).clear(ResponseCacheService.AUTHORITIES_CACHE);
+    }
+
+    private static List<Authority> authorities(String... names) {
+        return Arrays.stream(names).map(AuthorityRegistryTest::authority).collect(Collectors.toList());
+    }
+
+    private static Authority authority(String name) {
+        Authority authority = new Authority();
+        authority.setName(name);
+        return authority;
+    }
+}
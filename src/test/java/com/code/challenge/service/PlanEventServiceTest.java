@@ -0,0 +1,118 @@
+package com.code.challenge.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.code.challenge.domain.Plan;
+import com.code.challenge.service.dto.PlanEventDTO;
+import com.code.challenge.service.event.PlanChangeEvent;
+import com.code.challenge.service.event.PlanEventSubscription;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+class PlanEventServiceTest {
+
+    private static final long FIRST_EVENT_ID = 1000;
+
+    private final PlanEventService planEventService = new PlanEventService(FIRST_EVENT_ID);
+
+    @Test
+    void changesAreMappedToEvents() {
+        PlanEventSubscription subscription = planEventService.subscribe(null);
+        AtomicInteger signals = new AtomicInteger();
+        subscription.setListener(signals::incrementAndGet);
+
+        Plan created = plan(1L, "AAAAAAAAAA", 0L);
+        Plan updated = plan(1L, "BBBBBBBBBB", 1L);
+        planEventService.onPlanChange(PlanChangeEvent.of(null, created));
+        planEventService.onPlanChange(PlanChangeEvent.of(created, updated));
+        planEventService.onPlanChange(PlanChangeEvent.of(updated, null));
+
+        List<PlanEventDTO> events = new ArrayList<>();
+        assertThat(subscription.drainTo(events)).isFalse();
+        assertThat(signals.get()).isEqualTo(3);
+        assertThat(events).extracting(PlanEventDTO::getEventId).containsExactly(FIRST_EVENT_ID, FIRST_EVENT_ID + 1, FIRST_EVENT_ID + 2);
+        assertThat(events)
+            .extracting(PlanEventDTO::getType)
+            .containsExactly(PlanEventDTO.Type.CREATED, PlanEventDTO.Type.UPDATED, PlanEventDTO.Type.DELETED);
+        assertThat(events.get(1).getPlan()).isEqualTo("BBBBBBBBBB");
+        assertThat(events.get(1).getVersion()).isEqualTo(1L);
+        assertThat(events.get(2).getId()).isEqualTo(1L);
+        assertThat(events.get(2).getPlan()).isNull();
+        assertThat(planEventService.getLastEventId()).isEqualTo(FIRST_EVENT_ID + 2);
+    }
+
+    @Test
+    void resumeFromTheHistory() {
+        for (long id = 1; id <= 10; id++) {
+            planEventService.onPlanChange(PlanChangeEvent.of(null, plan(id, "AAAAAAAAAA", 0L)));
+        }
+
+        List<PlanEventDTO> events = new ArrayList<>();
+        assertThat(planEventService.subscribe(FIRST_EVENT_ID + 6).drainTo(events)).isFalse();
+        assertThat(events).extracting(PlanEventDTO::getId).containsExactly(8L, 9L, 10L);
+
+        events.clear();
+        assertThat(planEventService.subscribe(FIRST_EVENT_ID - 1).drainTo(events)).isFalse();
+        assertThat(events).hasSize(10);
+
+        events.clear();
+        assertThat(planEventService.subscribe(planEventService.getLastEventId()).drainTo(events)).isFalse();
+        assertThat(events).isEmpty();
+    }
+
+    @Test
+    void resyncWhenTheEventIsNotInTheHistory() {
+        for (long id = 1; id <= PlanEventService.HISTORY_SIZE + 1; id++) {
+            planEventService.onPlanChange(PlanChangeEvent.of(null, plan(id, "AAAAAAAAAA", 0L)));
+        }
+
+        List<PlanEventDTO> events = new ArrayList<>();
+        // The first event was overwritten
+        assertThat(planEventService.subscribe(FIRST_EVENT_ID - 1).drainTo(events)).isTrue();
+        assertThat(events).isEmpty();
+        // From a previous run, or from the future
+        assertThat(planEventService.subscribe(42L).drainTo(events)).isTrue();
+        assertThat(planEventService.subscribe(planEventService.getLastEventId() + 1).drainTo(events)).isTrue();
+        assertThat(events).isEmpty();
+
+        // In the history, but more than a subscriber can buffer
+        assertThat(planEventService.subscribe(FIRST_EVENT_ID).drainTo(events)).isTrue();
+        assertThat(events).hasSize(PlanEventService.BUFFER_SIZE);
+    }
+
+    @Test
+    void slowSubscriberDropsTheOldestEvents() {
+        PlanEventSubscription subscription = planEventService.subscribe(null);
+        for (long id = 1; id <= PlanEventService.BUFFER_SIZE + 2; id++) {
+            planEventService.onPlanChange(PlanChangeEvent.of(null, plan(id, "AAAAAAAAAA", 0L)));
+        }
+
+        List<PlanEventDTO> events = new ArrayList<>();
+        assertThat(subscription.drainTo(events)).isTrue();
+        assertThat(events).hasSize(PlanEventService.BUFFER_SIZE);
+        assertThat(events.get(0).getId()).isEqualTo(3L);
+
+        events.clear();
+        planEventService.onPlanChange(PlanChangeEvent.of(null, plan(1000L, "AAAAAAAAAA", 0L)));
+        assertThat(subscription.drainTo(events)).isFalse();
+        assertThat(events).extracting(PlanEventDTO::getId).containsExactly(1000L);
+    }
+
+    @Test
+    void unsubscribedSubscriberGetsNoEvent() {
+        PlanEventSubscription subscription = planEventService.subscribe(null);
+        planEventService.unsubscribe(subscription);
+
+        planEventService.onPlanChange(PlanChangeEvent.of(null, plan(1L, "AAAAAAAAAA", 0L)));
+
+        List<PlanEventDTO> events = new ArrayList<>();
+        assertThat(subscription.drainTo(events)).isFalse();
+        assertThat(events).isEmpty();
+    }
+
+    private static Plan plan(Long id, String name, Long version) {
+        return new Plan().id(id).plan(name).deductible(100).coPay(10D).version(version);
+    }
+}
@@ -0,0 +1,80 @@
+package com.code.challenge.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.code.challenge.service.dto.PlanImportReportDTO;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.util.List;
+import javax.persistence.PersistenceException;
+import javax.validation.Validation;
+import org.hibernate.exception.ConstraintViolationException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+
+/**
+ * Test class for the {@link PlanImportService}.
+ */
+class PlanImportServiceTest {
+
+    private static final String CSV = "id;plan;deductible;co_pay\n" + "1;AAAAAAAAAA;1;1.0\n" + "2;AAAAAAAAAA;2;2.0\n";
+
+    private PlanService planService;
+
+    private PlanImportService planImportService;
+
+    @BeforeEach
+    public void setUp() {
+        planService = mock(PlanService.class);
+        planImportService =
+            new PlanImportService(planService, new ObjectMapper(), Validation.buildDefaultValidatorFactory().getValidator());
+    }
+
+    @Test
+    void duplicateRowRejectedOnFlushIsReported() throws IOException {
+        // What the entity manager throws when the flush hits the unique constraint on the plan name
+        when(planService.importChunk(anyMap()))
+            .thenThrow(
+                new PersistenceException(
+                    new ConstraintViolationException("Unique index violation", new SQLException(), "ux_plan_plan")
+                )
+            );
+
+        PlanImportReportDTO report = importCsv();
+
+        assertThat(report.getTotal()).isEqualTo(2);
+        assertThat(report.getImported()).isZero();
+        assertThat(report.getErrors()).extracting(PlanImportReportDTO.RowError::getRow).containsExactly(2L, 3L);
+    }
+
+    @Test
+    void duplicateRowRejectedByTheRepositoryIsReported() throws IOException {
+        when(planService.importChunk(anyMap())).thenThrow(new DataIntegrityViolationException("Unique index violation"));
+
+        PlanImportReportDTO report = importCsv();
+
+        assertThat(report.getImported()).isZero();
+        assertThat(report.getErrors()).extracting(PlanImportReportDTO.RowError::getRow).containsExactly(2L, 3L);
+    }
+
+    @Test
+    void rowsRejectedByTheChunkAreReported() throws IOException {
+        when(planService.importChunk(anyMap())).thenReturn(List.of(new PlanImportReportDTO.RowError(3, "Plan AAAAAAAAAA already exists")));
+
+        PlanImportReportDTO report = importCsv();
+
+        assertThat(report.getImported()).isEqualTo(1);
+        assertThat(report.getErrors()).extracting(PlanImportReportDTO.RowError::getRow).containsExactly(3L);
+    }
+
+    private PlanImportReportDTO importCsv() throws IOException {
+        return planImportService.importCsv(new ByteArrayInputStream(CSV.getBytes(StandardCharsets.UTF_8)));
+    }
+}
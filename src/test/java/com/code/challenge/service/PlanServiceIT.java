@@ -2,17 +2,24 @@ package com.code.challenge.service;
 
 import static org.assertj.core.api.Assertions.as;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
+import com.code.challenge.HibernateStatisticsRecorder;
 import com.code.challenge.IntegrationTest;
 import com.code.challenge.domain.Plan;
 import com.code.challenge.domain.User;
 import com.code.challenge.repository.PlanRepository;
 import com.code.challenge.repository.UserRepository;
+import com.code.challenge.service.criteria.PlanCriteria;
+import com.code.challenge.service.dto.PlanSummaryDTO;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
 import org.apache.commons.lang3.RandomStringUtils;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -38,12 +45,21 @@ public class PlanServiceIT {
     @Autowired
     private PlanService planService;
 
+    @Autowired
+    private PlanQueryService planQueryService;
+
     @Autowired
     private UserRepository userRepository;
 
     @Autowired
     private PlanRepository planRepository;
 
+    @Autowired
+    private EntityManager em;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
     private User user;
     private Plan plan;
 
@@ -98,10 +114,59 @@ public class PlanServiceIT {
         plan.setDeductible(2000);
         planRepository.saveAndFlush(plan);
 
-        List<Plan> myPlans = planService.findAll();
-        Optional<Plan> planToDeleteOpt = myPlans.stream().filter(p -> "Gold".equalsIgnoreCase(p.getPlan())).findAny();
-        Plan planToDelete = planToDeleteOpt.get();
+        List<PlanSummaryDTO> myPlans = planQueryService.findByCriteria(new PlanCriteria(), null, 100).getContent();
+        Optional<PlanSummaryDTO> planToDeleteOpt = myPlans.stream().filter(p -> "Gold".equalsIgnoreCase(p.getPlan())).findAny();
+        PlanSummaryDTO planToDelete = planToDeleteOpt.get();
         planService.delete(planToDelete.getId());
         assertThat(planService.findOne(planToDelete.getId()) == null);
     }
+
+    @Test
+    @Transactional
+    void saveAndDeleteReadThePlanOnce() {
+        userRepository.saveAndFlush(user);
+        Plan saved = planRepository.saveAndFlush(new Plan().plan("Bronze").deductible(1000).coPay(10D).user(user));
+        em.clear();
+
+        try (HibernateStatisticsRecorder recorder = HibernateStatisticsRecorder.start(entityManagerFactory)) {
+            Plan updated = planService.save(
+                new Plan().id(saved.getId()).plan("Silver").deductible(2000).coPay(20D).version(saved.getVersion()).user(user)
+            );
+            em.flush();
+
+            assertThat(recorder.getEntityLoadCount(Plan.class)).isEqualTo(1);
+            assertThat(updated.getPlan()).isEqualTo("Silver");
+            assertThat(updated.getVersion()).isEqualTo(saved.getVersion() + 1);
+
+            em.clear();
+            recorder.reset();
+            planService.delete(saved.getId());
+            em.flush();
+
+            assertThat(recorder.getEntityLoadCount(Plan.class)).isEqualTo(1);
+        }
+        assertThat(planRepository.findById(saved.getId())).isEmpty();
+    }
+
+    @Test
+    @Transactional
+    void findAllByCriteriaForUpdateRejectsTooManyPlans() {
+        userRepository.saveAndFlush(user);
+        User otherUser = new User();
+        otherUser.setLogin("janedoe");
+        otherUser.setPassword(RandomStringUtils.random(60));
+        otherUser.setActivated(true);
+        otherUser.setEmail("janedoe@localhost");
+        otherUser.setLangKey(DEFAULT_LANGKEY);
+        userRepository.saveAndFlush(otherUser);
+        Plan bronze = planRepository.saveAndFlush(new Plan().plan("Bronze").deductible(1000).coPay(10D).user(user));
+        Plan silver = planRepository.saveAndFlush(new Plan().plan("Silver").deductible(2000).coPay(20D).user(otherUser));
+        PlanCriteria criteria = new PlanCriteria();
+        criteria.id().setIn(Arrays.asList(bronze.getId(), silver.getId()));
+
+        assertThat(planQueryService.findAllByCriteriaForUpdate(criteria, 2))
+            .extracting(Plan::getId)
+            .containsExactly(bronze.getId(), silver.getId());
+        assertThatThrownBy(() -> planQueryService.findAllByCriteriaForUpdate(criteria, 1)).isInstanceOf(TooManyPlansException.class);
+    }
 }
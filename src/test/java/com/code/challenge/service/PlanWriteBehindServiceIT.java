@@ -0,0 +1,167 @@
+package com.code.challenge.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.code.challenge.IntegrationTest;
+import com.code.challenge.domain.Plan;
+import com.code.challenge.domain.User;
+import com.code.challenge.repository.PlanRepository;
+import com.code.challenge.repository.UserRepository;
+import com.code.challenge.service.event.PlanWriteBehindFailureEvent;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.List;
+import org.apache.commons.lang3.RandomStringUtils;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.event.ApplicationEvents;
+import org.springframework.test.context.event.RecordApplicationEvents;
+
+/**
+ * Integration tests for {@link PlanWriteBehindService}.
+ * <p>
+ * The write-behind is disabled in tests, so patches are only written when the tests flush them.
+ */
+@IntegrationTest
+@RecordApplicationEvents
+class PlanWriteBehindServiceIT {
+
+    @Autowired
+    private PlanWriteBehindService planWriteBehindService;
+
+    @Autowired
+    private PlanService planService;
+
+    @Autowired
+    private PlanRepository planRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private ApplicationEvents applicationEvents;
+
+    private Plan plan;
+
+    @BeforeEach
+    public void init() {
+        plan = createPlan();
+    }
+
+    @AfterEach
+    public void destroy() {
+        delete(plan);
+    }
+
+    @Test
+    void patchesAreMergedIntoOneWrite() {
+        double patchesBefore = meterRegistry.get("plan.write.behind.patches").counter().count();
+        double writesBefore = meterRegistry.get("plan.write.behind.writes").counter().count();
+
+        assertThat(planWriteBehindService.enqueue(new Plan().id(plan.getId()).coPay(20D))).isTrue();
+        assertThat(planWriteBehindService.enqueue(new Plan().id(plan.getId()).deductible(2000))).isTrue();
+        assertThat(planWriteBehindService.enqueue(new Plan().id(plan.getId()).coPay(30D))).isTrue();
+
+        // Reads see the merged patches before they are written
+        Plan stored = planService.findOne(plan.getId()).get();
+        assertThat(stored.getDeductible()).isEqualTo(1000);
+        Plan overlaid = planWriteBehindService.overlay(stored);
+        assertThat(overlaid.getDeductible()).isEqualTo(2000);
+        assertThat(overlaid.getCoPay()).isEqualTo(30D);
+        assertThat(overlaid.getPlan()).isEqualTo(plan.getPlan());
+        assertThat(meterRegistry.get("plan.write.behind.queue.depth").gauge().value()).isPositive();
+
+        planWriteBehindService.flush();
+
+        Plan testPlan = planRepository.findById(plan.getId()).get();
+        assertThat(testPlan.getDeductible()).isEqualTo(2000);
+        assertThat(testPlan.getCoPay()).isEqualTo(30D);
+        assertThat(testPlan.getVersion()).isEqualTo(plan.getVersion() + 1);
+        assertThat(planWriteBehindService.overlay(testPlan)).isSameAs(testPlan);
+        assertThat(meterRegistry.get("plan.write.behind.patches").counter().count()).isEqualTo(patchesBefore + 3);
+        assertThat(meterRegistry.get("plan.write.behind.writes").counter().count()).isEqualTo(writesBefore + 1);
+        assertThat(meterRegistry.get("plan.write.behind.flush").timer().count()).isPositive();
+    }
+
+    @Test
+    void flushOnePlan() {
+        planWriteBehindService.enqueue(new Plan().id(plan.getId()).deductible(3000));
+
+        planWriteBehindService.flush(plan.getId());
+
+        assertThat(planRepository.findById(plan.getId()).get().getDeductible()).isEqualTo(3000);
+    }
+
+    @Test
+    void patchOfDeletedPlanIsDropped() {
+        planWriteBehindService.enqueue(new Plan().id(plan.getId()).deductible(3000));
+        Plan other = new Plan().id(Long.MAX_VALUE).deductible(3000);
+        planWriteBehindService.enqueue(other);
+
+        planWriteBehindService.flush();
+
+        assertThat(planRepository.findById(plan.getId()).get().getDeductible()).isEqualTo(3000);
+        assertThat(planRepository.findById(other.getId())).isEmpty();
+    }
+
+    @Test
+    void patchWithTheNameOfAnotherPlanIsRejected() {
+        Plan other = createPlan();
+        try {
+            assertThatThrownBy(() -> planWriteBehindService.partialUpdate(new Plan().id(plan.getId()).plan(other.getPlan())))
+                .isInstanceOf(PlanNameAlreadyUsedException.class);
+
+            // Nor can two queued patches take the same name
+            planWriteBehindService.partialUpdate(new Plan().id(other.getId()).plan("write-behind-renamed"));
+            assertThatThrownBy(() -> planWriteBehindService.partialUpdate(new Plan().id(plan.getId()).plan("write-behind-renamed")))
+                .isInstanceOf(PlanNameAlreadyUsedException.class);
+            assertThat(planWriteBehindService.hasPending(plan.getId())).isFalse();
+        } finally {
+            delete(other);
+        }
+    }
+
+    @Test
+    void patchWhichCannotBeWrittenIsKeptWithTheDeadLetters() {
+        Plan other = createPlan();
+        double failuresBefore = meterRegistry.get("plan.write.behind.failures").counter().count();
+        try {
+            // Queued without being checked
+            planWriteBehindService.enqueue(new Plan().id(plan.getId()).plan("write-behind-taken"));
+            planWriteBehindService.enqueue(new Plan().id(other.getId()).plan("write-behind-taken"));
+
+            planWriteBehindService.flush();
+
+            List<PlanWriteBehindFailureEvent> deadLetters = planWriteBehindService.getDeadLetters();
+            assertThat(deadLetters).hasSizeGreaterThanOrEqualTo(1);
+            assertThat(deadLetters.get(deadLetters.size() - 1).getPatch().getPlan()).isEqualTo("write-behind-taken");
+            assertThat(meterRegistry.get("plan.write.behind.failures").counter().count()).isEqualTo(failuresBefore + 1);
+            assertThat(meterRegistry.get("plan.write.behind.dead.letters").gauge().value()).isPositive();
+            assertThat(applicationEvents.stream(PlanWriteBehindFailureEvent.class)).contains(deadLetters.get(deadLetters.size() - 1));
+        } finally {
+            delete(other);
+        }
+    }
+
+    private Plan createPlan() {
+        User user = new User();
+        user.setLogin("write-behind-" + RandomStringUtils.randomAlphanumeric(8).toLowerCase());
+        user.setPassword(RandomStringUtils.random(60));
+        user.setActivated(true);
+        user.setEmail(user.getLogin() + "@localhost");
+        user.setLangKey("en");
+        userRepository.saveAndFlush(user);
+        return planService.save(new Plan().plan(user.getLogin()).deductible(1000).coPay(10D).user(user));
+    }
+
+    private void delete(Plan plan) {
+        planWriteBehindService.flush(plan.getId());
+        planService.delete(plan.getId());
+        userRepository.deleteById(plan.getId());
+    }
+}
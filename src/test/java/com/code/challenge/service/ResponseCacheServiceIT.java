@@ -0,0 +1,187 @@
+package com.code.challenge.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.hasItem;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+import com.code.challenge.IntegrationTest;
+import com.code.challenge.domain.Plan;
+import com.code.challenge.domain.User;
+import com.code.challenge.repository.UserRepository;
+import com.code.challenge.service.ResponseCacheService.CachedResponse;
+import com.code.challenge.service.dto.AdminUserDTO;
+import com.code.challenge.web.rest.util.ETagUtil;
+import com.code.challenge.web.rest.util.ResponseCacheUtil;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+import org.apache.commons.lang3.RandomStringUtils;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+
+/**
+ * Integration tests for {@link ResponseCacheService}.
+ * <p>
+ * Responses are not cached inside transactions, so these tests commit their data.
+ */
+@IntegrationTest
+@AutoConfigureMockMvc
+@WithMockUser
+class ResponseCacheServiceIT {
+
+    @Autowired
+    private ResponseCacheService responseCacheService;
+
+    @Autowired
+    private PlanService planService;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private MockMvc restMockMvc;
+
+    private User user;
+
+    private Plan plan;
+
+    @BeforeEach
+    public void init() {
+        AdminUserDTO userDTO = new AdminUserDTO();
+        userDTO.setLogin("response-cache-" + RandomStringUtils.randomAlphanumeric(8).toLowerCase());
+        userDTO.setEmail(userDTO.getLogin() + "@localhost");
+        user = userService.createUser(userDTO);
+        plan = planService.save(new Plan().plan("CachedPlan").deductible(1000).coPay(10D).user(user));
+    }
+
+    @AfterEach
+    public void destroy() {
+        planService.delete(plan.getId());
+        userService.deleteUser(user.getLogin());
+    }
+
+    @Test
+    void planIsServedFromCacheUntilWritten() throws Exception {
+        restMockMvc
+            .perform(get("/api/plans/{id}", plan.getId()))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.deductible").value(1000));
+        double hitsBefore = hits(ResponseCacheService.PLANS_CACHE);
+        double bytesSavedBefore = bytesSaved(ResponseCacheService.PLANS_CACHE);
+        String body = restMockMvc
+            .perform(get("/api/plans/{id}", plan.getId()))
+            .andExpect(status().isOk())
+            .andExpect(header().string(HttpHeaders.ETAG, "\"" + plan.getVersion() + "\""))
+            .andExpect(jsonPath("$.deductible").value(1000))
+            .andExpect(jsonPath("$.user.login").value(user.getLogin()))
+            .andReturn()
+            .getResponse()
+            .getContentAsString();
+
+        assertThat(hits(ResponseCacheService.PLANS_CACHE)).isEqualTo(hitsBefore + 1);
+        assertThat(bytesSaved(ResponseCacheService.PLANS_CACHE)).isEqualTo(bytesSavedBefore + body.length());
+        assertThat(meterRegistry.get("response.cache.hit.ratio").tag("cache", ResponseCacheService.PLANS_CACHE).gauge().value())
+            .isPositive();
+
+        plan = planService.save(planService.findOne(plan.getId()).get().deductible(2000));
+
+        restMockMvc
+            .perform(get("/api/plans/{id}", plan.getId()))
+            .andExpect(status().isOk())
+            .andExpect(header().string(HttpHeaders.ETAG, "\"" + plan.getVersion() + "\""))
+            .andExpect(jsonPath("$.deductible").value(2000));
+    }
+
+    @Test
+    void publicUsersAreEvictedWhenAUserIsWritten() throws Exception {
+        String url = "/api/users?sort=id,desc&size=2000";
+        restMockMvc.perform(get(url)).andExpect(status().isOk()).andExpect(jsonPath("$.[*].login").value(hasItem(user.getLogin())));
+        double hitsBefore = hits(ResponseCacheService.PUBLIC_USERS_CACHE);
+        restMockMvc
+            .perform(get(url))
+            .andExpect(status().isOk())
+            .andExpect(header().exists(HttpHeaders.LINK))
+            .andExpect(header().exists("X-Total-Count"));
+        assertThat(hits(ResponseCacheService.PUBLIC_USERS_CACHE)).isEqualTo(hitsBefore + 1);
+
+        AdminUserDTO userDTO = new AdminUserDTO(userRepository.findOneWithAuthoritiesByLogin(user.getLogin()).get());
+        userDTO.setLogin(user.getLogin() + "-renamed");
+        userService.updateUser(userDTO);
+        user.setLogin(userDTO.getLogin());
+
+        restMockMvc.perform(get(url)).andExpect(status().isOk()).andExpect(jsonPath("$.[*].login").value(hasItem(user.getLogin())));
+        // The plan embeds its user
+        restMockMvc
+            .perform(get("/api/plans/{id}", plan.getId()))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.user.login").value(user.getLogin()));
+    }
+
+    @Test
+    void responseIsNotCachedWhenEvictedMeanwhile() {
+        String key = "evicted-" + RandomStringUtils.randomAlphanumeric(8);
+        long generation = responseCacheService.getGeneration(ResponseCacheService.AUTHORITIES_CACHE);
+        responseCacheService.evict(ResponseCacheService.AUTHORITIES_CACHE, "other");
+
+        responseCacheService.put(ResponseCacheService.AUTHORITIES_CACHE, key, generation, List.of("stale"), Map.of());
+
+        assertThat(responseCacheService.get(ResponseCacheService.AUTHORITIES_CACHE, key)).isEmpty();
+    }
+
+    @Test
+    void largeResponseIsSentCompressed() throws IOException {
+        String key = "large-" + RandomStringUtils.randomAlphanumeric(8);
+        long generation = responseCacheService.getGeneration(ResponseCacheService.AUTHORITIES_CACHE);
+        List<String> value = Collections.nCopies(200, "ROLE_SOMETHING");
+        responseCacheService.put(ResponseCacheService.AUTHORITIES_CACHE, key, generation, value, Map.of(HttpHeaders.ETAG, "\"3\""));
+        CachedResponse cached = responseCacheService.get(ResponseCacheService.AUTHORITIES_CACHE, key).get();
+        assertThat(cached.getGzippedBody()).isNotNull();
+
+        ResponseEntity<byte[]> plain = ResponseCacheUtil.ok(cached, null);
+        assertThat(plain.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING)).isNull();
+        assertThat(plain.getHeaders().getETag()).isEqualTo("\"3\"");
+        assertThat(plain.getBody()).isEqualTo(cached.getBody());
+
+        ResponseEntity<byte[]> refused = ResponseCacheUtil.ok(cached, "deflate, gzip;q=0");
+        assertThat(refused.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING)).isNull();
+
+        ResponseEntity<byte[]> compressed = ResponseCacheUtil.ok(cached, "deflate, gzip");
+        assertThat(compressed.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING)).isEqualTo("gzip");
+        assertThat(compressed.getHeaders().getVary()).contains(HttpHeaders.ACCEPT_ENCODING);
+        // Each coding has its own entity tag
+        assertThat(compressed.getHeaders().getETag()).isEqualTo("\"3-gzip\"");
+        assertThat(ETagUtil.toVersion(compressed.getHeaders().getETag())).contains(3L);
+        assertThat(compressed.getBody().length).isLessThan(cached.getBody().length);
+        try (GZIPInputStream gzip = new GZIPInputStream(new ByteArrayInputStream(compressed.getBody()))) {
+            assertThat(gzip.readAllBytes()).isEqualTo(cached.getBody());
+        }
+
+        responseCacheService.evict(ResponseCacheService.AUTHORITIES_CACHE, key);
+    }
+
+    private double hits(String cacheName) {
+        return meterRegistry.get("response.cache.requests").tag("cache", cacheName).tag("result", "hit").counter().count();
+    }
+
+    private double bytesSaved(String cacheName) {
+        return meterRegistry.get("response.cache.bytes.saved").tag("cache", cacheName).counter().count();
+    }
+}
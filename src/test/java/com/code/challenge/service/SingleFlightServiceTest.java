@@ -0,0 +1,174 @@
+package com.code.challenge.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test class for the {@link SingleFlightService}.
+ */
+class SingleFlightServiceTest {
+
+    private static final int CALLERS = 8;
+
+    private MeterRegistry meterRegistry;
+
+    private SingleFlightService singleFlightService;
+
+    private ExecutorService executor;
+
+    @BeforeEach
+    public void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        singleFlightService = new SingleFlightService(meterRegistry);
+        executor = Executors.newFixedThreadPool(CALLERS);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void concurrentLoadsOfTheSameKeyAreCoalesced() throws Exception {
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        List<Future<String>> results = new ArrayList<>();
+        for (int i = 0; i < CALLERS; i++) {
+            results.add(
+                executor.submit(
+                    () ->
+                        singleFlightService.load(
+                            "test",
+                            1L,
+                            () -> {
+                                loads.incrementAndGet();
+                                await(release);
+                                return "value";
+                            }
+                        )
+                )
+            );
+        }
+        // Release the load once all the other callers wait for it
+        long deadline = System.currentTimeMillis() + 5000;
+        while (coalesced() < CALLERS - 1 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        release.countDown();
+
+        for (Future<String> result : results) {
+            assertThat(result.get(5, TimeUnit.SECONDS)).isEqualTo("value");
+        }
+        assertThat(loads.get()).isEqualTo(1);
+        assertThat(coalesced()).isEqualTo(CALLERS - 1);
+        assertThat(meterRegistry.get("single.flight.loads").tag("name", "test").counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("single.flight.wait").tag("name", "test").timer().count()).isEqualTo(CALLERS - 1);
+    }
+
+    @Test
+    void concurrentCallersGetTheirOwnCopy() throws Exception {
+        StringBuilder loaded = new StringBuilder("value");
+        CountDownLatch release = new CountDownLatch(1);
+        List<Future<StringBuilder>> results = new ArrayList<>();
+        for (int i = 0; i < CALLERS; i++) {
+            results.add(
+                executor.submit(
+                    () ->
+                        singleFlightService.load(
+                            "test",
+                            1L,
+                            () -> {
+                                await(release);
+                                return loaded;
+                            },
+                            StringBuilder::new
+                        )
+                )
+            );
+        }
+        long deadline = System.currentTimeMillis() + 5000;
+        while (coalesced() < CALLERS - 1 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        release.countDown();
+
+        Set<StringBuilder> values = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (Future<StringBuilder> result : results) {
+            StringBuilder value = result.get(5, TimeUnit.SECONDS);
+            assertThat(value).hasToString("value");
+            values.add(value);
+        }
+        // The loading caller gets the loaded value, each of the others a copy of its own
+        assertThat(values).hasSize(CALLERS).containsOnlyOnce(loaded);
+    }
+
+    @Test
+    void sequentialLoadsAreNotCoalesced() {
+        AtomicInteger loads = new AtomicInteger();
+
+        singleFlightService.load("test", 1L, loads::incrementAndGet);
+        singleFlightService.load("test", 1L, loads::incrementAndGet);
+        singleFlightService.load("test", 2L, loads::incrementAndGet);
+
+        assertThat(loads.get()).isEqualTo(3);
+        assertThat(coalesced()).isZero();
+    }
+
+    @Test
+    void failureIsSharedAndNotKept() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Future<Object> leader = executor.submit(
+            () ->
+                singleFlightService.load(
+                    "test",
+                    1L,
+                    () -> {
+                        started.countDown();
+                        await(release);
+                        throw new IllegalStateException("load failed");
+                    }
+                )
+        );
+        await(started);
+        Future<Object> follower = executor.submit(() -> singleFlightService.load("test", 1L, () -> "not loaded"));
+        long deadline = System.currentTimeMillis() + 5000;
+        while (coalesced() < 1 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        release.countDown();
+
+        assertThatThrownBy(() -> leader.get(5, TimeUnit.SECONDS)).hasCauseInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(() -> follower.get(5, TimeUnit.SECONDS)).hasCauseInstanceOf(IllegalStateException.class);
+        assertThat(singleFlightService.load("test", 1L, () -> "loaded")).isEqualTo("loaded");
+    }
+
+    private double coalesced() {
+        return meterRegistry.find("single.flight.coalesced").tag("name", "test").counters().stream().mapToDouble(c -> c.count()).sum();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package com.code.challenge.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.when;
+
+import com.code.challenge.IntegrationTest;
+import com.code.challenge.config.ApplicationProperties;
+import com.code.challenge.domain.Plan;
+import com.code.challenge.domain.User;
+import com.code.challenge.repository.UserRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import javax.persistence.EntityManager;
+import org.apache.commons.lang3.RandomStringUtils;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.data.auditing.AuditingHandler;
+import org.springframework.data.auditing.DateTimeProvider;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Integration tests for {@link UserCleanupService}.
+ */
+@IntegrationTest
+@Transactional
+class UserCleanupServiceIT {
+
+    private static final int CHUNK_SIZE = 2;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private UserCleanupService userCleanupService;
+
+    @Autowired
+    private ApplicationProperties applicationProperties;
+
+    @Autowired
+    private AuditingHandler auditingHandler;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private EntityManager em;
+
+    @MockBean
+    private DateTimeProvider dateTimeProvider;
+
+    private int chunkSize;
+
+    @BeforeEach
+    public void init() {
+        chunkSize = applicationProperties.getUserCleanup().getChunkSize();
+        applicationProperties.getUserCleanup().setChunkSize(CHUNK_SIZE);
+
+        when(dateTimeProvider.getNow()).thenReturn(Optional.of(LocalDateTime.now().minus(4, ChronoUnit.DAYS)));
+        auditingHandler.setDateTimeProvider(dateTimeProvider);
+    }
+
+    @AfterEach
+    public void restoreChunkSize() {
+        applicationProperties.getUserCleanup().setChunkSize(chunkSize);
+    }
+
+    @Test
+    void assertThatNotActivatedUsersAreDeletedByChunks() {
+        List<Long> staleIds = new ArrayList<>();
+        for (int i = 0; i < 2 * CHUNK_SIZE + 1; i++) {
+            staleIds.add(createNotActivatedUser("stale-" + i).getId());
+        }
+        User userWithPlan = createNotActivatedUser("stale-with-plan");
+        em.persist(new Plan().plan("AAAAAAAAAA").deductible(1).coPay(1D).user(userWithPlan));
+        em.flush();
+        double deletedBefore = deletedUsers();
+
+        long deleted = userCleanupService.removeNotActivatedUsers();
+
+        assertThat(deleted).isEqualTo(staleIds.size());
+        assertThat(userRepository.findAllById(staleIds)).isEmpty();
+        assertThat(userRepository.findById(userWithPlan.getId())).isPresent();
+        assertThat(deletedUsers() - deletedBefore).isEqualTo(staleIds.size());
+        assertThat(meterRegistry.get("user.cleanup.chunk").timer().count()).isGreaterThanOrEqualTo(3);
+        // Nothing is left for the next run
+        assertThat(userCleanupService.removeNotActivatedUsers()).isZero();
+    }
+
+    @Test
+    void assertThatRecentNotActivatedUsersAreNotDeleted() {
+        when(dateTimeProvider.getNow()).thenReturn(Optional.of(LocalDateTime.now()));
+        User recentUser = createNotActivatedUser("recent");
+
+        userCleanupService.removeNotActivatedUsers();
+
+        assertThat(userRepository.findById(recentUser.getId())).isPresent();
+        assertThat(recentUser.getCreatedDate()).isAfter(Instant.now().minus(1, ChronoUnit.DAYS));
+    }
+
+    private User createNotActivatedUser(String login) {
+        User user = new User();
+        user.setLogin(login);
+        user.setPassword(RandomStringUtils.random(60));
+        user.setActivated(false);
+        user.setActivationKey(RandomStringUtils.random(20));
+        user.setEmail(login + "@localhost");
+        user.setLangKey("en");
+        return userRepository.saveAndFlush(user);
+    }
+
+    private double deletedUsers() {
+        return meterRegistry.get("user.cleanup.deleted").counter().count();
+    }
+}
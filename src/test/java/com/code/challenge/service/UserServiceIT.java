@@ -3,16 +3,23 @@ package com.code.challenge.service;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Mockito.when;
 
+import com.code.challenge.HibernateStatisticsRecorder;
 import com.code.challenge.IntegrationTest;
 import com.code.challenge.config.Constants;
+import com.code.challenge.domain.Authority;
 import com.code.challenge.domain.User;
+import com.code.challenge.domain.User_;
 import com.code.challenge.repository.UserRepository;
+import com.code.challenge.security.AuthoritiesConstants;
 import com.code.challenge.service.dto.AdminUserDTO;
 import java.time.Instant;
 import java.time.LocalDateTime;
 import java.time.temporal.ChronoUnit;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
 import org.apache.commons.lang3.RandomStringUtils;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -22,6 +29,7 @@ import org.springframework.data.auditing.AuditingHandler;
 import org.springframework.data.auditing.DateTimeProvider;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
 import org.springframework.transaction.annotation.Transactional;
 import tech.jhipster.security.RandomUtil;
 
@@ -50,9 +58,18 @@ class UserServiceIT {
     @Autowired
     private UserService userService;
 
+    @Autowired
+    private UserCleanupService userCleanupService;
+
     @Autowired
     private AuditingHandler auditingHandler;
 
+    @Autowired
+    private EntityManager em;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
     @MockBean
     private DateTimeProvider dateTimeProvider;
 
@@ -161,7 +178,7 @@ class UserServiceIT {
         Instant threeDaysAgo = now.minus(3, ChronoUnit.DAYS);
         List<User> users = userRepository.findAllByActivatedIsFalseAndActivationKeyIsNotNullAndCreatedDateBefore(threeDaysAgo);
         assertThat(users).isNotEmpty();
-        userService.removeNotActivatedUsers();
+        userCleanupService.removeNotActivatedUsers();
         users = userRepository.findAllByActivatedIsFalseAndActivationKeyIsNotNullAndCreatedDateBefore(threeDaysAgo);
         assertThat(users).isEmpty();
     }
@@ -178,8 +195,60 @@ class UserServiceIT {
         Instant threeDaysAgo = now.minus(3, ChronoUnit.DAYS);
         List<User> users = userRepository.findAllByActivatedIsFalseAndActivationKeyIsNotNullAndCreatedDateBefore(threeDaysAgo);
         assertThat(users).isEmpty();
-        userService.removeNotActivatedUsers();
+        userCleanupService.removeNotActivatedUsers();
         Optional<User> maybeDbUser = userRepository.findById(dbUser.getId());
         assertThat(maybeDbUser).contains(dbUser);
     }
+
+    @Test
+    @Transactional
+    void assertThatAdminUserPageTakesTwoStatements() {
+        userRepository.saveAndFlush(user);
+        // More users than the batch size of their lazy authorities
+        for (int i = 0; i < 25; i++) {
+            User otherUser = new User();
+            otherUser.setLogin(DEFAULT_LOGIN + i);
+            otherUser.setPassword(RandomStringUtils.random(60));
+            otherUser.setEmail(i + DEFAULT_EMAIL);
+            userRepository.save(otherUser);
+        }
+        userRepository.flush();
+        em.clear();
+        try (HibernateStatisticsRecorder recorder = HibernateStatisticsRecorder.start(entityManagerFactory)) {
+            // A single page, which is not counted: the users, then their authorities
+            Page<AdminUserDTO> users = userService.getAllManagedUsers(PageRequest.of(0, 1000, Sort.by(User_.ID)));
+
+            assertThat(recorder.getPrepareStatementCount()).isEqualTo(2);
+            assertThat(users.getContent())
+                .filteredOn(adminUser -> "admin".equals(adminUser.getLogin()) || DEFAULT_LOGIN.equals(adminUser.getLogin()))
+                .extracting(AdminUserDTO::getAuthorities)
+                .containsExactlyElementsOf(List.of(Set.of(AuthoritiesConstants.ADMIN, AuthoritiesConstants.USER), Set.of()));
+        }
+    }
+
+    @Test
+    @Transactional
+    void assertThatUserWritesDoNotReadTheAuthorities() {
+        // Loads the authority registry
+        userService.getAuthorities();
+        em.clear();
+        AdminUserDTO userDTO = new AdminUserDTO(user);
+        userDTO.setAuthorities(Set.of(AuthoritiesConstants.ADMIN, AuthoritiesConstants.USER, "ROLE_UNKNOWN"));
+        try (HibernateStatisticsRecorder recorder = HibernateStatisticsRecorder.start(entityManagerFactory)) {
+            User createdUser = userService.createUser(userDTO);
+            userDTO.setId(createdUser.getId());
+            userDTO.setAuthorities(Set.of(AuthoritiesConstants.USER));
+            userService.updateUser(userDTO);
+            em.flush();
+
+            assertThat(userService.getAuthorities()).contains(AuthoritiesConstants.ADMIN, AuthoritiesConstants.USER);
+            assertThat(recorder.getQueryExecutionCount()).isZero();
+            assertThat(recorder.getEntityLoadCount(Authority.class)).isZero();
+            assertThat(recorder.getSecondLevelCacheHitCount(Authority.class.getName())).isZero();
+        }
+        em.clear();
+        assertThat(userRepository.findOneWithAuthoritiesByLogin(DEFAULT_LOGIN).get().getAuthorities())
+            .extracting(Authority::getName)
+            .containsExactly(AuthoritiesConstants.USER);
+    }
 }
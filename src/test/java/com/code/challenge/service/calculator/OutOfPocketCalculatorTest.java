@@ -0,0 +1,63 @@
+package com.code.challenge.service.calculator;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import org.junit.jupiter.api.Test;
+
+class OutOfPocketCalculatorTest {
+
+    @Test
+    void outOfPocket() {
+        // Under the deductible, the member pays the whole claim
+        assertThat(OutOfPocketCalculator.outOfPocket(50, 100, 20)).isEqualTo(50);
+        assertThat(OutOfPocketCalculator.outOfPocket(100, 100, 20)).isEqualTo(100);
+        // Over the deductible, the co-pay is capped to the rest of the claim
+        assertThat(OutOfPocketCalculator.outOfPocket(110, 100, 20)).isEqualTo(110);
+        assertThat(OutOfPocketCalculator.outOfPocket(500, 100, 20)).isEqualTo(120);
+        assertThat(OutOfPocketCalculator.outOfPocket(0, 0, 20)).isZero();
+    }
+
+    @Test
+    void unknownMembersHaveNoCost() {
+        OutOfPocketCalculator calculator = new OutOfPocketCalculator(new long[] { 1, 3 }, new int[] { 10, 30 }, new double[] { 1, 3 });
+        double[] results = new double[3];
+
+        calculator.calculate(new long[] { 1, 2, 3 }, new double[] { 100, 100, 100 }, results, 0, 3);
+
+        assertThat(results[0]).isEqualTo(11);
+        assertThat(results[1]).isNaN();
+        assertThat(results[2]).isEqualTo(33);
+    }
+
+    @Test
+    void parallelCalculationMatchesSequentialCalculation() {
+        Random random = new Random(42);
+        int plans = 1000;
+        long[] planIds = new long[plans];
+        int[] deductibles = new int[plans];
+        double[] coPays = new double[plans];
+        for (int i = 0; i < plans; i++) {
+            planIds[i] = 2L * i;
+            deductibles[i] = random.nextInt(50) * 100;
+            coPays[i] = random.nextInt(1000) / 10D;
+        }
+        OutOfPocketCalculator calculator = new OutOfPocketCalculator(planIds, deductibles, coPays);
+
+        int size = OutOfPocketCalculator.PARALLEL_THRESHOLD * 5 + 3;
+        long[] userIds = new long[size];
+        double[] claimAmounts = new double[size];
+        for (int i = 0; i < size; i++) {
+            userIds[i] = random.nextInt(2 * plans);
+            claimAmounts[i] = random.nextInt(1_000_000) / 100D;
+        }
+        double[] sequential = new double[size];
+        double[] parallel = new double[size];
+
+        calculator.calculate(userIds, claimAmounts, sequential, 0, size);
+        calculator.calculate(userIds, claimAmounts, parallel, size, ForkJoinPool.commonPool());
+
+        assertThat(parallel).containsExactly(sequential);
+    }
+}
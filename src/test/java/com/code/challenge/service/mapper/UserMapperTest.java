@@ -1,8 +1,15 @@
 package com.code.challenge.service.mapper;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
 
+import com.code.challenge.domain.Authority;
 import com.code.challenge.domain.User;
+import com.code.challenge.repository.AuthorityRepository;
+import com.code.challenge.security.AuthoritiesConstants;
+import com.code.challenge.service.AuthorityRegistry;
+import com.code.challenge.service.ResponseCacheService;
 import com.code.challenge.service.dto.AdminUserDTO;
 import com.code.challenge.service.dto.UserDTO;
 import java.util.ArrayList;
@@ -21,13 +28,19 @@ class UserMapperTest {
     private static final String DEFAULT_LOGIN = "johndoe";
     private static final Long DEFAULT_ID = 1L;
 
+    private AuthorityRegistry authorityRegistry;
     private UserMapper userMapper;
     private User user;
     private AdminUserDTO userDto;
 
     @BeforeEach
     public void init() {
-        userMapper = new UserMapper();
+        Authority adminAuthority = new Authority();
+        adminAuthority.setName(AuthoritiesConstants.ADMIN);
+        AuthorityRepository authorityRepository = mock(AuthorityRepository.class);
+        when(authorityRepository.findAll()).thenReturn(List.of(adminAuthority));
+        authorityRegistry = new AuthorityRegistry(authorityRepository, mock(ResponseCacheService.class));
+        userMapper = new UserMapper(authorityRegistry);
         user = new User();
         user.setLogin(DEFAULT_LOGIN);
         user.setPassword(RandomStringUtils.random(60));
@@ -108,6 +121,16 @@ class UserMapperTest {
         assertThat(user.getAuthorities().iterator().next().getName()).isEqualTo("ADMIN");
     }
 
+    @Test
+    void userDTOToUserMapWithKnownAuthoritiesStringShouldReturnUserWithRegisteredAuthorities() {
+        userDto.setAuthorities(Set.of(AuthoritiesConstants.ADMIN));
+
+        User user = userMapper.userDTOToUser(userDto);
+
+        assertThat(user.getAuthorities()).containsExactly(authorityRegistry.find(AuthoritiesConstants.ADMIN).get());
+        assertThat(user.getAuthorities().iterator().next()).isSameAs(authorityRegistry.find(AuthoritiesConstants.ADMIN).get());
+    }
+
     @Test
     void userDTOToUserMapWithNullAuthoritiesStringShouldReturnUserWithEmptyAuthorities() {
         userDto.setAuthorities(null);
@@ -0,0 +1,93 @@
+package com.code.challenge.service.statistics;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.Test;
+
+class PlanColumnarSnapshotTest {
+
+    @Test
+    void emptySnapshot() {
+        PlanColumnarSnapshot snapshot = PlanColumnarSnapshot.EMPTY;
+
+        assertThat(snapshot.size()).isZero();
+        assertThat(snapshot.count(Integer.MIN_VALUE, Integer.MAX_VALUE, Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY)).isZero();
+        assertThat(snapshot.deductibleHistogram(0, 10, 0, 10, 0, 10, 2)).containsExactly(0, 0);
+        assertThat(snapshot.topByCoPay(0, 10, 0, 10, 5, true)).isEmpty();
+    }
+
+    @Test
+    void countsHistogramsAndTopMatchAFullScan() {
+        Random random = new Random(42);
+        int size = PlanColumnarSnapshot.PARALLEL_THRESHOLD * 3 + 7;
+        long[] ids = new long[size];
+        int[] deductibles = new int[size];
+        double[] coPays = new double[size];
+        PlanColumnarSnapshot.Builder builder = new PlanColumnarSnapshot.Builder();
+        for (int i = 0; i < size; i++) {
+            ids[i] = i + 1;
+            deductibles[i] = random.nextInt(50) * 100;
+            coPays[i] = random.nextInt(1000) / 10D;
+            builder.add(ids[i], deductibles[i], coPays[i]);
+        }
+        PlanColumnarSnapshot snapshot = builder.build();
+
+        assertThat(snapshot.size()).isEqualTo(size);
+        assertThat(snapshot.getMinDeductible()).isEqualTo(Arrays.stream(deductibles).min().getAsInt());
+        assertThat(snapshot.getMaxCoPay()).isEqualTo(Arrays.stream(coPays).max().getAsDouble());
+
+        // Range count
+        long expectedCount = IntStream.range(0, size).filter(i -> deductibles[i] >= 500 && deductibles[i] <= 2000 && coPays[i] < 30).count();
+        assertThat(snapshot.count(500, 2000, Double.NEGATIVE_INFINITY, Math.nextDown(30D))).isEqualTo(expectedCount);
+        assertThat(snapshot.count(Integer.MIN_VALUE, Integer.MAX_VALUE, Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY))
+            .isEqualTo(size);
+
+        // Histogram of the co-pays of the plans with a deductible of at most 1000
+        long[] expectedHistogram = new long[10];
+        IntStream
+            .range(0, size)
+            .filter(i -> deductibles[i] <= 1000)
+            .forEach(i -> expectedHistogram[Math.min(9, (int) (coPays[i] / 100 * 10))]++);
+        assertThat(snapshot.coPayHistogram(Integer.MIN_VALUE, 1000, Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY, 0, 100, 10))
+            .containsExactly(expectedHistogram);
+        long[] deductibleHistogram = snapshot.deductibleHistogram(0, 4900, Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY, 0, 4900, 7);
+        assertThat(Arrays.stream(deductibleHistogram).sum()).isEqualTo(size);
+
+        // Top 5 co-pays among the plans with a deductible of 500
+        int[] top = snapshot.topByCoPay(500, 500, Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY, 5, true);
+        double[] expectedTop = IntStream
+            .range(0, size)
+            .filter(i -> deductibles[i] == 500)
+            .mapToDouble(i -> coPays[i])
+            .map(coPay -> -coPay)
+            .sorted()
+            .limit(5)
+            .map(coPay -> -coPay)
+            .toArray();
+        assertThat(Arrays.stream(top).mapToDouble(snapshot::getCoPay).toArray()).containsExactly(expectedTop);
+        assertThat(Arrays.stream(top).map(snapshot::getDeductible)).containsOnly(500);
+
+        // Lowest deductibles, ties ordered by id
+        int[] lowest = snapshot.topByDeductible(Integer.MIN_VALUE, Integer.MAX_VALUE, Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY, 3, false);
+        long[] expectedLowest = IntStream.range(0, size).filter(i -> deductibles[i] == 0).mapToLong(i -> ids[i]).limit(3).toArray();
+        assertThat(Arrays.stream(lowest).mapToLong(snapshot::getId).toArray()).containsExactly(expectedLowest);
+    }
+
+    @Test
+    void toBuilderReplacesRows() {
+        PlanColumnarSnapshot snapshot = new PlanColumnarSnapshot.Builder().add(1, 100, 10).add(2, 200, 20).add(3, 300, 30).build();
+
+        PlanColumnarSnapshot next = snapshot.toBuilder(new long[] { 2, 3 }).add(2, 50, 5).build();
+
+        assertThat(next.size()).isEqualTo(2);
+        assertThat(next.getId(0)).isEqualTo(2);
+        assertThat(next.getDeductible(0)).isEqualTo(50);
+        assertThat(next.getId(1)).isEqualTo(1);
+        // The previous snapshot is unchanged
+        assertThat(snapshot.size()).isEqualTo(3);
+        assertThat(snapshot.getId(0)).isEqualTo(1);
+    }
+}
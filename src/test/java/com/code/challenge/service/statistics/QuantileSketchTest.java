@@ -0,0 +1,69 @@
+package com.code.challenge.service.statistics;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+import java.util.Arrays;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+class QuantileSketchTest {
+
+    private static final double RELATIVE_ACCURACY = 0.01;
+
+    @Test
+    void emptySketchHasNoQuantile() {
+        QuantileSketch sketch = new QuantileSketch(RELATIVE_ACCURACY);
+
+        assertThat(sketch.getQuantile(0.5)).isNull();
+
+        sketch.add(42);
+        sketch.remove(42);
+        assertThat(sketch.getCount()).isZero();
+        assertThat(sketch.getQuantile(0.5)).isNull();
+    }
+
+    @Test
+    void quantilesAreWithinTheRelativeAccuracy() {
+        QuantileSketch sketch = new QuantileSketch(RELATIVE_ACCURACY);
+        Random random = new Random(42);
+        double[] values = new double[10_000];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = Math.exp(random.nextGaussian() * 2) * 1000;
+            sketch.add(values[i]);
+        }
+        Arrays.sort(values);
+
+        for (double quantile : new double[] { 0, 0.25, 0.5, 0.9, 0.95, 0.99, 1 }) {
+            double expected = values[(int) (quantile * (values.length - 1))];
+            assertThat(sketch.getQuantile(quantile)).isCloseTo(expected, within(expected * RELATIVE_ACCURACY));
+        }
+    }
+
+    @Test
+    void removedValuesAreNotCounted() {
+        QuantileSketch sketch = new QuantileSketch(RELATIVE_ACCURACY);
+        for (int i = 1; i <= 100; i++) {
+            sketch.add(i);
+        }
+        for (int i = 51; i <= 100; i++) {
+            sketch.remove(i);
+        }
+
+        assertThat(sketch.getCount()).isEqualTo(50);
+        assertThat(sketch.getQuantile(1)).isCloseTo(50, within(50 * RELATIVE_ACCURACY));
+        assertThat(sketch.getQuantile(0.5)).isCloseTo(25, within(25 * RELATIVE_ACCURACY));
+    }
+
+    @Test
+    void zeroAndNegativeValuesAreOrdered() {
+        QuantileSketch sketch = new QuantileSketch(RELATIVE_ACCURACY);
+        sketch.add(-10);
+        sketch.add(0);
+        sketch.add(10);
+
+        assertThat(sketch.getQuantile(0)).isCloseTo(-10, within(10 * RELATIVE_ACCURACY));
+        assertThat(sketch.getQuantile(0.5)).isZero();
+        assertThat(sketch.getQuantile(1)).isCloseTo(10, within(10 * RELATIVE_ACCURACY));
+    }
+}
@@ -7,6 +7,7 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 
 import com.code.challenge.IntegrationTest;
 import com.code.challenge.config.Constants;
+import com.code.challenge.config.JacksonConfiguration;
 import com.code.challenge.domain.User;
 import com.code.challenge.repository.AuthorityRepository;
 import com.code.challenge.repository.UserRepository;
@@ -17,6 +18,10 @@ import com.code.challenge.service.dto.PasswordChangeDTO;
 import com.code.challenge.service.dto.UserDTO;
 import com.code.challenge.web.rest.vm.KeyAndPasswordVM;
 import com.code.challenge.web.rest.vm.ManagedUserVM;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
 import java.time.Instant;
 import java.util.*;
 import org.apache.commons.lang3.RandomStringUtils;
@@ -108,6 +113,56 @@ class AccountResourceIT {
             .andExpect(jsonPath("$.authorities").value(AuthoritiesConstants.ADMIN));
     }
 
+    @Test
+    @Transactional
+    @WithMockUser("test-account-smile")
+    void testGetExistingAccountAsSmile() throws Exception {
+        AdminUserDTO user = new AdminUserDTO();
+        user.setLogin("test-account-smile");
+        user.setFirstName("john");
+        user.setEmail("test-account-smile@example.com");
+        user.setLangKey("en");
+        user.setAuthorities(Set.of(AuthoritiesConstants.USER));
+        userService.createUser(user);
+
+        byte[] body = restAccountMockMvc
+            .perform(get("/api/account").accept(JacksonConfiguration.APPLICATION_SMILE_VALUE))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(JacksonConfiguration.APPLICATION_SMILE_VALUE))
+            .andReturn()
+            .getResponse()
+            .getContentAsByteArray();
+
+        JsonNode account = new ObjectMapper(new SmileFactory()).readTree(body);
+        assertThat(account.get("login").asText()).isEqualTo("test-account-smile");
+        assertThat(account.get("firstName").asText()).isEqualTo("john");
+        assertThat(account.get("authorities").get(0).asText()).isEqualTo(AuthoritiesConstants.USER);
+    }
+
+    @Test
+    @Transactional
+    void testRegisterValidAsCbor() throws Exception {
+        ManagedUserVM validUser = new ManagedUserVM();
+        validUser.setLogin("test-register-cbor");
+        validUser.setPassword("password");
+        validUser.setFirstName("Alice");
+        validUser.setLastName("Test");
+        validUser.setEmail("test-register-cbor@example.com");
+        validUser.setLangKey(Constants.DEFAULT_LANGUAGE);
+        validUser.setAuthorities(Collections.singleton(AuthoritiesConstants.USER));
+        assertThat(userRepository.findOneByLogin("test-register-cbor")).isEmpty();
+
+        restAccountMockMvc
+            .perform(
+                post("/api/register")
+                    .contentType(MediaType.APPLICATION_CBOR)
+                    .content(new ObjectMapper(new CBORFactory()).writeValueAsBytes(validUser))
+            )
+            .andExpect(status().isCreated());
+
+        assertThat(userRepository.findOneByLogin("test-register-cbor")).isPresent();
+    }
+
     @Test
     void testGetUnknownAccount() throws Exception {
         restAccountMockMvc
@@ -154,7 +209,7 @@ class AccountResourceIT {
             .perform(post("/api/register").contentType(MediaType.APPLICATION_JSON).content(TestUtil.convertObjectToJsonBytes(invalidUser)))
             .andExpect(status().isBadRequest());
 
-        Optional<User> user = userRepository.findOneByEmailIgnoreCase("funky@example.com");
+        Optional<User> user = userRepository.findOneByLowerCaseEmail("funky@example.com");
         assertThat(user).isEmpty();
     }
 
@@ -263,7 +318,7 @@ class AccountResourceIT {
             .perform(post("/api/register").contentType(MediaType.APPLICATION_JSON).content(TestUtil.convertObjectToJsonBytes(secondUser)))
             .andExpect(status().isCreated());
 
-        Optional<User> testUser = userRepository.findOneByEmailIgnoreCase("alice2@example.com");
+        Optional<User> testUser = userRepository.findOneByLowerCaseEmail("alice2@example.com");
         assertThat(testUser).isPresent();
         testUser.get().setActivated(true);
         userRepository.save(testUser.get());
@@ -464,7 +519,7 @@ class AccountResourceIT {
             .perform(post("/api/account").contentType(MediaType.APPLICATION_JSON).content(TestUtil.convertObjectToJsonBytes(userDTO)))
             .andExpect(status().isBadRequest());
 
-        assertThat(userRepository.findOneByEmailIgnoreCase("invalid email")).isNotPresent();
+        assertThat(userRepository.findOneByLowerCaseEmail("invalid email")).isNotPresent();
     }
 
     @Test
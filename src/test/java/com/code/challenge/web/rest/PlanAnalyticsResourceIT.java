@@ -0,0 +1,114 @@
+package com.code.challenge.web.rest;
+
+import static org.hamcrest.Matchers.contains;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+import com.code.challenge.IntegrationTest;
+import com.code.challenge.domain.Plan;
+import com.code.challenge.domain.User;
+import com.code.challenge.repository.UserRepository;
+import com.code.challenge.service.PlanAnalyticsService;
+import com.code.challenge.service.PlanService;
+import javax.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.transaction.TestTransaction;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Integration tests for the {@link PlanAnalyticsResource} REST controller.
+ */
+@IntegrationTest
+@AutoConfigureMockMvc
+@WithMockUser
+class PlanAnalyticsResourceIT {
+
+    private static final String ENTITY_API_URL = "/api/plans/analytics";
+
+    /**
+     * Far from the amounts of any other plan of the database.
+     */
+    private static final int DEDUCTIBLE = 900_000_000;
+
+    @Autowired
+    private PlanService planService;
+
+    @Autowired
+    private PlanAnalyticsService planAnalyticsService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private EntityManager em;
+
+    @Autowired
+    private MockMvc restPlanAnalyticsMockMvc;
+
+    @Test
+    @Transactional
+    void queryCommittedPlans() throws Exception {
+        // The snapshot is only updated when the transaction is committed
+        Plan cheap = planService.save(createPlan("AnalyticsCheap", DEDUCTIBLE, 10D));
+        Plan expensive = planService.save(createPlan("AnalyticsExpensive", DEDUCTIBLE + 100, 40D));
+        TestTransaction.flagForCommit();
+        TestTransaction.end();
+        planAnalyticsService.flush();
+
+        try {
+            restPlanAnalyticsMockMvc
+                .perform(get(ENTITY_API_URL + "/count?minDeductible=" + DEDUCTIBLE))
+                .andExpect(status().isOk())
+                .andExpect(content().string("2"));
+            restPlanAnalyticsMockMvc
+                .perform(get(ENTITY_API_URL + "/count?minDeductible=" + DEDUCTIBLE + "&maxCoPay=30"))
+                .andExpect(status().isOk())
+                .andExpect(content().string("1"));
+
+            restPlanAnalyticsMockMvc
+                .perform(get(ENTITY_API_URL + "/histogram?field=coPay&buckets=3&minDeductible=" + DEDUCTIBLE))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.field").value("coPay"))
+                .andExpect(jsonPath("$.min").value(10D))
+                .andExpect(jsonPath("$.width").value(10D))
+                .andExpect(jsonPath("$.counts").value(contains(1, 0, 1)));
+
+            restPlanAnalyticsMockMvc
+                .perform(get(ENTITY_API_URL + "/top?field=deductible&limit=1&minDeductible=" + DEDUCTIBLE))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.[*].id").value(contains(expensive.getId().intValue())));
+            restPlanAnalyticsMockMvc
+                .perform(get(ENTITY_API_URL + "/top?field=coPay&order=asc&minDeductible=" + DEDUCTIBLE))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.[*].coPay").value(contains(10D, 40D)));
+        } finally {
+            planService.delete(cheap.getId());
+            planService.delete(expensive.getId());
+            userRepository.deleteById(cheap.getId());
+            userRepository.deleteById(expensive.getId());
+            planAnalyticsService.flush();
+        }
+
+        restPlanAnalyticsMockMvc
+            .perform(get(ENTITY_API_URL + "/count?minDeductible=" + DEDUCTIBLE))
+            .andExpect(status().isOk())
+            .andExpect(content().string("0"));
+    }
+
+    @Test
+    void queryWithInvalidField() throws Exception {
+        restPlanAnalyticsMockMvc.perform(get(ENTITY_API_URL + "/histogram?field=plan")).andExpect(status().isBadRequest());
+        restPlanAnalyticsMockMvc.perform(get(ENTITY_API_URL + "/top?field=coPay&order=up")).andExpect(status().isBadRequest());
+    }
+
+    private Plan createPlan(String name, int deductible, double coPay) {
+        User user = UserResourceIT.createEntity(em);
+        em.persist(user);
+        em.flush();
+        return new Plan().plan(name).deductible(deductible).coPay(coPay).user(user);
+    }
+}
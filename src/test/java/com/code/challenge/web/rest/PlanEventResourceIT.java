@@ -0,0 +1,128 @@
+package com.code.challenge.web.rest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+import com.code.challenge.IntegrationTest;
+import com.code.challenge.domain.Plan;
+import com.code.challenge.domain.User;
+import com.code.challenge.repository.UserRepository;
+import com.code.challenge.service.PlanEventService;
+import com.code.challenge.service.PlanService;
+import javax.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.transaction.TestTransaction;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Integration tests for the {@link PlanEventResource} REST controller.
+ */
+@IntegrationTest
+@AutoConfigureMockMvc
+@WithMockUser
+class PlanEventResourceIT {
+
+    private static final String ENTITY_API_URL = "/api/plans/events";
+
+    private static final String LAST_EVENT_ID = "Last-Event-ID";
+
+    private static final long TIMEOUT = 5000;
+
+    @Autowired
+    private PlanService planService;
+
+    @Autowired
+    private PlanEventService planEventService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private EntityManager em;
+
+    @Autowired
+    private MockMvc restPlanEventMockMvc;
+
+    @Autowired
+    private PlanEventResource planEventResource;
+
+    @Test
+    @Transactional
+    void streamCommittedChanges() throws Exception {
+        long lastEventId = planEventService.getLastEventId();
+        MvcResult stream = restPlanEventMockMvc
+            .perform(get(ENTITY_API_URL).header(LAST_EVENT_ID, lastEventId))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+
+        User user = UserResourceIT.createEntity(em);
+        em.persist(user);
+        em.flush();
+        Plan plan = planService.save(new Plan().plan("EventsPlan").deductible(100).coPay(10D).user(user));
+        // The event is only published when the transaction is committed
+        assertThat(stream.getResponse().getContentAsString()).isEmpty();
+        TestTransaction.flagForCommit();
+        TestTransaction.end();
+
+        try {
+            String content = awaitContent(stream, "event:created");
+            assertThat(content).contains("id:" + (lastEventId + 1)).contains("\"id\":" + plan.getId()).contains("\"plan\":\"EventsPlan\"");
+
+            // Resume before the creation
+            MvcResult resumed = restPlanEventMockMvc
+                .perform(get(ENTITY_API_URL).header(LAST_EVENT_ID, lastEventId))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+            assertThat(awaitContent(resumed, "event:created")).contains("\"plan\":\"EventsPlan\"");
+        } finally {
+            planService.delete(plan.getId());
+            userRepository.deleteById(user.getId());
+        }
+
+        assertThat(awaitContent(stream, "event:deleted")).doesNotContain(PlanEventResource.RESYNC_EVENT);
+    }
+
+    @Test
+    void resyncFromUnknownEvent() throws Exception {
+        MvcResult stream = restPlanEventMockMvc
+            .perform(get(ENTITY_API_URL).header(LAST_EVENT_ID, "42"))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+
+        assertThat(awaitContent(stream, "event:" + PlanEventResource.RESYNC_EVENT)).doesNotContain("event:created");
+    }
+
+    @Test
+    void sendHeartbeats() throws Exception {
+        MvcResult stream = restPlanEventMockMvc.perform(get(ENTITY_API_URL)).andExpect(request().asyncStarted()).andReturn();
+
+        planEventResource.sendHeartbeats();
+
+        assertThat(awaitContent(stream, ":")).startsWith(":");
+    }
+
+    /**
+     * Wait for the whole event containing the expected text, as an event is written in several parts.
+     */
+    private static String awaitContent(MvcResult result, String expected) throws Exception {
+        long deadline = System.currentTimeMillis() + TIMEOUT;
+        String content = result.getResponse().getContentAsString();
+        while (!containsEvent(content, expected) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+            content = result.getResponse().getContentAsString();
+        }
+        assertThat(containsEvent(content, expected)).as("%s contains the whole %s event", content, expected).isTrue();
+        return content;
+    }
+
+    private static boolean containsEvent(String content, String expected) {
+        int start = content.indexOf(expected);
+        return start >= 0 && content.indexOf("\n\n", start) >= 0;
+    }
+}
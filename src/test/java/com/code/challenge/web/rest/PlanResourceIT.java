@@ -1,26 +1,52 @@
 package com.code.challenge.web.rest;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.not;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 import com.code.challenge.IntegrationTest;
+import com.code.challenge.config.ApplicationProperties;
+import com.code.challenge.config.JacksonConfiguration;
 import com.code.challenge.domain.Plan;
 import com.code.challenge.domain.User;
 import com.code.challenge.repository.PlanRepository;
+import com.code.challenge.repository.UserRepository;
+import com.code.challenge.service.PlanService;
+import com.code.challenge.service.PlanStatisticsService;
+import com.code.challenge.service.ResponseCacheService;
+import com.code.challenge.web.rest.vm.PlanBulkVM;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.jayway.jsonpath.JsonPath;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Random;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
 import javax.persistence.EntityManager;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.transaction.TestTransaction;
+import org.springframework.test.util.ReflectionTestUtils;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerAdapter;
 
 /**
  * Integration tests for the {@link PlanResource} REST controller.
@@ -48,12 +74,33 @@ class PlanResourceIT {
     @Autowired
     private PlanRepository planRepository;
 
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PlanService planService;
+
+    @Autowired
+    private PlanStatisticsService planStatisticsService;
+
+    @Autowired
+    private ApplicationProperties applicationProperties;
+
     @Autowired
     private EntityManager em;
 
     @Autowired
     private MockMvc restPlanMockMvc;
 
+    @Autowired
+    private RequestMappingHandlerAdapter requestMappingHandlerAdapter;
+
+    @Autowired
+    private ResponseCacheService responseCacheService;
+
+    @Autowired
+    private ThreadPoolTaskExecutor mvcAsyncExecutor;
+
     private Plan plan;
 
     /**
@@ -237,7 +284,461 @@ class PlanResourceIT {
             .andExpect(jsonPath("$.[*].id").value(hasItem(plan.getId().intValue())))
             .andExpect(jsonPath("$.[*].plan").value(hasItem(DEFAULT_PLAN)))
             .andExpect(jsonPath("$.[*].deductible").value(hasItem(DEFAULT_DEDUCTIBLE)))
+            .andExpect(jsonPath("$.[*].coPay").value(hasItem(DEFAULT_CO_PAY.doubleValue())))
+            .andExpect(jsonPath("$.[*].user.id").value(hasItem(plan.getUser().getId().intValue())))
+            .andExpect(jsonPath("$.[*].user.login").value(hasItem(plan.getUser().getLogin())))
+            .andExpect(jsonPath("$.[*].user.email").doesNotExist());
+    }
+
+    @Test
+    @Transactional
+    void getAllPlansWithFields() throws Exception {
+        // Initialize the database
+        planRepository.saveAndFlush(plan);
+
+        // Get only the plan and the user of the plans: the id is always returned
+        restPlanMockMvc
+            .perform(get(ENTITY_API_URL + "?fields=plan,user"))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(MediaType.APPLICATION_JSON_VALUE))
+            .andExpect(jsonPath("$.[*].id").value(hasItem(plan.getId().intValue())))
+            .andExpect(jsonPath("$.[*].plan").value(hasItem(DEFAULT_PLAN)))
+            .andExpect(jsonPath("$.[*].user.login").value(hasItem(plan.getUser().getLogin())))
+            .andExpect(jsonPath("$.[*].deductible").doesNotExist())
+            .andExpect(jsonPath("$.[*].coPay").doesNotExist());
+    }
+
+    @Test
+    @Transactional
+    void getAllPlansWithInvalidFields() throws Exception {
+        restPlanMockMvc.perform(get(ENTITY_API_URL + "?fields=plan,password")).andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @Transactional
+    void getPlansByIdFiltering() throws Exception {
+        // Initialize the database
+        planRepository.saveAndFlush(plan);
+
+        Long id = plan.getId();
+
+        defaultPlanShouldBeFound("id.equals=" + id);
+        defaultPlanShouldNotBeFound("id.notEquals=" + id);
+
+        defaultPlanShouldBeFound("id.greaterThanOrEqual=" + id);
+        defaultPlanShouldNotBeFound("id.greaterThan=" + id);
+
+        defaultPlanShouldBeFound("id.lessThanOrEqual=" + id);
+        defaultPlanShouldNotBeFound("id.lessThan=" + id);
+    }
+
+    @Test
+    @Transactional
+    void getAllPlansByPlanIsEqualToSomething() throws Exception {
+        // Initialize the database
+        planRepository.saveAndFlush(plan);
+
+        // Get all the planList where plan equals to DEFAULT_PLAN
+        defaultPlanShouldBeFound("plan.equals=" + DEFAULT_PLAN);
+
+        // Get all the planList where plan equals to UPDATED_PLAN
+        defaultPlanShouldNotBeFound("plan.equals=" + UPDATED_PLAN);
+    }
+
+    @Test
+    @Transactional
+    void getAllPlansByPlanContainsSomething() throws Exception {
+        // Initialize the database
+        planRepository.saveAndFlush(plan);
+
+        // Get all the planList where plan contains DEFAULT_PLAN
+        defaultPlanShouldBeFound("plan.contains=" + DEFAULT_PLAN);
+
+        // Get all the planList where plan contains UPDATED_PLAN
+        defaultPlanShouldNotBeFound("plan.contains=" + UPDATED_PLAN);
+    }
+
+    @Test
+    @Transactional
+    void getAllPlansByPlanStartsWithSomething() throws Exception {
+        // Initialize the database
+        planRepository.saveAndFlush(plan);
+
+        // Get all the planList where plan starts with the beginning of DEFAULT_PLAN
+        defaultPlanShouldBeFound("plan.startsWith=" + DEFAULT_PLAN.substring(0, 3));
+
+        // The match is case sensitive, and wildcards are matched literally
+        defaultPlanShouldNotBeFound("plan.startsWith=" + DEFAULT_PLAN.substring(0, 3).toLowerCase());
+        defaultPlanShouldNotBeFound("plan.startsWith=_");
+        defaultPlanShouldNotBeFound("plan.startsWith=" + UPDATED_PLAN);
+    }
+
+    @Test
+    @Transactional
+    void getAllPlansByDeductibleIsInRange() throws Exception {
+        // Initialize the database
+        planRepository.saveAndFlush(plan);
+
+        // Get all the planList where deductible is between DEFAULT_DEDUCTIBLE and UPDATED_DEDUCTIBLE
+        defaultPlanShouldBeFound("deductible.greaterThanOrEqual=" + DEFAULT_DEDUCTIBLE + "&deductible.lessThanOrEqual=" + UPDATED_DEDUCTIBLE);
+
+        // Get all the planList where deductible is greater than DEFAULT_DEDUCTIBLE
+        defaultPlanShouldNotBeFound("deductible.greaterThan=" + DEFAULT_DEDUCTIBLE + "&deductible.lessThanOrEqual=" + UPDATED_DEDUCTIBLE);
+    }
+
+    @Test
+    @Transactional
+    void getAllPlansByCoPayIsLessThanSomething() throws Exception {
+        // Initialize the database
+        planRepository.saveAndFlush(plan);
+
+        // Get all the planList where coPay is less than UPDATED_CO_PAY
+        defaultPlanShouldBeFound("coPay.lessThan=" + UPDATED_CO_PAY);
+
+        // Get all the planList where coPay is less than DEFAULT_CO_PAY
+        defaultPlanShouldNotBeFound("coPay.lessThan=" + DEFAULT_CO_PAY);
+    }
+
+    @Test
+    @Transactional
+    void getAllPlansByCriteriaWithCursor() throws Exception {
+        // Initialize the database
+        planRepository.saveAndFlush(plan);
+        Plan otherPlan = createEntity(em).plan(UPDATED_PLAN);
+        planRepository.saveAndFlush(otherPlan);
+
+        // The link to the next page keeps the criteria
+        String link = restPlanMockMvc
+            .perform(get(ENTITY_API_URL + "?size=1&deductible.equals=" + DEFAULT_DEDUCTIBLE))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.[*].id").value(contains(plan.getId().intValue())))
+            .andReturn()
+            .getResponse()
+            .getHeader(HttpHeaders.LINK);
+        assertThat(link).contains("deductible.equals=" + DEFAULT_DEDUCTIBLE);
+        String nextCursor = link.replaceAll(".*[?&]cursor=([^&>]+).*", "$1");
+
+        restPlanMockMvc
+            .perform(get(ENTITY_API_URL + "?size=1&deductible.equals=" + DEFAULT_DEDUCTIBLE + "&cursor=" + nextCursor))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.[*].id").value(contains(otherPlan.getId().intValue())))
+            .andExpect(header().doesNotExist(HttpHeaders.LINK));
+    }
+
+    /**
+     * Executes the search, and checks that the default entity is returned.
+     */
+    private void defaultPlanShouldBeFound(String filter) throws Exception {
+        restPlanMockMvc
+            .perform(get(ENTITY_API_URL + "?" + filter))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(MediaType.APPLICATION_JSON_VALUE))
+            .andExpect(jsonPath("$.[*].id").value(hasItem(plan.getId().intValue())))
+            .andExpect(jsonPath("$.[*].plan").value(hasItem(DEFAULT_PLAN)))
+            .andExpect(jsonPath("$.[*].deductible").value(hasItem(DEFAULT_DEDUCTIBLE)))
             .andExpect(jsonPath("$.[*].coPay").value(hasItem(DEFAULT_CO_PAY.doubleValue())));
+
+        // Check, that the count call also returns 1
+        restPlanMockMvc
+            .perform(get(ENTITY_API_URL + "/count?" + filter))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(MediaType.APPLICATION_JSON_VALUE))
+            .andExpect(content().string("1"));
+    }
+
+    /**
+     * Executes the search, and checks that the default entity is not returned.
+     */
+    private void defaultPlanShouldNotBeFound(String filter) throws Exception {
+        restPlanMockMvc
+            .perform(get(ENTITY_API_URL + "?" + filter))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(MediaType.APPLICATION_JSON_VALUE))
+            .andExpect(jsonPath("$").isArray())
+            .andExpect(jsonPath("$").isEmpty());
+
+        // Check, that the count call also returns 0
+        restPlanMockMvc
+            .perform(get(ENTITY_API_URL + "/count?" + filter))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(MediaType.APPLICATION_JSON_VALUE))
+            .andExpect(content().string("0"));
+    }
+
+    @Test
+    @Transactional
+    void getAllPlansWithCursor() throws Exception {
+        // Initialize the database
+        planRepository.saveAndFlush(plan);
+        Plan otherPlan = createUpdatedEntity(em);
+        planRepository.saveAndFlush(otherPlan);
+
+        // Get the first page, which must link to the next one
+        String link = restPlanMockMvc
+            .perform(get(ENTITY_API_URL + "?size=1"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$", hasSize(1)))
+            .andExpect(header().exists(HttpHeaders.LINK))
+            .andReturn()
+            .getResponse()
+            .getHeader(HttpHeaders.LINK);
+        String nextCursor = link.replaceAll(".*[?&]cursor=([^&>]+).*", "$1");
+
+        // Get the remaining plans: this is the last page, so there is no link
+        restPlanMockMvc
+            .perform(get(ENTITY_API_URL + "?size=" + Integer.MAX_VALUE + "&cursor=" + nextCursor))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.[*].id").value(hasItem(otherPlan.getId().intValue())))
+            .andExpect(jsonPath("$.[*].id").value(not(hasItem(plan.getId().intValue()))))
+            .andExpect(header().doesNotExist(HttpHeaders.LINK));
+    }
+
+    @Test
+    @Transactional
+    void getAllPlansWithInvalidCursor() throws Exception {
+        restPlanMockMvc.perform(get(ENTITY_API_URL + "?cursor=not-a-cursor")).andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @Transactional
+    void getPlanStatistics() throws Exception {
+        long countBefore = planStatisticsService.getStatistics().getCount();
+        // The statistics only change when the transaction is committed
+        plan.deductible(Integer.MAX_VALUE).coPay(1e9);
+        plan = planService.save(plan);
+        TestTransaction.flagForCommit();
+        TestTransaction.end();
+        try {
+            restPlanMockMvc
+                .perform(get(ENTITY_API_URL + "/stats"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON_VALUE))
+                .andExpect(jsonPath("$.count").value((int) countBefore + 1))
+                .andExpect(jsonPath("$.deductible.max").value((double) Integer.MAX_VALUE))
+                .andExpect(jsonPath("$.coPay.max").value(1e9))
+                .andExpect(jsonPath("$.coPay.p50").isNumber());
+
+            // Updates replace the previous values
+            restPlanMockMvc
+                .perform(
+                    patch(ENTITY_API_URL_ID, plan.getId())
+                        .contentType("application/merge-patch+json")
+                        .content(TestUtil.convertObjectToJsonBytes(new Plan().id(plan.getId()).deductible(DEFAULT_DEDUCTIBLE)))
+                )
+                .andExpect(status().isOk());
+            assertThat(planStatisticsService.getStatistics().getCount()).isEqualTo(countBefore + 1);
+            assertThat(planStatisticsService.getStatistics().getDeductible().getMax()).isLessThan((double) Integer.MAX_VALUE);
+        } finally {
+            restPlanMockMvc.perform(delete(ENTITY_API_URL_ID, plan.getId())).andExpect(status().isNoContent());
+            userRepository.deleteById(plan.getId());
+        }
+        assertThat(planStatisticsService.getStatistics().getCount()).isEqualTo(countBefore);
+    }
+
+    @Test
+    @Transactional
+    void getPlanChanges() throws Exception {
+        // Changes are only synced once committed
+        plan = planService.save(plan);
+        Plan deletedPlan = planService.save(createUpdatedEntity(em));
+        TestTransaction.flagForCommit();
+        TestTransaction.end();
+        try {
+            // A first sync gets all the plans
+            List<Integer> syncedIds = new ArrayList<>();
+            String token = null;
+            boolean hasMore = true;
+            while (hasMore) {
+                String content = restPlanMockMvc
+                    .perform(get(ENTITY_API_URL + "/changes?size=1000" + (token == null ? "" : "&since=" + token)))
+                    .andExpect(status().isOk())
+                    .andReturn()
+                    .getResponse()
+                    .getContentAsString();
+                syncedIds.addAll(JsonPath.read(content, "$.plans[*].id"));
+                token = JsonPath.read(content, "$.nextToken");
+                hasMore = JsonPath.read(content, "$.hasMore");
+            }
+            assertThat(syncedIds).contains(plan.getId().intValue(), deletedPlan.getId().intValue());
+
+            restPlanMockMvc
+                .perform(get(ENTITY_API_URL + "/changes?since=" + token))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.plans").isEmpty())
+                .andExpect(jsonPath("$.deletedIds").isEmpty())
+                .andExpect(jsonPath("$.nextToken").value(token))
+                .andExpect(jsonPath("$.hasMore").value(false));
+
+            // The next sync only gets the changes since the first one
+            restPlanMockMvc
+                .perform(
+                    patch(ENTITY_API_URL_ID, plan.getId())
+                        .contentType("application/merge-patch+json")
+                        .content(TestUtil.convertObjectToJsonBytes(new Plan().id(plan.getId()).deductible(UPDATED_DEDUCTIBLE)))
+                )
+                .andExpect(status().isOk());
+            restPlanMockMvc.perform(delete(ENTITY_API_URL_ID, deletedPlan.getId())).andExpect(status().isNoContent());
+
+            restPlanMockMvc
+                .perform(get(ENTITY_API_URL + "/changes?since=" + token))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.plans.[*].id").value(contains(plan.getId().intValue())))
+                .andExpect(jsonPath("$.plans.[0].deductible").value(UPDATED_DEDUCTIBLE))
+                .andExpect(jsonPath("$.plans.[0].changeSeq").doesNotExist())
+                .andExpect(jsonPath("$.deletedIds").value(contains(deletedPlan.getId().intValue())))
+                .andExpect(jsonPath("$.nextToken").value(not(token)))
+                .andExpect(jsonPath("$.hasMore").value(false));
+        } finally {
+            planService.delete(plan.getId());
+            if (planRepository.existsById(deletedPlan.getId())) {
+                planService.delete(deletedPlan.getId());
+            }
+            userRepository.deleteById(plan.getId());
+            userRepository.deleteById(deletedPlan.getId());
+        }
+    }
+
+    @Test
+    @Transactional
+    void getPlanChangesWithInvalidToken() throws Exception {
+        restPlanMockMvc.perform(get(ENTITY_API_URL + "/changes?since=not-a-token")).andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @Transactional
+    void exportAllPlans() throws Exception {
+        // Initialize the database, and commit it as the export runs in another thread
+        planRepository.saveAndFlush(plan);
+        TestTransaction.flagForCommit();
+        TestTransaction.end();
+
+        try {
+            MvcResult ndjsonResult = restPlanMockMvc
+                .perform(get(ENTITY_API_URL + "/export"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+            restPlanMockMvc
+                .perform(asyncDispatch(ndjsonResult))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/x-ndjson"))
+                .andExpect(content().string(containsString("\"id\":" + plan.getId() + ",\"plan\":\"" + DEFAULT_PLAN + "\"")));
+
+            MvcResult jsonResult = restPlanMockMvc
+                .perform(get(ENTITY_API_URL + "/export?format=json"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+            restPlanMockMvc
+                .perform(asyncDispatch(jsonResult))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$.[*].id").value(hasItem(plan.getId().intValue())))
+                .andExpect(jsonPath("$.[*].plan").value(hasItem(DEFAULT_PLAN)));
+        } finally {
+            planRepository.deleteById(plan.getId());
+            userRepository.deleteById(plan.getId());
+        }
+    }
+
+    @Test
+    @Transactional
+    void exportAllPlansWithInvalidFormat() throws Exception {
+        restPlanMockMvc.perform(get(ENTITY_API_URL + "/export?format=xml")).andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @Transactional
+    void importPlansFromCsv() throws Exception {
+        User user = UserResourceIT.createEntity(em);
+        em.persist(user);
+        em.flush();
+        int databaseSizeBeforeImport = planRepository.findAll().size();
+
+        String csv =
+            "id;plan;deductible;co_pay\n" +
+            plan.getUser().getId() + ";" + DEFAULT_PLAN + ";" + DEFAULT_DEDUCTIBLE + ";" + DEFAULT_CO_PAY + "\n" +
+            user.getId() + ";" + UPDATED_PLAN + ";not-a-number;" + UPDATED_CO_PAY + "\n" +
+            Long.MAX_VALUE + ";" + UPDATED_PLAN + ";" + UPDATED_DEDUCTIBLE + ";" + UPDATED_CO_PAY + "\n" +
+            user.getId() + ";" + DEFAULT_PLAN + ";" + UPDATED_DEDUCTIBLE + ";" + UPDATED_CO_PAY + "\n";
+
+        restPlanMockMvc
+            .perform(post(ENTITY_API_URL + "/import").contentType("text/csv").content(csv))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.total").value(4))
+            .andExpect(jsonPath("$.imported").value(1))
+            .andExpect(jsonPath("$.errors.[*].row").value(contains(3, 4, 5)));
+
+        // Validate the Plan in the database
+        assertThat(planRepository.findAll()).hasSize(databaseSizeBeforeImport + 1);
+        Plan testPlan = planRepository.findById(plan.getUser().getId()).get();
+        assertThat(testPlan.getPlan()).isEqualTo(DEFAULT_PLAN);
+        assertThat(testPlan.getDeductible()).isEqualTo(DEFAULT_DEDUCTIBLE);
+        assertThat(testPlan.getCoPay()).isEqualTo(DEFAULT_CO_PAY);
+    }
+
+    @Test
+    @Transactional
+    void importPlansFromNdjson() throws Exception {
+        int databaseSizeBeforeImport = planRepository.findAll().size();
+
+        String ndjson =
+            "{\"id\":" + plan.getUser().getId() + ",\"plan\":\"" + DEFAULT_PLAN + "\",\"deductible\":1,\"coPay\":1.0}\n" +
+            "{\"id\":" + plan.getUser().getId() + ",\"plan\":\"" + UPDATED_PLAN + "\"}\n" +
+            "not json\n";
+
+        restPlanMockMvc
+            .perform(post(ENTITY_API_URL + "/import").contentType("application/x-ndjson").content(ndjson))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.total").value(3))
+            .andExpect(jsonPath("$.imported").value(1))
+            .andExpect(jsonPath("$.errors.[*].row").value(contains(2, 3)));
+
+        assertThat(planRepository.findAll()).hasSize(databaseSizeBeforeImport + 1);
+    }
+
+    @Test
+    @Transactional
+    void calculateOutOfPocket() throws Exception {
+        // Initialize the database, and commit it as the calculation runs in another thread
+        planRepository.saveAndFlush(plan.deductible(100).coPay(20.5));
+        TestTransaction.flagForCommit();
+        TestTransaction.end();
+
+        Long userId = plan.getId();
+        String csv =
+            "user_id;claim_amount\n" +
+            userId + ";50\n" +
+            userId + ";110\n" +
+            userId + ";500\n" +
+            Long.MAX_VALUE + ";500\n" +
+            userId + ";not-a-number\n";
+
+        try {
+            MvcResult result = restPlanMockMvc
+                .perform(post(ENTITY_API_URL + "/out-of-pocket").contentType("text/csv").content(csv))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+            // Computed on the bounded pool, within the configured timeout
+            assertThat(ReflectionTestUtils.getField(requestMappingHandlerAdapter, "taskExecutor")).isSameAs(mvcAsyncExecutor);
+            assertThat(result.getRequest().getAsyncContext().getTimeout()).isEqualTo(Duration.ofMinutes(10).toMillis());
+            restPlanMockMvc
+                .perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("text/csv"))
+                .andExpect(
+                    content()
+                        .string(
+                            "user_id;claim_amount;out_of_pocket\n" +
+                            userId + ";50;50.0\n" +
+                            userId + ";110;110.0\n" +
+                            userId + ";500;120.5\n" +
+                            Long.MAX_VALUE + ";500;\n" +
+                            userId + ";not-a-number;\n"
+                        )
+                );
+        } finally {
+            planRepository.deleteById(plan.getId());
+            userRepository.deleteById(plan.getId());
+        }
     }
 
     @Test
@@ -257,6 +758,86 @@ class PlanResourceIT {
             .andExpect(jsonPath("$.coPay").value(DEFAULT_CO_PAY.doubleValue()));
     }
 
+    @Test
+    @Transactional
+    void getPlanAsJsonVariesWithAccept() throws Exception {
+        // Initialize the database
+        planRepository.saveAndFlush(plan);
+
+        restPlanMockMvc
+            .perform(get(ENTITY_API_URL_ID, plan.getId()).accept(MediaType.APPLICATION_JSON, MediaType.APPLICATION_CBOR))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(MediaType.APPLICATION_JSON_VALUE))
+            .andExpect(header().stringValues(HttpHeaders.VARY, hasItem(HttpHeaders.ACCEPT)))
+            .andExpect(header().string(HttpHeaders.ETAG, "\"" + plan.getVersion() + "\""))
+            .andExpect(jsonPath("$.plan").value(DEFAULT_PLAN));
+
+        // Also when the cached body is sent
+        restPlanMockMvc
+            .perform(get(ENTITY_API_URL_ID, plan.getId()))
+            .andExpect(status().isOk())
+            .andExpect(header().stringValues(HttpHeaders.VARY, hasItem(HttpHeaders.ACCEPT)))
+            .andExpect(header().string(HttpHeaders.ETAG, "\"" + plan.getVersion() + "\""));
+    }
+
+    @Test
+    @Transactional
+    void getPlanAsSmile() throws Exception {
+        // Initialize the database
+        planRepository.saveAndFlush(plan);
+        String eTag = "\"" + plan.getVersion() + "-x-jackson-smile\"";
+
+        // Get the plan
+        byte[] body = restPlanMockMvc
+            .perform(get(ENTITY_API_URL_ID, plan.getId()).accept(JacksonConfiguration.APPLICATION_SMILE_VALUE))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(JacksonConfiguration.APPLICATION_SMILE_VALUE))
+            .andExpect(header().stringValues(HttpHeaders.VARY, hasItem(HttpHeaders.ACCEPT)))
+            .andExpect(header().string(HttpHeaders.ETAG, eTag))
+            .andReturn()
+            .getResponse()
+            .getContentAsByteArray();
+
+        JsonNode smilePlan = new ObjectMapper(new SmileFactory()).readTree(body);
+        assertThat(smilePlan.get("id").asLong()).isEqualTo(plan.getId());
+        assertThat(smilePlan.get("plan").asText()).isEqualTo(DEFAULT_PLAN);
+        assertThat(smilePlan.get("deductible").asInt()).isEqualTo(DEFAULT_DEDUCTIBLE);
+        assertThat(smilePlan.get("coPay").asDouble()).isEqualTo(DEFAULT_CO_PAY);
+
+        // An unchanged plan is not sent again
+        restPlanMockMvc
+            .perform(get(ENTITY_API_URL_ID, plan.getId()).accept(JacksonConfiguration.APPLICATION_SMILE_VALUE).header(HttpHeaders.IF_NONE_MATCH, eTag))
+            .andExpect(status().isNotModified());
+
+        // Nor is it sent as CBOR with the tag of the Smile one
+        restPlanMockMvc
+            .perform(get(ENTITY_API_URL_ID, plan.getId()).accept(MediaType.APPLICATION_CBOR).header(HttpHeaders.IF_NONE_MATCH, eTag))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(MediaType.APPLICATION_CBOR))
+            .andExpect(header().string(HttpHeaders.ETAG, "\"" + plan.getVersion() + "-cbor\""));
+    }
+
+    @Test
+    @Transactional
+    void getAllPlansAsCbor() throws Exception {
+        // Initialize the database
+        planRepository.saveAndFlush(plan);
+
+        // Get all the planList
+        byte[] body = restPlanMockMvc
+            .perform(get(ENTITY_API_URL + "?id.equals=" + plan.getId()).accept(MediaType.APPLICATION_CBOR))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(MediaType.APPLICATION_CBOR))
+            .andReturn()
+            .getResponse()
+            .getContentAsByteArray();
+
+        JsonNode cborPlans = new ObjectMapper(new CBORFactory()).readTree(body);
+        assertThat(cborPlans).hasSize(1);
+        assertThat(cborPlans.get(0).get("plan").asText()).isEqualTo(DEFAULT_PLAN);
+        assertThat(cborPlans.get(0).get("user").get("login").asText()).isEqualTo(plan.getUser().getLogin());
+    }
+
     @Test
     @Transactional
     void getNonExistingPlan() throws Exception {
@@ -264,6 +845,206 @@ class PlanResourceIT {
         restPlanMockMvc.perform(get(ENTITY_API_URL_ID, Long.MAX_VALUE)).andExpect(status().isNotFound());
     }
 
+    @Test
+    @Transactional
+    void getPlanIfNoneMatch() throws Exception {
+        // Initialize the database
+        planRepository.saveAndFlush(plan);
+        String eTag = "\"" + plan.getVersion() + "\"";
+
+        restPlanMockMvc
+            .perform(get(ENTITY_API_URL_ID, plan.getId()))
+            .andExpect(status().isOk())
+            .andExpect(header().string(HttpHeaders.ETAG, eTag))
+            .andExpect(jsonPath("$.version").value(plan.getVersion().intValue()));
+
+        // An unchanged plan is not sent again
+        restPlanMockMvc
+            .perform(get(ENTITY_API_URL_ID, plan.getId()).header(HttpHeaders.IF_NONE_MATCH, eTag))
+            .andExpect(status().isNotModified())
+            .andExpect(header().string(HttpHeaders.ETAG, eTag))
+            .andExpect(content().string(""));
+
+        restPlanMockMvc
+            .perform(get(ENTITY_API_URL_ID, plan.getId()).header(HttpHeaders.IF_NONE_MATCH, "\"" + (plan.getVersion() + 1) + "\""))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.id").value(plan.getId().intValue()));
+    }
+
+    @Test
+    @Transactional
+    void getUncachedPlanIfNoneMatch() throws Exception {
+        // Initialize the database
+        planRepository.saveAndFlush(plan);
+        String eTag = "\"" + plan.getVersion() + "\"";
+        responseCacheService.evict(ResponseCacheService.PLANS_CACHE, plan.getId());
+
+        // Matched against the stored version, before the plan is serialized and cached
+        restPlanMockMvc
+            .perform(get(ENTITY_API_URL_ID, plan.getId()).header(HttpHeaders.IF_NONE_MATCH, "\"0\", W/" + eTag))
+            .andExpect(status().isNotModified())
+            .andExpect(header().string(HttpHeaders.ETAG, eTag))
+            .andExpect(header().stringValues(HttpHeaders.VARY, hasItem(HttpHeaders.ACCEPT)))
+            .andExpect(content().string(""));
+        assertThat(responseCacheService.get(ResponseCacheService.PLANS_CACHE, plan.getId())).isEmpty();
+
+        restPlanMockMvc
+            .perform(
+                get(ENTITY_API_URL_ID, plan.getId())
+                    .header(HttpHeaders.ACCEPT_ENCODING, "gzip")
+                    .header(HttpHeaders.IF_NONE_MATCH, "\"" + plan.getVersion() + "-gzip\"")
+            )
+            .andExpect(status().isNotModified())
+            .andExpect(header().string(HttpHeaders.ETAG, "\"" + plan.getVersion() + "-gzip\""));
+        assertThat(responseCacheService.get(ResponseCacheService.PLANS_CACHE, plan.getId())).isEmpty();
+    }
+
+    @Test
+    @Transactional
+    void putPlanIfMatch() throws Exception {
+        // Initialize the database
+        planRepository.saveAndFlush(plan);
+        Long version = plan.getVersion();
+        Plan updatedPlan = new Plan()
+            .id(plan.getId())
+            .plan(UPDATED_PLAN)
+            .deductible(UPDATED_DEDUCTIBLE)
+            .coPay(UPDATED_CO_PAY)
+            .user(plan.getUser());
+
+        restPlanMockMvc
+            .perform(
+                put(ENTITY_API_URL_ID, plan.getId())
+                    .header(HttpHeaders.IF_MATCH, "\"" + version + "\"")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(TestUtil.convertObjectToJsonBytes(updatedPlan))
+            )
+            .andExpect(status().isOk())
+            .andExpect(header().string(HttpHeaders.ETAG, "\"" + (version + 1) + "\""))
+            .andExpect(jsonPath("$.plan").value(UPDATED_PLAN));
+
+        // The plan has changed since that version
+        restPlanMockMvc
+            .perform(
+                put(ENTITY_API_URL_ID, plan.getId())
+                    .header(HttpHeaders.IF_MATCH, "\"" + version + "\"")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(TestUtil.convertObjectToJsonBytes(updatedPlan.plan(DEFAULT_PLAN)))
+            )
+            .andExpect(status().isPreconditionFailed());
+
+        Plan testPlan = planRepository.findById(plan.getId()).get();
+        assertThat(testPlan.getPlan()).isEqualTo(UPDATED_PLAN);
+        assertThat(testPlan.getVersion()).isEqualTo(version + 1);
+    }
+
+    @Test
+    @Transactional
+    void partialUpdatePlanIfMatch() throws Exception {
+        // Initialize the database
+        planRepository.saveAndFlush(plan);
+        Long version = plan.getVersion();
+        Plan partialUpdatedPlan = new Plan().id(plan.getId()).deductible(UPDATED_DEDUCTIBLE);
+
+        restPlanMockMvc
+            .perform(
+                patch(ENTITY_API_URL_ID, plan.getId())
+                    .header(HttpHeaders.IF_MATCH, "\"" + (version + 1) + "\"")
+                    .contentType("application/merge-patch+json")
+                    .content(TestUtil.convertObjectToJsonBytes(partialUpdatedPlan))
+            )
+            .andExpect(status().isPreconditionFailed());
+
+        restPlanMockMvc
+            .perform(
+                patch(ENTITY_API_URL_ID, plan.getId())
+                    .header(HttpHeaders.IF_MATCH, "W/\"" + version + "\"")
+                    .contentType("application/merge-patch+json")
+                    .content(TestUtil.convertObjectToJsonBytes(partialUpdatedPlan))
+            )
+            .andExpect(status().isPreconditionFailed());
+
+        assertThat(planRepository.findById(plan.getId()).get().getDeductible()).isEqualTo(DEFAULT_DEDUCTIBLE);
+
+        restPlanMockMvc
+            .perform(
+                patch(ENTITY_API_URL_ID, plan.getId())
+                    .header(HttpHeaders.IF_MATCH, "\"" + version + "\"")
+                    .contentType("application/merge-patch+json")
+                    .content(TestUtil.convertObjectToJsonBytes(partialUpdatedPlan))
+            )
+            .andExpect(status().isOk())
+            .andExpect(header().string(HttpHeaders.ETAG, "\"" + (version + 1) + "\""))
+            .andExpect(jsonPath("$.deductible").value(UPDATED_DEDUCTIBLE));
+    }
+
+    @Test
+    @Transactional
+    void partialUpdatePlanWriteBehind() throws Exception {
+        // Initialize the database, and commit it as the patches are written in other transactions
+        plan = planService.save(plan);
+        TestTransaction.flagForCommit();
+        TestTransaction.end();
+        applicationProperties.getPlanWriteBehind().setEnabled(true);
+        try {
+            restPlanMockMvc
+                .perform(
+                    patch(ENTITY_API_URL_ID, plan.getId())
+                        .contentType("application/merge-patch+json")
+                        .content(TestUtil.convertObjectToJsonBytes(new Plan().id(plan.getId()).deductible(UPDATED_DEDUCTIBLE)))
+                )
+                .andExpect(status().isAccepted())
+                .andExpect(header().doesNotExist(HttpHeaders.ETAG))
+                .andExpect(jsonPath("$.deductible").value(UPDATED_DEDUCTIBLE));
+            restPlanMockMvc
+                .perform(
+                    patch(ENTITY_API_URL_ID, plan.getId())
+                        .contentType("application/merge-patch+json")
+                        .content(TestUtil.convertObjectToJsonBytes(new Plan().id(plan.getId()).coPay(UPDATED_CO_PAY)))
+                )
+                .andExpect(status().isAccepted())
+                .andExpect(jsonPath("$.deductible").value(UPDATED_DEDUCTIBLE))
+                .andExpect(jsonPath("$.coPay").value(UPDATED_CO_PAY));
+            assertThat(planRepository.findById(plan.getId()).get().getDeductible()).isEqualTo(DEFAULT_DEDUCTIBLE);
+
+            // Invalid patches are rejected before they are queued
+            restPlanMockMvc
+                .perform(
+                    patch(ENTITY_API_URL_ID, plan.getId())
+                        .contentType("application/merge-patch+json")
+                        .content(TestUtil.convertObjectToJsonBytes(new Plan().id(plan.getId()).deductible(-1)))
+                )
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("error.validation"));
+
+            // Reads see the queued patches
+            restPlanMockMvc
+                .perform(get(ENTITY_API_URL_ID, plan.getId()))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(HttpHeaders.ETAG))
+                .andExpect(jsonPath("$.deductible").value(UPDATED_DEDUCTIBLE))
+                .andExpect(jsonPath("$.coPay").value(UPDATED_CO_PAY));
+
+            // A conditional patch writes the queued ones first
+            restPlanMockMvc
+                .perform(
+                    patch(ENTITY_API_URL_ID, plan.getId())
+                        .header(HttpHeaders.IF_MATCH, "\"" + (plan.getVersion() + 1) + "\"")
+                        .contentType("application/merge-patch+json")
+                        .content(TestUtil.convertObjectToJsonBytes(new Plan().id(plan.getId()).plan(UPDATED_PLAN)))
+                )
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"" + (plan.getVersion() + 2) + "\""))
+                .andExpect(jsonPath("$.plan").value(UPDATED_PLAN))
+                .andExpect(jsonPath("$.deductible").value(UPDATED_DEDUCTIBLE))
+                .andExpect(jsonPath("$.coPay").value(UPDATED_CO_PAY));
+        } finally {
+            applicationProperties.getPlanWriteBehind().setEnabled(false);
+            planService.delete(plan.getId());
+            userRepository.deleteById(plan.getId());
+        }
+    }
+
     @Test
     @Transactional
     void putNewPlan() throws Exception {
@@ -315,6 +1096,61 @@ class PlanResourceIT {
         assertThat(planList).hasSize(databaseSizeBeforeUpdate);
     }
 
+    @Test
+    @Transactional
+    void putPlanOfUserWithoutPlan() throws Exception {
+        int databaseSizeBeforeUpdate = planRepository.findAll().size();
+        plan.setId(plan.getUser().getId());
+
+        // Only created when asked to
+        restPlanMockMvc
+            .perform(
+                put(ENTITY_API_URL_ID, plan.getId())
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(TestUtil.convertObjectToJsonBytes(plan))
+            )
+            .andExpect(status().isBadRequest());
+        assertThat(planRepository.findAll()).hasSize(databaseSizeBeforeUpdate);
+
+        restPlanMockMvc
+            .perform(
+                put(ENTITY_API_URL_ID, plan.getId())
+                    .header(HttpHeaders.IF_NONE_MATCH, "*")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(TestUtil.convertObjectToJsonBytes(plan))
+            )
+            .andExpect(status().isCreated())
+            .andExpect(header().string(HttpHeaders.ETAG, "\"0\""))
+            .andExpect(jsonPath("$.id").value(plan.getId().intValue()))
+            .andExpect(jsonPath("$.user.login").value(plan.getUser().getLogin()));
+
+        assertThat(planRepository.findAll()).hasSize(databaseSizeBeforeUpdate + 1);
+    }
+
+    @Test
+    @Transactional
+    void putExistingPlanIfNoneMatch() throws Exception {
+        // Initialize the database
+        planRepository.saveAndFlush(plan);
+        Plan updatedPlan = new Plan()
+            .id(plan.getId())
+            .plan(UPDATED_PLAN)
+            .deductible(UPDATED_DEDUCTIBLE)
+            .coPay(UPDATED_CO_PAY)
+            .user(plan.getUser());
+
+        restPlanMockMvc
+            .perform(
+                put(ENTITY_API_URL_ID, plan.getId())
+                    .header(HttpHeaders.IF_NONE_MATCH, "*")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(TestUtil.convertObjectToJsonBytes(updatedPlan))
+            )
+            .andExpect(status().isPreconditionFailed());
+
+        assertThat(planRepository.findById(plan.getId()).get().getPlan()).isEqualTo(DEFAULT_PLAN);
+    }
+
     @Test
     @Transactional
     void putWithIdMismatchPlan() throws Exception {
@@ -486,4 +1322,192 @@ class PlanResourceIT {
         List<Plan> planList = planRepository.findAll();
         assertThat(planList).hasSize(databaseSizeBeforeDelete - 1);
     }
+
+    @Test
+    @Transactional
+    void bulkPartialUpdatePlans() throws Exception {
+        // Initialize the database
+        planRepository.saveAndFlush(plan);
+        Plan otherPlan = createUpdatedEntity(em);
+        planRepository.saveAndFlush(otherPlan);
+
+        // Only the co-pay of the first plan is updated
+        restPlanMockMvc
+            .perform(
+                patch(ENTITY_API_URL + "/bulk")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content("{\"ids\":[" + plan.getId() + "],\"patch\":{\"coPay\":" + UPDATED_CO_PAY + "}}")
+            )
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$").value(contains(plan.getId().intValue())));
+
+        Plan testPlan = planRepository.findById(plan.getId()).get();
+        assertThat(testPlan.getDeductible()).isEqualTo(DEFAULT_DEDUCTIBLE);
+        assertThat(testPlan.getCoPay()).isEqualTo(UPDATED_CO_PAY);
+        assertThat(planRepository.findById(otherPlan.getId()).get().getCoPay()).isEqualTo(UPDATED_CO_PAY);
+
+        // Both plans are matched by the criteria
+        restPlanMockMvc
+            .perform(
+                patch(ENTITY_API_URL + "/bulk")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(
+                        "{\"criteria\":{\"id\":{\"in\":[" +
+                        plan.getId() +
+                        "," +
+                        otherPlan.getId() +
+                        "]}},\"patch\":{\"deductible\":" +
+                        UPDATED_DEDUCTIBLE +
+                        "}}"
+                    )
+            )
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$").value(hasSize(2)));
+
+        assertThat(planRepository.findById(plan.getId()).get().getDeductible()).isEqualTo(UPDATED_DEDUCTIBLE);
+        assertThat(planRepository.findById(otherPlan.getId()).get().getDeductible()).isEqualTo(UPDATED_DEDUCTIBLE);
+    }
+
+    @Test
+    @Transactional
+    void bulkPartialUpdatePlansWithInvalidRequest() throws Exception {
+        // Initialize the database
+        planRepository.saveAndFlush(plan);
+
+        // No plans
+        restPlanMockMvc
+            .perform(patch(ENTITY_API_URL + "/bulk").contentType(MediaType.APPLICATION_JSON).content("{\"patch\":{\"coPay\":2}}"))
+            .andExpect(status().isBadRequest());
+
+        // No fields
+        restPlanMockMvc
+            .perform(patch(ENTITY_API_URL + "/bulk").contentType(MediaType.APPLICATION_JSON).content("{\"ids\":[" + plan.getId() + "]}"))
+            .andExpect(status().isBadRequest());
+
+        // The plan name is unique
+        restPlanMockMvc
+            .perform(
+                patch(ENTITY_API_URL + "/bulk")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content("{\"ids\":[" + plan.getId() + "],\"patch\":{\"plan\":\"" + UPDATED_PLAN + "\"}}")
+            )
+            .andExpect(status().isBadRequest());
+
+        assertThat(planRepository.findById(plan.getId()).get().getPlan()).isEqualTo(DEFAULT_PLAN);
+    }
+
+    @Test
+    @Transactional
+    void bulkPartialUpdatePlansWithInvalidValues() throws Exception {
+        // Initialize the database
+        planRepository.saveAndFlush(plan);
+        String ids = "\"ids\":[" + plan.getId() + "]";
+        String tooManyIds = LongStream
+            .rangeClosed(1, PlanBulkVM.MAX_IDS + 1)
+            .mapToObj(String::valueOf)
+            .collect(Collectors.joining(",", "\"ids\":[", "]"));
+
+        for (String bulk : List.of(
+            "{" + ids + ",\"patch\":{\"deductible\":-1}}",
+            "{" + ids + ",\"patch\":{\"coPay\":-0.5}}",
+            "{" + ids + ",\"patch\":{\"plan\":\"  \",\"coPay\":2}}",
+            "{" + tooManyIds + ",\"patch\":{\"coPay\":2}}",
+            "{\"ids\":[null],\"patch\":{\"coPay\":2}}"
+        )) {
+            restPlanMockMvc
+                .perform(patch(ENTITY_API_URL + "/bulk").contentType(MediaType.APPLICATION_JSON).content(bulk))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("error.validation"));
+        }
+        restPlanMockMvc
+            .perform(delete(ENTITY_API_URL + "/bulk").contentType(MediaType.APPLICATION_JSON).content("{" + tooManyIds + "}"))
+            .andExpect(status().isBadRequest())
+            .andExpect(jsonPath("$.message").value("error.validation"));
+
+        Plan testPlan = planRepository.findById(plan.getId()).get();
+        assertThat(testPlan.getDeductible()).isEqualTo(DEFAULT_DEDUCTIBLE);
+        assertThat(testPlan.getCoPay()).isEqualTo(DEFAULT_CO_PAY);
+    }
+
+    @Test
+    @Transactional
+    void createPlanWithNegativeDeductible() throws Exception {
+        int databaseSizeBeforeTest = planRepository.findAll().size();
+        plan.setDeductible(-1);
+
+        restPlanMockMvc
+            .perform(post(ENTITY_API_URL).contentType(MediaType.APPLICATION_JSON).content(TestUtil.convertObjectToJsonBytes(plan)))
+            .andExpect(status().isBadRequest());
+
+        assertThat(planRepository.findAll()).hasSize(databaseSizeBeforeTest);
+    }
+
+    @Test
+    @Transactional
+    void bulkDeletePlansWithIdsGivenTwice() throws Exception {
+        // Initialize the database
+        planRepository.saveAndFlush(plan);
+
+        int databaseSizeBeforeDelete = planRepository.findAll().size();
+
+        restPlanMockMvc
+            .perform(
+                delete(ENTITY_API_URL + "/bulk")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content("{\"ids\":[" + plan.getId() + "],\"criteria\":{\"id\":{\"in\":[" + plan.getId() + "]}}}")
+            )
+            .andExpect(status().isBadRequest())
+            .andExpect(jsonPath("$.message").value("error.idsconflict"));
+
+        assertThat(planRepository.findAll()).hasSize(databaseSizeBeforeDelete);
+    }
+
+    @Test
+    @Transactional
+    void bulkDeletePlans() throws Exception {
+        // Initialize the database
+        planRepository.saveAndFlush(plan);
+        Plan otherPlan = createUpdatedEntity(em);
+        planRepository.saveAndFlush(otherPlan);
+
+        int databaseSizeBeforeDelete = planRepository.findAll().size();
+
+        // Delete the plans with the updated deductible
+        restPlanMockMvc
+            .perform(
+                delete(ENTITY_API_URL + "/bulk")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(
+                        "{\"ids\":[" +
+                        plan.getId() +
+                        "," +
+                        otherPlan.getId() +
+                        "],\"criteria\":{\"deductible\":{\"equals\":" +
+                        UPDATED_DEDUCTIBLE +
+                        "}}}"
+                    )
+            )
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$").value(contains(otherPlan.getId().intValue())));
+
+        // Validate the database contains one less item
+        assertThat(planRepository.findAll()).hasSize(databaseSizeBeforeDelete - 1);
+        assertThat(planRepository.findById(otherPlan.getId())).isEmpty();
+        assertThat(planRepository.findById(plan.getId())).isPresent();
+    }
+
+    @Test
+    @Transactional
+    void bulkDeletePlansWithoutCriteria() throws Exception {
+        // Initialize the database
+        planRepository.saveAndFlush(plan);
+
+        int databaseSizeBeforeDelete = planRepository.findAll().size();
+
+        restPlanMockMvc
+            .perform(delete(ENTITY_API_URL + "/bulk").contentType(MediaType.APPLICATION_JSON).content("{\"criteria\":{}}"))
+            .andExpect(status().isBadRequest());
+
+        assertThat(planRepository.findAll()).hasSize(databaseSizeBeforeDelete);
+    }
 }
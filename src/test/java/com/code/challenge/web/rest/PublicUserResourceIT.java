@@ -1,7 +1,9 @@
 package com.code.challenge.web.rest;
 
+import static org.hamcrest.Matchers.everyItem;
 import static org.hamcrest.Matchers.hasItem;
 import static org.hamcrest.Matchers.hasItems;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
@@ -9,6 +11,8 @@ import com.code.challenge.IntegrationTest;
 import com.code.challenge.domain.User;
 import com.code.challenge.repository.UserRepository;
 import com.code.challenge.security.AuthoritiesConstants;
+import com.code.challenge.service.ResponseCacheService;
+import com.code.challenge.web.rest.util.CursorPaginationUtil;
 import javax.persistence.EntityManager;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -47,7 +51,7 @@ class PublicUserResourceIT {
     @BeforeEach
     public void setup() {
         cacheManager.getCache(UserRepository.USERS_BY_LOGIN_CACHE).clear();
-        cacheManager.getCache(UserRepository.USERS_BY_EMAIL_CACHE).clear();
+        cacheManager.getCache(ResponseCacheService.PUBLIC_USERS_CACHE).clear();
     }
 
     @BeforeEach
@@ -72,6 +76,41 @@ class PublicUserResourceIT {
             .andExpect(jsonPath("$.[*].langKey").doesNotExist());
     }
 
+    @Test
+    @Transactional
+    void getAllPublicUsersWithFields() throws Exception {
+        // Initialize the database
+        userRepository.saveAndFlush(user);
+
+        // Get only the ids of the users
+        restUserMockMvc
+            .perform(get("/api/users?sort=id,desc&fields=id").accept(MediaType.APPLICATION_JSON))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.[*].id").value(hasItem(user.getId().intValue())))
+            .andExpect(jsonPath("$.[*].login").doesNotExist());
+
+        restUserMockMvc.perform(get("/api/users?fields=email")).andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @Transactional
+    void getAllPublicUsersWithCursor() throws Exception {
+        // Initialize the database
+        userRepository.saveAndFlush(user);
+
+        // Get the users after the user, in descending id order
+        restUserMockMvc
+            .perform(get("/api/users?sort=id,desc&cursor=" + CursorPaginationUtil.encodeCursor(user.getId() + 1)))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.[0].login").value(user.getLogin()))
+            .andExpect(jsonPath("$.[*].id").value(everyItem(lessThanOrEqualTo(user.getId().intValue()))))
+            .andExpect(header().doesNotExist("X-Total-Count"));
+
+        restUserMockMvc
+            .perform(get("/api/users?sort=id,desc&cursor=" + CursorPaginationUtil.encodeCursor("not-an-id")))
+            .andExpect(status().isBadRequest());
+    }
+
     @Test
     @Transactional
     void getAllAuthorities() throws Exception {
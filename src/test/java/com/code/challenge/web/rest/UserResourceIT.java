@@ -3,10 +3,12 @@ package com.code.challenge.web.rest;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.hamcrest.Matchers.hasItem;
 import static org.hamcrest.Matchers.hasItems;
+import static org.hamcrest.Matchers.hasSize;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 import com.code.challenge.IntegrationTest;
+import com.code.challenge.config.JacksonConfiguration;
 import com.code.challenge.domain.Authority;
 import com.code.challenge.domain.User;
 import com.code.challenge.repository.UserRepository;
@@ -14,7 +16,12 @@ import com.code.challenge.security.AuthoritiesConstants;
 import com.code.challenge.service.dto.AdminUserDTO;
 import com.code.challenge.service.dto.UserDTO;
 import com.code.challenge.service.mapper.UserMapper;
+import com.code.challenge.web.rest.util.CursorPaginationUtil;
 import com.code.challenge.web.rest.vm.ManagedUserVM;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
 import java.time.Instant;
 import java.util.*;
 import java.util.function.Consumer;
@@ -25,6 +32,7 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.cache.CacheManager;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MockMvc;
@@ -81,7 +89,6 @@ class UserResourceIT {
     @BeforeEach
     public void setup() {
         cacheManager.getCache(UserRepository.USERS_BY_LOGIN_CACHE).clear();
-        cacheManager.getCache(UserRepository.USERS_BY_EMAIL_CACHE).clear();
     }
 
     /**
@@ -261,6 +268,59 @@ class UserResourceIT {
             .andExpect(jsonPath("$.[*].langKey").value(hasItem(DEFAULT_LANGKEY)));
     }
 
+    @Test
+    @Transactional
+    void getAllUsersWithFields() throws Exception {
+        // Initialize the database
+        userRepository.saveAndFlush(user);
+
+        // Get only the login of the users: the id is always returned
+        restUserMockMvc
+            .perform(get("/api/admin/users?sort=id,desc&fields=login").accept(MediaType.APPLICATION_JSON))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(MediaType.APPLICATION_JSON_VALUE))
+            .andExpect(jsonPath("$.[*].id").value(hasItem(user.getId().intValue())))
+            .andExpect(jsonPath("$.[*].login").value(hasItem(DEFAULT_LOGIN)))
+            .andExpect(jsonPath("$.[*].email").doesNotExist())
+            .andExpect(jsonPath("$.[*].authorities").doesNotExist());
+
+        restUserMockMvc.perform(get("/api/admin/users?fields=authorities")).andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @Transactional
+    void getAllUsersWithCursor() throws Exception {
+        // Initialize the database
+        userRepository.saveAndFlush(user);
+        User otherUser = createEntity(em);
+        userRepository.saveAndFlush(otherUser);
+
+        // Get the first page: it has the estimated number of users, and no count
+        restUserMockMvc
+            .perform(get("/api/admin/users?cursor=&sort=login,asc&size=1").accept(MediaType.APPLICATION_JSON))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$", hasSize(1)))
+            .andExpect(jsonPath("$.[0].login").value("admin"))
+            .andExpect(header().exists(HttpHeaders.LINK))
+            .andExpect(header().exists(CursorPaginationUtil.TOTAL_COUNT_ESTIMATE_HEADER))
+            .andExpect(header().doesNotExist("X-Total-Count"));
+
+        // Get the page following the user
+        restUserMockMvc
+            .perform(
+                get("/api/admin/users?sort=login,asc&size=1&cursor=" + CursorPaginationUtil.encodeCursor(DEFAULT_LOGIN))
+                    .accept(MediaType.APPLICATION_JSON)
+            )
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$", hasSize(1)))
+            .andExpect(jsonPath("$.[0].login").value(otherUser.getLogin()))
+            .andExpect(header().exists(HttpHeaders.LINK))
+            .andExpect(header().doesNotExist(CursorPaginationUtil.TOTAL_COUNT_ESTIMATE_HEADER));
+
+        // Only unique keys can be sought
+        restUserMockMvc.perform(get("/api/admin/users?cursor=&sort=email,asc")).andExpect(status().isBadRequest());
+    }
+
     @Test
     @Transactional
     void getUser() throws Exception {
@@ -284,6 +344,48 @@ class UserResourceIT {
         assertThat(cacheManager.getCache(UserRepository.USERS_BY_LOGIN_CACHE).get(user.getLogin())).isNotNull();
     }
 
+    @Test
+    @Transactional
+    void createUserAsSmileAndGetItAsCbor() throws Exception {
+        ManagedUserVM managedUserVM = new ManagedUserVM();
+        managedUserVM.setLogin(DEFAULT_LOGIN);
+        managedUserVM.setPassword(DEFAULT_PASSWORD);
+        managedUserVM.setFirstName(DEFAULT_FIRSTNAME);
+        managedUserVM.setLastName(DEFAULT_LASTNAME);
+        managedUserVM.setEmail(DEFAULT_EMAIL);
+        managedUserVM.setActivated(true);
+        managedUserVM.setImageUrl(DEFAULT_IMAGEURL);
+        managedUserVM.setLangKey(DEFAULT_LANGKEY);
+        managedUserVM.setAuthorities(Collections.singleton(AuthoritiesConstants.USER));
+
+        byte[] created = restUserMockMvc
+            .perform(
+                post("/api/admin/users")
+                    .contentType(JacksonConfiguration.APPLICATION_SMILE_VALUE)
+                    .accept(JacksonConfiguration.APPLICATION_SMILE_VALUE)
+                    .content(new ObjectMapper(new SmileFactory()).writeValueAsBytes(managedUserVM))
+            )
+            .andExpect(status().isCreated())
+            .andExpect(content().contentType(JacksonConfiguration.APPLICATION_SMILE_VALUE))
+            .andReturn()
+            .getResponse()
+            .getContentAsByteArray();
+        assertThat(new ObjectMapper(new SmileFactory()).readTree(created).get("login").asText()).isEqualTo(DEFAULT_LOGIN);
+
+        byte[] body = restUserMockMvc
+            .perform(get("/api/admin/users/{login}", DEFAULT_LOGIN).accept(MediaType.APPLICATION_CBOR))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(MediaType.APPLICATION_CBOR))
+            .andReturn()
+            .getResponse()
+            .getContentAsByteArray();
+
+        JsonNode cborUser = new ObjectMapper(new CBORFactory()).readTree(body);
+        assertThat(cborUser.get("login").asText()).isEqualTo(DEFAULT_LOGIN);
+        assertThat(cborUser.get("email").asText()).isEqualTo(DEFAULT_EMAIL);
+        assertThat(cborUser.get("authorities").get(0).asText()).isEqualTo(AuthoritiesConstants.USER);
+    }
+
     @Test
     @Transactional
     void getNonExistingUser() throws Exception {